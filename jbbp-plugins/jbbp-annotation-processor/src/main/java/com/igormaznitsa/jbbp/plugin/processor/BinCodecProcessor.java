@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.plugin.processor;
+
+import com.igormaznitsa.jbbp.mapper.Bin;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor generating codec classes for classes which fields are marked by
+ * {@link Bin} annotations. A codec has name of the mapped class with suffix {@code JBBPCodec}
+ * (nested class names are joined by underscore), it is placed into the package of the mapped
+ * class and contains static methods to read an object directly from
+ * {@link com.igormaznitsa.jbbp.io.JBBPBitInputStream} and to write it into
+ * {@link com.igormaznitsa.jbbp.io.JBBPBitOutputStream} without reflection.
+ * Values are read in the same way as parsing of script made by
+ * {@link com.igormaznitsa.jbbp.utils.JBBPDslBuilder} for the class and mapping of parsed
+ * structure, values are written in the same way as by
+ * {@link com.igormaznitsa.jbbp.io.JBBPOut#Bin(Object)}.
+ * <p>
+ * Classes which contain custom fields, fields mapped by path, fields which need value
+ * conversion or arrays which size expression is not a number, {@code _} or name of a numeric
+ * field read before the array are reported by warning and skipped, such classes are processed
+ * through reflection as before. Option {@code jbbp.codec.strict=true} makes such reports errors.
+ *
+ * @since 2.0.4
+ */
+@SupportedAnnotationTypes("com.igormaznitsa.jbbp.mapper.Bin")
+@SupportedOptions(BinCodecProcessor.OPTION_STRICT)
+public class BinCodecProcessor extends AbstractProcessor {
+
+  /**
+   * Processor option, if true then classes which can't get codec are reported as errors.
+   */
+  public static final String OPTION_STRICT = "jbbp.codec.strict";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations,
+                         final RoundEnvironment roundEnv) {
+    final Elements elements = this.processingEnv.getElementUtils();
+
+    final Map<String, TypeElement> candidates = new LinkedHashMap<>();
+    for (final Element element : roundEnv.getElementsAnnotatedWith(Bin.class)) {
+      final Element type = element instanceof TypeElement ? element
+          : element.getEnclosingElement();
+      if (type instanceof TypeElement) {
+        candidates.put(((TypeElement) type).getQualifiedName().toString(), (TypeElement) type);
+      }
+    }
+
+    final Map<String, MappedClass> mapped = new LinkedHashMap<>();
+    final Map<String, UnsupportedMappingException> skipped = new LinkedHashMap<>();
+    for (final Map.Entry<String, TypeElement> entry : candidates.entrySet()) {
+      try {
+        mapped.put(entry.getKey(),
+            MappedClass.make(entry.getValue(), elements, this.processingEnv.getTypeUtils()));
+      } catch (UnsupportedMappingException ex) {
+        skipped.put(entry.getKey(), ex);
+      }
+    }
+
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (final MappedClass mappedClass : mapped.values()) {
+        final String name = mappedClass.getType().getQualifiedName().toString();
+        if (!skipped.containsKey(name)) {
+          final UnsupportedMappingException problem = this.findStructProblem(mappedClass,
+              mapped, skipped);
+          if (problem != null) {
+            skipped.put(name, problem);
+            changed = true;
+          }
+        }
+      }
+    }
+
+    for (final MappedClass mappedClass : mapped.values()) {
+      if (!skipped.containsKey(mappedClass.getType().getQualifiedName().toString())) {
+        this.writeCodec(mappedClass, elements);
+      }
+    }
+
+    final Diagnostic.Kind kind =
+        Boolean.parseBoolean(this.processingEnv.getOptions().get(OPTION_STRICT))
+            ? Diagnostic.Kind.ERROR : Diagnostic.Kind.WARNING;
+    for (final Map.Entry<String, UnsupportedMappingException> entry : skipped.entrySet()) {
+      this.processingEnv.getMessager().printMessage(kind,
+          "JBBP codec is not generated for " + entry.getKey() + ": "
+              + entry.getValue().getMessage(), entry.getValue().getElement());
+    }
+    return false;
+  }
+
+  private UnsupportedMappingException findStructProblem(
+      final MappedClass mappedClass,
+      final Map<String, MappedClass> mapped,
+      final Map<String, UnsupportedMappingException> skipped) {
+    final Elements elements = this.processingEnv.getElementUtils();
+    for (final MappedField field : mappedClass.getFields()) {
+      final TypeElement structType = field.getStructType();
+      if (structType == null) {
+        continue;
+      }
+      final String structName = structType.getQualifiedName().toString();
+      if (skipped.containsKey(structName)) {
+        return new UnsupportedMappingException(
+            "codec is not generated for structure class " + structName, field.getField());
+      }
+      if (!mapped.containsKey(structName)
+          && elements.getTypeElement(MappedClass.findCodecClassName(structType, elements))
+          == null) {
+        return new UnsupportedMappingException(
+            "structure class doesn't have codec " + structName, field.getField());
+      }
+      if (!MappedClass.isInstantiable(structType, mappedClass.getCodecPackage(), elements)) {
+        return new UnsupportedMappingException(
+            "structure class doesn't have accessible default constructor " + structName,
+            field.getField());
+      }
+    }
+    return null;
+  }
+
+  private void writeCodec(final MappedClass mappedClass, final Elements elements) {
+    final String source = mappedClass.makeSource(elements);
+    try {
+      final JavaFileObject file = this.processingEnv.getFiler()
+          .createSourceFile(mappedClass.getCodecClassName(), mappedClass.getType());
+      try (Writer writer = file.openWriter()) {
+        writer.write(source);
+      }
+    } catch (IOException ex) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Can't write JBBP codec " + mappedClass.getCodecClassName() + ": " + ex.getMessage(),
+          mappedClass.getType());
+    }
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.plugin.processor;
+
+import com.igormaznitsa.jbbp.mapper.Bin;
+import com.igormaznitsa.jbbp.utils.JavaSrcTextBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Mapped class and generation of its codec. Fields are collected and ordered by the same rules
+ * as in {@code JBBPMapper#findAffectedFields}, so the codec processes fields in the same order
+ * as the mapper and {@code JBBPOut#Bin}.
+ *
+ * @since 2.0.4
+ */
+final class MappedClass {
+
+  /**
+   * Suffix of generated codec class names.
+   */
+  static final String CODEC_SUFFIX = "JBBPCodec";
+
+  private static final Comparator<Ordered> FIELD_ORDER = new Comparator<Ordered>() {
+    @Override
+    public int compare(final Ordered o1, final Ordered o2) {
+      final int result;
+      if (o1.order == o2.order) {
+        result = o1.name.compareTo(o2.name);
+      } else {
+        result = o1.order < o2.order ? -1 : 1;
+      }
+      return result;
+    }
+  };
+
+  private final TypeElement type;
+  private final String codecPackage;
+  private final String codecName;
+  private final List<MappedField> fields;
+
+  private MappedClass(final TypeElement type, final String codecPackage,
+                      final List<MappedField> fields, final Elements elements) {
+    this.type = type;
+    this.codecPackage = codecPackage;
+    this.codecName = findCodecSimpleName(type, elements);
+    this.fields = fields;
+  }
+
+  /**
+   * Make model of a mapped class.
+   *
+   * @param type     the class, must not be null
+   * @param elements element utils, must not be null
+   * @param types    type utils, must not be null
+   * @return the model, must not be null
+   * @throws UnsupportedMappingException if the class can't be processed by generated code
+   */
+  static MappedClass make(final TypeElement type, final Elements elements, final Types types)
+      throws UnsupportedMappingException {
+    if (type.getKind() != ElementKind.CLASS) {
+      throw new UnsupportedMappingException("only classes are supported", type);
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      throw new UnsupportedMappingException("generic classes are not supported", type);
+    }
+    Element current = type;
+    while (current instanceof TypeElement) {
+      final TypeElement currentType = (TypeElement) current;
+      if (currentType.getNestingKind() == NestingKind.LOCAL
+          || currentType.getNestingKind() == NestingKind.ANONYMOUS
+          || currentType.getModifiers().contains(Modifier.PRIVATE)) {
+        throw new UnsupportedMappingException("class is not accessible from its package", type);
+      }
+      current = currentType.getEnclosingElement();
+    }
+
+    final String codecPackage = elements.getPackageOf(type).getQualifiedName().toString();
+    final Bin defaultAnno = type.getAnnotation(Bin.class);
+
+    final List<Ordered> ordered = new ArrayList<>();
+    TypeElement processing = type;
+    while (processing != null) {
+      final String packageName = elements.getPackageOf(processing).getQualifiedName().toString();
+      if (packageName.startsWith("java.")
+          || packageName.startsWith("javax.")
+          || packageName.startsWith("android.")) {
+        break;
+      }
+      for (final VariableElement field : ElementFilter.fieldsIn(processing.getEnclosedElements())) {
+        final Bin fieldAnno = field.getAnnotation(Bin.class);
+        final String name = field.getSimpleName().toString();
+        if ((fieldAnno == null && defaultAnno == null) || name.indexOf('$') >= 0) {
+          continue;
+        }
+        final Set<Modifier> modifiers = field.getModifiers();
+        if (fieldAnno == null) {
+          if (modifiers.contains(Modifier.TRANSIENT)
+              || modifiers.contains(Modifier.STATIC)
+              || modifiers.contains(Modifier.FINAL)) {
+            continue;
+          }
+        } else if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+          throw new UnsupportedMappingException("Bin marked static or final field", field);
+        }
+        final Bin annotation = fieldAnno == null ? defaultAnno : fieldAnno;
+        ordered.add(new Ordered(annotation.order(), name,
+            MappedField.make(type, field, annotation, codecPackage, elements, types)));
+      }
+      final TypeMirror superClass = processing.getSuperclass();
+      processing = superClass.getKind() == TypeKind.DECLARED
+          ? (TypeElement) ((DeclaredType) superClass).asElement() : null;
+    }
+
+    Collections.sort(ordered, FIELD_ORDER);
+
+    final List<MappedField> fields = new ArrayList<>(ordered.size());
+    for (final Ordered item : ordered) {
+      item.field.resolveArraySize(fields);
+      fields.add(item.field);
+    }
+    return new MappedClass(type, codecPackage, fields, elements);
+  }
+
+  private static String findCodecSimpleName(final TypeElement type, final Elements elements) {
+    final String binaryName = elements.getBinaryName(type).toString();
+    final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+    final String localName = packageName.length() == 0
+        ? binaryName : binaryName.substring(packageName.length() + 1);
+    return localName.replace('$', '_') + CODEC_SUFFIX;
+  }
+
+  /**
+   * Find full name of the codec class generated for a mapped class.
+   *
+   * @param type     the mapped class, must not be null
+   * @param elements element utils, must not be null
+   * @return full name of the codec class, must not be null
+   */
+  static String findCodecClassName(final TypeElement type, final Elements elements) {
+    final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+    final String simpleName = findCodecSimpleName(type, elements);
+    return packageName.length() == 0 ? simpleName : packageName + '.' + simpleName;
+  }
+
+  /**
+   * Check that instance of a class can be made by its default constructor in generated code.
+   *
+   * @param type        the class, must not be null
+   * @param fromPackage package of the generated code, must not be null
+   * @param elements    element utils, must not be null
+   * @return true if the class has accessible default constructor
+   */
+  static boolean isInstantiable(final TypeElement type, final String fromPackage,
+                                final Elements elements) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT)
+        || (type.getNestingKind() == NestingKind.MEMBER
+        && !type.getModifiers().contains(Modifier.STATIC))) {
+      return false;
+    }
+    final boolean samePackage =
+        elements.getPackageOf(type).getQualifiedName().contentEquals(fromPackage);
+    for (final ExecutableElement constructor
+        : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()) {
+        final Set<Modifier> modifiers = constructor.getModifiers();
+        return modifiers.contains(Modifier.PUBLIC)
+            || (samePackage && !modifiers.contains(Modifier.PRIVATE));
+      }
+    }
+    return false;
+  }
+
+  TypeElement getType() {
+    return this.type;
+  }
+
+  String getCodecPackage() {
+    return this.codecPackage;
+  }
+
+  String getCodecClassName() {
+    return this.codecPackage.length() == 0
+        ? this.codecName : this.codecPackage + '.' + this.codecName;
+  }
+
+  List<MappedField> getFields() {
+    return this.fields;
+  }
+
+  /**
+   * Make source of the codec class.
+   *
+   * @param elements element utils, must not be null
+   * @return the source text, must not be null
+   */
+  String makeSource(final Elements elements) {
+    final String className = this.type.getQualifiedName().toString();
+    final JavaSrcTextBuffer buffer = new JavaSrcTextBuffer();
+
+    if (this.codecPackage.length() != 0) {
+      buffer.println("package " + this.codecPackage + ';');
+      buffer.println();
+    }
+    for (final String imported : new String[] {
+        "com.igormaznitsa.jbbp.io.JBBPBitInputStream",
+        "com.igormaznitsa.jbbp.io.JBBPBitNumber",
+        "com.igormaznitsa.jbbp.io.JBBPBitOutputStream",
+        "com.igormaznitsa.jbbp.io.JBBPByteOrder",
+        "com.igormaznitsa.jbbp.model.JBBPFieldBit",
+        "com.igormaznitsa.jbbp.model.JBBPFieldByte",
+        "com.igormaznitsa.jbbp.model.JBBPFieldInt",
+        "com.igormaznitsa.jbbp.model.JBBPFieldLong",
+        "com.igormaznitsa.jbbp.model.JBBPFieldShort",
+        "com.igormaznitsa.jbbp.model.JBBPFieldString",
+        "com.igormaznitsa.jbbp.model.JBBPFieldUByte",
+        "com.igormaznitsa.jbbp.model.JBBPFieldUShort",
+        "com.igormaznitsa.jbbp.utils.JBBPUtils",
+        "java.io.IOException"}) {
+      buffer.println("import " + imported + ';');
+    }
+    buffer.println();
+
+    buffer.printJavaDocLinesWithIndent("Codec for {@link " + className
+        + "} generated by JBBP annotation processor, don't edit it.");
+    buffer.print(this.type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "")
+        .println("final class " + this.codecName + " {");
+    buffer.incIndent();
+
+    buffer.println();
+    buffer.indent().println("private " + this.codecName + "() {");
+    buffer.indent().println("}");
+
+    if (isInstantiable(this.type, this.codecPackage, elements)) {
+      buffer.println();
+      buffer.indent().println("public static " + className
+          + " read(final JBBPBitInputStream in) throws IOException {");
+      buffer.incIndent();
+      buffer.indent().println("return read(in, new " + className + "());");
+      buffer.decIndent();
+      buffer.indent().println("}");
+    }
+
+    buffer.println();
+    buffer.indent().println("public static " + className
+        + " read(final JBBPBitInputStream in, final " + className + " obj) throws IOException {");
+    buffer.incIndent();
+    for (final MappedField field : this.fields) {
+      field.printRead(buffer, this.findStructCodec(field, elements));
+    }
+    buffer.indent().println("return obj;");
+    buffer.decIndent();
+    buffer.indent().println("}");
+
+    buffer.println();
+    buffer.indent().println("public static void write(final JBBPBitOutputStream out, final "
+        + className + " obj) throws IOException {");
+    buffer.incIndent();
+    for (final MappedField field : this.fields) {
+      field.printWrite(buffer, this.findStructCodec(field, elements));
+    }
+    buffer.decIndent();
+    buffer.indent().println("}");
+
+    buffer.decIndent();
+    buffer.println("}");
+    return buffer.toString();
+  }
+
+  private String findStructCodec(final MappedField field, final Elements elements) {
+    return field.getStructType() == null ? null
+        : findCodecClassName(field.getStructType(), elements);
+  }
+
+  private static final class Ordered {
+    private final int order;
+    private final String name;
+    private final MappedField field;
+
+    private Ordered(final int order, final String name, final MappedField field) {
+      this.order = order;
+      this.name = name;
+      this.field = field;
+    }
+  }
+}
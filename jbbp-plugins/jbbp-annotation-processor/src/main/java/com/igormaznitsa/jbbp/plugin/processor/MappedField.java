@@ -0,0 +1,857 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.plugin.processor;
+
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.mapper.Bin;
+import com.igormaznitsa.jbbp.mapper.BinType;
+import com.igormaznitsa.jbbp.utils.JavaSrcTextBuffer;
+import java.util.List;
+import java.util.Locale;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Mapped field of a class and code generation to read and write its value. Binary types of
+ * fields are resolved in the same way as in the mapper and in the writing observer, only
+ * combinations of binary types and field types which don't need value conversion are supported.
+ *
+ * @since 2.0.4
+ */
+final class MappedField {
+
+  private static final String WHOLE_STREAM = "_";
+
+  private final VariableElement field;
+  private final String mappedName;
+  private final Kind kind;
+  private final String javaType;
+  private final String componentType;
+  private final TypeElement structType;
+  private final String getter;
+  private final String setter;
+  private final String generator;
+  private final String sizeExpression;
+  private final String bitNumber;
+  private final String byteOrder;
+  private final boolean reverseBits;
+  private final boolean signed;
+  private String arraySize;
+
+  private MappedField(final VariableElement field, final String mappedName, final Kind kind,
+                      final TypeElement structType, final String getter, final String setter,
+                      final String generator, final String sizeExpression, final Bin annotation,
+                      final BinType type) {
+    this.field = field;
+    this.mappedName = mappedName;
+    this.kind = kind;
+    final TypeMirror fieldType = field.asType();
+    this.javaType = fieldType.toString();
+    this.componentType = fieldType.getKind() == TypeKind.ARRAY
+        ? ((ArrayType) fieldType).getComponentType().toString() : null;
+    this.structType = structType;
+    this.getter = getter;
+    this.setter = setter;
+    this.generator = generator;
+    this.sizeExpression = sizeExpression;
+    this.bitNumber = "JBBPBitNumber." + annotation.bitNumber().name();
+    this.byteOrder = "JBBPByteOrder." + annotation.byteOrder().name();
+    this.reverseBits = annotation.bitOrder() == JBBPBitOrder.MSB0;
+    this.signed = type == BinType.BYTE || type == BinType.SHORT
+        || type == BinType.BYTE_ARRAY || type == BinType.SHORT_ARRAY;
+  }
+
+  /**
+   * Make record for a mapped field.
+   *
+   * @param mappedClass  the class which fields are processed, must not be null
+   * @param field        the field, must not be null
+   * @param annotation   the annotation describing the field, must not be null
+   * @param codecPackage package of the generated codec, must not be null
+   * @param elements     element utils, must not be null
+   * @param types        type utils, must not be null
+   * @return the record, must not be null
+   * @throws UnsupportedMappingException if the field can't be processed by generated code
+   */
+  static MappedField make(final TypeElement mappedClass, final VariableElement field,
+                          final Bin annotation, final String codecPackage,
+                          final Elements elements, final Types types)
+      throws UnsupportedMappingException {
+    if (annotation.custom()) {
+      throw new UnsupportedMappingException("custom field", field);
+    }
+    if (annotation.path().length() != 0) {
+      throw new UnsupportedMappingException("field mapped by path", field);
+    }
+
+    final TypeMirror fieldType = field.asType();
+    final BinType type = annotation.type() == BinType.UNDEFINED
+        ? findCompatible(fieldType) : annotation.type();
+    if (type == null) {
+      throw new UnsupportedMappingException("unsupported field type", field);
+    }
+    final Kind kind = findKind(type, fieldType);
+    if (kind == null) {
+      throw new UnsupportedMappingException(
+          "field type is not compatible with " + type + " without conversion", field);
+    }
+
+    TypeElement structType = null;
+    if (kind == Kind.STRUCT || kind == Kind.STRUCT_ARRAY) {
+      final TypeMirror structMirror = kind == Kind.STRUCT
+          ? fieldType : ((ArrayType) fieldType).getComponentType();
+      final Element structElement = types.asElement(structMirror);
+      if (!(structElement instanceof TypeElement)
+          || !((TypeElement) structElement).getTypeParameters().isEmpty()) {
+        throw new UnsupportedMappingException("structure type must be a non-generic class",
+            field);
+      }
+      structType = (TypeElement) structElement;
+    }
+
+    final String name = field.getSimpleName().toString();
+    final String lowerCasedName = name.toLowerCase(Locale.ENGLISH);
+    String getter = null;
+    String setter = null;
+    String generator = null;
+    for (final ExecutableElement method
+        : ElementFilter.methodsIn(elements.getAllMembers(mappedClass))) {
+      if (!method.getModifiers().contains(Modifier.PUBLIC)
+          || method.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      final String methodName = method.getSimpleName().toString().toLowerCase(Locale.ENGLISH);
+      if (method.getParameters().isEmpty()) {
+        if (getter == null && methodName.equals("get" + lowerCasedName)) {
+          getter = "obj." + method.getSimpleName() + "()";
+        }
+        if (generator == null && methodName.equals("make" + lowerCasedName)) {
+          generator = "obj." + method.getSimpleName() + "()";
+        }
+      } else if (setter == null && method.getParameters().size() == 1
+          && methodName.equals("set" + lowerCasedName)
+          && types.isAssignable(method.getParameters().get(0).asType(), fieldType)) {
+        setter = "obj." + method.getSimpleName() + "(%s);";
+      }
+    }
+
+    final boolean accessible = field.getModifiers().contains(Modifier.PUBLIC)
+        || (!field.getModifiers().contains(Modifier.PRIVATE)
+        && elements.getPackageOf(field).getQualifiedName().contentEquals(codecPackage));
+    if (getter == null) {
+      if (!accessible) {
+        throw new UnsupportedMappingException("field is not accessible and doesn't have getter",
+            field);
+      }
+      getter = "obj." + name;
+    }
+    if (setter == null) {
+      if (!accessible) {
+        throw new UnsupportedMappingException("field is not accessible and doesn't have setter",
+            field);
+      }
+      setter = "obj." + name + " = %s;";
+    }
+
+    final String sizeExpression = annotation.arraySizeExpr().trim();
+    if (kind.isArray() && sizeExpression.length() == 0) {
+      throw new UnsupportedMappingException("array field without size expression", field);
+    }
+
+    return new MappedField(field, annotation.name().length() == 0 ? name : annotation.name(),
+        kind, structType, getter, setter, generator, sizeExpression, annotation, type);
+  }
+
+  private static BinType findCompatible(final TypeMirror type) {
+    final BinType result;
+    switch (type.getKind()) {
+      case ARRAY: {
+        final TypeMirror component = ((ArrayType) type).getComponentType();
+        switch (component.getKind()) {
+          case BYTE:
+            result = BinType.BYTE_ARRAY;
+            break;
+          case CHAR:
+            result = BinType.USHORT_ARRAY;
+            break;
+          case BOOLEAN:
+            result = BinType.BOOL_ARRAY;
+            break;
+          case SHORT:
+            result = BinType.SHORT_ARRAY;
+            break;
+          case INT:
+            result = BinType.INT_ARRAY;
+            break;
+          case LONG:
+            result = BinType.LONG_ARRAY;
+            break;
+          case FLOAT:
+            result = BinType.FLOAT_ARRAY;
+            break;
+          case DOUBLE:
+            result = BinType.DOUBLE_ARRAY;
+            break;
+          case DECLARED:
+            result = isString(component) ? BinType.STRING_ARRAY : BinType.STRUCT_ARRAY;
+            break;
+          default:
+            result = null;
+            break;
+        }
+      }
+      break;
+      case BYTE:
+        result = BinType.BYTE;
+        break;
+      case CHAR:
+        result = BinType.USHORT;
+        break;
+      case BOOLEAN:
+        result = BinType.BOOL;
+        break;
+      case SHORT:
+        result = BinType.SHORT;
+        break;
+      case INT:
+        result = BinType.INT;
+        break;
+      case LONG:
+        result = BinType.LONG;
+        break;
+      case FLOAT:
+        result = BinType.FLOAT;
+        break;
+      case DOUBLE:
+        result = BinType.DOUBLE;
+        break;
+      case DECLARED:
+        result = isString(type) ? BinType.STRING : BinType.STRUCT;
+        break;
+      default:
+        result = null;
+        break;
+    }
+    return result;
+  }
+
+  private static boolean isString(final TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement())
+        .getQualifiedName().contentEquals("java.lang.String");
+  }
+
+  private static boolean isIntegral(final TypeKind kind) {
+    return kind == TypeKind.BYTE || kind == TypeKind.SHORT || kind == TypeKind.INT
+        || kind == TypeKind.LONG;
+  }
+
+  private static Kind findKind(final BinType type, final TypeMirror fieldType) {
+    final TypeKind fieldKind = fieldType.getKind();
+    final boolean integral = isIntegral(fieldKind);
+    final TypeMirror component =
+        fieldKind == TypeKind.ARRAY ? ((ArrayType) fieldType).getComponentType() : null;
+    final TypeKind componentKind = component == null ? TypeKind.NONE : component.getKind();
+    final Kind result;
+    switch (type) {
+      case BIT:
+        result = fieldKind == TypeKind.BOOLEAN ? Kind.BITS_BOOLEAN : integral ? Kind.BITS : null;
+        break;
+      case BOOL:
+        result = fieldKind == TypeKind.BOOLEAN ? Kind.BOOL : integral ? Kind.BOOL_NUMBER : null;
+        break;
+      case BYTE:
+      case UBYTE:
+        result = integral ? Kind.BYTE : null;
+        break;
+      case SHORT:
+      case USHORT:
+        result = integral || fieldKind == TypeKind.CHAR ? Kind.SHORT : null;
+        break;
+      case INT:
+        result = integral ? Kind.INT : null;
+        break;
+      case LONG:
+        result = integral ? Kind.LONG : null;
+        break;
+      case FLOAT:
+        result = fieldKind == TypeKind.FLOAT ? Kind.FLOAT : null;
+        break;
+      case DOUBLE:
+        result = fieldKind == TypeKind.FLOAT || fieldKind == TypeKind.DOUBLE ? Kind.DOUBLE : null;
+        break;
+      case STRING:
+        result = isString(fieldType) ? Kind.STRING : null;
+        break;
+      case STRUCT:
+        result = fieldKind == TypeKind.DECLARED && !isString(fieldType) ? Kind.STRUCT : null;
+        break;
+      case BIT_ARRAY:
+        result = componentKind == TypeKind.BYTE ? Kind.BIT_ARRAY : null;
+        break;
+      case BOOL_ARRAY:
+        result = componentKind == TypeKind.BOOLEAN ? Kind.BOOL_ARRAY : null;
+        break;
+      case BYTE_ARRAY:
+      case UBYTE_ARRAY:
+        result = componentKind == TypeKind.BYTE ? Kind.BYTE_ARRAY : null;
+        break;
+      case SHORT_ARRAY:
+      case USHORT_ARRAY:
+        result = componentKind == TypeKind.SHORT ? Kind.SHORT_ARRAY
+            : componentKind == TypeKind.CHAR ? Kind.CHAR_ARRAY : null;
+        break;
+      case INT_ARRAY:
+        result = componentKind == TypeKind.INT ? Kind.INT_ARRAY : null;
+        break;
+      case LONG_ARRAY:
+        result = componentKind == TypeKind.LONG ? Kind.LONG_ARRAY : null;
+        break;
+      case FLOAT_ARRAY:
+        result = componentKind == TypeKind.FLOAT ? Kind.FLOAT_ARRAY : null;
+        break;
+      case DOUBLE_ARRAY:
+        result = componentKind == TypeKind.DOUBLE ? Kind.DOUBLE_ARRAY : null;
+        break;
+      case STRING_ARRAY:
+        result = component != null && isString(component) ? Kind.STRING_ARRAY : null;
+        break;
+      case STRUCT_ARRAY:
+        result = componentKind == TypeKind.DECLARED && !isString(component)
+            ? Kind.STRUCT_ARRAY : null;
+        break;
+      default:
+        result = null;
+        break;
+    }
+    return result;
+  }
+
+  VariableElement getField() {
+    return this.field;
+  }
+
+  TypeElement getStructType() {
+    return this.structType;
+  }
+
+  boolean isWholeStreamArray() {
+    return WHOLE_STREAM.equals(this.sizeExpression);
+  }
+
+  /**
+   * Check that the field can be used as size of an array in generated code.
+   *
+   * @return true if the field is a single integral one
+   */
+  private boolean isSizeSource() {
+    final TypeKind fieldKind = this.field.asType().getKind();
+    return !this.kind.isArray() && (isIntegral(fieldKind) || fieldKind == TypeKind.CHAR)
+        && this.kind != Kind.STRUCT;
+  }
+
+  /**
+   * Resolve java expression of array size, allowed expressions are integer literals, the whole
+   * stream marker and name of a numeric field read before the array.
+   *
+   * @param previous fields read before the field, must not be null
+   * @throws UnsupportedMappingException if the expression can't be translated
+   */
+  void resolveArraySize(final List<MappedField> previous) throws UnsupportedMappingException {
+    if (!this.kind.isArray()) {
+      return;
+    }
+    if (this.isWholeStreamArray()) {
+      this.arraySize = "-1";
+      return;
+    }
+    boolean digits = true;
+    for (int i = 0; i < this.sizeExpression.length(); i++) {
+      digits &= Character.isDigit(this.sizeExpression.charAt(i));
+    }
+    if (digits) {
+      try {
+        this.arraySize = Integer.toString(Integer.parseInt(this.sizeExpression));
+        return;
+      } catch (NumberFormatException ex) {
+        throw new UnsupportedMappingException(
+            "wrong array size [" + this.sizeExpression + ']', this.field);
+      }
+    }
+    for (int i = previous.size() - 1; i >= 0; i--) {
+      final MappedField sizeField = previous.get(i);
+      if (sizeField.mappedName.equalsIgnoreCase(this.sizeExpression)
+          && sizeField.isSizeSource()) {
+        this.arraySize = "(int) " + sizeField.getter;
+        return;
+      }
+    }
+    throw new UnsupportedMappingException(
+        "array size expression is not a number or a numeric field read before the array ["
+            + this.sizeExpression + ']', this.field);
+  }
+
+  private String set(final String value) {
+    return String.format(this.setter, value);
+  }
+
+  private String cast(final String value, final String valueType) {
+    return this.javaType.equals(valueType) ? value : '(' + this.javaType + ") " + value;
+  }
+
+  private String getterAs(final String type) {
+    return this.javaType.equals(type) ? this.getter : '(' + type + ") " + this.getter;
+  }
+
+  /**
+   * Print code reading value of the field from stream {@code in} into object {@code obj}.
+   *
+   * @param buffer     buffer to print code, must not be null
+   * @param structName name of the codec class for structure fields, can be null for other fields
+   */
+  void printRead(final JavaSrcTextBuffer buffer, final String structName) {
+    final String size = this.arraySize;
+    switch (this.kind) {
+      case BITS: {
+        final String value = "in.readBitField(" + this.bitNumber + ')';
+        buffer.indent().println(this.set(this.reverseBits
+            ? this.cast("JBBPFieldBit.reverseBits(" + value + ", " + this.bitNumber + ')', "long")
+            : this.cast('(' + value + " & 0xFF)", "int")));
+      }
+      break;
+      case BITS_BOOLEAN: {
+        buffer.indent().println(this.set("in.readBitField(" + this.bitNumber + ") != 0"));
+      }
+      break;
+      case BOOL: {
+        buffer.indent().println(this.set("in.readBoolean()"));
+      }
+      break;
+      case BOOL_NUMBER: {
+        buffer.indent().println(this.set(this.cast("(in.readBoolean() ? 1 : 0)", "int")));
+      }
+      break;
+      case BYTE: {
+        final String value;
+        if (this.reverseBits) {
+          value = this.cast((this.signed ? "JBBPFieldByte" : "JBBPFieldUByte")
+              + ".reverseBits((byte) in.readByte())", "long");
+        } else {
+          value = this.signed
+              ? this.cast("(byte) in.readByte()", "byte") : this.cast("in.readByte()", "int");
+        }
+        buffer.indent().println(this.set(value));
+      }
+      break;
+      case SHORT: {
+        final String read = "in.readUnsignedShort(" + this.byteOrder + ')';
+        final String value;
+        if (this.reverseBits) {
+          value = this.cast((this.signed ? "JBBPFieldShort" : "JBBPFieldUShort")
+              + ".reverseBits((short) " + read + ')', "long");
+        } else {
+          value = this.signed ? this.cast("(short) " + read, "short") : this.cast(read, "int");
+        }
+        buffer.indent().println(this.set(value));
+      }
+      break;
+      case INT: {
+        final String value = "in.readInt(" + this.byteOrder + ')';
+        buffer.indent().println(this.set(this.reverseBits
+            ? this.cast("JBBPFieldInt.reverseBits(" + value + ')', "long")
+            : this.cast(value, "int")));
+      }
+      break;
+      case LONG: {
+        final String value = "in.readLong(" + this.byteOrder + ')';
+        buffer.indent().println(this.set(this.cast(
+            this.reverseBits ? "JBBPFieldLong.reverseBits(" + value + ')' : value, "long")));
+      }
+      break;
+      case FLOAT: {
+        final String value = "in.readFloat(" + this.byteOrder + ')';
+        buffer.indent().println(this.set(this.reverseBits
+            ? "Float.intBitsToFloat((int) JBBPFieldInt.reverseBits(Float.floatToIntBits("
+            + value + ")))" : value));
+      }
+      break;
+      case DOUBLE: {
+        final String value = "in.readDouble(" + this.byteOrder + ')';
+        buffer.indent().println(this.set(this.cast(this.reverseBits
+            ? "Double.longBitsToDouble(JBBPFieldLong.reverseBits(Double.doubleToLongBits("
+            + value + ")))" : value, "double")));
+      }
+      break;
+      case STRING: {
+        final String value = "in.readString(" + this.byteOrder + ')';
+        buffer.indent().println(this.set(
+            this.reverseBits ? "JBBPFieldString.reverseBits(" + value + ')' : value));
+      }
+      break;
+      case STRUCT: {
+        buffer.indent().println("{");
+        buffer.incIndent();
+        buffer.indent().println("final " + this.javaType + " value = " + this.getter + ';');
+        buffer.indent().println("if (value == null) {");
+        buffer.incIndent();
+        if (this.generator == null) {
+          buffer.indent().println(this.set(structName + ".read(in, new " + this.javaType + "())"));
+        } else {
+          buffer.indent().println(structName + ".read(in, " + this.generator + ");");
+        }
+        buffer.decIndent();
+        buffer.indent().println("} else {");
+        buffer.incIndent();
+        buffer.indent().println(structName + ".read(in, value);");
+        buffer.decIndent();
+        buffer.indent().println("}");
+        buffer.decIndent();
+        buffer.indent().println("}");
+      }
+      break;
+      case BIT_ARRAY: {
+        this.printReadArray(buffer,
+            "in.readBitsArray(" + size + ", " + this.bitNumber + ')',
+            "(byte) JBBPFieldBit.reverseBits(array[i], " + this.bitNumber + ')');
+      }
+      break;
+      case BOOL_ARRAY: {
+        this.printReadArray(buffer, "in.readBoolArray(" + size + ')', null);
+      }
+      break;
+      case BYTE_ARRAY: {
+        this.printReadArray(buffer, "in.readByteArray(" + size + ", " + this.byteOrder + ')',
+            "JBBPUtils.reverseBitsInByte(array[i])");
+      }
+      break;
+      case SHORT_ARRAY: {
+        this.printReadArray(buffer, "in.readShortArray(" + size + ", " + this.byteOrder + ')',
+            "(short) JBBPFieldShort.reverseBits(array[i])");
+      }
+      break;
+      case CHAR_ARRAY: {
+        this.printReadArray(buffer, "in.readUShortArray(" + size + ", " + this.byteOrder + ')',
+            "(char) JBBPFieldUShort.reverseBits((short) array[i])");
+      }
+      break;
+      case INT_ARRAY: {
+        this.printReadArray(buffer, "in.readIntArray(" + size + ", " + this.byteOrder + ')',
+            "(int) JBBPFieldInt.reverseBits(array[i])");
+      }
+      break;
+      case LONG_ARRAY: {
+        this.printReadArray(buffer, "in.readLongArray(" + size + ", " + this.byteOrder + ')',
+            "JBBPFieldLong.reverseBits(array[i])");
+      }
+      break;
+      case FLOAT_ARRAY: {
+        this.printReadArray(buffer, "in.readFloatArray(" + size + ", " + this.byteOrder + ')',
+            "Float.intBitsToFloat((int) JBBPFieldInt.reverseBits("
+                + "Float.floatToIntBits(array[i])))");
+      }
+      break;
+      case DOUBLE_ARRAY: {
+        this.printReadArray(buffer, "in.readDoubleArray(" + size + ", " + this.byteOrder + ')',
+            "Double.longBitsToDouble(JBBPFieldLong.reverseBits("
+                + "Double.doubleToLongBits(array[i])))");
+      }
+      break;
+      case STRING_ARRAY: {
+        this.printReadArray(buffer, "in.readStringArray(" + size + ", " + this.byteOrder + ')',
+            "JBBPFieldString.reverseBits(array[i])");
+      }
+      break;
+      case STRUCT_ARRAY: {
+        this.printReadStructArray(buffer, structName, size);
+      }
+      break;
+      default:
+        throw new Error("Unexpected kind: " + this.kind);
+    }
+  }
+
+  private void printReadArray(final JavaSrcTextBuffer buffer, final String read,
+                              final String reverse) {
+    if (this.reverseBits && reverse != null) {
+      buffer.indent().println("{");
+      buffer.incIndent();
+      buffer.indent().println("final " + this.javaType + " array = " + read + ';');
+      buffer.indent().println("for (int i = 0; i < array.length; i++) {");
+      buffer.incIndent();
+      buffer.indent().println("array[i] = " + reverse + ';');
+      buffer.decIndent();
+      buffer.indent().println("}");
+      buffer.indent().println(this.set("array"));
+      buffer.decIndent();
+      buffer.indent().println("}");
+    } else {
+      buffer.indent().println(this.set(read));
+    }
+  }
+
+  private void printReadStructArray(final JavaSrcTextBuffer buffer, final String structName,
+                                    final String size) {
+    final String item = this.componentType;
+    buffer.indent().println("{");
+    buffer.incIndent();
+    if (this.isWholeStreamArray()) {
+      buffer.indent().println("final java.util.List<" + item + "> list = new java.util.ArrayList<"
+          + item + ">();");
+      buffer.indent().println("while (in.hasAvailableData()) {");
+      buffer.incIndent();
+      buffer.indent().println("list.add(" + structName + ".read(in, new " + item + "()));");
+      buffer.decIndent();
+      buffer.indent().println("}");
+      buffer.indent().println(this.set("list.toArray(new " + item + "[list.size()])"));
+    } else {
+      buffer.indent().println("final int length = " + size + ';');
+      buffer.indent().println(this.javaType + " array = " + this.getter + ';');
+      buffer.indent().println("if (array == null || array.length != length) {");
+      buffer.incIndent();
+      buffer.indent().println("array = new " + item + "[length];");
+      buffer.decIndent();
+      buffer.indent().println("}");
+      buffer.indent().println("for (int i = 0; i < length; i++) {");
+      buffer.incIndent();
+      buffer.indent().println("if (array[i] == null) {");
+      buffer.incIndent();
+      buffer.indent().println("array[i] = new " + item + "();");
+      buffer.decIndent();
+      buffer.indent().println("}");
+      buffer.indent().println(structName + ".read(in, array[i]);");
+      buffer.decIndent();
+      buffer.indent().println("}");
+      buffer.indent().println(this.set("array"));
+    }
+    buffer.decIndent();
+    buffer.indent().println("}");
+  }
+
+  /**
+   * Print code writing value of the field of object {@code obj} into stream {@code out}.
+   *
+   * @param buffer     buffer to print code, must not be null
+   * @param structName name of the codec class for structure fields, can be null for other fields
+   */
+  void printWrite(final JavaSrcTextBuffer buffer, final String structName) {
+    final String boolTrue = this.reverseBits ? "0x80" : "1";
+    switch (this.kind) {
+      case BITS: {
+        final String value = this.getterAs("byte");
+        buffer.indent().println("out.writeBits(" + (this.reverseBits
+            ? "JBBPUtils.reverseBitsInByte(" + this.bitNumber + ", " + value + ')'
+            : value) + ", " + this.bitNumber + ");");
+      }
+      break;
+      case BITS_BOOLEAN: {
+        buffer.indent().println(
+            "out.writeBits(" + this.getter + " ? 0xFF : 0x00, " + this.bitNumber + ");");
+      }
+      break;
+      case BOOL: {
+        buffer.indent().println("out.write(" + this.getter + " ? " + boolTrue + " : 0);");
+      }
+      break;
+      case BOOL_NUMBER: {
+        buffer.indent().println("out.write(" + this.getter + " != 0 ? " + boolTrue + " : 0);");
+      }
+      break;
+      case BYTE: {
+        final String value = this.getterAs("byte");
+        buffer.indent().println("out.write("
+            + (this.reverseBits ? "JBBPUtils.reverseBitsInByte(" + value + ')' : value) + ");");
+      }
+      break;
+      case SHORT: {
+        final String value = this.getterAs("short");
+        buffer.indent().println("out.writeShort(" + (this.reverseBits
+            ? "(short) JBBPFieldShort.reverseBits(" + value + ')' : value)
+            + ", " + this.byteOrder + ");");
+      }
+      break;
+      case INT: {
+        final String value = this.getterAs("int");
+        buffer.indent().println("out.writeInt(" + (this.reverseBits
+            ? "(int) JBBPFieldInt.reverseBits(" + value + ')' : value)
+            + ", " + this.byteOrder + ");");
+      }
+      break;
+      case LONG: {
+        final String value = this.getterAs("long");
+        buffer.indent().println("out.writeLong(" + (this.reverseBits
+            ? "JBBPFieldLong.reverseBits(" + value + ')' : value)
+            + ", " + this.byteOrder + ");");
+      }
+      break;
+      case FLOAT: {
+        buffer.indent().println("out.writeFloat(" + (this.reverseBits
+            ? "Float.intBitsToFloat((int) JBBPFieldInt.reverseBits(Float.floatToIntBits("
+            + this.getter + ")))" : this.getter) + ", " + this.byteOrder + ");");
+      }
+      break;
+      case DOUBLE: {
+        buffer.indent().println("out.writeDouble(" + (this.reverseBits
+            ? "Double.longBitsToDouble(JBBPFieldLong.reverseBits(Double.doubleToLongBits("
+            + this.getter + ")))" : this.getter) + ", " + this.byteOrder + ");");
+      }
+      break;
+      case STRING: {
+        buffer.indent().println("out.writeString(" + (this.reverseBits
+            ? "JBBPFieldString.reverseBits(" + this.getter + ')' : this.getter)
+            + ", " + this.byteOrder + ");");
+      }
+      break;
+      case STRUCT: {
+        buffer.indent().println(structName + ".write(out, " + this.getter + ");");
+      }
+      break;
+      case BIT_ARRAY: {
+        this.printWriteItems(buffer, "out.writeBits(" + (this.reverseBits
+            ? "JBBPUtils.reverseBitsInByte(" + this.bitNumber + ", item)" : "item")
+            + ", " + this.bitNumber + ");");
+      }
+      break;
+      case BOOL_ARRAY: {
+        this.printWriteItems(buffer, "out.write(item ? " + boolTrue + " : 0);");
+      }
+      break;
+      case BYTE_ARRAY: {
+        if (this.reverseBits) {
+          this.printWriteItems(buffer, "out.write(JBBPUtils.reverseBitsInByte(item));");
+        } else {
+          buffer.indent().println("{");
+          buffer.incIndent();
+          buffer.indent().println("final byte[] array = " + this.getter + ';');
+          buffer.indent().println("out.write(array, 0, array.length);");
+          buffer.decIndent();
+          buffer.indent().println("}");
+        }
+      }
+      break;
+      case SHORT_ARRAY: {
+        this.printWriteArray(buffer, "writeShortArray",
+            "out.writeShort((short) JBBPFieldShort.reverseBits(item), " + this.byteOrder + ");");
+      }
+      break;
+      case CHAR_ARRAY: {
+        this.printWriteItems(buffer, "out.writeShort(" + (this.reverseBits
+            ? "(short) JBBPFieldShort.reverseBits((short) item)" : "item")
+            + ", " + this.byteOrder + ");");
+      }
+      break;
+      case INT_ARRAY: {
+        this.printWriteArray(buffer, "writeIntArray",
+            "out.writeInt((int) JBBPFieldInt.reverseBits(item), " + this.byteOrder + ");");
+      }
+      break;
+      case LONG_ARRAY: {
+        this.printWriteArray(buffer, "writeLongArray",
+            "out.writeLong(JBBPFieldLong.reverseBits(item), " + this.byteOrder + ");");
+      }
+      break;
+      case FLOAT_ARRAY: {
+        this.printWriteArray(buffer, "writeFloatArray",
+            "out.writeFloat(Float.intBitsToFloat((int) JBBPFieldInt.reverseBits("
+                + "Float.floatToIntBits(item))), " + this.byteOrder + ");");
+      }
+      break;
+      case DOUBLE_ARRAY: {
+        this.printWriteArray(buffer, "writeDoubleArray",
+            "out.writeDouble(Double.longBitsToDouble(JBBPFieldLong.reverseBits("
+                + "Double.doubleToLongBits(item))), " + this.byteOrder + ");");
+      }
+      break;
+      case STRING_ARRAY: {
+        this.printWriteItems(buffer, "out.writeString(" + (this.reverseBits
+            ? "JBBPFieldString.reverseBits(item)" : "item") + ", " + this.byteOrder + ");");
+      }
+      break;
+      case STRUCT_ARRAY: {
+        this.printWriteItems(buffer, structName + ".write(out, item);");
+      }
+      break;
+      default:
+        throw new Error("Unexpected kind: " + this.kind);
+    }
+  }
+
+  private void printWriteItems(final JavaSrcTextBuffer buffer, final String write) {
+    buffer.indent().println("for (final " + this.componentType + " item : " + this.getter + ") {");
+    buffer.incIndent();
+    buffer.indent().println(write);
+    buffer.decIndent();
+    buffer.indent().println("}");
+  }
+
+  private void printWriteArray(final JavaSrcTextBuffer buffer, final String bulkMethod,
+                               final String reversedWrite) {
+    if (this.reverseBits) {
+      this.printWriteItems(buffer, reversedWrite);
+    } else {
+      buffer.indent().println(
+          "out." + bulkMethod + '(' + this.getter + ", -1, " + this.byteOrder + ");");
+    }
+  }
+
+  /**
+   * Kind of generated code for a field, the same set as in the write plan of the core library.
+   */
+  enum Kind {
+    BITS(false),
+    BITS_BOOLEAN(false),
+    BOOL(false),
+    BOOL_NUMBER(false),
+    BYTE(false),
+    SHORT(false),
+    INT(false),
+    LONG(false),
+    FLOAT(false),
+    DOUBLE(false),
+    STRING(false),
+    STRUCT(false),
+    BIT_ARRAY(true),
+    BOOL_ARRAY(true),
+    BYTE_ARRAY(true),
+    SHORT_ARRAY(true),
+    CHAR_ARRAY(true),
+    INT_ARRAY(true),
+    LONG_ARRAY(true),
+    FLOAT_ARRAY(true),
+    DOUBLE_ARRAY(true),
+    STRING_ARRAY(true),
+    STRUCT_ARRAY(true);
+
+    private final boolean array;
+
+    Kind(final boolean array) {
+      this.array = array;
+    }
+
+    boolean isArray() {
+      return this.array;
+    }
+  }
+}
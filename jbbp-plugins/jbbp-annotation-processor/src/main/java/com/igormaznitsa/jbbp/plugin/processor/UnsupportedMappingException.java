@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.plugin.processor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Thrown if a mapped class contains a field which can't be processed by generated code, the
+ * class is processed through reflection in the case.
+ *
+ * @since 2.0.4
+ */
+final class UnsupportedMappingException extends Exception {
+  private static final long serialVersionUID = -2316477409128865117L;
+
+  private final transient Element element;
+
+  UnsupportedMappingException(final String message, final Element element) {
+    super(message);
+    this.element = element;
+  }
+
+  /**
+   * Get the element which can't be processed.
+   *
+   * @return the element, must not be null
+   */
+  Element getElement() {
+    return this.element;
+  }
+}
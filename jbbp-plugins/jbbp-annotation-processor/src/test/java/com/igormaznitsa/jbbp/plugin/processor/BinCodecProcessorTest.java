@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.plugin.processor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.igormaznitsa.jbbp.JBBPParser;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPBitOutputStream;
+import com.igormaznitsa.jbbp.io.JBBPOut;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import com.igormaznitsa.jbbp.utils.JBBPDslBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BinCodecProcessorTest {
+
+  private static final String PACKET = "package codec.test;\n"
+      + "import com.igormaznitsa.jbbp.mapper.*;\n"
+      + "import com.igormaznitsa.jbbp.io.*;\n"
+      + "public class Packet {\n"
+      + "  @Bin(order = 1, type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_3)"
+      + " public byte bits;\n"
+      + "  @Bin(order = 2, type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_5,"
+      + " bitOrder = JBBPBitOrder.MSB0) public int msbBits;\n"
+      + "  @Bin(order = 3) public boolean flag;\n"
+      + "  @Bin(order = 4, type = BinType.UBYTE) public int ubyte;\n"
+      + "  @Bin(order = 5) public short shortValue;\n"
+      + "  @Bin(order = 6, byteOrder = JBBPByteOrder.LITTLE_ENDIAN) public char charValue;\n"
+      + "  @Bin(order = 7, bitOrder = JBBPBitOrder.MSB0) public int intValue;\n"
+      + "  @Bin(order = 8, type = BinType.INT) long longFromInt;\n"
+      + "  @Bin(order = 9) public float floatValue;\n"
+      + "  @Bin(order = 10) public double doubleValue;\n"
+      + "  @Bin(order = 11) public String text;\n"
+      + "  @Bin(order = 12, type = BinType.UBYTE) public int length;\n"
+      + "  @Bin(order = 13, arraySizeExpr = \"length\") public int[] ints;\n"
+      + "  @Bin(order = 14, arraySizeExpr = \"2\") public Item[] items;\n"
+      + "  @Bin(order = 15) public Item single;\n"
+      + "  @Bin(order = 16, arraySizeExpr = \"_\") public byte[] rest;\n"
+      + "  public long getLongFromInt() { return this.longFromInt; }\n"
+      + "  public void setLongFromInt(long value) { this.longFromInt = value; }\n"
+      + "  @Bin public static class Item {\n"
+      + "    public short value;\n"
+      + "    @Bin(arraySizeExpr = \"2\", type = BinType.BIT_ARRAY,"
+      + " bitNumber = JBBPBitNumber.BITS_4) public byte[] nibbles;\n"
+      + "  }\n"
+      + "}\n";
+
+  private static final String UNSUPPORTED = "package codec.test;\n"
+      + "import com.igormaznitsa.jbbp.mapper.*;\n"
+      + "public class Unsupported {\n"
+      + "  @Bin(custom = true) public int custom;\n"
+      + "}\n";
+
+  private static final String WITH_UNSUPPORTED = "package codec.test;\n"
+      + "import com.igormaznitsa.jbbp.mapper.*;\n"
+      + "public class WithUnsupported {\n"
+      + "  @Bin public Unsupported value;\n"
+      + "}\n";
+
+  private static ClassLoader compile(final Path folder, final List<String> messages,
+                                     final String... sources) throws Exception {
+    final Path srcFolder = folder.resolve("src/codec/test");
+    final Path outFolder = folder.resolve("classes");
+    Files.createDirectories(srcFolder);
+    Files.createDirectories(outFolder);
+
+    final List<File> files = new ArrayList<>();
+    for (final String source : sources) {
+      final String name = source.substring(source.indexOf("public class ") + 13,
+          source.indexOf(" {", source.indexOf("public class ")));
+      final Path file = srcFolder.resolve(name + ".java");
+      Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+      files.add(file.toFile());
+    }
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final StringWriter output = new StringWriter();
+    try (StandardJavaFileManager manager = compiler.getStandardFileManager(null, null, null)) {
+      final Iterable<? extends JavaFileObject> units = manager.getJavaFileObjectsFromFiles(files);
+      final JavaCompiler.CompilationTask task = compiler.getTask(output, manager,
+          diagnostic -> messages.add(diagnostic.getMessage(null)),
+          Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d",
+              outFolder.toString(), "-s", outFolder.toString()), null, units);
+      task.setProcessors(Arrays.asList(new BinCodecProcessor()));
+      assertTrue(task.call(), () -> "Compilation error: " + messages + output);
+    }
+    return new URLClassLoader(new URL[] {outFolder.toUri().toURL()},
+        BinCodecProcessorTest.class.getClassLoader());
+  }
+
+  private static Object newItem(final Class<?> itemClass, final int value, final byte[] nibbles)
+      throws Exception {
+    final Object result = itemClass.getConstructor().newInstance();
+    itemClass.getField("value").setShort(result, (short) value);
+    itemClass.getField("nibbles").set(result, nibbles);
+    return result;
+  }
+
+  private static byte[] write(final Class<?> codec, final Class<?> type, final Object obj)
+      throws Exception {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final JBBPBitOutputStream out = new JBBPBitOutputStream(buffer);
+    codec.getMethod("write", JBBPBitOutputStream.class, type).invoke(null, out, obj);
+    out.close();
+    return buffer.toByteArray();
+  }
+
+  private static void assertSameValue(final String name, final Object expected,
+                                      final Object actual) throws Exception {
+    if (expected.getClass().getName().equals("codec.test.Packet$Item")) {
+      assertArrayEquals(JBBPOut.BeginBin().Bin(expected).End().toByteArray(),
+          JBBPOut.BeginBin().Bin(actual).End().toByteArray(), name);
+    } else {
+      assertEquals(expected, actual, name);
+    }
+  }
+
+  @Test
+  public void testGeneratedCodecGivesSameDataAsReflection(@TempDir final Path folder)
+      throws Exception {
+    final List<String> messages = new ArrayList<>();
+    final ClassLoader loader = compile(folder, messages, PACKET);
+    assertTrue(messages.isEmpty(), messages::toString);
+
+    final Class<?> packetClass = loader.loadClass("codec.test.Packet");
+    final Class<?> itemClass = loader.loadClass("codec.test.Packet$Item");
+    final Class<?> packetCodec = loader.loadClass("codec.test.PacketJBBPCodec");
+    loader.loadClass("codec.test.Packet_ItemJBBPCodec");
+
+    final Object packet = packetClass.getConstructor().newInstance();
+    packetClass.getField("bits").setByte(packet, (byte) 5);
+    packetClass.getField("msbBits").setInt(packet, 0x13);
+    packetClass.getField("flag").setBoolean(packet, true);
+    packetClass.getField("ubyte").setInt(packet, 0xF1);
+    packetClass.getField("shortValue").setShort(packet, (short) -1234);
+    packetClass.getField("charValue").setChar(packet, (char) 0xABCD);
+    packetClass.getField("intValue").setInt(packet, 0x12345678);
+    packetClass.getMethod("setLongFromInt", long.class).invoke(packet, -7L);
+    packetClass.getField("floatValue").setFloat(packet, 1.25f);
+    packetClass.getField("doubleValue").setDouble(packet, -3.5d);
+    packetClass.getField("text").set(packet, "Hello");
+    packetClass.getField("length").setInt(packet, 3);
+    packetClass.getField("ints").set(packet, new int[] {1, -2, 3});
+    final Object items = Array.newInstance(itemClass, 2);
+    Array.set(items, 0, newItem(itemClass, 1, new byte[] {1, 2}));
+    Array.set(items, 1, newItem(itemClass, 2, new byte[] {4, 5}));
+    packetClass.getField("items").set(packet, items);
+    packetClass.getField("single").set(packet, newItem(itemClass, 3, new byte[] {7, 8}));
+    packetClass.getField("rest").set(packet, new byte[] {10, 11, 12, 13});
+
+    final byte[] written = write(packetCodec, packetClass, packet);
+    assertArrayEquals(JBBPOut.BeginBin().Bin(packet).End().toByteArray(), written);
+
+    final Method read = packetCodec.getMethod("read", JBBPBitInputStream.class);
+    final Object decoded = read.invoke(null,
+        new JBBPBitInputStream(new ByteArrayInputStream(written)));
+    final Object mapped = JBBPParser.prepare(JBBPDslBuilder.Begin()
+        .AnnotatedClass(packetClass).End())
+        .parse(written).findFieldForNameAndType("packet", JBBPFieldStruct.class)
+        .mapTo(packetClass.getConstructor().newInstance());
+
+    for (final Field field : packetClass.getDeclaredFields()) {
+      field.setAccessible(true);
+      final Object expected = field.get(mapped);
+      final Object actual = field.get(decoded);
+      if (field.getType().isArray()) {
+        assertEquals(Array.getLength(expected), Array.getLength(actual), field.getName());
+        for (int i = 0; i < Array.getLength(expected); i++) {
+          assertSameValue(field.getName(), Array.get(expected, i), Array.get(actual, i));
+        }
+      } else {
+        assertSameValue(field.getName(), expected, actual);
+      }
+    }
+    assertArrayEquals(written, write(packetCodec, packetClass, decoded));
+  }
+
+  @Test
+  public void testUnsupportedClassesAreSkippedWithWarning(@TempDir final Path folder)
+      throws Exception {
+    final List<String> messages = new ArrayList<>();
+    final ClassLoader loader = compile(folder, messages, UNSUPPORTED, WITH_UNSUPPORTED);
+    assertEquals(2, messages.size(), messages::toString);
+    assertTrue(messages.stream()
+        .anyMatch(x -> x.contains("codec.test.Unsupported: custom field")), messages::toString);
+    assertTrue(messages.stream()
+        .anyMatch(x -> x.contains("codec.test.WithUnsupported: codec is not generated")),
+        messages::toString);
+    assertFalse(Files.exists(folder.resolve("classes/codec/test/UnsupportedJBBPCodec.class")));
+    loader.loadClass("codec.test.WithUnsupported");
+    assertFalse(Files.exists(folder.resolve("classes/codec/test/WithUnsupportedJBBPCodec.java")));
+  }
+}
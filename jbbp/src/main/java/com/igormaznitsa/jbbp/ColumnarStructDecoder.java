@@ -0,0 +1,284 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.model.JBBPAbstractArrayField;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldColumnarStruct;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
+import java.io.IOException;
+import java.lang.reflect.Array;
+
+/**
+ * Decoder of a structure array into columns, it can be made only for structures which contain
+ * only single primitive fields without expressions.
+ *
+ * @see JBBPParser#FLAG_COLUMNAR_STRUCT_ARRAYS
+ * @since 2.0.4
+ */
+final class ColumnarStructDecoder {
+
+  /**
+   * Initial capacity of columns for arrays read till the stream end.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final JBBPNamedFieldInfo name;
+  private final ParserInstruction[] members;
+  private final int columnNumber;
+
+  private ColumnarStructDecoder(final JBBPNamedFieldInfo name, final ParserInstruction[] members,
+                                final int columnNumber) {
+    this.name = name;
+    this.members = members;
+    this.columnNumber = columnNumber;
+  }
+
+  /**
+   * Make decoder for a structure array.
+   *
+   * @param instructions parser instructions, must not be null
+   * @param index        index of structure start instruction of the array
+   * @return decoder for the structure array or null if the structure can't be decoded into columns
+   */
+  static ColumnarStructDecoder make(final ParserInstruction[] instructions, final int index) {
+    final ParserInstruction struct = instructions[index];
+    final ParserInstruction[] members = new ParserInstruction[struct.structEnd - index - 1];
+    int columns = 0;
+    for (int i = 0; i < members.length; i++) {
+      final ParserInstruction member = instructions[index + 1 + i];
+      if (member.arrayKind != ParserInstruction.ARRAY_NONE || member.extraEvaluator != null
+          || member.arrayEvaluator != null) {
+        return null;
+      }
+      switch (member.type) {
+        case JBBPCompiler.CODE_RESET_COUNTER:
+        case JBBPCompiler.CODE_ALIGN:
+          break;
+        case JBBPCompiler.CODE_SKIP: {
+          if (member.fieldTypeDiff) {
+            return null;
+          }
+        }
+        break;
+        case JBBPCompiler.CODE_BOOL: {
+          if (member.fieldTypeDiff) {
+            return null;
+          }
+          columns++;
+        }
+        break;
+        case JBBPCompiler.CODE_BIT:
+        case JBBPCompiler.CODE_BYTE:
+        case JBBPCompiler.CODE_UBYTE:
+        case JBBPCompiler.CODE_SHORT:
+        case JBBPCompiler.CODE_USHORT:
+        case JBBPCompiler.CODE_INT:
+        case JBBPCompiler.CODE_LONG: {
+          columns++;
+        }
+        break;
+        default:
+          return null;
+      }
+      members[i] = member;
+    }
+    return new ColumnarStructDecoder(struct.name, members, columns);
+  }
+
+  private static Object makeColumn(final ParserInstruction member, final int capacity) {
+    switch (member.type) {
+      case JBBPCompiler.CODE_BOOL:
+        return new boolean[capacity];
+      case JBBPCompiler.CODE_BIT:
+        return member.extra > 8 ? new long[capacity] : new byte[capacity];
+      case JBBPCompiler.CODE_BYTE:
+      case JBBPCompiler.CODE_UBYTE:
+        return new byte[capacity];
+      case JBBPCompiler.CODE_SHORT:
+      case JBBPCompiler.CODE_USHORT:
+        return new short[capacity];
+      case JBBPCompiler.CODE_INT:
+        return member.fieldTypeDiff ? new float[capacity] : new int[capacity];
+      case JBBPCompiler.CODE_LONG:
+        return member.fieldTypeDiff ? new double[capacity] : new long[capacity];
+      default:
+        return null;
+    }
+  }
+
+  private static Object resize(final Object column, final int length) {
+    if (column == null || Array.getLength(column) == length) {
+      return column;
+    }
+    final Object result = Array.newInstance(column.getClass().getComponentType(), length);
+    System.arraycopy(column, 0, result, 0, Math.min(length, Array.getLength(column)));
+    return result;
+  }
+
+  private static void readMember(final JBBPBitInputStream in, final ParserInstruction member,
+                                 final Object column, final int index) throws IOException {
+    switch (member.type) {
+      case JBBPCompiler.CODE_RESET_COUNTER: {
+        in.resetCounter();
+      }
+      break;
+      case JBBPCompiler.CODE_ALIGN: {
+        in.align(member.extra);
+      }
+      break;
+      case JBBPCompiler.CODE_SKIP: {
+        FieldReadSupport.skip(in, member.extra);
+      }
+      break;
+      case JBBPCompiler.CODE_BOOL: {
+        ((boolean[]) column)[index] = in.readBoolean();
+      }
+      break;
+      case JBBPCompiler.CODE_BIT: {
+        if (member.extra > 8) {
+          ((long[]) column)[index] = in.readBitsLong(member.extra);
+        } else {
+          ((byte[]) column)[index] = in.readBitField(JBBPBitNumber.decode(member.extra));
+        }
+      }
+      break;
+      case JBBPCompiler.CODE_BYTE:
+      case JBBPCompiler.CODE_UBYTE: {
+        ((byte[]) column)[index] = (byte) in.readByte();
+      }
+      break;
+      case JBBPCompiler.CODE_SHORT:
+      case JBBPCompiler.CODE_USHORT: {
+        ((short[]) column)[index] = (short) in.readUnsignedShort(member.byteOrder);
+      }
+      break;
+      case JBBPCompiler.CODE_INT: {
+        if (member.fieldTypeDiff) {
+          ((float[]) column)[index] = in.readFloat(member.byteOrder);
+        } else {
+          ((int[]) column)[index] = in.readInt(member.byteOrder);
+        }
+      }
+      break;
+      case JBBPCompiler.CODE_LONG: {
+        if (member.fieldTypeDiff) {
+          ((double[]) column)[index] = in.readDouble(member.byteOrder);
+        } else {
+          ((long[]) column)[index] = in.readLong(member.byteOrder);
+        }
+      }
+      break;
+      default:
+        throw new Error("Detected unexpected field type! Contact developer! [" + member.type + ']');
+    }
+  }
+
+  private static JBBPAbstractArrayField<?> makeColumnField(final ParserInstruction member,
+                                                           final Object column) {
+    final JBBPNamedFieldInfo name = member.name;
+    switch (member.type) {
+      case JBBPCompiler.CODE_BOOL:
+        return new JBBPFieldArrayBoolean(name, (boolean[]) column);
+      case JBBPCompiler.CODE_BIT:
+        return member.extra > 8 ? new JBBPFieldArrayLong(name, (long[]) column) :
+            new JBBPFieldArrayBit(name, (byte[]) column, JBBPBitNumber.decode(member.extra));
+      case JBBPCompiler.CODE_BYTE:
+        return new JBBPFieldArrayByte(name, (byte[]) column);
+      case JBBPCompiler.CODE_UBYTE:
+        return new JBBPFieldArrayUByte(name, (byte[]) column);
+      case JBBPCompiler.CODE_SHORT:
+        return new JBBPFieldArrayShort(name, (short[]) column);
+      case JBBPCompiler.CODE_USHORT:
+        return new JBBPFieldArrayUShort(name, (short[]) column);
+      case JBBPCompiler.CODE_INT:
+        return member.fieldTypeDiff ? new JBBPFieldArrayFloat(name, (float[]) column) :
+            new JBBPFieldArrayInt(name, (int[]) column);
+      case JBBPCompiler.CODE_LONG:
+        return member.fieldTypeDiff ? new JBBPFieldArrayDouble(name, (double[]) column) :
+            new JBBPFieldArrayLong(name, (long[]) column);
+      default:
+        throw new Error("Detected unexpected field type! Contact developer! [" + member.type + ']');
+    }
+  }
+
+  /**
+   * Decode structure array from a stream. Named numeric fields of the last element are
+   * registered in the named numeric field map like during reading of structures.
+   *
+   * @param in    the input stream, must not be null
+   * @param items number of elements, -1 if elements must be read till the stream end
+   * @param map   the named numeric field map, can be null
+   * @return decoded array, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  JBBPFieldColumnarStruct decode(final JBBPBitInputStream in, final int items,
+                                 final JBBPNamedNumericFieldMap map) throws IOException {
+    final boolean wholeStream = items < 0;
+    int capacity = wholeStream ? INITIAL_CAPACITY : items;
+    final Object[] columns = new Object[this.members.length];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = makeColumn(this.members[i], capacity);
+    }
+
+    int count = 0;
+    while (wholeStream ? in.hasAvailableData() : count < items) {
+      if (count == capacity) {
+        capacity = capacity << 1;
+        for (int i = 0; i < columns.length; i++) {
+          columns[i] = resize(columns[i], capacity);
+        }
+      }
+      for (int i = 0; i < this.members.length; i++) {
+        final ParserInstruction member = this.members[i];
+        try {
+          readMember(in, member, columns[i], count);
+        } catch (IOException ex) {
+          FieldReadSupport.rethrow(member.name, ex);
+        }
+      }
+      count++;
+    }
+
+    final JBBPAbstractArrayField<?>[] fields = new JBBPAbstractArrayField<?>[this.columnNumber];
+    int fieldIndex = 0;
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i] != null) {
+        final JBBPAbstractArrayField<?> field =
+            makeColumnField(this.members[i], resize(columns[i], count));
+        fields[fieldIndex++] = field;
+        if (map != null && count > 0 && this.members[i].name != null) {
+          map.putField((JBBPNumericField) field.getElementAt(count - 1));
+        }
+      }
+    }
+    return new JBBPFieldColumnarStruct(this.name, count, fields);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import static com.igormaznitsa.jbbp.utils.JBBPUtils.ARRAY_FIELD_EMPTY;
+
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.model.JBBPCompactLayout;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import java.util.List;
+
+/**
+ * Maker of structures for parser results. If compact structures are enabled then every
+ * structure instruction gets layout made for fields of its first parsed structure, the layout
+ * is shared by all next structures of the instruction.
+ *
+ * @see JBBPParser#FLAG_COMPACT_STRUCTS
+ * @since 2.0.4
+ */
+final class CompactStructFactory {
+
+  /**
+   * Structure start index used for the root structure.
+   */
+  static final int ROOT = -1;
+
+  /**
+   * Layouts for structure start instruction indexes, the last one is for the root structure.
+   */
+  private final JBBPCompactLayout[] layouts;
+
+  private CompactStructFactory(final int instructions) {
+    this.layouts = new JBBPCompactLayout[instructions + 1];
+  }
+
+  /**
+   * Make factory if compact structures are enabled by flags.
+   *
+   * @param instructions parser instructions, must not be null
+   * @param flags        parser flags
+   * @return the factory or null if compact structures are not enabled
+   */
+  static CompactStructFactory make(final ParserInstruction[] instructions, final int flags) {
+    return (flags & JBBPParser.FLAG_COMPACT_STRUCTS) == 0 ? null
+        : new CompactStructFactory(instructions.length);
+  }
+
+  /**
+   * Make structure for parsed fields.
+   *
+   * @param factory     the factory, can be null if compact structures are not enabled
+   * @param structStart index of the structure start instruction or {@link #ROOT}
+   * @param name        name info of the structure, can be null
+   * @param fields      parsed fields of the structure, must not be null
+   * @return the structure, must not be null
+   */
+  static JBBPFieldStruct make(final CompactStructFactory factory, final int structStart,
+                              final JBBPNamedFieldInfo name,
+                              final List<JBBPAbstractField> fields) {
+    final JBBPAbstractField[] array = fields.toArray(ARRAY_FIELD_EMPTY);
+    return factory == null ? new JBBPFieldStruct(name, array)
+        : factory.make(structStart, name, array);
+  }
+
+  private JBBPFieldStruct make(final int structStart, final JBBPNamedFieldInfo name,
+                               final JBBPAbstractField[] fields) {
+    final int index = structStart == ROOT ? this.layouts.length - 1 : structStart;
+    JBBPCompactLayout layout = this.layouts[index];
+    if (layout == null || fields.length > layout.size()) {
+      layout = JBBPCompactLayout.of(fields);
+      this.layouts[index] = layout;
+    }
+    return layout.makeStruct(name, fields);
+  }
+}
@@ -0,0 +1,925 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import static com.igormaznitsa.jbbp.utils.JBBPUtils.ARRAY_FIELD_EMPTY;
+
+import com.igormaznitsa.jbbp.compiler.JBBPCompiledBlock;
+import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
+import com.igormaznitsa.jbbp.compiler.varlen.JBBPIntegerValueEvaluator;
+import com.igormaznitsa.jbbp.exceptions.JBBPParsingException;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayString;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayStruct;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled form of a parser instruction. Every field of a script is turned into a reader object
+ * specialized for its type and array kind, so that parsing doesn't need any dispatch through
+ * type codes and flags. Readers are immutable and can be shared between parse calls.
+ *
+ * @since 2.0.4
+ */
+abstract class CompiledFieldReader {
+
+  private static final JBBPFieldStruct[] EMPTY_STRUCT_ARRAY = new JBBPFieldStruct[0];
+
+  /**
+   * Field name info, can be null.
+   */
+  final JBBPNamedFieldInfo name;
+  private final JBBPCompiledBlock block;
+  private final boolean negativeAsZero;
+  private final int arrayKind;
+  private final int fixedArrayLength;
+  private final JBBPIntegerValueEvaluator arrayEvaluator;
+  private final int extra;
+  private final JBBPIntegerValueEvaluator extraEvaluator;
+  private final int evalOffset;
+
+  private CompiledFieldReader(final ParserInstruction instruction, final Context context) {
+    this.name = instruction.name;
+    this.block = context.block;
+    this.negativeAsZero =
+        (context.flags & JBBPParser.FLAG_NEGATIVE_EXPRESSION_RESULT_AS_ZERO) != 0;
+    this.arrayKind = instruction.arrayKind;
+    this.fixedArrayLength = instruction.arrayLength;
+    this.arrayEvaluator = instruction.arrayEvaluator;
+    this.extra = instruction.extra;
+    this.extraEvaluator = instruction.extraEvaluator;
+    this.evalOffset = instruction.evalOffset;
+  }
+
+  /**
+   * Compile instructions of the root structure.
+   *
+   * @param instructions             decoded instructions, must not be null
+   * @param block                    compiled block of the instructions, must not be null
+   * @param bitOrder                 bit order of the parser, must not be null
+   * @param flags                    parser flags
+   * @param customFieldTypeProcessor custom field type processor, can be null
+   * @param compactStructs           maker of compact structures, can be null
+   * @return compiled body of the root structure, must not be null
+   */
+  static Body compile(final ParserInstruction[] instructions, final JBBPCompiledBlock block,
+                      final JBBPBitOrder bitOrder, final int flags,
+                      final JBBPCustomFieldTypeProcessor customFieldTypeProcessor,
+                      final CompactStructFactory compactStructs) {
+    return compile(instructions, 0, instructions.length,
+        new Context(block, bitOrder, flags, customFieldTypeProcessor,
+            JBBPParser.makeColumnarDecoders(instructions, flags), compactStructs));
+  }
+
+  private static Body compile(final ParserInstruction[] instructions, final int start,
+                              final int end, final Context context) {
+    final List<CompiledFieldReader> readers = new ArrayList<>();
+    for (int i = start; i < end; i++) {
+      final ParserInstruction instruction = instructions[i];
+      final boolean array = instruction.arrayKind != ParserInstruction.ARRAY_NONE;
+      final boolean diff = instruction.fieldTypeDiff;
+      final CompiledFieldReader reader;
+      switch (instruction.type) {
+        case JBBPCompiler.CODE_RESET_COUNTER:
+          reader = new ResetCounterReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_ALIGN:
+          reader = new AlignReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_SKIP:
+          reader = diff ? new ValueReader(instruction, context) :
+              new SkipReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_BIT:
+          reader = array ? new BitArrayReader(instruction, context) :
+              new BitReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_VAR:
+          reader = array ? new VarArrayReader(instruction, context) :
+              new VarReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_CUSTOMTYPE:
+          reader = new CustomReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_BYTE:
+          reader = array ? new ByteArrayReader(instruction, context) :
+              new ByteReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_UBYTE:
+          reader = array ? new UByteArrayReader(instruction, context) :
+              new UByteReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_BOOL:
+          if (diff) {
+            reader = array ? new StringArrayReader(instruction, context) :
+                new StringReader(instruction, context);
+          } else {
+            reader = array ? new BoolArrayReader(instruction, context) :
+                new BoolReader(instruction, context);
+          }
+          break;
+        case JBBPCompiler.CODE_INT:
+          if (diff) {
+            reader = array ? new FloatArrayReader(instruction, context) :
+                new FloatReader(instruction, context);
+          } else {
+            reader = array ? new IntArrayReader(instruction, context) :
+                new IntReader(instruction, context);
+          }
+          break;
+        case JBBPCompiler.CODE_LONG:
+          if (diff) {
+            reader = array ? new DoubleArrayReader(instruction, context) :
+                new DoubleReader(instruction, context);
+          } else {
+            reader = array ? new LongArrayReader(instruction, context) :
+                new LongReader(instruction, context);
+          }
+          break;
+        case JBBPCompiler.CODE_SHORT:
+          reader = array ? new ShortArrayReader(instruction, context) :
+              new ShortReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_USHORT:
+          reader = array ? new UShortArrayReader(instruction, context) :
+              new UShortReader(instruction, context);
+          break;
+        case JBBPCompiler.CODE_STRUCT_START: {
+          final ColumnarStructDecoder columnar =
+              context.columnarDecoders == null ? null : context.columnarDecoders[i];
+          if (columnar == null) {
+            final Body body = compile(instructions, i + 1, instruction.structEnd, context);
+            reader = array ? new StructArrayReader(instruction, context, body, i) :
+                new StructReader(instruction, context, body, i);
+          } else {
+            reader = new ColumnarStructArrayReader(instruction, context, columnar);
+          }
+          i = instruction.structEnd;
+        }
+        break;
+        default:
+          throw new Error(
+              "Detected unexpected field type! Contact developer! [" + instruction.type + ']');
+      }
+      readers.add(reader);
+    }
+    return new Body(readers.toArray(new CompiledFieldReader[0]),
+        (context.flags & JBBPParser.FLAG_SKIP_REMAINING_FIELDS_IF_EOF) != 0);
+  }
+
+  private static void register(final JBBPNamedNumericFieldMap map, final JBBPAbstractField field) {
+    if (map != null && field.getNameInfo() != null && field instanceof JBBPNumericField) {
+      map.putField((JBBPNumericField) field);
+    }
+  }
+
+  private int evaluate(final JBBPIntegerValueEvaluator evaluator, final JBBPBitInputStream in,
+                       final JBBPNamedNumericFieldMap map) {
+    final int result = evaluator.eval(in, this.evalOffset, this.block, map);
+    return this.negativeAsZero ? Math.max(result, 0) : result;
+  }
+
+  /**
+   * Get the extra value of the field.
+   *
+   * @param in  the input stream, must not be null
+   * @param map the named numeric field map, can be null
+   * @return the extra value, calculated if it is defined by expression
+   */
+  final int extra(final JBBPBitInputStream in, final JBBPNamedNumericFieldMap map) {
+    return this.extraEvaluator == null ? this.extra : evaluate(this.extraEvaluator, in, map);
+  }
+
+  /**
+   * Get number of array items to be read.
+   *
+   * @param in  the input stream, must not be null
+   * @param map the named numeric field map, can be null
+   * @return number of items or -1 if the array must be read till the end of stream
+   */
+  final int arrayItems(final JBBPBitInputStream in, final JBBPNamedNumericFieldMap map) {
+    switch (this.arrayKind) {
+      case ParserInstruction.ARRAY_FIXED:
+        return this.fixedArrayLength;
+      case ParserInstruction.ARRAY_EXPRESSION: {
+        final int length = evaluate(this.arrayEvaluator, in, map);
+        if (length < 0) {
+          throw new JBBPParsingException("Detected negative calculated array length for field '" +
+              (this.name == null ? "<NO NAME>" : this.name.getFieldPath()) + "\' [" +
+              JBBPUtils.int2msg(length) + ']');
+        }
+        return length;
+      }
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Read the field and add the result into the field list.
+   *
+   * @param in                the input stream, must not be null
+   * @param varFieldProcessor a var field processor, can be null if there is no var field
+   * @param map               the named numeric field map, can be null
+   * @param fields            the list to add read fields, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  abstract void read(JBBPBitInputStream in, JBBPVarFieldProcessor varFieldProcessor,
+                     JBBPNamedNumericFieldMap map, List<JBBPAbstractField> fields)
+      throws IOException;
+
+  /**
+   * Shared parameters of a parser for all readers.
+   */
+  private static final class Context {
+    private final JBBPCompiledBlock block;
+    private final JBBPBitOrder bitOrder;
+    private final int flags;
+    private final JBBPCustomFieldTypeProcessor customFieldTypeProcessor;
+    private final ColumnarStructDecoder[] columnarDecoders;
+    private final CompactStructFactory compactStructs;
+
+    private Context(final JBBPCompiledBlock block, final JBBPBitOrder bitOrder, final int flags,
+                    final JBBPCustomFieldTypeProcessor customFieldTypeProcessor,
+                    final ColumnarStructDecoder[] columnarDecoders,
+                    final CompactStructFactory compactStructs) {
+      this.block = block;
+      this.bitOrder = bitOrder;
+      this.flags = flags;
+      this.customFieldTypeProcessor = customFieldTypeProcessor;
+      this.columnarDecoders = columnarDecoders;
+      this.compactStructs = compactStructs;
+    }
+  }
+
+  /**
+   * Compiled body of a structure.
+   */
+  static final class Body {
+    private final CompiledFieldReader[] readers;
+    private final boolean skipRemainingFieldsIfEof;
+
+    private Body(final CompiledFieldReader[] readers, final boolean skipRemainingFieldsIfEof) {
+      this.readers = readers;
+      this.skipRemainingFieldsIfEof = skipRemainingFieldsIfEof;
+    }
+
+    /**
+     * Read all fields of the structure.
+     *
+     * @param in                the input stream, must not be null
+     * @param varFieldProcessor a var field processor, can be null if there is no var field
+     * @param map               the named numeric field map, can be null
+     * @return list of read fields, must not be null
+     * @throws IOException it will be thrown for transport errors
+     */
+    List<JBBPAbstractField> read(final JBBPBitInputStream in,
+                                 final JBBPVarFieldProcessor varFieldProcessor,
+                                 final JBBPNamedNumericFieldMap map) throws IOException {
+      final List<JBBPAbstractField> fields = new ArrayList<>(this.readers.length);
+      for (final CompiledFieldReader reader : this.readers) {
+        if (this.skipRemainingFieldsIfEof && !in.hasAvailableData()) {
+          break;
+        }
+        try {
+          reader.read(in, varFieldProcessor, map, fields);
+        } catch (IOException ex) {
+          FieldReadSupport.rethrow(reader.name, ex);
+        }
+      }
+      return fields;
+    }
+  }
+
+  private static final class ResetCounterReader extends CompiledFieldReader {
+    private ResetCounterReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields) {
+      in.resetCounter();
+    }
+  }
+
+  private static final class AlignReader extends CompiledFieldReader {
+    private AlignReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      in.align(extra(in, map));
+    }
+  }
+
+  private static final class SkipReader extends CompiledFieldReader {
+    private SkipReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      FieldReadSupport.skip(in, extra(in, map));
+    }
+  }
+
+  private static final class ValueReader extends CompiledFieldReader {
+    private ValueReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields) {
+      final JBBPFieldInt field = new JBBPFieldInt(this.name, extra(in, map));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class BitReader extends CompiledFieldReader {
+    private BitReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final int extra = extra(in, map);
+      final JBBPAbstractField field;
+      if (extra > 8) {
+        field = new JBBPFieldLong(this.name, in.readBitsLong(extra));
+      } else {
+        final JBBPBitNumber bitNumber = JBBPBitNumber.decode(extra);
+        field = new JBBPFieldBit(this.name, in.readBitField(bitNumber) & 0xFF, bitNumber);
+      }
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class BitArrayReader extends CompiledFieldReader {
+    private BitArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final int extra = extra(in, map);
+      if (extra > 8) {
+        fields.add(new JBBPFieldArrayLong(this.name,
+            in.readBitsLongArray(arrayItems(in, map), extra)));
+      } else {
+        final JBBPBitNumber bitNumber = JBBPBitNumber.decode(extra);
+        fields.add(new JBBPFieldArrayBit(this.name,
+            in.readBitsArray(arrayItems(in, map), bitNumber), bitNumber));
+      }
+    }
+  }
+
+  private static final class VarReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private VarReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPAbstractField field = FieldReadSupport.readVarField(varFieldProcessor, in,
+          this.name, extra(in, map), this.byteOrder, map);
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class VarArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private VarArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final int extra = extra(in, map);
+      fields.add(FieldReadSupport.readVarArray(varFieldProcessor, in, arrayItems(in, map),
+          this.name, extra, this.byteOrder, map));
+    }
+  }
+
+  private static final class CustomReader extends CompiledFieldReader {
+    private final JBBPCustomFieldTypeProcessor processor;
+    private final JBBPBitOrder bitOrder;
+    private final int flags;
+    private final JBBPFieldTypeParameterContainer customType;
+    private final boolean array;
+    private final boolean wholeStream;
+
+    private CustomReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.processor = context.customFieldTypeProcessor;
+      this.bitOrder = context.bitOrder;
+      this.flags = context.flags;
+      this.customType = instruction.customType;
+      this.array = instruction.arrayKind != ParserInstruction.ARRAY_NONE;
+      this.wholeStream = instruction.arrayKind == ParserInstruction.ARRAY_WHOLE_STREAM;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final int extra = extra(in, map);
+      final int arrayLength;
+      if (this.array) {
+        arrayLength = this.wholeStream ? 0 : arrayItems(in, map);
+      } else {
+        arrayLength = -1;
+      }
+      final JBBPAbstractField field = FieldReadSupport.readCustomField(this.processor, in,
+          this.bitOrder, this.flags, this.customType, this.name, extra, this.wholeStream,
+          arrayLength);
+      fields.add(field);
+      if (!this.array) {
+        register(map, field);
+      }
+    }
+  }
+
+  private static final class ByteReader extends CompiledFieldReader {
+    private ByteReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldByte field = new JBBPFieldByte(this.name, (byte) in.readByte());
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class ByteArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private ByteArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayByte(this.name,
+          in.readByteArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class UByteReader extends CompiledFieldReader {
+    private UByteReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldUByte field = new JBBPFieldUByte(this.name, (byte) in.readByte());
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class UByteArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private UByteArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayUByte(this.name,
+          in.readByteArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class BoolReader extends CompiledFieldReader {
+    private BoolReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldBoolean field = new JBBPFieldBoolean(this.name, in.readBoolean());
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class BoolArrayReader extends CompiledFieldReader {
+    private BoolArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayBoolean(this.name, in.readBoolArray(arrayItems(in, map))));
+    }
+  }
+
+  private static final class StringReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private StringReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldString(this.name, in.readString(this.byteOrder)));
+    }
+  }
+
+  private static final class StringArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private StringArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayString(this.name,
+          in.readStringArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class ShortReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private ShortReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldShort field =
+          new JBBPFieldShort(this.name, (short) in.readUnsignedShort(this.byteOrder));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class ShortArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private ShortArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayShort(this.name,
+          in.readShortArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class UShortReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private UShortReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldUShort field =
+          new JBBPFieldUShort(this.name, (short) in.readUnsignedShort(this.byteOrder));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class UShortArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private UShortArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayUShort(this.name,
+          in.readShortArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class IntReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private IntReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldInt field = new JBBPFieldInt(this.name, in.readInt(this.byteOrder));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class IntArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private IntArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayInt(this.name,
+          in.readIntArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class FloatReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private FloatReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldFloat field = new JBBPFieldFloat(this.name, in.readFloat(this.byteOrder));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class FloatArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private FloatArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayFloat(this.name,
+          in.readFloatArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class LongReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private LongReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldLong field = new JBBPFieldLong(this.name, in.readLong(this.byteOrder));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class LongArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private LongArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayLong(this.name,
+          in.readLongArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class DoubleReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private DoubleReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final JBBPFieldDouble field = new JBBPFieldDouble(this.name, in.readDouble(this.byteOrder));
+      fields.add(field);
+      register(map, field);
+    }
+  }
+
+  private static final class DoubleArrayReader extends CompiledFieldReader {
+    private final JBBPByteOrder byteOrder;
+
+    private DoubleArrayReader(final ParserInstruction instruction, final Context context) {
+      super(instruction, context);
+      this.byteOrder = instruction.byteOrder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(new JBBPFieldArrayDouble(this.name,
+          in.readDoubleArray(arrayItems(in, map), this.byteOrder)));
+    }
+  }
+
+  private static final class StructReader extends CompiledFieldReader {
+    private final Body body;
+    private final CompactStructFactory compactStructs;
+    private final int structStart;
+
+    private StructReader(final ParserInstruction instruction, final Context context,
+                         final Body body, final int structStart) {
+      super(instruction, context);
+      this.body = body;
+      this.compactStructs = context.compactStructs;
+      this.structStart = structStart;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(CompactStructFactory.make(this.compactStructs, this.structStart, this.name,
+          this.body.read(in, varFieldProcessor, map)));
+    }
+  }
+
+  private static final class StructArrayReader extends CompiledFieldReader {
+    private final Body body;
+    private final CompactStructFactory compactStructs;
+    private final int structStart;
+
+    private StructArrayReader(final ParserInstruction instruction, final Context context,
+                        final Body body, final int structStart) {
+      super(instruction, context);
+      this.body = body;
+      this.compactStructs = context.compactStructs;
+      this.structStart = structStart;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      final int items = arrayItems(in, map);
+      final JBBPFieldStruct[] result;
+      if (items < 0) {
+        // read till the stream end
+        final List<JBBPFieldStruct> list = new ArrayList<>();
+        while (in.hasAvailableData()) {
+          list.add(CompactStructFactory.make(this.compactStructs, this.structStart, this.name,
+              this.body.read(in, varFieldProcessor, map)));
+        }
+        result = list.isEmpty() ? EMPTY_STRUCT_ARRAY : list.toArray(EMPTY_STRUCT_ARRAY);
+      } else if (items == 0) {
+        result = EMPTY_STRUCT_ARRAY;
+      } else {
+        result = new JBBPFieldStruct[items];
+        for (int i = 0; i < items; i++) {
+          result[i] = CompactStructFactory.make(this.compactStructs, this.structStart, this.name,
+              this.body.read(in, varFieldProcessor, map));
+        }
+      }
+      fields.add(new JBBPFieldArrayStruct(this.name, result));
+    }
+  }
+
+  private static final class ColumnarStructArrayReader extends CompiledFieldReader {
+    private final ColumnarStructDecoder decoder;
+
+    private ColumnarStructArrayReader(final ParserInstruction instruction, final Context context,
+                                      final ColumnarStructDecoder decoder) {
+      super(instruction, context);
+      this.decoder = decoder;
+    }
+
+    @Override
+    void read(final JBBPBitInputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+              final JBBPNamedNumericFieldMap map, final List<JBBPAbstractField> fields)
+        throws IOException {
+      fields.add(this.decoder.decode(in, arrayItems(in, map), map));
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
+import com.igormaznitsa.jbbp.exceptions.JBBPParsingException;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.model.JBBPAbstractArrayField;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reading steps shared by the parser interpreter, compiled readers and columnar decoders, they
+ * keep checks of read data and error messages the same for all ways of parsing.
+ *
+ * @since 2.0.4
+ */
+final class FieldReadSupport {
+
+  private FieldReadSupport() {
+  }
+
+  /**
+   * Skip exact number of bytes in a stream.
+   *
+   * @param in    the input stream, must not be null
+   * @param bytes number of bytes to skip, nothing is skipped for zero or negative value
+   * @throws IOException it will be thrown if the stream doesn't have enough bytes
+   */
+  static void skip(final JBBPBitInputStream in, final long bytes) throws IOException {
+    if (bytes > 0L) {
+      final long skippedBytes = in.skip(bytes);
+      if (skippedBytes != bytes) {
+        throw new EOFException(
+            "Can't skip " + bytes + " byte(s), skipped only " + skippedBytes + " byte(s)");
+      }
+    }
+  }
+
+  /**
+   * Read a var field through a var field processor and check the result.
+   *
+   * @param processor            the var field processor, must not be null
+   * @param in                   the input stream, must not be null
+   * @param name                 name of the field, can be null
+   * @param extra                extra value of the field
+   * @param byteOrder            byte order of the field, must not be null
+   * @param namedNumericFieldMap the named numeric field map, can be null
+   * @return the read field, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  static JBBPAbstractField readVarField(final JBBPVarFieldProcessor processor,
+                                        final JBBPBitInputStream in,
+                                        final JBBPNamedFieldInfo name, final int extra,
+                                        final JBBPByteOrder byteOrder,
+                                        final JBBPNamedNumericFieldMap namedNumericFieldMap)
+      throws IOException {
+    final JBBPAbstractField field =
+        processor.readVarField(in, name, extra, byteOrder, namedNumericFieldMap);
+    JBBPUtils.assertNotNull(field,
+        "A Var processor must not return null as a result of a field reading");
+    if (field instanceof JBBPAbstractArrayField) {
+      throw new JBBPParsingException(
+          "A Var field processor has returned an array value instead of a field value [" +
+              name + ':' + extra + ']');
+    }
+    if (field.getNameInfo() != name) {
+      throw new JBBPParsingException(
+          "Detected wrong name for a read field , must be " + name + " but detected " +
+              field.getNameInfo() + ']');
+    }
+    return field;
+  }
+
+  /**
+   * Read a var array through a var field processor and check the result.
+   *
+   * @param processor            the var field processor, must not be null
+   * @param in                   the input stream, must not be null
+   * @param arrayItems           number of array items, -1 to read till the end of the stream
+   * @param name                 name of the field, can be null
+   * @param extra                extra value of the field
+   * @param byteOrder            byte order of the field, must not be null
+   * @param namedNumericFieldMap the named numeric field map, can be null
+   * @return the read array, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  static JBBPAbstractArrayField<? extends JBBPAbstractField> readVarArray(
+      final JBBPVarFieldProcessor processor, final JBBPBitInputStream in, final int arrayItems,
+      final JBBPNamedFieldInfo name, final int extra, final JBBPByteOrder byteOrder,
+      final JBBPNamedNumericFieldMap namedNumericFieldMap) throws IOException {
+    final JBBPAbstractArrayField<? extends JBBPAbstractField> array =
+        processor.readVarArray(in, arrayItems, name, extra, byteOrder, namedNumericFieldMap);
+    JBBPUtils.assertNotNull(array,
+        "A Var processor must not return null as a result of an array field reading [" +
+            name + ':' + extra + ']');
+    if (array.getNameInfo() != name) {
+      throw new JBBPParsingException(
+          "Detected wrong name for a read field array, must be " + name +
+              " but detected " + array.getNameInfo() + ']');
+    }
+    return array;
+  }
+
+  /**
+   * Read a custom type field through a custom field type processor and check the result.
+   *
+   * @param processor   the custom field type processor, must not be null
+   * @param in          the input stream, must not be null
+   * @param bitOrder    bit order of the parser, must not be null
+   * @param flags       parser flags
+   * @param customType  custom type info of the field, must not be null
+   * @param name        name of the field, can be null
+   * @param extra       extra value of the field
+   * @param wholeStream true if the array is read till the end of the stream
+   * @param arrayLength array length, -1 for a single field
+   * @return the read field, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  static JBBPAbstractField readCustomField(final JBBPCustomFieldTypeProcessor processor,
+                                           final JBBPBitInputStream in,
+                                           final JBBPBitOrder bitOrder, final int flags,
+                                           final JBBPFieldTypeParameterContainer customType,
+                                           final JBBPNamedFieldInfo name, final int extra,
+                                           final boolean wholeStream, final int arrayLength)
+      throws IOException {
+    final JBBPAbstractField field = processor.readCustomFieldType(in, bitOrder, flags,
+        customType, name, extra, wholeStream, arrayLength);
+    JBBPUtils.assertNotNull(field, "Must not return null as read result");
+    return field;
+  }
+
+  /**
+   * Throw an exception for a transport error during reading of a field, the error is wrapped
+   * into a parsing exception which contains the field path if the field is named.
+   *
+   * @param name name of the field, can be null
+   * @param ex   the transport error, must not be null
+   * @throws IOException the error if the field is not named
+   */
+  static void rethrow(final JBBPNamedFieldInfo name, final IOException ex) throws IOException {
+    if (name == null) {
+      throw ex;
+    }
+    throw new JBBPParsingException(
+        "Can't parse field '" + name.getFieldPath() + "' for IOException", ex);
+  }
+}
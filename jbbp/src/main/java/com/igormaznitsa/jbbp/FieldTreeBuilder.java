@@ -0,0 +1,287 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayString;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayStruct;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listener which builds the tree of parsed fields, it is used by the parser interpreter to make
+ * result structures. Named numeric fields are registered in the named numeric field map if it
+ * is provided. Lists of structure fields are reused for structures of the same depth.
+ *
+ * @since 2.0.4
+ */
+final class FieldTreeBuilder implements JBBPParseListener {
+
+  private static final JBBPFieldStruct[] EMPTY_STRUCT_ARRAY = new JBBPFieldStruct[0];
+
+  private final CompactStructFactory compactStructs;
+  private final JBBPNamedNumericFieldMap namedNumericFieldMap;
+  /**
+   * Lists of fields for opened structures and structure arrays, the first one is for the root.
+   */
+  private final List<List<JBBPAbstractField>> levels = new ArrayList<>();
+  /**
+   * Structure start instruction indexes of opened levels.
+   */
+  private int[] structStarts = new int[8];
+  private int depth;
+
+  /**
+   * Constructor.
+   *
+   * @param compactStructs       maker of compact structures, can be null
+   * @param namedNumericFieldMap map to register named numeric fields, can be null
+   */
+  FieldTreeBuilder(final CompactStructFactory compactStructs,
+                   final JBBPNamedNumericFieldMap namedNumericFieldMap) {
+    this.compactStructs = compactStructs;
+    this.namedNumericFieldMap = namedNumericFieldMap;
+    this.levels.add(new ArrayList<JBBPAbstractField>());
+  }
+
+  /**
+   * Get fields added into the root level.
+   *
+   * @return list of root fields, must not be null
+   */
+  List<JBBPAbstractField> getFields() {
+    return this.levels.get(0);
+  }
+
+  /**
+   * Add a ready field into the current level.
+   *
+   * @param field the field, must not be null
+   */
+  void onField(final JBBPAbstractField field) {
+    this.levels.get(this.depth).add(field);
+  }
+
+  /**
+   * Open structure for a structure start instruction.
+   *
+   * @param structStart index of the structure start instruction
+   * @param name        name of the structure, can be null
+   */
+  void onStructStart(final int structStart, final JBBPNamedFieldInfo name) {
+    this.open(structStart);
+  }
+
+  private void open(final int structStart) {
+    this.depth++;
+    if (this.depth == this.levels.size()) {
+      this.levels.add(new ArrayList<JBBPAbstractField>());
+    }
+    if (this.depth == this.structStarts.length) {
+      final int[] grown = new int[this.depth << 1];
+      System.arraycopy(this.structStarts, 0, grown, 0, this.depth);
+      this.structStarts = grown;
+    }
+    this.structStarts[this.depth] = structStart;
+  }
+
+  private void addSingle(final JBBPAbstractField field) {
+    this.onField(field);
+    if (this.namedNumericFieldMap != null && field instanceof JBBPNumericField
+        && field.getNameInfo() != null) {
+      this.namedNumericFieldMap.putField((JBBPNumericField) field);
+    }
+  }
+
+  @Override
+  public void onStructStart(final JBBPNamedFieldInfo name) {
+    throw new UnsupportedOperationException(
+        "Structure must be started with index of its instruction");
+  }
+
+  @Override
+  public void onStructEnd(final JBBPNamedFieldInfo name) {
+    final List<JBBPAbstractField> fields = this.levels.get(this.depth);
+    final JBBPFieldStruct struct =
+        CompactStructFactory.make(this.compactStructs, this.structStarts[this.depth], name, fields);
+    fields.clear();
+    this.depth--;
+    this.onField(struct);
+  }
+
+  @Override
+  public void onStructArrayStart(final JBBPNamedFieldInfo name, final int length) {
+    // the level collects array items, its structure index is not used
+    this.open(CompactStructFactory.ROOT);
+  }
+
+  @Override
+  public void onStructArrayEnd(final JBBPNamedFieldInfo name) {
+    final List<JBBPAbstractField> items = this.levels.get(this.depth);
+    final JBBPFieldStruct[] array = items.toArray(EMPTY_STRUCT_ARRAY);
+    items.clear();
+    this.depth--;
+    this.onField(new JBBPFieldArrayStruct(name, array));
+  }
+
+  @Override
+  public void onBit(final JBBPNamedFieldInfo name, final int value,
+                    final JBBPBitNumber bitNumber) {
+    this.addSingle(new JBBPFieldBit(name, value, bitNumber));
+  }
+
+  @Override
+  public void onBitArray(final JBBPNamedFieldInfo name, final byte[] values,
+                         final JBBPBitNumber bitNumber) {
+    this.onField(new JBBPFieldArrayBit(name, values, bitNumber));
+  }
+
+  @Override
+  public void onBool(final JBBPNamedFieldInfo name, final boolean value) {
+    this.addSingle(new JBBPFieldBoolean(name, value));
+  }
+
+  @Override
+  public void onBoolArray(final JBBPNamedFieldInfo name, final boolean[] values) {
+    this.onField(new JBBPFieldArrayBoolean(name, values));
+  }
+
+  @Override
+  public void onByte(final JBBPNamedFieldInfo name, final byte value) {
+    this.addSingle(new JBBPFieldByte(name, value));
+  }
+
+  @Override
+  public void onByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+    this.onField(new JBBPFieldArrayByte(name, values));
+  }
+
+  @Override
+  public void onUByte(final JBBPNamedFieldInfo name, final int value) {
+    this.addSingle(new JBBPFieldUByte(name, (byte) value));
+  }
+
+  @Override
+  public void onUByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+    this.onField(new JBBPFieldArrayUByte(name, values));
+  }
+
+  @Override
+  public void onShort(final JBBPNamedFieldInfo name, final short value) {
+    this.addSingle(new JBBPFieldShort(name, value));
+  }
+
+  @Override
+  public void onShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+    this.onField(new JBBPFieldArrayShort(name, values));
+  }
+
+  @Override
+  public void onUShort(final JBBPNamedFieldInfo name, final int value) {
+    this.addSingle(new JBBPFieldUShort(name, (short) value));
+  }
+
+  @Override
+  public void onUShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+    this.onField(new JBBPFieldArrayUShort(name, values));
+  }
+
+  @Override
+  public void onInt(final JBBPNamedFieldInfo name, final int value) {
+    this.addSingle(new JBBPFieldInt(name, value));
+  }
+
+  @Override
+  public void onIntArray(final JBBPNamedFieldInfo name, final int[] values) {
+    this.onField(new JBBPFieldArrayInt(name, values));
+  }
+
+  @Override
+  public void onFloat(final JBBPNamedFieldInfo name, final float value) {
+    this.addSingle(new JBBPFieldFloat(name, value));
+  }
+
+  @Override
+  public void onFloatArray(final JBBPNamedFieldInfo name, final float[] values) {
+    this.onField(new JBBPFieldArrayFloat(name, values));
+  }
+
+  @Override
+  public void onLong(final JBBPNamedFieldInfo name, final long value) {
+    this.addSingle(new JBBPFieldLong(name, value));
+  }
+
+  @Override
+  public void onLongArray(final JBBPNamedFieldInfo name, final long[] values) {
+    this.onField(new JBBPFieldArrayLong(name, values));
+  }
+
+  @Override
+  public void onDouble(final JBBPNamedFieldInfo name, final double value) {
+    this.addSingle(new JBBPFieldDouble(name, value));
+  }
+
+  @Override
+  public void onDoubleArray(final JBBPNamedFieldInfo name, final double[] values) {
+    this.onField(new JBBPFieldArrayDouble(name, values));
+  }
+
+  @Override
+  public void onString(final JBBPNamedFieldInfo name, final String value) {
+    this.onField(new JBBPFieldString(name, value));
+  }
+
+  @Override
+  public void onStringArray(final JBBPNamedFieldInfo name, final String[] values) {
+    this.onField(new JBBPFieldArrayString(name, values));
+  }
+
+  @Override
+  public void onVarField(final JBBPAbstractField field) {
+    this.addSingle(field);
+  }
+
+  @Override
+  public void onCustomField(final JBBPAbstractField field) {
+    this.addSingle(field);
+  }
+}
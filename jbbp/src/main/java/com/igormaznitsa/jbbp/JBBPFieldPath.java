@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.Serializable;
+
+/**
+ * Field path resolved against a parser script. It contains index of the field in its
+ * structure for every path level, so a field can be found in a parsed structure without
+ * path parsing and search by name.
+ *
+ * @see JBBPParser#preparePath(String)
+ * @see com.igormaznitsa.jbbp.model.JBBPFieldStruct#get(JBBPFieldPath)
+ * @since 2.0.4
+ */
+public final class JBBPFieldPath implements Serializable {
+  private static final long serialVersionUID = 6029313581713541082L;
+
+  private final String path;
+  private final int[] indexes;
+  private final JBBPNamedFieldInfo[] nameInfos;
+
+  private JBBPFieldPath(final String path, final int[] indexes,
+                        final JBBPNamedFieldInfo[] nameInfos) {
+    this.path = path;
+    this.indexes = indexes;
+    this.nameInfos = nameInfos;
+  }
+
+  /**
+   * Resolve a field path against parser instructions.
+   *
+   * @param instructions parser instructions, must not be null
+   * @param path         a field path, must not be null
+   * @return the resolved path, must not be null
+   * @throws JBBPIllegalArgumentException if the path is not found or it goes through a field
+   *                                      which is not a single structure
+   */
+  static JBBPFieldPath resolve(final ParserInstruction[] instructions, final String path) {
+    final String normalized = JBBPUtils.normalizeFieldNameOrPath(path);
+    final String[] names = JBBPUtils.splitString(normalized, '.');
+    final int[] indexes = new int[names.length];
+    final JBBPNamedFieldInfo[] nameInfos = new JBBPNamedFieldInfo[names.length];
+
+    int start = 0;
+    int end = instructions.length;
+    for (int level = 0; level < names.length; level++) {
+      if (level > 0) {
+        final ParserInstruction struct = instructions[start];
+        if (struct.type != JBBPCompiler.CODE_STRUCT_START
+            || struct.arrayKind != ParserInstruction.ARRAY_NONE) {
+          throw new JBBPIllegalArgumentException(
+              "Path goes through a field which is not a structure [" + normalized + ']');
+        }
+        end = struct.structEnd;
+        start++;
+      }
+
+      int found = -1;
+      int fieldIndex = 0;
+      for (int i = start; i < end; i++) {
+        final ParserInstruction instruction = instructions[i];
+        if (instruction.name != null && names[level].equals(instruction.name.getFieldName())) {
+          found = i;
+          break;
+        }
+        if (makesField(instruction)) {
+          fieldIndex++;
+        }
+        if (instruction.type == JBBPCompiler.CODE_STRUCT_START) {
+          i = instruction.structEnd;
+        }
+      }
+      if (found < 0) {
+        throw new JBBPIllegalArgumentException("Unknown field path [" + normalized + ']');
+      }
+      indexes[level] = fieldIndex;
+      nameInfos[level] = instructions[found].name;
+      start = found;
+    }
+    return new JBBPFieldPath(normalized, indexes, nameInfos);
+  }
+
+  private static boolean makesField(final ParserInstruction instruction) {
+    final boolean result;
+    switch (instruction.type) {
+      case JBBPCompiler.CODE_RESET_COUNTER:
+      case JBBPCompiler.CODE_ALIGN:
+        result = false;
+        break;
+      case JBBPCompiler.CODE_SKIP:
+        result = instruction.fieldTypeDiff;
+        break;
+      default:
+        result = true;
+        break;
+    }
+    return result;
+  }
+
+  /**
+   * Get the normalized field path.
+   *
+   * @return the field path, must not be null
+   */
+  public String getPath() {
+    return this.path;
+  }
+
+  /**
+   * Get number of levels in the path.
+   *
+   * @return number of path levels, at least one
+   */
+  public int getDepth() {
+    return this.indexes.length;
+  }
+
+  /**
+   * Get index of the field among fields of its structure for a path level.
+   *
+   * @param level the path level, zero for fields of the root structure
+   * @return index of the field in its structure
+   */
+  public int getIndex(final int level) {
+    return this.indexes[level];
+  }
+
+  /**
+   * Get name info of the field for a path level.
+   *
+   * @param level the path level, zero for fields of the root structure
+   * @return the name info of the field, must not be null
+   */
+  public JBBPNamedFieldInfo getNameInfo(final int level) {
+    return this.nameInfos[level];
+  }
+
+  @Override
+  public String toString() {
+    return this.path;
+  }
+}
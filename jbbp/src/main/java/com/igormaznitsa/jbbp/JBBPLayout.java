@@ -0,0 +1,566 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
+import com.igormaznitsa.jbbp.exceptions.JBBPParsingException;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Static layout of a parser script. It contains offsets and sizes of named fields which can be
+ * calculated without parsing, and min and max size of data for the script. Single numeric fields
+ * with static offset can be read directly from a byte array or a byte buffer without parsing.
+ * Offsets and sizes are in bits because fields can be not byte aligned. Fields inside structure
+ * arrays don't have static offsets.
+ * NB! Sizes don't take into account the flag {@link JBBPParser#FLAG_SKIP_REMAINING_FIELDS_IF_EOF}.
+ *
+ * @see JBBPParser#getLayout()
+ * @since 2.0.4
+ */
+public final class JBBPLayout {
+
+  private final Map<String, Entry> entries;
+  private final int[] elementByteSizes;
+  private final boolean msb0;
+  private final long minBitSize;
+  private final long maxBitSize;
+
+  private JBBPLayout(final Map<String, Entry> entries, final int[] elementByteSizes,
+                     final JBBPBitOrder bitOrder, final long minBitSize, final long maxBitSize) {
+    this.entries = entries;
+    this.elementByteSizes = elementByteSizes;
+    this.msb0 = bitOrder == JBBPBitOrder.MSB0;
+    this.minBitSize = minBitSize;
+    this.maxBitSize = maxBitSize;
+  }
+
+  /**
+   * Analyze parser instructions.
+   *
+   * @param instructions parser instructions, must not be null
+   * @param bitOrder     bit order of the parser, must not be null
+   * @return calculated layout, must not be null
+   */
+  static JBBPLayout analyze(final ParserInstruction[] instructions, final JBBPBitOrder bitOrder) {
+    final Map<String, Entry> entries = new HashMap<>();
+    final int[] elementByteSizes = new int[instructions.length];
+    final State state = new State(0L, 0L);
+    walk(instructions, 0, instructions.length, state, entries, elementByteSizes);
+    return new JBBPLayout(entries, elementByteSizes, bitOrder, state.minBits, state.maxBits);
+  }
+
+  private static void walk(final ParserInstruction[] instructions, final int start, final int end,
+                           final State state, final Map<String, Entry> entries,
+                           final int[] elementByteSizes) {
+    for (int i = start; i < end; i++) {
+      final ParserInstruction instruction = instructions[i];
+      elementByteSizes[i] = -1;
+      if (instruction.extraEvaluator != null || instruction.arrayEvaluator != null) {
+        state.evaluated = true;
+      }
+      final long offset = state.bit;
+      final long count;
+      switch (instruction.arrayKind) {
+        case ParserInstruction.ARRAY_NONE:
+          count = 1L;
+          break;
+        case ParserInstruction.ARRAY_FIXED:
+          count = instruction.arrayLength;
+          break;
+        default:
+          count = -1L;
+          break;
+      }
+      final boolean constExtra = instruction.extraEvaluator == null;
+
+      long itemBits = -1L;
+      switch (instruction.type) {
+        case JBBPCompiler.CODE_RESET_COUNTER: {
+          state.alignToByte();
+          state.counterBase = state.bit;
+          state.counterReset = true;
+        }
+        break;
+        case JBBPCompiler.CODE_ALIGN: {
+          state.alignToByte();
+          if (!constExtra) {
+            state.add(0L, -1L);
+          } else if (instruction.extra > 1) {
+            final long alignBytes = instruction.extra;
+            if (state.bit >= 0L && state.counterBase >= 0L) {
+              final long counter = (state.bit - state.counterBase) >> 3;
+              final long padding = ((alignBytes - counter % alignBytes) % alignBytes) << 3;
+              state.add(padding, padding);
+            } else {
+              state.add(0L, (alignBytes - 1L) << 3);
+            }
+          }
+        }
+        break;
+        case JBBPCompiler.CODE_SKIP: {
+          if (!instruction.fieldTypeDiff) {
+            if (constExtra) {
+              final long bits = Math.max(0L, (long) instruction.extra << 3);
+              state.add(bits, bits);
+            } else {
+              state.add(0L, -1L);
+            }
+          }
+        }
+        break;
+        case JBBPCompiler.CODE_BIT: {
+          itemBits = constExtra ? instruction.extra : -1L;
+        }
+        break;
+        case JBBPCompiler.CODE_BOOL:
+        case JBBPCompiler.CODE_BYTE:
+        case JBBPCompiler.CODE_UBYTE:
+        case JBBPCompiler.CODE_SHORT:
+        case JBBPCompiler.CODE_USHORT:
+        case JBBPCompiler.CODE_INT:
+        case JBBPCompiler.CODE_LONG: {
+          final int itemBytes = instruction.getItemByteSize();
+          if (itemBytes < 0) {
+            // string, every item takes at least one byte
+            state.add(count < 0L ? 0L : count << 3, -1L);
+          } else {
+            itemBits = (long) itemBytes << 3;
+          }
+        }
+        break;
+        case JBBPCompiler.CODE_VAR:
+        case JBBPCompiler.CODE_CUSTOMTYPE: {
+          state.add(0L, -1L);
+        }
+        break;
+        case JBBPCompiler.CODE_STRUCT_START: {
+          if (count == 1L && instruction.arrayKind == ParserInstruction.ARRAY_NONE) {
+            walk(instructions, i + 1, instruction.structEnd, state, entries, elementByteSizes);
+          } else if (count != 0L) {
+            final State body = new State(-1L, -1L);
+            walk(instructions, i + 1, instruction.structEnd, body, entries, elementByteSizes);
+            state.evaluated |= body.evaluated;
+            if (!body.evaluated && body.minBits == body.maxBits && body.minBits > 0L
+                && (body.minBits & 7L) == 0L && (body.minBits >> 3) <= Integer.MAX_VALUE) {
+              elementByteSizes[i] = (int) (body.minBits >> 3);
+            }
+            if (body.counterReset) {
+              state.counterBase = -1L;
+              state.counterReset = true;
+            }
+            if (count > 0L) {
+              state.add(count * body.minBits, body.maxBits < 0L ? -1L : count * body.maxBits);
+            } else {
+              state.add(0L, body.maxBits == 0L ? 0L : -1L);
+            }
+          }
+          if (instruction.name != null) {
+            entries.put(instruction.name.getFieldPath(),
+                new Entry(instruction, offset, offset < 0L || state.bit < 0L ? -1L :
+                    state.bit - offset, false));
+          }
+          i = instruction.structEnd;
+        }
+        break;
+        default:
+          throw new Error(
+              "Detected unexpected field type! Contact developer! [" + instruction.type + ']');
+      }
+
+      if (itemBits >= 0L) {
+        if (count >= 0L) {
+          state.add(count * itemBits, count * itemBits);
+        } else {
+          state.add(0L, -1L);
+        }
+      } else if (instruction.type == JBBPCompiler.CODE_BIT) {
+        state.add(count < 0L ? 0L : count, -1L);
+      }
+
+      if (instruction.name != null && instruction.type != JBBPCompiler.CODE_STRUCT_START) {
+        final boolean value =
+            instruction.type == JBBPCompiler.CODE_SKIP && instruction.fieldTypeDiff;
+        final long size = itemBits < 0L || count < 0L ? -1L : count * itemBits;
+        entries.put(instruction.name.getFieldPath(), new Entry(instruction, value ? -1L : offset,
+            size, !value && itemBits > 0L && instruction.arrayKind == ParserInstruction.ARRAY_NONE
+            && offset >= 0L));
+      }
+    }
+  }
+
+  /**
+   * Get size of an element of a structure array if elements can be decoded independently, it
+   * means that elements have fixed size in bytes and don't contain expressions.
+   *
+   * @param instructionIndex index of structure start instruction
+   * @return size of an element in bytes, -1 if elements can't be decoded independently
+   */
+  int getIndependentElementByteSize(final int instructionIndex) {
+    return this.elementByteSizes[instructionIndex];
+  }
+
+  /**
+   * Get min size of data for the script.
+   *
+   * @return min size in bits
+   */
+  public long getMinBitSize() {
+    return this.minBitSize;
+  }
+
+  /**
+   * Get max size of data for the script.
+   *
+   * @return max size in bits, -1 if the size is not limited
+   */
+  public long getMaxBitSize() {
+    return this.maxBitSize;
+  }
+
+  /**
+   * Get min size of data for the script.
+   *
+   * @return min size in bytes
+   */
+  public long getMinByteSize() {
+    return (this.minBitSize + 7L) >> 3;
+  }
+
+  /**
+   * Get max size of data for the script.
+   *
+   * @return max size in bytes, -1 if the size is not limited
+   */
+  public long getMaxByteSize() {
+    return this.maxBitSize < 0L ? -1L : (this.maxBitSize + 7L) >> 3;
+  }
+
+  /**
+   * Check that the script always reads the same number of bits.
+   *
+   * @return true if min and max sizes are the same, false otherwise
+   */
+  public boolean isFixedSize() {
+    return this.minBitSize == this.maxBitSize;
+  }
+
+  /**
+   * Check that data length is enough for the script, it allows to reject short data before
+   * parsing.
+   *
+   * @param byteLength length of data in bytes
+   * @return true if the length is not less than the min size, false otherwise
+   */
+  public boolean hasEnoughData(final long byteLength) {
+    return byteLength >= this.getMinByteSize();
+  }
+
+  /**
+   * Get static offset of a named field.
+   *
+   * @param fieldPath path of the field, must not be null
+   * @return offset of the field from the data start in bits, -1 if the offset is not static
+   * @throws JBBPIllegalArgumentException if the field is not found
+   */
+  public long getBitOffset(final String fieldPath) {
+    return this.findEntry(fieldPath).bitOffset;
+  }
+
+  /**
+   * Get static size of a named field.
+   *
+   * @param fieldPath path of the field, must not be null
+   * @return size of the field in bits, -1 if the size is not static
+   * @throws JBBPIllegalArgumentException if the field is not found
+   */
+  public long getBitSize(final String fieldPath) {
+    return this.findEntry(fieldPath).bitSize;
+  }
+
+  /**
+   * Read a numeric field directly from an array.
+   *
+   * @param array     data array, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as boolean
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public boolean readBoolean(final byte[] array, final String fieldPath) {
+    return this.readBoolean(ByteBuffer.wrap(array), fieldPath);
+  }
+
+  /**
+   * Read a numeric field directly from a buffer since its position, the buffer is not changed.
+   *
+   * @param buffer    data buffer, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as boolean
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public boolean readBoolean(final ByteBuffer buffer, final String fieldPath) {
+    final Entry entry = this.findDirectEntry(fieldPath);
+    final long raw = this.readRaw(buffer, entry);
+    if (entry.type == JBBPCompiler.CODE_INT && entry.fieldTypeDiff) {
+      return Float.intBitsToFloat((int) raw) != 0.0f;
+    } else if (entry.type == JBBPCompiler.CODE_LONG && entry.fieldTypeDiff) {
+      return Double.longBitsToDouble(raw) != 0.0d;
+    }
+    return raw != 0L;
+  }
+
+  /**
+   * Read a numeric field directly from an array.
+   *
+   * @param array     data array, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as integer, float values are rounded
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public int readInt(final byte[] array, final String fieldPath) {
+    return this.readInt(ByteBuffer.wrap(array), fieldPath);
+  }
+
+  /**
+   * Read a numeric field directly from a buffer since its position, the buffer is not changed.
+   *
+   * @param buffer    data buffer, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as integer, float values are rounded
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public int readInt(final ByteBuffer buffer, final String fieldPath) {
+    final Entry entry = this.findDirectEntry(fieldPath);
+    final long raw = this.readRaw(buffer, entry);
+    if (entry.fieldTypeDiff) {
+      return entry.type == JBBPCompiler.CODE_INT ? Math.round(Float.intBitsToFloat((int) raw)) :
+          (int) Math.round(Double.longBitsToDouble(raw));
+    }
+    return (int) toLong(entry, raw);
+  }
+
+  /**
+   * Read a numeric field directly from an array.
+   *
+   * @param array     data array, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as long, float values are rounded
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public long readLong(final byte[] array, final String fieldPath) {
+    return this.readLong(ByteBuffer.wrap(array), fieldPath);
+  }
+
+  /**
+   * Read a numeric field directly from a buffer since its position, the buffer is not changed.
+   *
+   * @param buffer    data buffer, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as long, float values are rounded
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public long readLong(final ByteBuffer buffer, final String fieldPath) {
+    final Entry entry = this.findDirectEntry(fieldPath);
+    final long raw = this.readRaw(buffer, entry);
+    if (entry.fieldTypeDiff) {
+      return entry.type == JBBPCompiler.CODE_INT ? Math.round(Float.intBitsToFloat((int) raw)) :
+          Math.round(Double.longBitsToDouble(raw));
+    }
+    return toLong(entry, raw);
+  }
+
+  /**
+   * Read a numeric field directly from an array.
+   *
+   * @param array     data array, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as double
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public double readDouble(final byte[] array, final String fieldPath) {
+    return this.readDouble(ByteBuffer.wrap(array), fieldPath);
+  }
+
+  /**
+   * Read a numeric field directly from a buffer since its position, the buffer is not changed.
+   *
+   * @param buffer    data buffer, must not be null
+   * @param fieldPath path of a single numeric field with static offset, must not be null
+   * @return value of the field as double
+   * @throws JBBPIllegalArgumentException if the field is not found or doesn't have static offset
+   * @throws JBBPParsingException         if there is not enough data for the field
+   */
+  public double readDouble(final ByteBuffer buffer, final String fieldPath) {
+    final Entry entry = this.findDirectEntry(fieldPath);
+    final long raw = this.readRaw(buffer, entry);
+    if (entry.fieldTypeDiff) {
+      return entry.type == JBBPCompiler.CODE_INT ? Float.intBitsToFloat((int) raw) :
+          Double.longBitsToDouble(raw);
+    }
+    return toLong(entry, raw);
+  }
+
+  private static long toLong(final Entry entry, final long raw) {
+    switch (entry.type) {
+      case JBBPCompiler.CODE_BOOL:
+        return raw == 0L ? 0L : 1L;
+      case JBBPCompiler.CODE_BYTE:
+        return (byte) raw;
+      case JBBPCompiler.CODE_SHORT:
+        return (short) raw;
+      case JBBPCompiler.CODE_INT:
+        return (int) raw;
+      default:
+        return raw;
+    }
+  }
+
+  private Entry findEntry(final String fieldPath) {
+    final Entry entry = this.entries.get(JBBPUtils.normalizeFieldNameOrPath(fieldPath));
+    if (entry == null) {
+      throw new JBBPIllegalArgumentException("Unknown field path [" + fieldPath + ']');
+    }
+    return entry;
+  }
+
+  private Entry findDirectEntry(final String fieldPath) {
+    final Entry entry = this.findEntry(fieldPath);
+    if (!entry.direct) {
+      throw new JBBPIllegalArgumentException(
+          "Field can't be read directly, it must be single numeric field with static offset ["
+              + fieldPath + ']');
+    }
+    return entry;
+  }
+
+  private long readRaw(final ByteBuffer buffer, final Entry entry) {
+    final int base = buffer.position();
+    final long endByte = (entry.bitOffset + entry.bitSize + 7L) >> 3;
+    if (endByte > buffer.remaining()) {
+      throw new JBBPParsingException(
+          "Not enough data to read field '" + entry.name.getFieldPath() + "' [" + endByte + " > "
+              + buffer.remaining() + ']');
+    }
+
+    if (entry.type == JBBPCompiler.CODE_BIT) {
+      long result = 0L;
+      for (int filled = 0; filled < entry.bitSize; filled += 8) {
+        final int bits = (int) Math.min(8L, entry.bitSize - filled);
+        result |= (long) this.readBits(buffer, base, entry.bitOffset + filled, bits) << filled;
+      }
+      return result;
+    }
+
+    final int bytes = (int) (entry.bitSize >> 3);
+    long result = 0L;
+    if (entry.byteOrder == JBBPByteOrder.BIG_ENDIAN) {
+      for (int i = 0; i < bytes; i++) {
+        result = (result << 8) | this.readBits(buffer, base, entry.bitOffset + (i << 3), 8);
+      }
+    } else {
+      for (int i = bytes - 1; i >= 0; i--) {
+        result = (result << 8) | this.readBits(buffer, base, entry.bitOffset + (i << 3), 8);
+      }
+    }
+    return result;
+  }
+
+  private int readBits(final ByteBuffer buffer, final int base, final long bitOffset,
+                       final int bits) {
+    final int index = base + (int) (bitOffset >> 3);
+    final int shift = (int) (bitOffset & 7L);
+    int value = this.byteAt(buffer, index) >>> shift;
+    if (shift + bits > 8) {
+      value |= this.byteAt(buffer, index + 1) << (8 - shift);
+    }
+    return value & (0xFF >>> (8 - bits));
+  }
+
+  private int byteAt(final ByteBuffer buffer, final int index) {
+    final byte value = buffer.get(index);
+    return (this.msb0 ? JBBPUtils.reverseBitsInByte(value) : value) & 0xFF;
+  }
+
+  /**
+   * Inside state of layout analysis.
+   */
+  private static final class State {
+    private long bit;
+    private long counterBase;
+    private long minBits;
+    private long maxBits;
+    private boolean counterReset;
+    private boolean evaluated;
+
+    private State(final long bit, final long counterBase) {
+      this.bit = bit;
+      this.counterBase = counterBase;
+    }
+
+    private void add(final long min, final long max) {
+      this.bit = this.bit < 0L || min != max ? -1L : this.bit + min;
+      this.minBits += min;
+      this.maxBits = this.maxBits < 0L || max < 0L ? -1L : this.maxBits + max;
+    }
+
+    private void alignToByte() {
+      if (this.bit < 0L) {
+        this.add(0L, 7L);
+      } else {
+        final long padding = (8L - (this.bit & 7L)) & 7L;
+        this.add(padding, padding);
+      }
+    }
+  }
+
+  /**
+   * Layout of a named field.
+   */
+  private static final class Entry {
+    private final JBBPNamedFieldInfo name;
+    private final int type;
+    private final boolean fieldTypeDiff;
+    private final JBBPByteOrder byteOrder;
+    private final long bitOffset;
+    private final long bitSize;
+    private final boolean direct;
+
+    private Entry(final ParserInstruction instruction, final long bitOffset, final long bitSize,
+                  final boolean direct) {
+      this.name = instruction.name;
+      this.type = instruction.type;
+      this.fieldTypeDiff = instruction.fieldTypeDiff;
+      this.byteOrder = instruction.byteOrder;
+      this.bitOffset = bitOffset;
+      this.bitSize = bitSize;
+      this.direct = direct;
+    }
+  }
+}
@@ -26,24 +26,51 @@ import com.igormaznitsa.jbbp.model.JBBPAbstractField;
 import com.igormaznitsa.jbbp.model.JBBPNumericField;
 import com.igormaznitsa.jbbp.model.finder.JBBPFieldFinder;
 import com.igormaznitsa.jbbp.utils.JBBPUtils;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Implements a storage to keep named fields. it is not a thread-safe one
+ * <p>
+ * If the map is made for a compiled block then named fields of the block are kept in slots
+ * assigned during compilation, so they are found by index.
  *
  * @since 1.0
  */
 public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
-  /**
-   * Inside map to get numeric fields for their name field descriptors.
-   */
-  private final Map<JBBPNamedFieldInfo, JBBPNumericField> fieldMap;
+  private static final JBBPNamedFieldInfo[] ARRAY_FIELDINFO_EMPTY = new JBBPNamedFieldInfo[0];
+  private static final JBBPNumericField[] ARRAY_NUMERICFIELD_EMPTY = new JBBPNumericField[0];
+
   /**
    * Defined external value provider, it can be null.
    */
   private final JBBPExternalValueProvider externalValueProvider;
+  /**
+   * Compiled block which named fields get slots, it can be null.
+   *
+   * @since 2.0.4
+   */
+  private final JBBPCompiledBlock compiledBlock;
+  /**
+   * Positions (plus one) of registered fields in key and value arrays for slots of named fields
+   * of the compiled block, zero for not registered ones. It is null if there is no compiled
+   * block.
+   *
+   * @since 2.0.4
+   */
+  private final int[] slotPositions;
+  /**
+   * Name info of registered fields in order of registration.
+   */
+  private JBBPNamedFieldInfo[] keys;
+  /**
+   * Registered fields in order of registration.
+   */
+  private JBBPNumericField[] values;
+  /**
+   * Number of registered fields.
+   */
+  private int size;
 
   /**
    * Empty constructor which makes a map with null provider.
@@ -58,8 +85,34 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    * @param externalValueProvider an external value provider, it can be null
    */
   public JBBPNamedNumericFieldMap(final JBBPExternalValueProvider externalValueProvider) {
-    this.fieldMap = new LinkedHashMap<>();
+    this(externalValueProvider, null);
+  }
+
+  /**
+   * A Constructor making a map which keeps named fields of a compiled block in slots, so that
+   * they are found by index without hashing and search. Fields which don't belong to the block
+   * are also allowed but they are found through search.
+   *
+   * @param externalValueProvider an external value provider, it can be null
+   * @param compiledBlock         a compiled block which named fields will be registered, it can
+   *                              be null
+   * @see JBBPCompiledBlock#findNamedFieldSlot(JBBPNamedFieldInfo)
+   * @since 2.0.4
+   */
+  public JBBPNamedNumericFieldMap(final JBBPExternalValueProvider externalValueProvider,
+                                  final JBBPCompiledBlock compiledBlock) {
     this.externalValueProvider = externalValueProvider;
+    this.compiledBlock = compiledBlock;
+    if (compiledBlock == null) {
+      this.slotPositions = null;
+      this.keys = ARRAY_FIELDINFO_EMPTY;
+      this.values = ARRAY_NUMERICFIELD_EMPTY;
+    } else {
+      final int slots = compiledBlock.getNamedFields().length;
+      this.slotPositions = new int[slots];
+      this.keys = new JBBPNamedFieldInfo[slots];
+      this.values = new JBBPNumericField[slots];
+    }
   }
 
   /**
@@ -71,6 +124,25 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
     return this.externalValueProvider;
   }
 
+  private int findSlot(final JBBPNamedFieldInfo namedField) {
+    return this.compiledBlock == null ? -1 : this.compiledBlock.findNamedFieldSlot(namedField);
+  }
+
+  private int findPosition(final JBBPNamedFieldInfo namedField, final int slot) {
+    int result = -1;
+    if (slot >= 0) {
+      result = this.slotPositions[slot] - 1;
+    } else {
+      for (int i = 0; i < this.size; i++) {
+        if (namedField.equals(this.keys[i])) {
+          result = i;
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
   /**
    * Get a numeric field for its field name info.
    *
@@ -78,7 +150,8 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    * @return the found field or null if it is not found
    */
   public JBBPNumericField get(final JBBPNamedFieldInfo namedField) {
-    return this.fieldMap.get(namedField);
+    final int position = findPosition(namedField, findSlot(namedField));
+    return position < 0 ? null : this.values[position];
   }
 
   /**
@@ -93,7 +166,24 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
     JBBPUtils.assertNotNull(field, "Field must not be null");
     final JBBPNamedFieldInfo fieldName = field.getNameInfo();
     JBBPUtils.assertNotNull(fieldName, "Field name info must not be null");
-    this.fieldMap.put(fieldName, field);
+
+    final int slot = findSlot(fieldName);
+    final int position = findPosition(fieldName, slot);
+    if (position < 0) {
+      if (this.size == this.keys.length) {
+        final int newLength = Math.max(8, this.size << 1);
+        this.keys = Arrays.copyOf(this.keys, newLength);
+        this.values = Arrays.copyOf(this.values, newLength);
+      }
+      this.keys[this.size] = fieldName;
+      this.values[this.size] = field;
+      this.size++;
+      if (slot >= 0) {
+        this.slotPositions[slot] = this.size;
+      }
+    } else {
+      this.values[position] = field;
+    }
   }
 
   /**
@@ -104,7 +194,30 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    */
   public JBBPNumericField remove(final JBBPNamedFieldInfo nameInfo) {
     JBBPUtils.assertNotNull(nameInfo, "Name info must not be null");
-    return this.fieldMap.remove(nameInfo);
+    final int position = findPosition(nameInfo, findSlot(nameInfo));
+    if (position < 0) {
+      return null;
+    }
+    final JBBPNumericField result = this.values[position];
+    final int slot = findSlot(this.keys[position]);
+    if (slot >= 0) {
+      this.slotPositions[slot] = 0;
+    }
+
+    final int tail = this.size - position - 1;
+    System.arraycopy(this.keys, position + 1, this.keys, position, tail);
+    System.arraycopy(this.values, position + 1, this.values, position, tail);
+    this.size--;
+    this.keys[this.size] = null;
+    this.values[this.size] = null;
+
+    for (int i = position; i < this.size; i++) {
+      final int movedSlot = findSlot(this.keys[i]);
+      if (movedSlot >= 0) {
+        this.slotPositions[movedSlot] = i + 1;
+      }
+    }
+    return result;
   }
 
   /**
@@ -114,10 +227,16 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    * @return found field or null if there is not any found for the offset
    */
   public JBBPNumericField findForFieldOffset(final int offset) {
+    if (this.compiledBlock != null) {
+      final int slot = this.compiledBlock.findNamedFieldSlotForOffset(offset);
+      if (slot >= 0 && this.slotPositions[slot] > 0) {
+        return this.values[this.slotPositions[slot] - 1];
+      }
+    }
     JBBPNumericField result = null;
-    for (final Map.Entry<JBBPNamedFieldInfo, JBBPNumericField> f : fieldMap.entrySet()) {
-      if (f.getKey().getFieldOffsetInCompiledBlock() == offset) {
-        result = f.getValue();
+    for (int i = 0; i < this.size; i++) {
+      if (this.keys[i].getFieldOffsetInCompiledBlock() == offset) {
+        result = this.values[i];
         break;
       }
     }
@@ -128,7 +247,8 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
   public <T extends JBBPAbstractField> T findFirstFieldForType(final Class<T> fieldType) {
     JBBPUtils.assertNotNull(fieldType, "Type must not be null");
     T result = null;
-    for (final JBBPNumericField f : fieldMap.values()) {
+    for (int i = 0; i < this.size; i++) {
+      final JBBPNumericField f = this.values[i];
       if (fieldType.isAssignableFrom(f.getClass())) {
         result = fieldType.cast(f);
         break;
@@ -141,7 +261,8 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
   public <T extends JBBPAbstractField> T findLastFieldForType(final Class<T> fieldType) {
     JBBPUtils.assertNotNull(fieldType, "Type must not be null");
     T result = null;
-    for (final JBBPNumericField f : fieldMap.values()) {
+    for (int i = 0; i < this.size; i++) {
+      final JBBPNumericField f = this.values[i];
       if (fieldType == f.getClass()) {
         result = fieldType.cast(f);
       }
@@ -154,7 +275,8 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
     JBBPUtils.assertNotNull(fieldType, "Type must not be null");
     int count = 0;
     T result = null;
-    for (final JBBPNumericField f : fieldMap.values()) {
+    for (int i = 0; i < this.size; i++) {
+      final JBBPNumericField f = this.values[i];
       if (fieldType == f.getClass()) {
         result = fieldType.cast(f);
         count++;
@@ -174,10 +296,10 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
     T result = null;
 
-    for (final Map.Entry<JBBPNamedFieldInfo, JBBPNumericField> f : fieldMap.entrySet()) {
-      if (normalizedName.equals(f.getKey().getFieldName()) &&
-          fieldType.isAssignableFrom(f.getValue().getClass())) {
-        result = fieldType.cast(f.getValue());
+    for (int i = 0; i < this.size; i++) {
+      if (normalizedName.equals(this.keys[i].getFieldName()) &&
+          fieldType.isAssignableFrom(this.values[i].getClass())) {
+        result = fieldType.cast(this.values[i]);
         break;
       }
     }
@@ -192,10 +314,10 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
     T result = null;
 
-    for (final Map.Entry<JBBPNamedFieldInfo, JBBPNumericField> f : fieldMap.entrySet()) {
-      if (normalizedPath.equals(f.getKey().getFieldPath()) &&
-          fieldType.isAssignableFrom(f.getValue().getClass())) {
-        result = fieldType.cast(f.getValue());
+    for (int i = 0; i < this.size; i++) {
+      if (normalizedPath.equals(this.keys[i].getFieldPath()) &&
+          fieldType.isAssignableFrom(this.values[i].getClass())) {
+        result = fieldType.cast(this.values[i]);
         break;
       }
     }
@@ -208,9 +330,9 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
     JBBPAbstractField result = null;
 
-    for (final Map.Entry<JBBPNamedFieldInfo, JBBPNumericField> f : fieldMap.entrySet()) {
-      if (normalizedName.equals(f.getKey().getFieldName())) {
-        result = (JBBPAbstractField) f.getValue();
+    for (int i = 0; i < this.size; i++) {
+      if (normalizedName.equals(this.keys[i].getFieldName())) {
+        result = (JBBPAbstractField) this.values[i];
         break;
       }
     }
@@ -223,9 +345,9 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
     JBBPAbstractField result = null;
 
-    for (final Map.Entry<JBBPNamedFieldInfo, JBBPNumericField> f : fieldMap.entrySet()) {
-      if (normalizedPath.equals(f.getKey().getFieldPath())) {
-        result = (JBBPAbstractField) f.getValue();
+    for (int i = 0; i < this.size; i++) {
+      if (normalizedPath.equals(this.keys[i].getFieldPath())) {
+        result = (JBBPAbstractField) this.values[i];
         break;
       }
     }
@@ -238,7 +360,8 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
     boolean result = false;
 
-    for (final JBBPNamedFieldInfo f : fieldMap.keySet()) {
+    for (int i = 0; i < this.size; i++) {
+      final JBBPNamedFieldInfo f = this.keys[i];
       if (normalizedName.equals(f.getFieldName())) {
         result = true;
         break;
@@ -253,7 +376,8 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
 
     boolean result = false;
 
-    for (final JBBPNamedFieldInfo f : fieldMap.keySet()) {
+    for (int i = 0; i < this.size; i++) {
+      final JBBPNamedFieldInfo f = this.keys[i];
       if (normalizedPath.equals(f.getFieldPath())) {
         result = true;
         break;
@@ -266,7 +390,12 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    * Clear the map.
    */
   public void clear() {
-    this.fieldMap.clear();
+    Arrays.fill(this.keys, 0, this.size, null);
+    Arrays.fill(this.values, 0, this.size, null);
+    if (this.slotPositions != null) {
+      Arrays.fill(this.slotPositions, 0);
+    }
+    this.size = 0;
   }
 
   /**
@@ -275,7 +404,7 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    * @return true if the map is empty, false otherwise
    */
   public boolean isEmpty() {
-    return this.fieldMap.isEmpty();
+    return this.size == 0;
   }
 
   /**
@@ -284,7 +413,7 @@ public final class JBBPNamedNumericFieldMap implements JBBPFieldFinder {
    * @return number of registered fields as integer
    */
   public int size() {
-    return this.fieldMap.size();
+    return this.size;
   }
 
   /**
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+
+/**
+ * The Interface describes a listener to get parsed values from a parser without building of field object tree.
+ * The Parser notifies the listener in order of fields in the script, values are provided as primitives or arrays.
+ * Name info can be null for anonymous fields. The Root structure is not notified.
+ *
+ * @see JBBPParser#parse(java.io.InputStream, JBBPParseListener)
+ * @see JBBPParseListenerAdapter
+ * @since 2.0.4
+ */
+public interface JBBPParseListener {
+
+  /**
+   * Notification about start of a structure, also it is called for every structure of a structure array.
+   *
+   * @param name the structure name info, can be null
+   */
+  void onStructStart(JBBPNamedFieldInfo name);
+
+  /**
+   * Notification about end of a structure, also it is called for every structure of a structure array.
+   *
+   * @param name the structure name info, can be null
+   */
+  void onStructEnd(JBBPNamedFieldInfo name);
+
+  /**
+   * Notification about start of a structure array.
+   *
+   * @param name   the structure array name info, can be null
+   * @param length the array length, -1 if the array is read till the end of stream
+   */
+  void onStructArrayStart(JBBPNamedFieldInfo name, int length);
+
+  /**
+   * Notification about end of a structure array.
+   *
+   * @param name the structure array name info, can be null
+   */
+  void onStructArrayEnd(JBBPNamedFieldInfo name);
+
+  void onBit(JBBPNamedFieldInfo name, int value, JBBPBitNumber bitNumber);
+
+  void onBitArray(JBBPNamedFieldInfo name, byte[] values, JBBPBitNumber bitNumber);
+
+  void onBool(JBBPNamedFieldInfo name, boolean value);
+
+  void onBoolArray(JBBPNamedFieldInfo name, boolean[] values);
+
+  void onByte(JBBPNamedFieldInfo name, byte value);
+
+  void onByteArray(JBBPNamedFieldInfo name, byte[] values);
+
+  /**
+   * Notification about unsigned byte value.
+   *
+   * @param name  the field name info, can be null
+   * @param value the value in 0..255
+   */
+  void onUByte(JBBPNamedFieldInfo name, int value);
+
+  void onUByteArray(JBBPNamedFieldInfo name, byte[] values);
+
+  void onShort(JBBPNamedFieldInfo name, short value);
+
+  void onShortArray(JBBPNamedFieldInfo name, short[] values);
+
+  /**
+   * Notification about unsigned short value.
+   *
+   * @param name  the field name info, can be null
+   * @param value the value in 0..65535
+   */
+  void onUShort(JBBPNamedFieldInfo name, int value);
+
+  void onUShortArray(JBBPNamedFieldInfo name, short[] values);
+
+  /**
+   * Notification about integer value, also it is called for value fields (val:).
+   *
+   * @param name  the field name info, can be null
+   * @param value the value
+   */
+  void onInt(JBBPNamedFieldInfo name, int value);
+
+  void onIntArray(JBBPNamedFieldInfo name, int[] values);
+
+  void onFloat(JBBPNamedFieldInfo name, float value);
+
+  void onFloatArray(JBBPNamedFieldInfo name, float[] values);
+
+  void onLong(JBBPNamedFieldInfo name, long value);
+
+  void onLongArray(JBBPNamedFieldInfo name, long[] values);
+
+  void onDouble(JBBPNamedFieldInfo name, double value);
+
+  void onDoubleArray(JBBPNamedFieldInfo name, double[] values);
+
+  void onString(JBBPNamedFieldInfo name, String value);
+
+  void onStringArray(JBBPNamedFieldInfo name, String[] values);
+
+  /**
+   * Notification about a field or a field array read by a var field processor.
+   *
+   * @param field the read field, must not be null
+   * @see JBBPVarFieldProcessor
+   */
+  void onVarField(JBBPAbstractField field);
+
+  /**
+   * Notification about a field or a field array read by a custom field type processor.
+   *
+   * @param field the read field, must not be null
+   * @see JBBPCustomFieldTypeProcessor
+   */
+  void onCustomField(JBBPAbstractField field);
+}
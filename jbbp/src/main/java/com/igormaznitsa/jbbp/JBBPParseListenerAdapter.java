@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+
+/**
+ * Auxiliary adapter for interface JBBPParseListener, all notifications are ignored.
+ *
+ * @see JBBPParseListener
+ * @since 2.0.4
+ */
+public abstract class JBBPParseListenerAdapter implements JBBPParseListener {
+
+  @Override
+  public void onStructStart(final JBBPNamedFieldInfo name) {
+  }
+
+  @Override
+  public void onStructEnd(final JBBPNamedFieldInfo name) {
+  }
+
+  @Override
+  public void onStructArrayStart(final JBBPNamedFieldInfo name, final int length) {
+  }
+
+  @Override
+  public void onStructArrayEnd(final JBBPNamedFieldInfo name) {
+  }
+
+  @Override
+  public void onBit(final JBBPNamedFieldInfo name, final int value, final JBBPBitNumber bitNumber) {
+  }
+
+  @Override
+  public void onBitArray(final JBBPNamedFieldInfo name, final byte[] values,
+                         final JBBPBitNumber bitNumber) {
+  }
+
+  @Override
+  public void onBool(final JBBPNamedFieldInfo name, final boolean value) {
+  }
+
+  @Override
+  public void onBoolArray(final JBBPNamedFieldInfo name, final boolean[] values) {
+  }
+
+  @Override
+  public void onByte(final JBBPNamedFieldInfo name, final byte value) {
+  }
+
+  @Override
+  public void onByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+  }
+
+  @Override
+  public void onUByte(final JBBPNamedFieldInfo name, final int value) {
+  }
+
+  @Override
+  public void onUByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+  }
+
+  @Override
+  public void onShort(final JBBPNamedFieldInfo name, final short value) {
+  }
+
+  @Override
+  public void onShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+  }
+
+  @Override
+  public void onUShort(final JBBPNamedFieldInfo name, final int value) {
+  }
+
+  @Override
+  public void onUShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+  }
+
+  @Override
+  public void onInt(final JBBPNamedFieldInfo name, final int value) {
+  }
+
+  @Override
+  public void onIntArray(final JBBPNamedFieldInfo name, final int[] values) {
+  }
+
+  @Override
+  public void onFloat(final JBBPNamedFieldInfo name, final float value) {
+  }
+
+  @Override
+  public void onFloatArray(final JBBPNamedFieldInfo name, final float[] values) {
+  }
+
+  @Override
+  public void onLong(final JBBPNamedFieldInfo name, final long value) {
+  }
+
+  @Override
+  public void onLongArray(final JBBPNamedFieldInfo name, final long[] values) {
+  }
+
+  @Override
+  public void onDouble(final JBBPNamedFieldInfo name, final double value) {
+  }
+
+  @Override
+  public void onDoubleArray(final JBBPNamedFieldInfo name, final double[] values) {
+  }
+
+  @Override
+  public void onString(final JBBPNamedFieldInfo name, final String value) {
+  }
+
+  @Override
+  public void onStringArray(final JBBPNamedFieldInfo name, final String[] values) {
+  }
+
+  @Override
+  public void onVarField(final JBBPAbstractField field) {
+  }
+
+  @Override
+  public void onCustomField(final JBBPAbstractField field) {
+  }
+}
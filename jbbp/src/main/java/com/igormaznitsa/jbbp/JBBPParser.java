@@ -23,52 +23,46 @@ import com.igormaznitsa.jbbp.compiler.JBBPCompiledBlock;
 import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
 import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
 import com.igormaznitsa.jbbp.compiler.conversion.JBBPToJavaConverter;
-import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
 import com.igormaznitsa.jbbp.compiler.varlen.JBBPIntegerValueEvaluator;
+import com.igormaznitsa.jbbp.exceptions.JBBPIOException;
 import com.igormaznitsa.jbbp.exceptions.JBBPParsingException;
 import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
 import com.igormaznitsa.jbbp.io.JBBPBitNumber;
 import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.io.JBBPByteBufferBitInputStream;
 import com.igormaznitsa.jbbp.io.JBBPByteOrder;
-import com.igormaznitsa.jbbp.model.JBBPAbstractArrayField;
+import com.igormaznitsa.jbbp.io.JBBPMappedFileBitInputStream;
+import com.igormaznitsa.jbbp.mapper.JBBPMapper;
+import com.igormaznitsa.jbbp.mapper.JBBPMappingParseListener;
 import com.igormaznitsa.jbbp.model.JBBPAbstractField;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayBit;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayBoolean;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayByte;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayDouble;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayFloat;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayInt;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayLong;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayShort;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayString;
+import com.igormaznitsa.jbbp.model.JBBPCompactLayout;
 import com.igormaznitsa.jbbp.model.JBBPFieldArrayStruct;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayUByte;
-import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
-import com.igormaznitsa.jbbp.model.JBBPFieldBit;
-import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
-import com.igormaznitsa.jbbp.model.JBBPFieldByte;
-import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
-import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
-import com.igormaznitsa.jbbp.model.JBBPFieldInt;
-import com.igormaznitsa.jbbp.model.JBBPFieldLong;
-import com.igormaznitsa.jbbp.model.JBBPFieldShort;
-import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import com.igormaznitsa.jbbp.model.JBBPFieldColumnarStruct;
 import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
-import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
-import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
-import com.igormaznitsa.jbbp.model.JBBPNumericField;
-import com.igormaznitsa.jbbp.utils.JBBPIntCounter;
+import com.igormaznitsa.jbbp.utils.Function;
+import com.igormaznitsa.jbbp.utils.JBBPSystemProperty;
 import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import com.igormaznitsa.jbbp.utils.ReflectUtils;
 import com.igormaznitsa.jbbp.utils.TargetSources;
-import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * the Main class allows a user to parse a binary stream or block for predefined
@@ -89,14 +83,56 @@ public final class JBBPParser {
    * @since 1.4.0
    */
   public static final int FLAG_NEGATIVE_EXPRESSION_RESULT_AS_ZERO = 2;
+  /**
+   * Flag to decode structure arrays which contain only single primitive fields without
+   * expressions into columns, such arrays are presented by {@link JBBPFieldColumnarStruct} with
+   * a primitive array for every field instead of {@link JBBPFieldArrayStruct}. The Flag is
+   * ignored if {@link #FLAG_SKIP_REMAINING_FIELDS_IF_EOF} is set.
+   *
+   * @since 2.0.4
+   */
+  public static final int FLAG_COLUMNAR_STRUCT_ARRAYS = 4;
+  /**
+   * Flag to make compact structures in parsing results, values of scalar numeric fields of such
+   * structures are packed into a long array and field objects are made only on request.
+   * Compact structures are not made for parsing with projection. Payload must not be set for
+   * fields of compact structures.
+   *
+   * @see JBBPCompactLayout
+   * @see JBBPFieldStruct#isCompact()
+   * @since 2.0.4
+   */
+  public static final int FLAG_COMPACT_STRUCTS = 8;
   /**
    * Empty structure array
    */
   private static final JBBPFieldStruct[] EMPTY_STRUCT_ARRAY = new JBBPFieldStruct[0];
+  /**
+   * Structure arrays with more elements can be decoded in parallel, it is also max number of
+   * elements in a chunk decoded by one task.
+   */
+  private static final int PARALLEL_MIN_ITEMS = 1024;
+  /**
+   * Max size of data of a chunk decoded by one task.
+   */
+  private static final int PARALLEL_MAX_CHUNK_BYTES = 1024 * 1024;
   /**
    * the Compiled block contains compiled script and extra information.
    */
   private final JBBPCompiledBlock compiledBlock;
+  /**
+   * Instructions of the compiled block decoded during preparation.
+   */
+  private final ParserInstruction[] instructions;
+  /**
+   * Column decoders of structure arrays for their start instruction indexes, null if arrays are
+   * not decoded into columns.
+   */
+  private final ColumnarStructDecoder[] columnarDecoders;
+  /**
+   * Maker of compact structures, null if compact structures are not enabled.
+   */
+  private final CompactStructFactory compactStructs;
   /**
    * The Bit order for stream operations.
    */
@@ -113,6 +149,25 @@ public final class JBBPParser {
    * The Variable contains the last parsing counter value.
    */
   private long finalStreamByteCounter;
+  /**
+   * Compiled readers of the root structure, null if the parser is not compiled yet.
+   */
+  private volatile CompiledFieldReader.Body compiledBody;
+  /**
+   * Number of interpreted parse calls after which the parser is compiled automatically,
+   * zero or negative value means that automatic compilation is disabled.
+   *
+   * @see JBBPSystemProperty#PROPERTY_PARSER_COMPILE_THRESHOLD
+   */
+  private final int compileThreshold;
+  /**
+   * Counter of interpreted parse calls.
+   */
+  private int interpretedParseCounter;
+  /**
+   * Static layout of the script, null if it is not calculated yet.
+   */
+  private volatile JBBPLayout layout;
 
   /**
    * Constructor.
@@ -131,11 +186,41 @@ public final class JBBPParser {
     this.customFieldTypeProcessor = customFieldTypeProcessor;
     this.bitOrder = bitOrder;
     this.flags = flags;
+    this.compileThreshold =
+        JBBPSystemProperty.PROPERTY_PARSER_COMPILE_THRESHOLD.getAsInteger(0);
     try {
       this.compiledBlock = JBBPCompiler.compile(source, customFieldTypeProcessor);
     } catch (IOException ex) {
       throw new RuntimeException("Can't compile script for unexpected IOException", ex);
     }
+    this.instructions = ParserInstruction.decode(this.compiledBlock);
+    this.columnarDecoders = makeColumnarDecoders(this.instructions, flags);
+    this.compactStructs = CompactStructFactory.make(this.instructions, flags);
+  }
+
+  /**
+   * Make column decoders for structure arrays if it is enabled by flags.
+   *
+   * @param instructions parser instructions, must not be null
+   * @param flags        parser flags
+   * @return array contains decoders for structure start instruction indexes, null if columnar
+   * decoding is not enabled
+   */
+  static ColumnarStructDecoder[] makeColumnarDecoders(final ParserInstruction[] instructions,
+                                                      final int flags) {
+    if ((flags & FLAG_COLUMNAR_STRUCT_ARRAYS) == 0
+        || (flags & FLAG_SKIP_REMAINING_FIELDS_IF_EOF) != 0) {
+      return null;
+    }
+    final ColumnarStructDecoder[] result = new ColumnarStructDecoder[instructions.length];
+    for (int i = 0; i < instructions.length; i++) {
+      final ParserInstruction instruction = instructions[i];
+      if (instruction.type == JBBPCompiler.CODE_STRUCT_START
+          && instruction.arrayKind != ParserInstruction.ARRAY_NONE) {
+        result[i] = ColumnarStructDecoder.make(instructions, i);
+      }
+    }
+    return result;
   }
 
   /**
@@ -245,447 +330,583 @@ public final class JBBPParser {
   }
 
   /**
-   * Inside method to parse a structure.
+   * Evaluate an expression for an instruction.
+   *
+   * @param evaluator            the evaluator, must not be null
+   * @param inStream             the input stream, must not be null
+   * @param instruction          the instruction which is processed, must not be null
+   * @param namedNumericFieldMap the named numeric field map
+   * @return calculated value
+   */
+  private int evaluate(final JBBPIntegerValueEvaluator evaluator, final JBBPBitInputStream inStream,
+                       final ParserInstruction instruction,
+                       final JBBPNamedNumericFieldMap namedNumericFieldMap) {
+    final int result =
+        evaluator.eval(inStream, instruction.evalOffset, this.compiledBlock, namedNumericFieldMap);
+    return (this.flags & FLAG_NEGATIVE_EXPRESSION_RESULT_AS_ZERO) == 0 ? result : Math.max(result, 0);
+  }
+
+  /**
+   * Inside method to parse a structure, it is the only interpreter of parser instructions.
+   * Parsed values are passed to a listener, the tree of fields is made by {@link FieldTreeBuilder}
+   * which also allows to decode structure arrays by columns or in parallel.
    *
-   * @param inStream                      the input stream, must not be null
-   * @param positionAtCompiledBlock       the current position in the compiled script
-   *                                      block
-   * @param varFieldProcessor             a processor to process var fields, it can be null
-   *                                      but it will thrown NPE if a var field is met
-   * @param namedNumericFieldMap          the named numeric field map
-   * @param positionAtNamedFieldList      the current position at the named field
-   *                                      list
-   * @param positionAtVarLengthProcessors the current position at the variable
-   *                                      array length processor list
-   * @param skipStructureFields           the flag shows that content of fields must be
-   *                                      skipped because the structure is skipped
-   * @return list of read fields for the structure
+   * @param inStream             the input stream, must not be null
+   * @param start                index of the first instruction of the structure body
+   * @param end                  index of the structure end instruction
+   * @param varFieldProcessor    a processor to process var fields, it can be null
+   *                             but it will thrown NPE if a var field is met
+   * @param namedNumericFieldMap the named numeric field map, can be null
+   * @param executor             executor to decode structure arrays in parallel, can be null
+   * @param listener             the listener to be notified, must not be null
    * @throws IOException it will be thrown for transport errors
    */
-  private List<JBBPAbstractField> parseStruct(final JBBPBitInputStream inStream,
-                                              final JBBPIntCounter positionAtCompiledBlock,
-                                              final JBBPVarFieldProcessor varFieldProcessor,
-                                              final JBBPNamedNumericFieldMap namedNumericFieldMap,
-                                              final JBBPIntCounter positionAtNamedFieldList,
-                                              final JBBPIntCounter positionAtVarLengthProcessors,
-                                              final boolean skipStructureFields)
+  private void parseStruct(final JBBPBitInputStream inStream, final int start, final int end,
+                           final JBBPVarFieldProcessor varFieldProcessor,
+                           final JBBPNamedNumericFieldMap namedNumericFieldMap,
+                           final ExecutorService executor, final JBBPParseListener listener)
       throws IOException {
-    final List<JBBPAbstractField> structureFields = skipStructureFields ? null : new ArrayList<>();
-    final byte[] compiled = this.compiledBlock.getCompiledData();
+    final ParserInstruction[] instructions = this.instructions;
 
-    boolean endStructureNotMet = true;
-
-    while (endStructureNotMet && positionAtCompiledBlock.get() < compiled.length) {
+    for (int i = start; i < end; i++) {
       if (!inStream.hasAvailableData() && (flags & FLAG_SKIP_REMAINING_FIELDS_IF_EOF) != 0) {
         // Break reading because the ignore flag for EOF has been set
         break;
       }
 
-      final int c = compiled[positionAtCompiledBlock.getAndIncrement()] & 0xFF;
-      final boolean wideCode = (c & JBBPCompiler.FLAG_WIDE) != 0;
-      final int ec = wideCode ? compiled[positionAtCompiledBlock.getAndIncrement()] & 0xFF : 0;
-      final boolean extraFieldNumAsExpr = (ec & JBBPCompiler.EXT_FLAG_EXTRA_AS_EXPRESSION) != 0;
-      final int code = (ec << 8) | c;
-      final boolean fieldTypeDiff = (ec & JBBPCompiler.EXT_FLAG_EXTRA_DIFF_TYPE) != 0;
-
-      final JBBPNamedFieldInfo name = (code & JBBPCompiler.FLAG_NAMED) == 0 ? null :
-          compiledBlock.getNamedFields()[positionAtNamedFieldList.getAndIncrement()];
-      final JBBPByteOrder byteOrder =
-          (code & JBBPCompiler.FLAG_LITTLE_ENDIAN) == 0 ? JBBPByteOrder.BIG_ENDIAN :
-              JBBPByteOrder.LITTLE_ENDIAN;
-
-      final boolean resultNotIgnored = !skipStructureFields;
-
-      final int extraFieldNumExprResult;
-      if (extraFieldNumAsExpr) {
-        final JBBPIntegerValueEvaluator evaluator =
-            this.compiledBlock.getArraySizeEvaluators()[positionAtVarLengthProcessors
-                .getAndIncrement()];
-        int resultOfExpression;
-        if (resultNotIgnored) {
-          resultOfExpression = evaluator
-              .eval(inStream, positionAtCompiledBlock.get(), this.compiledBlock,
-                  namedNumericFieldMap);
-          if ((this.flags & FLAG_NEGATIVE_EXPRESSION_RESULT_AS_ZERO) != 0) {
-            resultOfExpression = Math.max(resultOfExpression, 0);
-          }
-        } else {
-          resultOfExpression = 0;
-        }
-        extraFieldNumExprResult = resultOfExpression;
-      } else {
-        extraFieldNumExprResult = 0;
-      }
+      final ParserInstruction instruction = instructions[i];
+      final JBBPNamedFieldInfo name = instruction.name;
+      final JBBPByteOrder byteOrder = instruction.byteOrder;
+      final boolean fieldTypeDiff = instruction.fieldTypeDiff;
+
+      final int extra = instruction.extraEvaluator == null ? instruction.extra :
+          evaluate(instruction.extraEvaluator, inStream, instruction, namedNumericFieldMap);
 
       final boolean wholeStreamArray;
       final int arrayLength;
-      final int packedArraySizeOffset;
-      switch (code &
-          (JBBPCompiler.FLAG_ARRAY | (JBBPCompiler.EXT_FLAG_EXPRESSION_OR_WHOLESTREAM << 8))) {
-        case JBBPCompiler.FLAG_ARRAY: {
-          final int pos = positionAtCompiledBlock.get();
-          arrayLength = JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-          packedArraySizeOffset = positionAtCompiledBlock.get() - pos;
+      switch (instruction.arrayKind) {
+        case ParserInstruction.ARRAY_FIXED: {
+          arrayLength = instruction.arrayLength;
           wholeStreamArray = false;
         }
         break;
-        case (JBBPCompiler.EXT_FLAG_EXPRESSION_OR_WHOLESTREAM << 8): {
-          wholeStreamArray = resultNotIgnored;
-          packedArraySizeOffset = 0;
+        case ParserInstruction.ARRAY_WHOLE_STREAM: {
           arrayLength = 0;
+          wholeStreamArray = true;
         }
         break;
-        case JBBPCompiler.FLAG_ARRAY | (JBBPCompiler.EXT_FLAG_EXPRESSION_OR_WHOLESTREAM << 8): {
-          final JBBPIntegerValueEvaluator evaluator =
-              this.compiledBlock.getArraySizeEvaluators()[positionAtVarLengthProcessors
-                  .getAndIncrement()];
-          int resultOfExpression;
-          if (resultNotIgnored) {
-            resultOfExpression = evaluator
-                .eval(inStream, positionAtCompiledBlock.get(), this.compiledBlock,
-                    namedNumericFieldMap);
-            if ((this.flags & FLAG_NEGATIVE_EXPRESSION_RESULT_AS_ZERO) != 0) {
-              resultOfExpression = Math.max(resultOfExpression, 0);
-            }
-          } else {
-            resultOfExpression = 0;
-          }
-          arrayLength = resultOfExpression;
-          packedArraySizeOffset = 0;
+        case ParserInstruction.ARRAY_EXPRESSION: {
+          arrayLength =
+              evaluate(instruction.arrayEvaluator, inStream, instruction, namedNumericFieldMap);
           assertArrayLength(arrayLength, name);
           wholeStreamArray = false;
         }
         break;
         default: {
           // it is not an array, just a single field
-          packedArraySizeOffset = 0;
-          wholeStreamArray = false;
           arrayLength = -1;
+          wholeStreamArray = false;
         }
         break;
       }
+      final int arrayItems = wholeStreamArray ? -1 : arrayLength;
 
-      JBBPAbstractField singleAtomicField = null;
       try {
-        switch (code & 0xF) {
+        switch (instruction.type) {
           case JBBPCompiler.CODE_RESET_COUNTER: {
-            if (resultNotIgnored) {
-              inStream.resetCounter();
-            }
+            inStream.resetCounter();
           }
           break;
           case JBBPCompiler.CODE_ALIGN: {
-            final int alignValue = extraFieldNumAsExpr ? extraFieldNumExprResult :
-                JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-            if (resultNotIgnored) {
-              inStream.align(alignValue);
-            }
+            inStream.align(extra);
           }
           break;
           case JBBPCompiler.CODE_SKIP: {
-            final int skipByteNumber = extraFieldNumAsExpr ? extraFieldNumExprResult :
-                JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-            if (resultNotIgnored) {
-              if (fieldTypeDiff) {
-                singleAtomicField = new JBBPFieldInt(name, skipByteNumber);
-              } else {
-                if (skipByteNumber > 0) {
-                  final long skippedBytes = inStream.skip(skipByteNumber);
-                  if (skippedBytes != skipByteNumber) {
-                    throw new EOFException(
-                        "Can't skip " + skipByteNumber + " byte(s), skipped only " + skippedBytes +
-                            " byte(s)");
-                  }
-                }
-              }
+            if (fieldTypeDiff) {
+              listener.onInt(name, extra);
+            } else {
+              FieldReadSupport.skip(inStream, extra);
             }
           }
           break;
           case JBBPCompiler.CODE_BIT: {
-            final int numberOfBits = extraFieldNumAsExpr ? extraFieldNumExprResult :
-                JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-            if (resultNotIgnored) {
-              final JBBPBitNumber bitNumber = JBBPBitNumber.decode(numberOfBits);
+            if (extra > 8) {
               if (arrayLength < 0) {
-                final int read = inStream.readBitField(bitNumber);
-                singleAtomicField = new JBBPFieldBit(name, read & 0xFF, bitNumber);
+                listener.onLong(name, inStream.readBitsLong(extra));
               } else {
-                structureFields.add(new JBBPFieldArrayBit(name,
-                    inStream.readBitsArray(wholeStreamArray ? -1 : arrayLength, bitNumber),
-                    bitNumber));
+                listener.onLongArray(name, inStream.readBitsLongArray(arrayItems, extra));
+              }
+            } else {
+              final JBBPBitNumber bitNumber = JBBPBitNumber.decode(extra);
+              if (arrayLength < 0) {
+                listener.onBit(name, inStream.readBitField(bitNumber) & 0xFF, bitNumber);
+              } else {
+                listener.onBitArray(name, inStream.readBitsArray(arrayItems, bitNumber),
+                    bitNumber);
               }
             }
           }
           break;
           case JBBPCompiler.CODE_VAR: {
-            final int extraField = extraFieldNumAsExpr ? extraFieldNumExprResult :
-                JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                singleAtomicField = varFieldProcessor
-                    .readVarField(inStream, name, extraField, byteOrder, namedNumericFieldMap);
-                JBBPUtils.assertNotNull(singleAtomicField,
-                    "A Var processor must not return null as a result of a field reading");
-                if (singleAtomicField instanceof JBBPAbstractArrayField) {
-                  throw new JBBPParsingException(
-                      "A Var field processor has returned an array value instead of a field value [" +
-                          name + ':' + extraField + ']');
-                }
-                if (singleAtomicField.getNameInfo() != name) {
-                  throw new JBBPParsingException(
-                      "Detected wrong name for a read field , must be " + name + " but detected " +
-                          singleAtomicField.getNameInfo() + ']');
-                }
-              } else {
-                final JBBPAbstractArrayField<? extends JBBPAbstractField> array = varFieldProcessor
-                    .readVarArray(inStream, wholeStreamArray ? -1 : arrayLength, name, extraField,
-                        byteOrder, namedNumericFieldMap);
-                JBBPUtils.assertNotNull(array,
-                    "A Var processor must not return null as a result of an array field reading [" +
-                        name + ':' + extraField + ']');
-                if (array.getNameInfo() != name) {
-                  throw new JBBPParsingException(
-                      "Detected wrong name for a read field array, must be " + name +
-                          " but detected " + array.getNameInfo() + ']');
-                }
-                structureFields.add(array);
-              }
+            if (arrayLength < 0) {
+              listener.onVarField(FieldReadSupport.readVarField(varFieldProcessor, inStream,
+                  name, extra, byteOrder, namedNumericFieldMap));
+            } else {
+              listener.onVarField(FieldReadSupport.readVarArray(varFieldProcessor, inStream,
+                  arrayItems, name, extra, byteOrder, namedNumericFieldMap));
             }
           }
           break;
           case JBBPCompiler.CODE_CUSTOMTYPE: {
-            final int extraData = extraFieldNumAsExpr ? extraFieldNumExprResult :
-                JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-            if (resultNotIgnored) {
-              final JBBPFieldTypeParameterContainer fieldTypeInfo =
-                  this.compiledBlock.getCustomTypeFields()[JBBPUtils
-                      .unpackInt(compiled, positionAtCompiledBlock)];
-              final JBBPAbstractField field = this.customFieldTypeProcessor
-                  .readCustomFieldType(inStream, this.bitOrder, this.flags, fieldTypeInfo, name,
-                      extraData, wholeStreamArray, arrayLength);
-              JBBPUtils.assertNotNull(field, "Must not return null as read result");
-
-              if (arrayLength < 0) {
-                singleAtomicField = field;
-              } else {
-                structureFields.add(field);
-              }
-            }
+            listener.onCustomField(FieldReadSupport.readCustomField(
+                this.customFieldTypeProcessor, inStream, this.bitOrder, this.flags,
+                instruction.customType, name, extra, wholeStreamArray, arrayLength));
           }
           break;
           case JBBPCompiler.CODE_BYTE: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                singleAtomicField = new JBBPFieldByte(name, (byte) inStream.readByte());
-              } else {
-                structureFields.add(new JBBPFieldArrayByte(name,
-                    inStream.readByteArray(wholeStreamArray ? -1 : arrayLength, byteOrder)));
-              }
+            if (arrayLength < 0) {
+              listener.onByte(name, (byte) inStream.readByte());
+            } else {
+              listener.onByteArray(name, inStream.readByteArray(arrayItems, byteOrder));
             }
           }
           break;
           case JBBPCompiler.CODE_UBYTE: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                singleAtomicField = new JBBPFieldUByte(name, (byte) inStream.readByte());
-              } else {
-                structureFields.add(new JBBPFieldArrayUByte(name,
-                    inStream.readByteArray(wholeStreamArray ? -1 : arrayLength, byteOrder)));
-              }
+            if (arrayLength < 0) {
+              listener.onUByte(name, inStream.readByte() & 0xFF);
+            } else {
+              listener.onUByteArray(name, inStream.readByteArray(arrayItems, byteOrder));
             }
           }
           break;
           case JBBPCompiler.CODE_BOOL: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                singleAtomicField =
-                    fieldTypeDiff ? new JBBPFieldString(name, inStream.readString(byteOrder)) :
-                        new JBBPFieldBoolean(name, inStream.readBoolean());
+            if (arrayLength < 0) {
+              if (fieldTypeDiff) {
+                listener.onString(name, inStream.readString(byteOrder));
               } else {
-                structureFields.add(fieldTypeDiff ?
-                    new JBBPFieldArrayString(name,
-                        inStream.readStringArray(wholeStreamArray ? -1 : arrayLength, byteOrder)) :
-                    new JBBPFieldArrayBoolean(name,
-                        inStream.readBoolArray(wholeStreamArray ? -1 : arrayLength))
-                );
+                listener.onBool(name, inStream.readBoolean());
+              }
+            } else {
+              if (fieldTypeDiff) {
+                listener.onStringArray(name, inStream.readStringArray(arrayItems, byteOrder));
+              } else {
+                listener.onBoolArray(name, inStream.readBoolArray(arrayItems));
               }
             }
           }
           break;
           case JBBPCompiler.CODE_INT: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                singleAtomicField =
-                    fieldTypeDiff ? new JBBPFieldFloat(name, inStream.readFloat(byteOrder)) :
-                        new JBBPFieldInt(name, inStream.readInt(byteOrder));
+            if (arrayLength < 0) {
+              if (fieldTypeDiff) {
+                listener.onFloat(name, inStream.readFloat(byteOrder));
               } else {
-                structureFields.add(fieldTypeDiff ?
-                    new JBBPFieldArrayFloat(name,
-                        inStream.readFloatArray(wholeStreamArray ? -1 : arrayLength, byteOrder)) :
-                    new JBBPFieldArrayInt(name,
-                        inStream.readIntArray(wholeStreamArray ? -1 : arrayLength, byteOrder))
-                );
+                listener.onInt(name, inStream.readInt(byteOrder));
+              }
+            } else {
+              if (fieldTypeDiff) {
+                listener.onFloatArray(name, inStream.readFloatArray(arrayItems, byteOrder));
+              } else {
+                listener.onIntArray(name, inStream.readIntArray(arrayItems, byteOrder));
               }
             }
           }
           break;
           case JBBPCompiler.CODE_LONG: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                singleAtomicField =
-                    fieldTypeDiff ? new JBBPFieldDouble(name, inStream.readDouble(byteOrder)) :
-                        new JBBPFieldLong(name, inStream.readLong(byteOrder));
+            if (arrayLength < 0) {
+              if (fieldTypeDiff) {
+                listener.onDouble(name, inStream.readDouble(byteOrder));
               } else {
-                structureFields.add(fieldTypeDiff ?
-                    new JBBPFieldArrayDouble(name,
-                        inStream.readDoubleArray(wholeStreamArray ? -1 : arrayLength, byteOrder)) :
-                    new JBBPFieldArrayLong(name,
-                        inStream.readLongArray(wholeStreamArray ? -1 : arrayLength, byteOrder))
-                );
+                listener.onLong(name, inStream.readLong(byteOrder));
+              }
+            } else {
+              if (fieldTypeDiff) {
+                listener.onDoubleArray(name, inStream.readDoubleArray(arrayItems, byteOrder));
+              } else {
+                listener.onLongArray(name, inStream.readLongArray(arrayItems, byteOrder));
               }
             }
           }
           break;
           case JBBPCompiler.CODE_SHORT: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                final int value = inStream.readUnsignedShort(byteOrder);
-                singleAtomicField = new JBBPFieldShort(name, (short) value);
-              } else {
-                structureFields.add(new JBBPFieldArrayShort(name,
-                    inStream.readShortArray(wholeStreamArray ? -1 : arrayLength, byteOrder)));
-              }
+            if (arrayLength < 0) {
+              listener.onShort(name, (short) inStream.readUnsignedShort(byteOrder));
+            } else {
+              listener.onShortArray(name, inStream.readShortArray(arrayItems, byteOrder));
             }
           }
           break;
           case JBBPCompiler.CODE_USHORT: {
-            if (resultNotIgnored) {
-              if (arrayLength < 0) {
-                final int value = inStream.readUnsignedShort(byteOrder);
-                singleAtomicField = new JBBPFieldUShort(name, (short) value);
-              } else {
-                structureFields.add(new JBBPFieldArrayUShort(name,
-                    inStream.readShortArray(wholeStreamArray ? -1 : arrayLength, byteOrder)));
-              }
+            if (arrayLength < 0) {
+              listener.onUShort(name, inStream.readUnsignedShort(byteOrder));
+            } else {
+              listener.onUShortArray(name, inStream.readShortArray(arrayItems, byteOrder));
             }
           }
           break;
           case JBBPCompiler.CODE_STRUCT_START: {
+            final FieldTreeBuilder tree =
+                listener instanceof FieldTreeBuilder ? (FieldTreeBuilder) listener : null;
             if (arrayLength < 0) {
-              final List<JBBPAbstractField> structFields =
-                  parseStruct(inStream, positionAtCompiledBlock, varFieldProcessor,
-                      namedNumericFieldMap, positionAtNamedFieldList, positionAtVarLengthProcessors,
-                      skipStructureFields);
-              // skip offset
-              JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-              if (resultNotIgnored) {
-                structureFields
-                    .add(new JBBPFieldStruct(name, structFields.toArray(ARRAY_FIELD_EMPTY)));
-              }
+              parseStructElement(inStream, i, varFieldProcessor, namedNumericFieldMap, executor,
+                  listener);
+            } else if (tree != null && this.columnarDecoders != null
+                && this.columnarDecoders[i] != null) {
+              tree.onField(
+                  this.columnarDecoders[i].decode(inStream, arrayItems, namedNumericFieldMap));
+            } else if (tree != null && executor != null
+                && (this.flags & FLAG_SKIP_REMAINING_FIELDS_IF_EOF) == 0
+                && arrayLength > PARALLEL_MIN_ITEMS
+                && this.getLayout().getIndependentElementByteSize(i) > 0) {
+              tree.onField(new JBBPFieldArrayStruct(name, parseStructArrayParallel(inStream, i,
+                  arrayLength, varFieldProcessor, namedNumericFieldMap, executor)));
             } else {
-              final int nameFieldCurrent = positionAtNamedFieldList.get();
-              final int varLenProcCurrent = positionAtVarLengthProcessors.get();
-
-              final JBBPFieldStruct[] result;
-              if (resultNotIgnored) {
-                if (wholeStreamArray) {
-                  // read till the stream end
-                  final List<JBBPFieldStruct> list = new ArrayList<>();
-                  while (inStream.hasAvailableData()) {
-                    positionAtNamedFieldList.set(nameFieldCurrent);
-                    positionAtVarLengthProcessors.set(varLenProcCurrent);
-
-                    final List<JBBPAbstractField> fieldsForStruct =
-                        parseStruct(inStream, positionAtCompiledBlock, varFieldProcessor,
-                            namedNumericFieldMap, positionAtNamedFieldList,
-                            positionAtVarLengthProcessors, skipStructureFields);
-                    list.add(new JBBPFieldStruct(name, fieldsForStruct));
-
-                    final int structStart = JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-
-                    if (inStream.hasAvailableData()) {
-                      positionAtCompiledBlock.set(structStart + (wideCode ? 2 : 1));
-                    }
-                  }
-
-                  result = list.isEmpty() ? EMPTY_STRUCT_ARRAY : list.toArray(EMPTY_STRUCT_ARRAY);
-                } else {
-                  // read number of items
-                  if (arrayLength == 0) {
-                    // skip the structure
-                    result = EMPTY_STRUCT_ARRAY;
-                    parseStruct(inStream, positionAtCompiledBlock, varFieldProcessor,
-                        namedNumericFieldMap, positionAtNamedFieldList,
-                        positionAtVarLengthProcessors, true);
-                    JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-                  } else {
-                    result = new JBBPFieldStruct[arrayLength];
-                    for (int i = 0; i < arrayLength; i++) {
-
-                      final List<JBBPAbstractField> fieldsForStruct =
-                          parseStruct(inStream, positionAtCompiledBlock, varFieldProcessor,
-                              namedNumericFieldMap, positionAtNamedFieldList,
-                              positionAtVarLengthProcessors, skipStructureFields);
-                      final int structBodyStart =
-                          JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
-
-                      result[i] = new JBBPFieldStruct(name, fieldsForStruct);
-
-                      if (i < arrayLength - 1) {
-                        // not the last
-                        positionAtNamedFieldList.set(nameFieldCurrent);
-                        positionAtVarLengthProcessors.set(varLenProcCurrent);
-                        positionAtCompiledBlock
-                            .set(structBodyStart + packedArraySizeOffset + (wideCode ? 2 : 1));
-                      }
-                    }
-                  }
-                }
-
-                if (result != null) {
-                  structureFields.add(new JBBPFieldArrayStruct(name, result));
-                }
-              } else {
-                parseStruct(inStream, positionAtCompiledBlock, varFieldProcessor,
-                    namedNumericFieldMap, positionAtNamedFieldList, positionAtVarLengthProcessors,
-                    skipStructureFields);
-                JBBPUtils.unpackInt(compiled, positionAtCompiledBlock);
+              listener.onStructArrayStart(name, arrayItems);
+              for (int s = 0; wholeStreamArray ? inStream.hasAvailableData() : s < arrayLength;
+                   s++) {
+                parseStructElement(inStream, i, varFieldProcessor, namedNumericFieldMap, executor,
+                    listener);
               }
+              listener.onStructArrayEnd(name);
             }
-          }
-          break;
-          case JBBPCompiler.CODE_STRUCT_END: {
-            // we just left the method and the caller must process the structure offset start address for the structure
-            endStructureNotMet = false;
+            i = instruction.structEnd;
           }
           break;
           default:
-            throw new Error("Detected unexpected field type! Contact developer! [" + code + ']');
+            throw new Error(
+                "Detected unexpected field type! Contact developer! [" + instruction.type + ']');
         }
       } catch (IOException ex) {
-        if (name == null) {
-          throw ex;
-        } else {
-          throw new JBBPParsingException(
-              "Can't parse field '" + name.getFieldPath() + "' for IOException", ex);
+        FieldReadSupport.rethrow(name, ex);
+      }
+    }
+  }
+
+  /**
+   * Parse one structure of a structure start instruction with notification of a listener about
+   * its start and end.
+   *
+   * @param inStream             the input stream, must not be null
+   * @param index                index of the structure start instruction
+   * @param varFieldProcessor    a processor to process var fields, it can be null
+   * @param namedNumericFieldMap the named numeric field map, can be null
+   * @param executor             executor to decode structure arrays in parallel, can be null
+   * @param listener             the listener to be notified, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  private void parseStructElement(final JBBPBitInputStream inStream, final int index,
+                                  final JBBPVarFieldProcessor varFieldProcessor,
+                                  final JBBPNamedNumericFieldMap namedNumericFieldMap,
+                                  final ExecutorService executor,
+                                  final JBBPParseListener listener) throws IOException {
+    final ParserInstruction instruction = this.instructions[index];
+    if (listener instanceof FieldTreeBuilder) {
+      ((FieldTreeBuilder) listener).onStructStart(index, instruction.name);
+    } else {
+      listener.onStructStart(instruction.name);
+    }
+    parseStruct(inStream, index + 1, instruction.structEnd, varFieldProcessor,
+        namedNumericFieldMap, executor, listener);
+    listener.onStructEnd(instruction.name);
+  }
+
+  /**
+   * Decode elements of a structure array in parallel. Raw data of elements is read from the
+   * stream by chunks and every chunk is decoded by a task of the executor, the last element is
+   * decoded in the current thread to keep values of its fields in the named numeric field map.
+   * Elements must have fixed byte size and must not contain expressions.
+   *
+   * @param inStream             the input stream, must not be null
+   * @param index                index of the structure start instruction
+   * @param arrayLength          number of elements in the array
+   * @param varFieldProcessor    a processor to process var fields, it can be null
+   * @param namedNumericFieldMap the named numeric field map, can be null
+   * @param executor             executor to decode chunks, must not be null
+   * @return array of decoded elements, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  private JBBPFieldStruct[] parseStructArrayParallel(
+      final JBBPBitInputStream inStream, final int index, final int arrayLength,
+      final JBBPVarFieldProcessor varFieldProcessor,
+      final JBBPNamedNumericFieldMap namedNumericFieldMap, final ExecutorService executor)
+      throws IOException {
+    final int elementBytes = this.getLayout().getIndependentElementByteSize(index);
+    final int chunkItems =
+        Math.max(1, Math.min(PARALLEL_MIN_ITEMS, PARALLEL_MAX_CHUNK_BYTES / elementBytes));
+    final int parallelItems = arrayLength - 1;
+    final JBBPFieldStruct[] result = new JBBPFieldStruct[arrayLength];
+
+    final List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int from = 0; from < parallelItems; from += chunkItems) {
+        final int first = from;
+        final int items = Math.min(chunkItems, parallelItems - from);
+        // bytes are read in bit order of the stream so that chunks are decoded as LSB0
+        final byte[] chunk = new byte[items * elementBytes];
+        final int read = inStream.read(chunk, 0, chunk.length);
+        if (read < chunk.length) {
+          // decode rest of data sequentially to get the same error as for sequential parsing
+          for (final Future<?> future : futures) {
+            future.get();
+          }
+          final JBBPBitInputStream restStream = new JBBPByteBufferBitInputStream(
+              ByteBuffer.wrap(chunk, 0, Math.max(read, 0)), JBBPBitOrder.LSB0);
+          final FieldTreeBuilder restTree = new FieldTreeBuilder(null, null);
+          for (int i = 0; i < items; i++) {
+            parseStructElement(restStream, index, varFieldProcessor, null, null, restTree);
+          }
+          throw new EOFException("Can't read data of structure array element");
         }
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            final JBBPBitInputStream chunkStream =
+                new JBBPByteBufferBitInputStream(ByteBuffer.wrap(chunk), JBBPBitOrder.LSB0);
+            final FieldTreeBuilder chunkTree = new FieldTreeBuilder(compactStructs, null);
+            for (int i = 0; i < items; i++) {
+              parseStructElement(chunkStream, index, varFieldProcessor, null, null, chunkTree);
+            }
+            final List<JBBPAbstractField> elements = chunkTree.getFields();
+            for (int i = 0; i < items; i++) {
+              result[first + i] = (JBBPFieldStruct) elements.get(i);
+            }
+            return null;
+          }
+        }));
       }
 
-      if (singleAtomicField != null) {
-        structureFields.add(singleAtomicField);
-        if (namedNumericFieldMap != null && singleAtomicField instanceof JBBPNumericField &&
-            name != null) {
-          namedNumericFieldMap.putField((JBBPNumericField) singleAtomicField);
+      final FieldTreeBuilder lastTree =
+          new FieldTreeBuilder(this.compactStructs, namedNumericFieldMap);
+      parseStructElement(inStream, index, varFieldProcessor, namedNumericFieldMap, null,
+          lastTree);
+      result[parallelItems] = (JBBPFieldStruct) lastTree.getFields().get(0);
+
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Parallel decoding of structure array is interrupted");
+    } catch (ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new JBBPParsingException("Can't decode structure array in parallel", cause);
+    } finally {
+      for (final Future<?> future : futures) {
+        future.cancel(false);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Inside method to parse a structure for a projection. Fields in skip mode are skipped
+   * without decoding, fields in read mode are parsed but not added into the result.
+   *
+   * @param inStream             the input stream, must not be null
+   * @param start                index of the first instruction of the structure body
+   * @param end                  index of the structure end instruction
+   * @param varFieldProcessor    a processor to process var fields, it can be null
+   *                             but it will thrown NPE if a var field is met
+   * @param namedNumericFieldMap the named numeric field map
+   * @param modes                projection modes for instructions, must not be null
+   * @param structureFields      list to add result fields, null if nothing should be added
+   * @throws IOException it will be thrown for transport errors
+   */
+  private void parseStructProjected(final JBBPBitInputStream inStream, final int start,
+                                    final int end, final JBBPVarFieldProcessor varFieldProcessor,
+                                    final JBBPNamedNumericFieldMap namedNumericFieldMap,
+                                    final byte[] modes,
+                                    final List<JBBPAbstractField> structureFields)
+      throws IOException {
+    final ParserInstruction[] instructions = this.instructions;
+
+    for (int i = start; i < end; i++) {
+      if ((flags & FLAG_SKIP_REMAINING_FIELDS_IF_EOF) != 0 && !inStream.hasAvailableData()) {
+        // Break reading because the ignore flag for EOF has been set
+        break;
+      }
+
+      final ParserInstruction instruction = instructions[i];
+      final boolean struct = instruction.type == JBBPCompiler.CODE_STRUCT_START;
+      final int next = struct ? instruction.structEnd + 1 : i + 1;
+
+      switch (modes[i]) {
+        case JBBPProjection.MODE_OUTPUT:
+        case JBBPProjection.MODE_READ: {
+          final FieldTreeBuilder tree =
+              new FieldTreeBuilder(this.compactStructs, namedNumericFieldMap);
+          parseStruct(inStream, i, next, varFieldProcessor, namedNumericFieldMap, null, tree);
+          if (modes[i] == JBBPProjection.MODE_OUTPUT && structureFields != null) {
+            structureFields.addAll(tree.getFields());
+          }
+        }
+        break;
+        default: {
+          final JBBPNamedFieldInfo name = instruction.name;
+          final int extra = instruction.extraEvaluator == null ? instruction.extra :
+              evaluate(instruction.extraEvaluator, inStream, instruction, namedNumericFieldMap);
+          final int arrayItems;
+          switch (instruction.arrayKind) {
+            case ParserInstruction.ARRAY_NONE:
+              arrayItems = -2;
+              break;
+            case ParserInstruction.ARRAY_FIXED:
+              arrayItems = instruction.arrayLength;
+              break;
+            case ParserInstruction.ARRAY_EXPRESSION: {
+              arrayItems =
+                  evaluate(instruction.arrayEvaluator, inStream, instruction, namedNumericFieldMap);
+              assertArrayLength(arrayItems, name);
+            }
+            break;
+            default:
+              arrayItems = -1;
+              break;
+          }
+          try {
+            if (struct) {
+              final boolean descend = modes[i] == JBBPProjection.MODE_DESCEND;
+              if (arrayItems == -2) {
+                final List<JBBPAbstractField> fields =
+                    descend ? new ArrayList<JBBPAbstractField>() : null;
+                parseStructProjected(inStream, i + 1, instruction.structEnd, varFieldProcessor,
+                    namedNumericFieldMap, modes, fields);
+                if (descend && structureFields != null) {
+                  structureFields.add(new JBBPFieldStruct(name, fields.toArray(ARRAY_FIELD_EMPTY)));
+                }
+              } else {
+                final List<JBBPFieldStruct> items = new ArrayList<>();
+                for (int s = 0; arrayItems < 0 ? inStream.hasAvailableData() : s < arrayItems;
+                     s++) {
+                  final List<JBBPAbstractField> fields =
+                      descend ? new ArrayList<JBBPAbstractField>() : null;
+                  parseStructProjected(inStream, i + 1, instruction.structEnd, varFieldProcessor,
+                      namedNumericFieldMap, modes, fields);
+                  if (descend) {
+                    items.add(new JBBPFieldStruct(name, fields));
+                  }
+                }
+                if (descend && structureFields != null) {
+                  structureFields.add(new JBBPFieldArrayStruct(name,
+                      items.isEmpty() ? EMPTY_STRUCT_ARRAY : items.toArray(EMPTY_STRUCT_ARRAY)));
+                }
+              }
+            } else {
+              skipField(inStream, instruction, extra, arrayItems);
+            }
+          } catch (IOException ex) {
+            FieldReadSupport.rethrow(name, ex);
+          }
         }
+        break;
       }
+      i = next - 1;
+    }
+  }
 
+  /**
+   * Skip a field in a stream without decoding.
+   *
+   * @param inStream    the input stream, must not be null
+   * @param instruction the field instruction, must not be null
+   * @param extra       calculated extra value of the field
+   * @param arrayItems  number of array items, -1 for whole stream array, -2 for single field
+   * @throws IOException it will be thrown for transport errors
+   */
+  private static void skipField(final JBBPBitInputStream inStream,
+                                final ParserInstruction instruction, final int extra,
+                                final int arrayItems) throws IOException {
+    final int itemSize;
+    switch (instruction.type) {
+      case JBBPCompiler.CODE_RESET_COUNTER: {
+        inStream.resetCounter();
+      }
+      return;
+      case JBBPCompiler.CODE_ALIGN: {
+        inStream.align(extra);
+      }
+      return;
+      case JBBPCompiler.CODE_SKIP: {
+        if (!instruction.fieldTypeDiff) {
+          FieldReadSupport.skip(inStream, extra);
+        }
+      }
+      return;
+      case JBBPCompiler.CODE_BIT: {
+        if (extra > 8) {
+          if (arrayItems == -2) {
+            inStream.readBitsLong(extra);
+          } else {
+            inStream.readBitsLongArray(arrayItems, extra);
+          }
+        } else {
+          final JBBPBitNumber bitNumber = JBBPBitNumber.decode(extra);
+          if (arrayItems == -2) {
+            inStream.readBitField(bitNumber);
+          } else {
+            inStream.readBitsArray(arrayItems, bitNumber);
+          }
+        }
+      }
+      return;
+      case JBBPCompiler.CODE_BOOL:
+      case JBBPCompiler.CODE_BYTE:
+      case JBBPCompiler.CODE_UBYTE:
+      case JBBPCompiler.CODE_SHORT:
+      case JBBPCompiler.CODE_USHORT:
+      case JBBPCompiler.CODE_INT:
+      case JBBPCompiler.CODE_LONG: {
+        itemSize = instruction.getItemByteSize();
+        if (itemSize < 0) {
+          // strings don't have fixed size and must be read
+          if (arrayItems == -2) {
+            inStream.readString(instruction.byteOrder);
+          } else {
+            inStream.readStringArray(arrayItems, instruction.byteOrder);
+          }
+          return;
+        }
+      }
+      break;
+      default:
+        throw new Error(
+            "Detected unexpected field type! Contact developer! [" + instruction.type + ']');
     }
 
-    return structureFields;
+    if (arrayItems == -1) {
+      // skip available bytes by blocks, block for reading only to check the end of the stream
+      long skippedBytes = 0L;
+      while (true) {
+        final int available = inStream.available();
+        final long skipped = available > 0 ? inStream.skip(available) : 0L;
+        if (skipped > 0L) {
+          skippedBytes += skipped;
+        } else if (inStream.read() >= 0) {
+          skippedBytes++;
+        } else {
+          break;
+        }
+      }
+      if (skippedBytes % itemSize != 0) {
+        throw new EOFException("Can't skip whole stream array, the last item has only "
+            + (skippedBytes % itemSize) + " of " + itemSize + " byte(s)");
+      }
+    } else {
+      FieldReadSupport.skip(inStream, arrayItems == -2 ? itemSize : (long) arrayItems * itemSize);
+    }
   }
 
   /**
-   * Parse an input stream.
+   * Parse an input stream. If the stream is not a JBBPBitInputStream then only parsed bytes are
+   * read from it, so that next records can be parsed from the same stream. To read the stream
+   * ahead by blocks, wrap it by {@link JBBPBitInputStream#JBBPBitInputStream(InputStream,
+   * JBBPBitOrder, int)} and use the bit stream for all parse calls.
    *
    * @param in an input stream which content should be parsed, it must not be
    *           null
@@ -710,6 +931,249 @@ public final class JBBPParser {
   public JBBPFieldStruct parse(final InputStream in, final JBBPVarFieldProcessor varFieldProcessor,
                                final JBBPExternalValueProvider externalValueProvider)
       throws IOException {
+    return this.parse(in, varFieldProcessor, externalValueProvider, null);
+  }
+
+  /**
+   * Parse an input stream and decode big structure arrays in parallel by an executor.
+   *
+   * @param in       an input stream which content should be parsed, it must not be null
+   * @param executor an executor to decode structure arrays, it must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @see #parse(InputStream, JBBPVarFieldProcessor, JBBPExternalValueProvider, ExecutorService)
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final InputStream in, final ExecutorService executor)
+      throws IOException {
+    JBBPUtils.assertNotNull(executor, "Executor must not be null");
+    return this.parse(in, null, null, executor);
+  }
+
+  /**
+   * Parse an input stream and decode big structure arrays in parallel by an executor.
+   * Only arrays which elements have fixed byte size and don't contain expressions, var and custom
+   * type fields are decoded in parallel, all other fields are parsed in the current thread.
+   * The Result is the same as for sequential parsing. The Parser is not compiled during such
+   * parsing and the flag {@link #FLAG_SKIP_REMAINING_FIELDS_IF_EOF} disables parallel decoding.
+   *
+   * @param in                    an input stream which content should be parsed, it must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @param executor              an executor to decode structure arrays, if null then parsing is
+   *                              sequential one
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final InputStream in, final JBBPVarFieldProcessor varFieldProcessor,
+                               final JBBPExternalValueProvider externalValueProvider,
+                               final ExecutorService executor)
+      throws IOException {
+    final JBBPBitInputStream bitInStream =
+        in instanceof JBBPBitInputStream ? (JBBPBitInputStream) in :
+            new JBBPBitInputStream(in, bitOrder);
+    this.finalStreamByteCounter = bitInStream.getCounter();
+
+    final JBBPNamedNumericFieldMap fieldMap;
+    if (this.compiledBlock.hasEvaluatedSizeArrays() || this.compiledBlock.hasVarFields()) {
+      fieldMap = new JBBPNamedNumericFieldMap(externalValueProvider, this.compiledBlock);
+    } else {
+      fieldMap = null;
+    }
+
+    if (this.compiledBlock.hasVarFields()) {
+      JBBPUtils.assertNotNull(varFieldProcessor,
+          "The Script contains VAR fields, a var field processor must be provided");
+    }
+    CompiledFieldReader.Body body = executor == null ? this.compiledBody : null;
+    if (body == null && executor == null && this.compileThreshold > 0
+        && ++this.interpretedParseCounter > this.compileThreshold) {
+      body = this.compiled().compiledBody;
+    }
+
+    try {
+      final List<JBBPAbstractField> fields;
+      if (body == null) {
+        final FieldTreeBuilder tree = new FieldTreeBuilder(this.compactStructs, fieldMap);
+        parseStruct(bitInStream, 0, this.instructions.length, varFieldProcessor, fieldMap,
+            executor, tree);
+        fields = tree.getFields();
+      } else {
+        fields = body.read(bitInStream, varFieldProcessor, fieldMap);
+      }
+      return CompactStructFactory.make(this.compactStructs, CompactStructFactory.ROOT,
+          new JBBPNamedFieldInfo("", "", -1), fields);
+    } finally {
+      this.finalStreamByteCounter = bitInStream.getCounter();
+    }
+  }
+
+  /**
+   * Parse an input stream with notification of a listener, field objects are not created.
+   *
+   * @param in       an input stream which content should be parsed, it must not be null
+   * @param listener a listener to get parsed values, it must not be null
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPParseListenerAdapter
+   * @since 2.0.4
+   */
+  public void parse(final InputStream in, final JBBPParseListener listener) throws IOException {
+    this.parse(in, listener, null, null);
+  }
+
+  /**
+   * Parse an input stream with notification of a listener. Field objects are not created except
+   * numeric fields which are needed for expressions or var field processors.
+   *
+   * @param in                    an input stream which content should be parsed, it must not be null
+   * @param listener              a listener to get parsed values, it must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public void parse(final InputStream in, final JBBPParseListener listener,
+                    final JBBPVarFieldProcessor varFieldProcessor,
+                    final JBBPExternalValueProvider externalValueProvider)
+      throws IOException {
+    JBBPUtils.assertNotNull(listener, "Listener must not be null");
+    final JBBPBitInputStream bitInStream =
+        in instanceof JBBPBitInputStream ? (JBBPBitInputStream) in :
+            new JBBPBitInputStream(in, bitOrder);
+    this.finalStreamByteCounter = bitInStream.getCounter();
+
+    final JBBPNamedNumericFieldMap fieldMap;
+    if (this.compiledBlock.hasEvaluatedSizeArrays() || this.compiledBlock.hasVarFields()) {
+      fieldMap = new JBBPNamedNumericFieldMap(externalValueProvider, this.compiledBlock);
+    } else {
+      fieldMap = null;
+    }
+
+    if (this.compiledBlock.hasVarFields()) {
+      JBBPUtils.assertNotNull(varFieldProcessor,
+          "The Script contains VAR fields, a var field processor must be provided");
+    }
+    try {
+      parseStruct(bitInStream, 0, this.instructions.length, varFieldProcessor, fieldMap, null,
+          fieldMap == null ? listener : new NumericFieldRegistrar(listener, fieldMap));
+    } finally {
+      this.finalStreamByteCounter = bitInStream.getCounter();
+    }
+  }
+
+  /**
+   * Parse an input stream and map parsed values directly into fields of an object marked by
+   * Bin annotations, the tree of parsed fields is not built. The Result is the same as
+   * {@code parse(in).mapTo(instance)}, classes which can't be mapped during parsing are mapped
+   * through the parsed structure.
+   *
+   * @param <T>      the mapping class type
+   * @param in       an input stream which content should be parsed, it must not be null
+   * @param instance object to be filled by values, must not be null
+   * @return the mapped object, the same which was the argument
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPMappingParseListener
+   * @since 2.0.4
+   */
+  public <T> T parseInto(final InputStream in, final T instance) throws IOException {
+    return this.parseInto(in, instance, 0);
+  }
+
+  /**
+   * Parse an input stream and map parsed values directly into fields of an object marked by
+   * Bin annotations, the tree of parsed fields is not built. The Result is the same as
+   * {@code parse(in).mapTo(instance, flags, instantiators)}, classes which can't be mapped
+   * during parsing are mapped through the parsed structure.
+   *
+   * @param <T>           the mapping class type
+   * @param in            an input stream which content should be parsed, it must not be null
+   * @param instance      object to be filled by values, must not be null
+   * @param flags         special flags to tune mapping process
+   * @param instantiators functions to produce class instance by request, must not be null
+   * @return the mapped object, the same which was the argument
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPMapper#FLAG_IGNORE_MISSING_VALUES
+   * @see JBBPMappingParseListener
+   * @since 2.0.4
+   */
+  @SafeVarargs
+  public final <T> T parseInto(final InputStream in, final T instance, final int flags,
+                               final Function<Class<?>, Object>... instantiators)
+      throws IOException {
+    JBBPUtils.assertNotNull(instance, "The Mapping class instance must not be null");
+    if (JBBPMappingParseListener.isSupported(instance.getClass())) {
+      final JBBPMappingParseListener listener =
+          new JBBPMappingParseListener(instance, flags, instantiators);
+      this.parse(in, listener);
+      listener.finish();
+      return instance;
+    } else {
+      return this.parse(in).mapTo(instance, flags, instantiators);
+    }
+  }
+
+  /**
+   * Create an instance of a class through its default constructor and map parsed values
+   * directly into its fields.
+   *
+   * @param <T>  the mapping class type
+   * @param in   an input stream which content should be parsed, it must not be null
+   * @param type the mapping class, must not be null and must have public default constructor
+   * @return the created and mapped object
+   * @throws IOException it will be thrown for transport errors
+   * @see #parseInto(InputStream, Object)
+   * @since 2.0.4
+   */
+  public <T> T parseTo(final InputStream in, final Class<T> type) throws IOException {
+    JBBPUtils.assertNotNull(type, "Class must not be null");
+    return this.parseInto(in, ReflectUtils.newInstance(type));
+  }
+
+  /**
+   * Parse an input stream only for fields selected by a projection, other fields are skipped
+   * without decoding where it is possible. The Result contains only selected fields and their
+   * parent structures.
+   *
+   * @param in         an input stream which content should be parsed, it must not be null
+   * @param projection a projection contains paths of fields to be parsed, must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPProjection#of(String...)
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final InputStream in, final JBBPProjection projection)
+      throws IOException {
+    return this.parse(in, projection, null, null);
+  }
+
+  /**
+   * Parse an input stream only for fields selected by a projection, other fields are skipped
+   * without decoding where it is possible. Fields used in expressions, var fields and custom
+   * type fields are always read but presented in the result only if they are selected.
+   *
+   * @param in                    an input stream which content should be parsed, it must not be null
+   * @param projection            a projection contains paths of fields to be parsed, must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @throws com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException if a path of the projection is not found
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final InputStream in, final JBBPProjection projection,
+                               final JBBPVarFieldProcessor varFieldProcessor,
+                               final JBBPExternalValueProvider externalValueProvider)
+      throws IOException {
+    JBBPUtils.assertNotNull(projection, "Projection must not be null");
+    final byte[] modes = projection.findModes(this.instructions, this.compiledBlock);
+
     final JBBPBitInputStream bitInStream =
         in instanceof JBBPBitInputStream ? (JBBPBitInputStream) in :
             new JBBPBitInputStream(in, bitOrder);
@@ -717,7 +1181,7 @@ public final class JBBPParser {
 
     final JBBPNamedNumericFieldMap fieldMap;
     if (this.compiledBlock.hasEvaluatedSizeArrays() || this.compiledBlock.hasVarFields()) {
-      fieldMap = new JBBPNamedNumericFieldMap(externalValueProvider);
+      fieldMap = new JBBPNamedNumericFieldMap(externalValueProvider, this.compiledBlock);
     } else {
       fieldMap = null;
     }
@@ -727,14 +1191,109 @@ public final class JBBPParser {
           "The Script contains VAR fields, a var field processor must be provided");
     }
     try {
-      return new JBBPFieldStruct(new JBBPNamedFieldInfo("", "", -1),
-          parseStruct(bitInStream, new JBBPIntCounter(), varFieldProcessor, fieldMap,
-              new JBBPIntCounter(), new JBBPIntCounter(), false));
+      final List<JBBPAbstractField> fields = new ArrayList<>();
+      parseStructProjected(bitInStream, 0, this.instructions.length, varFieldProcessor, fieldMap,
+          modes, fields);
+      return new JBBPFieldStruct(new JBBPNamedFieldInfo("", "", -1), fields);
     } finally {
       this.finalStreamByteCounter = bitInStream.getCounter();
     }
   }
 
+  /**
+   * Parse a byte array content only for fields selected by a projection.
+   *
+   * @param array      a byte array which content should be parsed, it must not be null
+   * @param projection a projection contains paths of fields to be parsed, must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final byte[] array, final JBBPProjection projection)
+      throws IOException {
+    JBBPUtils.assertNotNull(array, "Array must not be null");
+    return this.parse(new JBBPByteBufferBitInputStream(ByteBuffer.wrap(array), this.bitOrder),
+        projection, null, null);
+  }
+
+  /**
+   * Parse a byte array content and decode big structure arrays in parallel by an executor.
+   *
+   * @param array    a byte array which content should be parsed, it must not be null
+   * @param executor an executor to decode structure arrays, it must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @see #parse(InputStream, JBBPVarFieldProcessor, JBBPExternalValueProvider, ExecutorService)
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final byte[] array, final ExecutorService executor)
+      throws IOException {
+    JBBPUtils.assertNotNull(array, "Array must not be null");
+    JBBPUtils.assertNotNull(executor, "Executor must not be null");
+    return this.parse(new JBBPByteBufferBitInputStream(ByteBuffer.wrap(array), this.bitOrder),
+        null, null, executor);
+  }
+
+  /**
+   * Parse a byte array content with notification of a listener, field objects are not created.
+   *
+   * @param array    a byte array which content should be parsed, it must not be null
+   * @param listener a listener to get parsed values, it must not be null
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public void parse(final byte[] array, final JBBPParseListener listener) throws IOException {
+    JBBPUtils.assertNotNull(array, "Array must not be null");
+    this.parse(new JBBPByteBufferBitInputStream(ByteBuffer.wrap(array), this.bitOrder), listener,
+        null, null);
+  }
+
+  /**
+   * Compile the parser into a tree of readers specialized for every field of the script,
+   * the parser works faster after compilation but its preparation takes more time and memory.
+   * By default a parser is not compiled automatically, it can be enabled by the system property
+   * which defines number of interpreted parse calls after which a parser is compiled.
+   * Parsing result of a compiled parser is the same as for an interpreted one.
+   *
+   * @return the same parser instance, must not be null
+   * @see JBBPSystemProperty#PROPERTY_PARSER_COMPILE_THRESHOLD
+   * @since 2.0.4
+   */
+  public JBBPParser compiled() {
+    if (this.compiledBody == null) {
+      this.compiledBody = CompiledFieldReader.compile(this.instructions, this.compiledBlock,
+          this.bitOrder, this.flags, this.customFieldTypeProcessor, this.compactStructs);
+    }
+    return this;
+  }
+
+  /**
+   * Check that the parser has been compiled.
+   *
+   * @return true if the parser is compiled, false if it works as interpreter
+   * @see #compiled()
+   * @since 2.0.4
+   */
+  public boolean isCompiled() {
+    return this.compiledBody != null;
+  }
+
+  /**
+   * Get static layout of the script, it contains offsets and sizes of fields which can be
+   * calculated without parsing and allows to read such fields directly from data.
+   *
+   * @return the layout of the script, must not be null
+   * @since 2.0.4
+   */
+  public JBBPLayout getLayout() {
+    JBBPLayout result = this.layout;
+    if (result == null) {
+      result = JBBPLayout.analyze(this.instructions, this.bitOrder);
+      this.layout = result;
+    }
+    return result;
+  }
+
   /**
    * Get the parse flags.
    *
@@ -754,8 +1313,7 @@ public final class JBBPParser {
    * @throws IOException it will be thrown for transport errors
    */
   public JBBPFieldStruct parse(final byte[] array) throws IOException {
-    JBBPUtils.assertNotNull(array, "Array must not be null");
-    return this.parse(new ByteArrayInputStream(array), null, null);
+    return this.parse(array, null, null);
   }
 
   /**
@@ -774,7 +1332,180 @@ public final class JBBPParser {
                                final JBBPExternalValueProvider externalValueProvider)
       throws IOException {
     JBBPUtils.assertNotNull(array, "Array must not be null");
-    return this.parse(new ByteArrayInputStream(array), varFieldProcessor, externalValueProvider);
+    return this.parse(ByteBuffer.wrap(array), varFieldProcessor, externalValueProvider);
+  }
+
+  /**
+   * Parse content of a byte buffer between its position and limit. Heap buffers are parsed
+   * directly from their backing array, direct buffers are copied by chunks into the inside
+   * buffer of the stream. The Position and the limit of the buffer are not changed, number of
+   * parsed bytes can be got through {@link #getFinalStreamByteCounter()}.
+   *
+   * @param buffer a byte buffer which content should be parsed, it must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final ByteBuffer buffer) throws IOException {
+    return this.parse(buffer, null, null);
+  }
+
+  /**
+   * Parse content of a byte buffer between its position and limit. The Position and the limit
+   * of the buffer are not changed.
+   *
+   * @param buffer                a byte buffer which content should be parsed, it must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPByteBufferBitInputStream
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final ByteBuffer buffer, final JBBPVarFieldProcessor varFieldProcessor,
+                               final JBBPExternalValueProvider externalValueProvider)
+      throws IOException {
+    JBBPUtils.assertNotNull(buffer, "Buffer must not be null");
+    return this.parse(new JBBPByteBufferBitInputStream(buffer, this.bitOrder), varFieldProcessor,
+        externalValueProvider);
+  }
+
+  /**
+   * Parse content of a file through memory mapping.
+   *
+   * @param file a file which content should be parsed, it must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final File file) throws IOException {
+    return this.parse(file, null, null);
+  }
+
+  /**
+   * Parse content of a file through memory mapping. Files bigger than 2 GB are mapped by windows.
+   *
+   * @param file                  a file which content should be parsed, it must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPMappedFileBitInputStream
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final File file, final JBBPVarFieldProcessor varFieldProcessor,
+                               final JBBPExternalValueProvider externalValueProvider)
+      throws IOException {
+    JBBPUtils.assertNotNull(file, "File must not be null");
+    final FileInputStream fileStream = new FileInputStream(file);
+    try {
+      return this.parse(fileStream.getChannel(), varFieldProcessor, externalValueProvider);
+    } finally {
+      JBBPUtils.closeQuietly(fileStream);
+    }
+  }
+
+  /**
+   * Parse content of a file channel since its current position through memory mapping.
+   *
+   * @param channel a file channel which content should be parsed, it must not be null
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final FileChannel channel) throws IOException {
+    return this.parse(channel, null, null);
+  }
+
+  /**
+   * Parse content of a file channel since its current position through memory mapping.
+   * The Position of the channel is not changed and the channel is not closed.
+   *
+   * @param channel               a file channel which content should be parsed, it must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @return the parsed content as the root structure
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPMappedFileBitInputStream
+   * @since 2.0.4
+   */
+  public JBBPFieldStruct parse(final FileChannel channel, final JBBPVarFieldProcessor varFieldProcessor,
+                               final JBBPExternalValueProvider externalValueProvider)
+      throws IOException {
+    JBBPUtils.assertNotNull(channel, "Channel must not be null");
+    return this.parse(new JBBPMappedFileBitInputStream(channel, this.bitOrder), varFieldProcessor,
+        externalValueProvider);
+  }
+
+  /**
+   * Make iterator to parse an input stream record by record, every record is parsed only when
+   * requested and not kept by the iterator so that consumed memory doesn't depend on the stream length.
+   * Iteration is completed if the end of stream is reached before a record. Transport errors are
+   * thrown as {@link JBBPIOException}.
+   *
+   * @param in an input stream which content should be parsed, it must not be null
+   * @return iterator of parsed records
+   * @since 2.0.4
+   */
+  public Iterator<JBBPFieldStruct> iterate(final InputStream in) {
+    return this.iterate(in, null, null);
+  }
+
+  /**
+   * Make iterator to parse an input stream record by record. The Byte counter of the stream is not
+   * reset between records, so that the final stream byte counter shows number of bytes read since
+   * start of the stream.
+   *
+   * @param in                    an input stream which content should be parsed, it must not be null
+   * @param varFieldProcessor     a var field processor, it may be null if there is
+   *                              not any var field in a script, otherwise NPE will be thrown during parsing
+   * @param externalValueProvider an external value provider, it can be null but
+   *                              only if the script doesn't have fields desired the provider
+   * @return iterator of parsed records
+   * @see #getFinalStreamByteCounter()
+   * @since 2.0.4
+   */
+  public Iterator<JBBPFieldStruct> iterate(final InputStream in,
+                                           final JBBPVarFieldProcessor varFieldProcessor,
+                                           final JBBPExternalValueProvider externalValueProvider) {
+    JBBPUtils.assertNotNull(in, "Stream must not be null");
+    final JBBPBitInputStream bitInStream =
+        in instanceof JBBPBitInputStream ? (JBBPBitInputStream) in :
+            new JBBPBitInputStream(in, bitOrder);
+
+    return new Iterator<JBBPFieldStruct>() {
+      @Override
+      public boolean hasNext() {
+        try {
+          return bitInStream.hasAvailableData();
+        } catch (IOException ex) {
+          throw new JBBPIOException("Can't check stream data", ex);
+        }
+      }
+
+      @Override
+      public JBBPFieldStruct next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException("Stream end has been reached");
+        }
+        try {
+          return parse(bitInStream, varFieldProcessor, externalValueProvider);
+        } catch (IOException ex) {
+          throw new JBBPIOException("Can't parse record", ex);
+        }
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("Removing is unsupported here");
+      }
+    };
   }
 
   /**
@@ -799,6 +1530,21 @@ public final class JBBPParser {
     return this.compiledBlock;
   }
 
+  /**
+   * Resolve a field path against the parser script. The result can be used many times to get
+   * fields from structures made by the parser without path parsing and search by name.
+   *
+   * @param path a field path, must not be null
+   * @return the resolved path, must not be null
+   * @throws com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException if path is not found
+   * @see JBBPFieldStruct#get(JBBPFieldPath)
+   * @since 2.0.4
+   */
+  public JBBPFieldPath preparePath(final String path) {
+    JBBPUtils.assertNotNull(path, "Path must not be null");
+    return JBBPFieldPath.resolve(this.instructions, path);
+  }
+
   /**
    * Convert the prepared parser into sources. It doesn't provide way to define different flag for conversion, it uses default flags for converters and provided for short fast way.
    *
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded cache of prepared parsers, a parser is identified by its script, bit order,
+ * flags and identity of its custom field type processor. The Least recently used parser is
+ * removed if the cache is full. The Class is thread-safe one, a script is compiled outside of
+ * the cache lock so that long compilation doesn't block other threads.
+ * <p>
+ * NB! Cached parsers are shared, so that {@link JBBPParser#getFinalStreamByteCounter()} of a
+ * cached parser can't be used if the parser is used by several threads.
+ *
+ * @see JBBPParser#prepare(String, JBBPBitOrder, JBBPCustomFieldTypeProcessor, int)
+ * @since 2.0.4
+ */
+public final class JBBPParserCache {
+
+  private final int maxSize;
+  private final Map<Key, JBBPParser> parsers;
+  private long hitCounter;
+  private long missCounter;
+  private long evictionCounter;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSize max number of parsers in the cache, must be greater than zero
+   * @throws IllegalArgumentException if the max size is not positive one
+   */
+  public JBBPParserCache(final int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Max size must be greater than zero: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.parsers = new LinkedHashMap<Key, JBBPParser>(16, 0.75f, true) {
+      private static final long serialVersionUID = 5302418465342157215L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Key, JBBPParser> eldest) {
+        final boolean remove = this.size() > JBBPParserCache.this.maxSize;
+        if (remove) {
+          evictionCounter++;
+        }
+        return remove;
+      }
+    };
+  }
+
+  /**
+   * Get cached parser for a script with default bit order (LSB0).
+   *
+   * @param script a text script contains field order and types reference, it must not be null
+   * @return the prepared parser for the script, must not be null
+   * @see JBBPParser#prepare(String)
+   */
+  public JBBPParser prepare(final String script) {
+    return this.prepare(script, JBBPBitOrder.LSB0, null, 0);
+  }
+
+  /**
+   * Get cached parser for a script with default bit order (LSB0) and special flags.
+   *
+   * @param script a text script contains field order and types reference, it must not be null
+   * @param flags  special flags for parsing
+   * @return the prepared parser for the script, must not be null
+   * @see JBBPParser#prepare(String, int)
+   */
+  public JBBPParser prepare(final String script, final int flags) {
+    return this.prepare(script, JBBPBitOrder.LSB0, null, flags);
+  }
+
+  /**
+   * Get cached parser for a script with defined bit order.
+   *
+   * @param script   a text script contains field order and types reference, it must not be null
+   * @param bitOrder the bit order for reading operations, it must not be null
+   * @return the prepared parser for the script, must not be null
+   * @see JBBPParser#prepare(String, JBBPBitOrder)
+   */
+  public JBBPParser prepare(final String script, final JBBPBitOrder bitOrder) {
+    return this.prepare(script, bitOrder, null, 0);
+  }
+
+  /**
+   * Get cached parser for a script with defined bit order, custom field type processor and flags.
+   *
+   * @param script                   a text script contains field order and types reference, it
+   *                                 must not be null
+   * @param bitOrder                 the bit order for reading operations, it must not be null
+   * @param customFieldTypeProcessor custom field type processor, it can be null, processors are
+   *                                 compared by identity
+   * @param flags                    special flags for parsing
+   * @return the prepared parser for the script, must not be null
+   * @see JBBPParser#prepare(String, JBBPBitOrder, JBBPCustomFieldTypeProcessor, int)
+   */
+  public JBBPParser prepare(final String script, final JBBPBitOrder bitOrder,
+                            final JBBPCustomFieldTypeProcessor customFieldTypeProcessor,
+                            final int flags) {
+    JBBPUtils.assertNotNull(script, "Script is null");
+    JBBPUtils.assertNotNull(bitOrder, "Bit order is null");
+
+    final Key key = new Key(script, bitOrder, customFieldTypeProcessor, flags);
+    synchronized (this.parsers) {
+      final JBBPParser found = this.parsers.get(key);
+      if (found != null) {
+        this.hitCounter++;
+        return found;
+      }
+      this.missCounter++;
+    }
+
+    final JBBPParser prepared =
+        JBBPParser.prepare(script, bitOrder, customFieldTypeProcessor, flags);
+
+    synchronized (this.parsers) {
+      final JBBPParser concurrent = this.parsers.get(key);
+      if (concurrent == null) {
+        this.parsers.put(key, prepared);
+        return prepared;
+      } else {
+        return concurrent;
+      }
+    }
+  }
+
+  /**
+   * Get number of requests found a parser in the cache.
+   *
+   * @return number of cache hits
+   */
+  public long getHitCount() {
+    synchronized (this.parsers) {
+      return this.hitCounter;
+    }
+  }
+
+  /**
+   * Get number of requests which needed parser preparation.
+   *
+   * @return number of cache misses
+   */
+  public long getMissCount() {
+    synchronized (this.parsers) {
+      return this.missCounter;
+    }
+  }
+
+  /**
+   * Get number of parsers removed from the cache because of size limit.
+   *
+   * @return number of evicted parsers
+   */
+  public long getEvictionCount() {
+    synchronized (this.parsers) {
+      return this.evictionCounter;
+    }
+  }
+
+  /**
+   * Get max number of parsers in the cache.
+   *
+   * @return the max size of the cache
+   */
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * Get current number of parsers in the cache.
+   *
+   * @return number of cached parsers
+   */
+  public int size() {
+    synchronized (this.parsers) {
+      return this.parsers.size();
+    }
+  }
+
+  /**
+   * Remove all parsers from the cache and reset statistics.
+   */
+  public void clear() {
+    synchronized (this.parsers) {
+      this.parsers.clear();
+      this.hitCounter = 0L;
+      this.missCounter = 0L;
+      this.evictionCounter = 0L;
+    }
+  }
+
+  /**
+   * Key of a cached parser.
+   */
+  private static final class Key {
+    private final String script;
+    private final JBBPBitOrder bitOrder;
+    private final JBBPCustomFieldTypeProcessor customFieldTypeProcessor;
+    private final int flags;
+    private final int hash;
+
+    private Key(final String script, final JBBPBitOrder bitOrder,
+                final JBBPCustomFieldTypeProcessor customFieldTypeProcessor, final int flags) {
+      this.script = script;
+      this.bitOrder = bitOrder;
+      this.customFieldTypeProcessor = customFieldTypeProcessor;
+      this.flags = flags;
+      this.hash = ((script.hashCode() * 31 + bitOrder.hashCode()) * 31
+          + System.identityHashCode(customFieldTypeProcessor)) * 31 + flags;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof Key) {
+        final Key that = (Key) obj;
+        return this.hash == that.hash
+            && this.flags == that.flags
+            && this.bitOrder == that.bitOrder
+            && this.customFieldTypeProcessor == that.customFieldTypeProcessor
+            && this.script.equals(that.script);
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPCompiledBlock;
+import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.compiler.conversion.ExpressionEvaluatorVisitor;
+import com.igormaznitsa.jbbp.compiler.varlen.JBBPIntegerValueEvaluator;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of field paths to be parsed by a parser, all other fields are skipped without decoding
+ * and object creation. Fields used in expressions are still read but they are not presented
+ * in the parsing result. A Selected structure is parsed with all its fields.
+ *
+ * @see JBBPParser#parse(java.io.InputStream, JBBPProjection)
+ * @since 2.0.4
+ */
+public final class JBBPProjection {
+
+  /**
+   * The Field must be skipped.
+   */
+  static final byte MODE_SKIP = 0;
+  /**
+   * The Field must be read but not presented in the result.
+   */
+  static final byte MODE_READ = 1;
+  /**
+   * The Field must be read and presented in the result.
+   */
+  static final byte MODE_OUTPUT = 2;
+  /**
+   * The Structure must be presented in the result only with selected fields.
+   */
+  static final byte MODE_DESCEND = 3;
+
+  private final String[] paths;
+  private volatile Modes lastModes;
+
+  private JBBPProjection(final String[] paths) {
+    this.paths = paths;
+  }
+
+  /**
+   * Make projection for field paths.
+   *
+   * @param paths paths of fields to be parsed, must not be null or empty
+   * @return the projection, must not be null
+   * @throws IllegalArgumentException if there is no any path
+   */
+  public static JBBPProjection of(final String... paths) {
+    JBBPUtils.assertNotNull(paths, "Paths must not be null");
+    if (paths.length == 0) {
+      throw new IllegalArgumentException("At least one path must be provided");
+    }
+    final String[] normalized = new String[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      normalized[i] = JBBPUtils.normalizeFieldNameOrPath(paths[i]);
+    }
+    return new JBBPProjection(normalized);
+  }
+
+  /**
+   * Get selected paths.
+   *
+   * @return array of normalized field paths, must not be null
+   */
+  public String[] getPaths() {
+    return this.paths.clone();
+  }
+
+  private boolean isSelected(final String fieldPath) {
+    for (final String path : this.paths) {
+      if (fieldPath.equals(path) || (fieldPath.startsWith(path)
+          && fieldPath.length() > path.length() && fieldPath.charAt(path.length()) == '.')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get processing modes of parser instructions for the projection.
+   *
+   * @param instructions parser instructions, must not be null
+   * @param block        compiled block of the instructions, must not be null
+   * @return array contains processing mode for each instruction
+   * @throws JBBPIllegalArgumentException if a path is not found among fields
+   */
+  byte[] findModes(final ParserInstruction[] instructions, final JBBPCompiledBlock block) {
+    Modes modes = this.lastModes;
+    if (modes == null || modes.instructions != instructions) {
+      for (final String path : this.paths) {
+        if (block.findFieldForPath(path) == null) {
+          throw new JBBPIllegalArgumentException("Unknown field path [" + path + ']');
+        }
+      }
+      modes = new Modes(instructions, makeModes(instructions, block));
+      this.lastModes = modes;
+    }
+    return modes.modes;
+  }
+
+  private byte[] makeModes(final ParserInstruction[] instructions, final JBBPCompiledBlock block) {
+    final Set<JBBPNamedFieldInfo> dependencies = new HashSet<>();
+    final ExpressionEvaluatorVisitor collector = new ExpressionEvaluatorVisitor() {
+      @Override
+      public ExpressionEvaluatorVisitor visitStart() {
+        return this;
+      }
+
+      @Override
+      public ExpressionEvaluatorVisitor visitSpecial(final Special specialField) {
+        return this;
+      }
+
+      @Override
+      public ExpressionEvaluatorVisitor visitField(final JBBPNamedFieldInfo nullableNameFieldInfo,
+                                                   final String nullableExternalFieldName) {
+        if (nullableNameFieldInfo != null) {
+          dependencies.add(nullableNameFieldInfo);
+        }
+        return this;
+      }
+
+      @Override
+      public ExpressionEvaluatorVisitor visitOperator(final Operator operator) {
+        return this;
+      }
+
+      @Override
+      public ExpressionEvaluatorVisitor visitConstant(final int value) {
+        return this;
+      }
+
+      @Override
+      public ExpressionEvaluatorVisitor visitEnd() {
+        return this;
+      }
+    };
+
+    for (final ParserInstruction instruction : instructions) {
+      visitEvaluator(instruction.extraEvaluator, instruction, block, collector);
+      visitEvaluator(instruction.arrayEvaluator, instruction, block, collector);
+    }
+
+    final byte[] result = new byte[instructions.length];
+    fillModes(instructions, 0, instructions.length, dependencies, result);
+    return result;
+  }
+
+  private static void visitEvaluator(final JBBPIntegerValueEvaluator evaluator,
+                                     final ParserInstruction instruction,
+                                     final JBBPCompiledBlock block,
+                                     final ExpressionEvaluatorVisitor visitor) {
+    if (evaluator != null) {
+      evaluator.visitItems(block, instruction.evalOffset, visitor);
+    }
+  }
+
+  private boolean fillModes(final ParserInstruction[] instructions, final int start,
+                            final int end, final Set<JBBPNamedFieldInfo> dependencies,
+                            final byte[] modes) {
+    boolean output = false;
+    for (int i = start; i < end; i++) {
+      final ParserInstruction instruction = instructions[i];
+      final boolean selected =
+          instruction.name != null && this.isSelected(instruction.name.getFieldPath());
+      if (instruction.type == JBBPCompiler.CODE_STRUCT_START) {
+        if (selected) {
+          modes[i] = MODE_OUTPUT;
+          output = true;
+        } else if (fillModes(instructions, i + 1, instruction.structEnd, dependencies, modes)) {
+          modes[i] = MODE_DESCEND;
+          output = true;
+        } else {
+          modes[i] = MODE_SKIP;
+        }
+        i = instruction.structEnd;
+      } else if (selected) {
+        modes[i] = MODE_OUTPUT;
+        output = true;
+      } else if (dependencies.contains(instruction.name)
+          || instruction.type == JBBPCompiler.CODE_VAR
+          || instruction.type == JBBPCompiler.CODE_CUSTOMTYPE) {
+        modes[i] = MODE_READ;
+      } else {
+        modes[i] = MODE_SKIP;
+      }
+    }
+    return output;
+  }
+
+  /**
+   * Calculated modes for instructions of a parser.
+   */
+  private static final class Modes {
+    private final ParserInstruction[] instructions;
+    private final byte[] modes;
+
+    private Modes(final ParserInstruction[] instructions, final byte[] modes) {
+      this.instructions = instructions;
+      this.modes = modes;
+    }
+  }
+}
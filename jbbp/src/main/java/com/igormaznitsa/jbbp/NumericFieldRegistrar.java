@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.model.JBBPFieldBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
+
+/**
+ * Listener which passes all notifications to another listener and registers values of named
+ * numeric fields in the named numeric field map, so that expressions of a script can use them.
+ * Field objects are made only for named numeric fields.
+ *
+ * @since 2.0.4
+ */
+final class NumericFieldRegistrar implements JBBPParseListener {
+
+  private final JBBPParseListener listener;
+  private final JBBPNamedNumericFieldMap namedNumericFieldMap;
+
+  /**
+   * Constructor.
+   *
+   * @param listener             listener to be notified, must not be null
+   * @param namedNumericFieldMap map to register named numeric fields, must not be null
+   */
+  NumericFieldRegistrar(final JBBPParseListener listener,
+                        final JBBPNamedNumericFieldMap namedNumericFieldMap) {
+    this.listener = listener;
+    this.namedNumericFieldMap = namedNumericFieldMap;
+  }
+
+  private void register(final JBBPNumericField field) {
+    this.namedNumericFieldMap.putField(field);
+  }
+
+  @Override
+  public void onStructStart(final JBBPNamedFieldInfo name) {
+    this.listener.onStructStart(name);
+  }
+
+  @Override
+  public void onStructEnd(final JBBPNamedFieldInfo name) {
+    this.listener.onStructEnd(name);
+  }
+
+  @Override
+  public void onStructArrayStart(final JBBPNamedFieldInfo name, final int length) {
+    this.listener.onStructArrayStart(name, length);
+  }
+
+  @Override
+  public void onStructArrayEnd(final JBBPNamedFieldInfo name) {
+    this.listener.onStructArrayEnd(name);
+  }
+
+  @Override
+  public void onBit(final JBBPNamedFieldInfo name, final int value,
+                    final JBBPBitNumber bitNumber) {
+    this.listener.onBit(name, value, bitNumber);
+    if (name != null) {
+      this.register(new JBBPFieldBit(name, value, bitNumber));
+    }
+  }
+
+  @Override
+  public void onBitArray(final JBBPNamedFieldInfo name, final byte[] values,
+                         final JBBPBitNumber bitNumber) {
+    this.listener.onBitArray(name, values, bitNumber);
+  }
+
+  @Override
+  public void onBool(final JBBPNamedFieldInfo name, final boolean value) {
+    this.listener.onBool(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldBoolean(name, value));
+    }
+  }
+
+  @Override
+  public void onBoolArray(final JBBPNamedFieldInfo name, final boolean[] values) {
+    this.listener.onBoolArray(name, values);
+  }
+
+  @Override
+  public void onByte(final JBBPNamedFieldInfo name, final byte value) {
+    this.listener.onByte(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldByte(name, value));
+    }
+  }
+
+  @Override
+  public void onByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+    this.listener.onByteArray(name, values);
+  }
+
+  @Override
+  public void onUByte(final JBBPNamedFieldInfo name, final int value) {
+    this.listener.onUByte(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldUByte(name, (byte) value));
+    }
+  }
+
+  @Override
+  public void onUByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+    this.listener.onUByteArray(name, values);
+  }
+
+  @Override
+  public void onShort(final JBBPNamedFieldInfo name, final short value) {
+    this.listener.onShort(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldShort(name, value));
+    }
+  }
+
+  @Override
+  public void onShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+    this.listener.onShortArray(name, values);
+  }
+
+  @Override
+  public void onUShort(final JBBPNamedFieldInfo name, final int value) {
+    this.listener.onUShort(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldUShort(name, (short) value));
+    }
+  }
+
+  @Override
+  public void onUShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+    this.listener.onUShortArray(name, values);
+  }
+
+  @Override
+  public void onInt(final JBBPNamedFieldInfo name, final int value) {
+    this.listener.onInt(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldInt(name, value));
+    }
+  }
+
+  @Override
+  public void onIntArray(final JBBPNamedFieldInfo name, final int[] values) {
+    this.listener.onIntArray(name, values);
+  }
+
+  @Override
+  public void onFloat(final JBBPNamedFieldInfo name, final float value) {
+    this.listener.onFloat(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldFloat(name, value));
+    }
+  }
+
+  @Override
+  public void onFloatArray(final JBBPNamedFieldInfo name, final float[] values) {
+    this.listener.onFloatArray(name, values);
+  }
+
+  @Override
+  public void onLong(final JBBPNamedFieldInfo name, final long value) {
+    this.listener.onLong(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldLong(name, value));
+    }
+  }
+
+  @Override
+  public void onLongArray(final JBBPNamedFieldInfo name, final long[] values) {
+    this.listener.onLongArray(name, values);
+  }
+
+  @Override
+  public void onDouble(final JBBPNamedFieldInfo name, final double value) {
+    this.listener.onDouble(name, value);
+    if (name != null) {
+      this.register(new JBBPFieldDouble(name, value));
+    }
+  }
+
+  @Override
+  public void onDoubleArray(final JBBPNamedFieldInfo name, final double[] values) {
+    this.listener.onDoubleArray(name, values);
+  }
+
+  @Override
+  public void onString(final JBBPNamedFieldInfo name, final String value) {
+    this.listener.onString(name, value);
+  }
+
+  @Override
+  public void onStringArray(final JBBPNamedFieldInfo name, final String[] values) {
+    this.listener.onStringArray(name, values);
+  }
+
+  @Override
+  public void onVarField(final JBBPAbstractField field) {
+    this.listener.onVarField(field);
+    if (field instanceof JBBPNumericField && field.getNameInfo() != null) {
+      this.register((JBBPNumericField) field);
+    }
+  }
+
+  @Override
+  public void onCustomField(final JBBPAbstractField field) {
+    this.listener.onCustomField(field);
+    if (field instanceof JBBPNumericField && field.getNameInfo() != null) {
+      this.register((JBBPNumericField) field);
+    }
+  }
+}
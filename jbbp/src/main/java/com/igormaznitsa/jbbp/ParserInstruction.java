@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import com.igormaznitsa.jbbp.compiler.JBBPCompiledBlock;
+import com.igormaznitsa.jbbp.compiler.JBBPCompiler;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
+import com.igormaznitsa.jbbp.compiler.varlen.JBBPIntegerValueEvaluator;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.utils.JBBPIntCounter;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-decoded instruction of a compiled block, it keeps all information needed by parser
+ * to process a field without decoding of the compiled block data.
+ *
+ * @since 2.0.4
+ */
+final class ParserInstruction {
+
+  /**
+   * The Instruction is not an array.
+   */
+  static final int ARRAY_NONE = 0;
+  /**
+   * The Instruction is an array with fixed length.
+   */
+  static final int ARRAY_FIXED = 1;
+  /**
+   * The Instruction is an array to be read till the end of stream.
+   */
+  static final int ARRAY_WHOLE_STREAM = 2;
+  /**
+   * The Instruction is an array with length calculated by an expression.
+   */
+  static final int ARRAY_EXPRESSION = 3;
+
+  /**
+   * Field type code, one of JBBPCompiler.CODE_ constants.
+   */
+  final int type;
+  /**
+   * Flag shows that the field type is a different one from the code (float, double, string or value field).
+   */
+  final boolean fieldTypeDiff;
+  /**
+   * Field name info, can be null.
+   */
+  final JBBPNamedFieldInfo name;
+  /**
+   * Byte order for the field.
+   */
+  final JBBPByteOrder byteOrder;
+  /**
+   * Array kind of the field.
+   */
+  final int arrayKind;
+  /**
+   * Length of fixed array.
+   */
+  final int arrayLength;
+  /**
+   * Evaluator of expression array length, can be null.
+   */
+  final JBBPIntegerValueEvaluator arrayEvaluator;
+  /**
+   * Extra value of the field if it is not defined by expression.
+   */
+  final int extra;
+  /**
+   * Evaluator of expression extra value, can be null.
+   */
+  final JBBPIntegerValueEvaluator extraEvaluator;
+  /**
+   * Offset in the compiled block to be provided for evaluators.
+   */
+  final int evalOffset;
+  /**
+   * Custom type info for custom type fields, can be null.
+   */
+  final JBBPFieldTypeParameterContainer customType;
+  /**
+   * Index of the structure end instruction for structure start instructions.
+   */
+  int structEnd;
+
+  private ParserInstruction(final int type, final boolean fieldTypeDiff,
+                            final JBBPNamedFieldInfo name, final JBBPByteOrder byteOrder,
+                            final int arrayKind, final int arrayLength,
+                            final JBBPIntegerValueEvaluator arrayEvaluator, final int extra,
+                            final JBBPIntegerValueEvaluator extraEvaluator, final int evalOffset,
+                            final JBBPFieldTypeParameterContainer customType) {
+    this.type = type;
+    this.fieldTypeDiff = fieldTypeDiff;
+    this.name = name;
+    this.byteOrder = byteOrder;
+    this.arrayKind = arrayKind;
+    this.arrayLength = arrayLength;
+    this.arrayEvaluator = arrayEvaluator;
+    this.extra = extra;
+    this.extraEvaluator = extraEvaluator;
+    this.evalOffset = evalOffset;
+    this.customType = customType;
+  }
+
+  /**
+   * Get byte size of an item of a field which items have fixed size.
+   *
+   * @return byte size of an item or -1 if items of the field don't have fixed byte size
+   */
+  int getItemByteSize() {
+    switch (this.type) {
+      case JBBPCompiler.CODE_BOOL:
+        return this.fieldTypeDiff ? -1 : 1;
+      case JBBPCompiler.CODE_BYTE:
+      case JBBPCompiler.CODE_UBYTE:
+        return 1;
+      case JBBPCompiler.CODE_SHORT:
+      case JBBPCompiler.CODE_USHORT:
+        return 2;
+      case JBBPCompiler.CODE_INT:
+        return 4;
+      case JBBPCompiler.CODE_LONG:
+        return 8;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Decode compiled block data into flat array of instructions. Structure start instructions
+   * contain index of their structure end instruction, the root structure doesn't have start and end.
+   *
+   * @param block the compiled block to be decoded, must not be null
+   * @return array of decoded instructions, must not be null
+   */
+  static ParserInstruction[] decode(final JBBPCompiledBlock block) {
+    final byte[] compiled = block.getCompiledData();
+    final JBBPNamedFieldInfo[] namedFields = block.getNamedFields();
+    final JBBPIntegerValueEvaluator[] evaluators = block.getArraySizeEvaluators();
+    final JBBPFieldTypeParameterContainer[] customTypes = block.getCustomTypeFields();
+
+    final List<ParserInstruction> result = new ArrayList<>();
+    final List<Integer> structStarts = new ArrayList<>();
+
+    final JBBPIntCounter position = new JBBPIntCounter();
+    int namedFieldIndex = 0;
+    int evaluatorIndex = 0;
+
+    while (position.get() < compiled.length) {
+      final int c = compiled[position.getAndIncrement()] & 0xFF;
+      final boolean wideCode = (c & JBBPCompiler.FLAG_WIDE) != 0;
+      final int ec = wideCode ? compiled[position.getAndIncrement()] & 0xFF : 0;
+      final int code = (ec << 8) | c;
+      final boolean extraAsExpression = (ec & JBBPCompiler.EXT_FLAG_EXTRA_AS_EXPRESSION) != 0;
+
+      final JBBPNamedFieldInfo name =
+          (code & JBBPCompiler.FLAG_NAMED) == 0 ? null : namedFields[namedFieldIndex++];
+      final JBBPByteOrder byteOrder =
+          (code & JBBPCompiler.FLAG_LITTLE_ENDIAN) == 0 ? JBBPByteOrder.BIG_ENDIAN :
+              JBBPByteOrder.LITTLE_ENDIAN;
+      final int evalOffset = position.get();
+      final JBBPIntegerValueEvaluator extraEvaluator =
+          extraAsExpression ? evaluators[evaluatorIndex++] : null;
+
+      final int arrayKind;
+      int arrayLength = 0;
+      JBBPIntegerValueEvaluator arrayEvaluator = null;
+      switch (code &
+          (JBBPCompiler.FLAG_ARRAY | (JBBPCompiler.EXT_FLAG_EXPRESSION_OR_WHOLESTREAM << 8))) {
+        case JBBPCompiler.FLAG_ARRAY: {
+          arrayKind = ARRAY_FIXED;
+          arrayLength = JBBPUtils.unpackInt(compiled, position);
+        }
+        break;
+        case (JBBPCompiler.EXT_FLAG_EXPRESSION_OR_WHOLESTREAM << 8): {
+          arrayKind = ARRAY_WHOLE_STREAM;
+        }
+        break;
+        case JBBPCompiler.FLAG_ARRAY | (JBBPCompiler.EXT_FLAG_EXPRESSION_OR_WHOLESTREAM << 8): {
+          arrayKind = ARRAY_EXPRESSION;
+          arrayEvaluator = evaluators[evaluatorIndex++];
+        }
+        break;
+        default: {
+          arrayKind = ARRAY_NONE;
+        }
+        break;
+      }
+
+      final int type = code & 0xF;
+      int extra = 0;
+      JBBPFieldTypeParameterContainer customType = null;
+      switch (type) {
+        case JBBPCompiler.CODE_ALIGN:
+        case JBBPCompiler.CODE_SKIP:
+        case JBBPCompiler.CODE_BIT:
+        case JBBPCompiler.CODE_VAR: {
+          extra = extraAsExpression ? 0 : JBBPUtils.unpackInt(compiled, position);
+        }
+        break;
+        case JBBPCompiler.CODE_CUSTOMTYPE: {
+          extra = extraAsExpression ? 0 : JBBPUtils.unpackInt(compiled, position);
+          customType = customTypes[JBBPUtils.unpackInt(compiled, position)];
+        }
+        break;
+        case JBBPCompiler.CODE_STRUCT_START: {
+          structStarts.add(result.size());
+        }
+        break;
+        case JBBPCompiler.CODE_STRUCT_END: {
+          // skip offset of the structure start
+          JBBPUtils.unpackInt(compiled, position);
+          result.get(structStarts.remove(structStarts.size() - 1)).structEnd = result.size();
+        }
+        break;
+        default: {
+          // no extra data
+        }
+        break;
+      }
+
+      result.add(new ParserInstruction(type, (ec & JBBPCompiler.EXT_FLAG_EXTRA_DIFF_TYPE) != 0,
+          name, byteOrder, arrayKind, arrayLength, arrayEvaluator, extra, extraEvaluator, evalOffset,
+          customType));
+    }
+
+    return result.toArray(new ParserInstruction[0]);
+  }
+}
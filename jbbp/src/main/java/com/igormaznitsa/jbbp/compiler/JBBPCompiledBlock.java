@@ -22,6 +22,7 @@ import com.igormaznitsa.jbbp.exceptions.JBBPException;
 import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
 import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -66,6 +67,14 @@ public final class JBBPCompiledBlock {
    */
   private final boolean hasVarFields;
 
+  /**
+   * Slot indexes of named fields for their offsets in the compiled block, -1 for offsets without
+   * named field. Slot of a named field is its index in the named field array.
+   *
+   * @since 2.0.4
+   */
+  private final int[] namedFieldSlots;
+
   /**
    * The Class
    *
@@ -85,6 +94,16 @@ public final class JBBPCompiledBlock {
     this.compiledArray = compiledData;
     this.arraySizeEvaluators = arraySizeEvaluators;
     this.customTypeFields = customTypeFields;
+
+    this.namedFieldSlots = new int[compiledData.length];
+    Arrays.fill(this.namedFieldSlots, -1);
+    for (int i = 0; i < namedFields.length; i++) {
+      final int offset = namedFields[i].getFieldOffsetInCompiledBlock();
+      if (offset >= 0 && offset < this.namedFieldSlots.length
+          && this.namedFieldSlots[offset] < 0) {
+        this.namedFieldSlots[offset] = i;
+      }
+    }
   }
 
   /**
@@ -161,6 +180,40 @@ public final class JBBPCompiledBlock {
     return this.arraySizeEvaluators;
   }
 
+  /**
+   * Find slot of a named field of the block. Slot is the index of the field in the named field
+   * array, it allows to keep values of named fields in arrays instead of maps.
+   *
+   * @param namedField a named field info, it must not be null
+   * @return the slot index or -1 if the field is not a named field of the block
+   * @see #getNamedFields()
+   * @since 2.0.4
+   */
+  public int findNamedFieldSlot(final JBBPNamedFieldInfo namedField) {
+    final int offset = namedField.getFieldOffsetInCompiledBlock();
+    int result = -1;
+    if (offset >= 0 && offset < this.namedFieldSlots.length) {
+      final int slot = this.namedFieldSlots[offset];
+      if (slot >= 0 && (this.namedFieldData[slot] == namedField
+          || this.namedFieldData[slot].equals(namedField))) {
+        result = slot;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find slot of the named field which starts at an offset in the compiled block.
+   *
+   * @param offset the field offset in the compiled block
+   * @return the slot index or -1 if there is not any named field at the offset
+   * @see #findNamedFieldSlot(JBBPNamedFieldInfo)
+   * @since 2.0.4
+   */
+  public int findNamedFieldSlotForOffset(final int offset) {
+    return offset >= 0 && offset < this.namedFieldSlots.length ? this.namedFieldSlots[offset] : -1;
+  }
+
   /**
    * Find a field for its path.
    *
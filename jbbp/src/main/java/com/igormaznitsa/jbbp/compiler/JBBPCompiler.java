@@ -361,9 +361,9 @@ public final class JBBPCompiler {
               } catch (NumberFormatException ex) {
                 extraFieldNumberAsInt = -1;
               }
-              if (extraFieldNumberAsInt < 1 || extraFieldNumberAsInt > 8) {
+              if (extraFieldNumberAsInt < 1 || extraFieldNumberAsInt > 64) {
                 throw new JBBPCompilationException(
-                    "Bit-width must be 1..8 [" + token.getFieldTypeParameters().getExtraData() +
+                    "Bit-width must be 1..64 [" + token.getFieldTypeParameters().getExtraData() +
                         ']', token);
               }
             }
@@ -32,6 +32,7 @@ import com.igormaznitsa.jbbp.JBBPParser;
 import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
 import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
 import com.igormaznitsa.jbbp.compiler.varlen.JBBPIntegerValueEvaluator;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
 import com.igormaznitsa.jbbp.io.JBBPBitNumber;
 import com.igormaznitsa.jbbp.io.JBBPByteOrder;
 import com.igormaznitsa.jbbp.mapper.BinType;
@@ -789,8 +790,13 @@ public final class JBBPToJavaConverter extends CompiledBlockVisitor {
         evaluatorToString(NAME_OUTPUT_STREAM, offsetInCompiledBlock, notNullFieldSize, this.flagSet,
             true);
     try {
-      sizeOfFieldIn =
-          "JBBPBitNumber." + JBBPBitNumber.decode(Integer.parseInt(sizeOfFieldIn)).name();
+      final int bits = Integer.parseInt(sizeOfFieldIn);
+      if (bits < 1 || bits > 8) {
+        throw new JBBPIllegalArgumentException("Bit field '" + (nullableNameFieldInfo == null ?
+            fieldName : nullableNameFieldInfo.getFieldPath()) + "' has " + bits +
+            " bits but the converter supports only bit fields of 1..8 bits");
+      }
+      sizeOfFieldIn = "JBBPBitNumber." + JBBPBitNumber.decode(bits).name();
     } catch (NumberFormatException ex) {
       sizeOfFieldIn = "JBBPBitNumber.decode(" + sizeOfFieldIn + ')';
     }
@@ -32,6 +32,7 @@ import com.igormaznitsa.jbbp.utils.JBBPIntCounter;
 import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -159,6 +160,13 @@ public final class JBBPExpressionEvaluator implements JBBPIntegerValueEvaluator
    * @since 1.2.1
    */
   private final int maxStackDepth;
+  /**
+   * Root of the evaluation tree built from compiled expression, constant sub-expressions are
+   * folded so that evaluation doesn't need any stack or counter.
+   *
+   * @since 2.0.4
+   */
+  private final Node root;
 
   /**
    * The Constructor. It makes compilation an expression into internal representation.
@@ -436,6 +444,7 @@ public final class JBBPExpressionEvaluator implements JBBPIntegerValueEvaluator
         externalValueNameList.isEmpty() ? null : externalValueNameList.toArray(ARRAY_STRING_EMPTY);
 
     this.maxStackDepth = calculateMaxStackDepth();
+    this.root = makeTree();
   }
 
   /**
@@ -598,31 +607,13 @@ public final class JBBPExpressionEvaluator implements JBBPIntegerValueEvaluator
   }
 
   /**
-   * Get the max stack depth needed for the expression.
-   *
-   * @return max stack depth for expression
-   * @since 1.2.1
-   */
-  public int getMaxStackDepth() {
-    return this.maxStackDepth;
-  }
-
-  /**
-   * Evaluate the expression.
+   * Build evaluation tree from compiled expression, sub-expressions which contain only constants
+   * are calculated during the build.
    *
-   * @param inStream                   the input stream of data, must not be null
-   * @param currentCompiledBlockOffset the current offset inside the compiled JBBP script
-   * @param compiledBlockData          the compiled JBBP script, must not be null
-   * @param fieldMap                   the named field info map, must not be null
-   * @return calculated integer result of the expression
-   * @throws JBBPEvalException if there is any problem during processing
+   * @return the root node of the tree, must not be null
    */
-  @Override
-  public int eval(final JBBPBitInputStream inStream, final int currentCompiledBlockOffset,
-                  final JBBPCompiledBlock compiledBlockData,
-                  final JBBPNamedNumericFieldMap fieldMap) {
-    final int[] stack = new int[this.maxStackDepth];
-
+  private Node makeTree() {
+    final Node[] stack = new Node[this.maxStackDepth];
     int stackDepth = 0;
 
     final JBBPIntCounter counter = new JBBPIntCounter();
@@ -630,107 +621,94 @@ public final class JBBPExpressionEvaluator implements JBBPIntegerValueEvaluator
     while (counter.get() < this.compiledExpression.length) {
       final int code = this.compiledExpression[counter.getAndIncrement()];
       switch (code) {
-        case CODE_EXTVAR:
-        case CODE_VAR: {
-          final int index = JBBPUtils.unpackInt(this.compiledExpression, counter);
-
-          final int value;
-          if (code == CODE_EXTVAR) {
-            value = "$".equals(this.externalValueNames[index]) ? (int) inStream.getCounter() :
-                fieldMap
-                    .getExternalFieldValue(this.externalValueNames[index], compiledBlockData, this);
-          } else {
-            final JBBPNamedFieldInfo namedField = compiledBlockData.getNamedFields()[index];
-            final JBBPNumericField numericField = fieldMap.get(namedField);
-            if (numericField == null) {
-              throw new java.lang.ArithmeticException(
-                  "Can't find field '" + namedField.getFieldName() + "' among numeric fields");
-            } else {
-              value = fieldMap.get(namedField).getAsInt();
-            }
-          }
-          stack[stackDepth++] = value;
-        }
-        break;
-        case CODE_CONST: {
-          stack[stackDepth++] = JBBPUtils.unpackInt(this.compiledExpression, counter);
-        }
-        break;
-        case CODE_ADD: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] += top;
+        case CODE_EXTVAR: {
+          final String name =
+              this.externalValueNames[JBBPUtils.unpackInt(this.compiledExpression, counter)];
+          stack[stackDepth++] = "$".equals(name) ? new StreamCounterNode() : new ExtVarNode(name);
         }
         break;
-        case CODE_AND: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] &= top;
-        }
-        break;
-        case CODE_OR: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] |= top;
-        }
-        break;
-        case CODE_XOR: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] ^= top;
-        }
-        break;
-        case CODE_MINUS: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] -= top;
+        case CODE_VAR: {
+          stack[stackDepth++] =
+              new VarNode(JBBPUtils.unpackInt(this.compiledExpression, counter));
         }
         break;
-        case CODE_UNARYMINUS: {
-          stack[stackDepth - 1] = -stack[stackDepth - 1];
+        case CODE_CONST: {
+          stack[stackDepth++] =
+              new ConstNode(JBBPUtils.unpackInt(this.compiledExpression, counter));
         }
         break;
         case CODE_UNARYPLUS: {
           // do nothing
         }
         break;
+        case CODE_UNARYMINUS:
         case CODE_NOT: {
-          stack[stackDepth - 1] = ~stack[stackDepth - 1];
-        }
-        break;
-        case CODE_DIV: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] /= top;
-        }
-        break;
-        case CODE_MUL: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] *= top;
-        }
-        break;
-        case CODE_MOD: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] %= top;
-        }
-        break;
-        case CODE_LSHIFT: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] <<= top;
-        }
-        break;
-        case CODE_RSHIFT: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] >>= top;
+          final Node arg = stack[stackDepth - 1];
+          if (arg instanceof ConstNode) {
+            final int value = ((ConstNode) arg).value;
+            stack[stackDepth - 1] = new ConstNode(code == CODE_NOT ? ~value : -value);
+          } else {
+            stack[stackDepth - 1] = new UnaryNode(code, arg);
+          }
         }
         break;
+        case CODE_ADD:
+        case CODE_AND:
+        case CODE_OR:
+        case CODE_XOR:
+        case CODE_MINUS:
+        case CODE_DIV:
+        case CODE_MUL:
+        case CODE_MOD:
+        case CODE_LSHIFT:
+        case CODE_RSHIFT:
         case CODE_RSIGNSHIFT: {
-          final int top = stack[--stackDepth];
-          stack[stackDepth - 1] >>>= top;
+          final Node right = stack[--stackDepth];
+          final Node left = stack[stackDepth - 1];
+          final boolean zeroDivisor = (code == CODE_DIV || code == CODE_MOD)
+              && right instanceof ConstNode && ((ConstNode) right).value == 0;
+          if (left instanceof ConstNode && right instanceof ConstNode && !zeroDivisor) {
+            stack[stackDepth - 1] = new ConstNode(
+                BinaryNode.calc(code, ((ConstNode) left).value, ((ConstNode) right).value));
+          } else {
+            stack[stackDepth - 1] = new BinaryNode(code, left, right);
+          }
         }
         break;
         default:
           throw new Error("Detected unsupported operation, contact developer");
       }
     }
-
     return stack[0];
   }
 
+  /**
+   * Get the max stack depth needed for the expression.
+   *
+   * @return max stack depth for expression
+   * @since 1.2.1
+   */
+  public int getMaxStackDepth() {
+    return this.maxStackDepth;
+  }
+
+  /**
+   * Evaluate the expression.
+   *
+   * @param inStream                   the input stream of data, must not be null
+   * @param currentCompiledBlockOffset the current offset inside the compiled JBBP script
+   * @param compiledBlockData          the compiled JBBP script, must not be null
+   * @param fieldMap                   the named field info map, must not be null
+   * @return calculated integer result of the expression
+   * @throws JBBPEvalException if there is any problem during processing
+   */
+  @Override
+  public int eval(final JBBPBitInputStream inStream, final int currentCompiledBlockOffset,
+                  final JBBPCompiledBlock compiledBlockData,
+                  final JBBPNamedNumericFieldMap fieldMap) {
+    return this.root.eval(inStream, compiledBlockData, fieldMap);
+  }
+
   @Override
   public void visitItems(final JBBPCompiledBlock block, final int currentCompiledBlockOffset,
                          final ExpressionEvaluatorVisitor visitor) {
@@ -812,4 +790,162 @@ public final class JBBPExpressionEvaluator implements JBBPIntegerValueEvaluator
   public String toString() {
     return this.expressionSource;
   }
+
+  /**
+   * Node of evaluation tree.
+   *
+   * @since 2.0.4
+   */
+  private abstract static class Node implements Serializable {
+    private static final long serialVersionUID = 3520393581213851539L;
+
+    abstract int eval(JBBPBitInputStream inStream, JBBPCompiledBlock block,
+                      JBBPNamedNumericFieldMap fieldMap);
+  }
+
+  private static final class ConstNode extends Node {
+    private static final long serialVersionUID = -6416553436330367394L;
+
+    private final int value;
+
+    private ConstNode(final int value) {
+      this.value = value;
+    }
+
+    @Override
+    int eval(final JBBPBitInputStream inStream, final JBBPCompiledBlock block,
+             final JBBPNamedNumericFieldMap fieldMap) {
+      return this.value;
+    }
+  }
+
+  private static final class VarNode extends Node {
+    private static final long serialVersionUID = 8213318468437004128L;
+
+    private final int namedFieldIndex;
+
+    private VarNode(final int namedFieldIndex) {
+      this.namedFieldIndex = namedFieldIndex;
+    }
+
+    @Override
+    int eval(final JBBPBitInputStream inStream, final JBBPCompiledBlock block,
+             final JBBPNamedNumericFieldMap fieldMap) {
+      final JBBPNamedFieldInfo namedField = block.getNamedFields()[this.namedFieldIndex];
+      final JBBPNumericField numericField = fieldMap.get(namedField);
+      if (numericField == null) {
+        throw new java.lang.ArithmeticException(
+            "Can't find field '" + namedField.getFieldName() + "' among numeric fields");
+      }
+      return numericField.getAsInt();
+    }
+  }
+
+  private static final class StreamCounterNode extends Node {
+    private static final long serialVersionUID = -1712387226361426463L;
+
+    @Override
+    int eval(final JBBPBitInputStream inStream, final JBBPCompiledBlock block,
+             final JBBPNamedNumericFieldMap fieldMap) {
+      return (int) inStream.getCounter();
+    }
+  }
+
+  private final class ExtVarNode extends Node {
+    private static final long serialVersionUID = 5090567785212633012L;
+
+    private final String name;
+
+    private ExtVarNode(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    int eval(final JBBPBitInputStream inStream, final JBBPCompiledBlock block,
+             final JBBPNamedNumericFieldMap fieldMap) {
+      return fieldMap.getExternalFieldValue(this.name, block, JBBPExpressionEvaluator.this);
+    }
+  }
+
+  private static final class UnaryNode extends Node {
+    private static final long serialVersionUID = -3176372620212932519L;
+
+    private final boolean not;
+    private final Node arg;
+
+    private UnaryNode(final int code, final Node arg) {
+      this.not = code == CODE_NOT;
+      this.arg = arg;
+    }
+
+    @Override
+    int eval(final JBBPBitInputStream inStream, final JBBPCompiledBlock block,
+             final JBBPNamedNumericFieldMap fieldMap) {
+      final int value = this.arg.eval(inStream, block, fieldMap);
+      return this.not ? ~value : -value;
+    }
+  }
+
+  private static final class BinaryNode extends Node {
+    private static final long serialVersionUID = 1493287806218742285L;
+
+    private final int code;
+    private final Node left;
+    private final Node right;
+
+    private BinaryNode(final int code, final Node left, final Node right) {
+      this.code = code;
+      this.left = left;
+      this.right = right;
+    }
+
+    private static int calc(final int code, final int left, final int right) {
+      final int result;
+      switch (code) {
+        case CODE_ADD:
+          result = left + right;
+          break;
+        case CODE_AND:
+          result = left & right;
+          break;
+        case CODE_OR:
+          result = left | right;
+          break;
+        case CODE_XOR:
+          result = left ^ right;
+          break;
+        case CODE_MINUS:
+          result = left - right;
+          break;
+        case CODE_DIV:
+          result = left / right;
+          break;
+        case CODE_MUL:
+          result = left * right;
+          break;
+        case CODE_MOD:
+          result = left % right;
+          break;
+        case CODE_LSHIFT:
+          result = left << right;
+          break;
+        case CODE_RSHIFT:
+          result = left >> right;
+          break;
+        case CODE_RSIGNSHIFT:
+          result = left >>> right;
+          break;
+        default:
+          throw new Error("Detected unsupported operation, contact developer");
+      }
+      return result;
+    }
+
+    @Override
+    int eval(final JBBPBitInputStream inStream, final JBBPCompiledBlock block,
+             final JBBPNamedNumericFieldMap fieldMap) {
+      return calc(this.code, this.left.eval(inStream, block, fieldMap),
+          this.right.eval(inStream, block, fieldMap));
+    }
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collector of filled chunks for arrays read till the end of a stream. Already read items are
+ * never moved during growing, every item is copied only once into the result array.
+ *
+ * @since 2.0.4
+ */
+final class ArrayChunks {
+
+  /**
+   * Max number of items in a new chunk.
+   */
+  private static final int MAX_CHUNK_LENGTH = 1 << 24;
+
+  /**
+   * Min number of items in a new chunk.
+   */
+  private final int minChunkLength;
+  /**
+   * Filled chunks, it is null if there is no filled chunk.
+   */
+  private List<Object> chunks;
+  /**
+   * Number of items in filled chunks.
+   */
+  private int length;
+
+  /**
+   * Constructor.
+   *
+   * @param minChunkLength min number of items in a new chunk, must be greater than zero
+   */
+  ArrayChunks(final int minChunkLength) {
+    this.minChunkLength = Math.max(1, minChunkLength);
+  }
+
+  /**
+   * Save a filled chunk and make the next one of the same type.
+   *
+   * @param chunk the filled chunk, must not be null
+   * @return new empty chunk, must not be null
+   */
+  Object next(final Object chunk) {
+    final int chunkLength = Array.getLength(chunk);
+    if (chunkLength > 0) {
+      if (this.chunks == null) {
+        this.chunks = new ArrayList<Object>();
+      }
+      this.chunks.add(chunk);
+      this.length += chunkLength;
+    }
+    return Array.newInstance(chunk.getClass().getComponentType(),
+        Math.max(this.minChunkLength, Math.min(this.length, MAX_CHUNK_LENGTH)));
+  }
+
+  /**
+   * Make the result array from filled chunks and the last chunk.
+   *
+   * @param last the last chunk, must not be null
+   * @param used number of items in the last chunk
+   * @return array contains all items, the last chunk itself if it is the only one and full
+   */
+  Object toArray(final Object last, final int used) {
+    if (this.chunks == null && used == Array.getLength(last)) {
+      return last;
+    }
+    final Object result =
+        Array.newInstance(last.getClass().getComponentType(), this.length + used);
+    int pos = 0;
+    if (this.chunks != null) {
+      for (final Object chunk : this.chunks) {
+        final int chunkLength = Array.getLength(chunk);
+        System.arraycopy(chunk, 0, result, pos, chunkLength);
+        pos += chunkLength;
+      }
+    }
+    System.arraycopy(last, 0, result, pos, used);
+    return result;
+  }
+}
@@ -22,11 +22,19 @@ import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 
 /**
  * A Filter stream implementing a countable bit stream interface. It allows read
- * not only bytes but also bits from an input stream. The Class is not a
- * thread-safe one.
+ * not only bytes but also bits from an input stream. By default only needed bytes are read
+ * from the source stream, a stream created with defined buffer size reads the source ahead
+ * by blocks so that the source stream should not be read directly while the bit stream is in
+ * use. The Class is not a thread-safe one.
  *
  * @since 1.0
  */
@@ -37,6 +45,13 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    */
   protected static final int INITIAL_ARRAY_BUFFER_SIZE =
       JBBPSystemProperty.PROPERTY_INPUT_INITIAL_ARRAY_BUFFER_SIZE.getAsInteger(32);
+  /**
+   * The Default size of the inside read buffer for streams reading the source ahead.
+   *
+   * @since 2.0.4
+   */
+  protected static final int DEFAULT_BUFFER_SIZE =
+      JBBPSystemProperty.PROPERTY_INPUT_BUFFER_SIZE.getAsInteger(8192);
   /**
    * Flag shows that bit operations must be processed for MSB0 (most significant
    * bit 0) mode.
@@ -66,6 +81,36 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    * Inside temp variable to keep the byte counter temporarily.
    */
   private long markedByteCounter;
+  /**
+   * Flag shows that the inside buffer is provided from outside, it must not be
+   * changed and there is not any data after its end.
+   */
+  private final boolean externalBuffer;
+  /**
+   * Flag shows that the source is read ahead as much as the inside buffer allows, otherwise
+   * only needed bytes are read from the source.
+   */
+  private final boolean readAhead;
+  /**
+   * The Inside byte buffer, it keeps bytes read from the source but not processed yet.
+   */
+  private byte[] buffer;
+  /**
+   * Position of the next byte to be read from the inside buffer.
+   */
+  private int bufferPos;
+  /**
+   * Position after the last valid byte in the inside buffer.
+   */
+  private int bufferEnd;
+  /**
+   * Marked position in the inside buffer, negative one if there is no valid mark.
+   */
+  private int markedBufferPos;
+  /**
+   * Max number of bytes which can be read after mark before the mark becomes invalid.
+   */
+  private int markReadLimit;
 
   /**
    * A Constructor, the LSB0 bit order will be used by default.
@@ -88,6 +133,72 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
     super(in);
     this.bitsInBuffer = 0;
     this.msb0 = order == JBBPBitOrder.MSB0;
+    this.externalBuffer = false;
+    this.readAhead = false;
+    this.buffer = new byte[8];
+    this.markedBufferPos = -1;
+  }
+
+  /**
+   * A Constructor makes stream which reads the source ahead by blocks into the inside read
+   * buffer. NB! Bytes read ahead are not returned to the source stream, so the source stream
+   * should not be read directly after use of the bit stream.
+   *
+   * @param in         an input stream to be filtered.
+   * @param order      a bit order mode for the filter.
+   * @param bufferSize size of the inside read buffer, must not be less than 8
+   * @throws IllegalArgumentException if the buffer size is less than 8
+   * @see JBBPBitOrder#LSB0
+   * @see JBBPBitOrder#MSB0
+   * @since 2.0.4
+   */
+  public JBBPBitInputStream(final InputStream in, final JBBPBitOrder order, final int bufferSize) {
+    super(in);
+    if (bufferSize < 8) {
+      throw new IllegalArgumentException("Buffer size must not be less than 8: " + bufferSize);
+    }
+    this.bitsInBuffer = 0;
+    this.msb0 = order == JBBPBitOrder.MSB0;
+    this.externalBuffer = false;
+    this.readAhead = true;
+    this.buffer = new byte[bufferSize];
+    this.markedBufferPos = -1;
+  }
+
+  /**
+   * A Constructor allows to provide initial content of the inside buffer. If the source stream is null then
+   * the array is the only data source, it is read directly without copying and must not be changed during reading.
+   * If the source stream is not null then the array is used as the inside read buffer and its content can be
+   * changed, the source stream is read ahead.
+   *
+   * @param in     an input stream to be filtered, can be null if all data is provided by the array
+   * @param order  a bit order mode for the stream, must not be null
+   * @param array  the array contains data to be read before the input stream, must not be null and its length
+   *               must not be less than 8 if the input stream is not null
+   * @param offset offset of the first byte to be read in the array
+   * @param length number of bytes allowed for reading in the array
+   * @throws IndexOutOfBoundsException if offset or length are wrong ones
+   * @since 2.0.4
+   */
+  protected JBBPBitInputStream(final InputStream in, final JBBPBitOrder order, final byte[] array,
+                               final int offset, final int length) {
+    super(in);
+    JBBPUtils.assertNotNull(array, "Array must not be null");
+    if (offset < 0 || length < 0 || offset + length > array.length) {
+      throw new IndexOutOfBoundsException(
+          "Wrong offset or length [" + offset + ',' + length + ',' + array.length + ']');
+    }
+    if (in != null && array.length < 8) {
+      throw new IllegalArgumentException("Buffer size must not be less than 8: " + array.length);
+    }
+    this.bitsInBuffer = 0;
+    this.msb0 = order == JBBPBitOrder.MSB0;
+    this.externalBuffer = in == null;
+    this.readAhead = true;
+    this.buffer = array;
+    this.bufferPos = offset;
+    this.bufferEnd = offset + length;
+    this.markedBufferPos = in == null ? offset : -1;
   }
 
   /**
@@ -102,21 +213,8 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
     int pos = 0;
     byte[] buffer;
     if (items < 0) {
-      buffer = new byte[INITIAL_ARRAY_BUFFER_SIZE];
-      // till end
-      while (true) {
-        final int read = this.read(buffer, pos, buffer.length - pos);
-        if (read < 0) {
-          break;
-        }
-        pos += read;
-
-        if (buffer.length == pos) {
-          final byte[] newbuffer = new byte[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
-        }
-      }
+      buffer = this.readBytesTillEnd();
+      pos = buffer.length;
     } else {
       // number
       buffer = new byte[items];
@@ -138,31 +236,72 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
     return result;
   }
 
+  /**
+   * Read all bytes till the end of the stream.
+   *
+   * @return read bytes, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  private byte[] readBytesTillEnd() throws IOException {
+    final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+    byte[] buffer = new byte[this.arrayCapacity(8)];
+    int pos = 0;
+    while (true) {
+      if (buffer.length == pos) {
+        final int next = this.read();
+        if (next < 0) {
+          break;
+        }
+        buffer = (byte[]) chunks.next(buffer);
+        pos = 0;
+        buffer[pos++] = (byte) next;
+      }
+      final int read = this.read(buffer, pos, buffer.length - pos);
+      if (read < 0) {
+        break;
+      }
+      pos += read;
+    }
+    return (byte[]) chunks.toArray(buffer, pos);
+  }
+
+  /**
+   * Get initial capacity of an array to be read till the end of the stream. Number of bytes
+   * which can be read without blocking is used, so that for sources with known length
+   * (arrays, byte buffers, files) the array is read without growing and trimming.
+   *
+   * @param itemBits number of bits in an array item
+   * @return number of whole items in data which can be read without blocking
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int arrayCapacity(final int itemBits) throws IOException {
+    final long bits = ((long) this.available() << 3) + this.bitsInBuffer;
+    return (int) Math.min(Integer.MAX_VALUE - 8, bits / itemBits);
+  }
+
   private byte[] _readArray(final int items, final JBBPBitNumber bitNumber) throws IOException {
     final boolean readByteArray = bitNumber == null;
 
     int pos = 0;
     if (items < 0) {
-      byte[] buffer = new byte[INITIAL_ARRAY_BUFFER_SIZE];
+      if (readByteArray) {
+        return this.readBytesTillEnd();
+      }
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      byte[] buffer = new byte[this.arrayCapacity(bitNumber.getBitNumber())];
       // till end
       while (true) {
-        final int next = readByteArray ? read() : readBits(bitNumber);
+        final int next = readBits(bitNumber);
         if (next < 0) {
           break;
         }
         if (buffer.length == pos) {
-          final byte[] newbuffer = new byte[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+          buffer = (byte[]) chunks.next(buffer);
+          pos = 0;
         }
         buffer[pos++] = (byte) next;
       }
-      if (buffer.length == pos) {
-        return buffer;
-      }
-      final byte[] result = new byte[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (byte[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final byte[] buffer = new byte[items];
@@ -199,6 +338,46 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
     return _readArray(items, bitNumber);
   }
 
+  /**
+   * Read array of bit sequences which can be wider than a byte. If whole stream is read and the
+   * stream ends inside the last item then the item contains only read bits, the same as for
+   * {@link #readBitsArray(int, JBBPBitNumber)}.
+   *
+   * @param items number of items to be read, if less than zero then read whole
+   *              stream till the end
+   * @param width number of bits in each item, must be 1..64
+   * @return array of read bit items as a long array
+   * @throws IOException              it will be thrown for any transport problem during the
+   *                                  operation
+   * @throws IllegalArgumentException if the width is not in 1..64
+   * @see #readBitsLong(int)
+   * @since 2.0.4
+   */
+  public long[] readBitsLongArray(final int items, final int width) throws IOException {
+    assertBitsLongWidth(width);
+    int pos = 0;
+    if (items < 0) {
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      long[] buffer = new long[this.arrayCapacity(width)];
+      // till end
+      while (hasAvailableData()) {
+        if (buffer.length == pos) {
+          buffer = (long[]) chunks.next(buffer);
+          pos = 0;
+        }
+        buffer[pos++] = readBitsLong(width, true);
+      }
+      return (long[]) chunks.toArray(buffer, pos);
+    } else {
+      // number
+      final long[] buffer = new long[items];
+      while (pos < items) {
+        buffer[pos++] = readBitsLong(width);
+      }
+      return buffer;
+    }
+  }
+
   /**
    * Read number of bytes for the stream.
    *
@@ -247,28 +426,34 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
   public short[] readShortArray(final int items, final JBBPByteOrder byteOrder) throws IOException {
     int pos = 0;
     if (items < 0) {
-      short[] buffer = new short[INITIAL_ARRAY_BUFFER_SIZE];
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      short[] buffer = new short[this.arrayCapacity(16)];
       // till end
-      while (hasAvailableData()) {
-        final int next = readUnsignedShort(byteOrder);
-        if (buffer.length == pos) {
-          final short[] newbuffer = new short[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+      while (true) {
+        final int bulk = this.readBulkShorts(buffer, pos, buffer.length - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else if (hasAvailableData()) {
+          if (buffer.length == pos) {
+            buffer = (short[]) chunks.next(buffer);
+            pos = 0;
+          }
+          buffer[pos++] = (short) readUnsignedShort(byteOrder);
+        } else {
+          break;
         }
-        buffer[pos++] = (short) next;
-      }
-      if (buffer.length == pos) {
-        return buffer;
       }
-      final short[] result = new short[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (short[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final short[] buffer = new short[items];
-      for (int i = 0; i < items; i++) {
-        buffer[i] = (short) readUnsignedShort(byteOrder);
+      while (pos < items) {
+        final int bulk = this.readBulkShorts(buffer, pos, items - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else {
+          buffer[pos++] = (short) readUnsignedShort(byteOrder);
+        }
       }
       return buffer;
     }
@@ -290,28 +475,34 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
   public char[] readUShortArray(final int items, final JBBPByteOrder byteOrder) throws IOException {
     int pos = 0;
     if (items < 0) {
-      char[] buffer = new char[INITIAL_ARRAY_BUFFER_SIZE];
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      char[] buffer = new char[this.arrayCapacity(16)];
       // till end
-      while (hasAvailableData()) {
-        final int next = readUnsignedShort(byteOrder);
-        if (buffer.length == pos) {
-          final char[] newbuffer = new char[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+      while (true) {
+        final int bulk = this.readBulkChars(buffer, pos, buffer.length - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else if (hasAvailableData()) {
+          if (buffer.length == pos) {
+            buffer = (char[]) chunks.next(buffer);
+            pos = 0;
+          }
+          buffer[pos++] = (char) readUnsignedShort(byteOrder);
+        } else {
+          break;
         }
-        buffer[pos++] = (char) next;
-      }
-      if (buffer.length == pos) {
-        return buffer;
       }
-      final char[] result = new char[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (char[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final char[] buffer = new char[items];
-      for (int i = 0; i < items; i++) {
-        buffer[i] = (char) readUnsignedShort(byteOrder);
+      while (pos < items) {
+        final int bulk = this.readBulkChars(buffer, pos, items - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else {
+          buffer[pos++] = (char) readUnsignedShort(byteOrder);
+        }
       }
       return buffer;
     }
@@ -332,28 +523,34 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
   public int[] readIntArray(final int items, final JBBPByteOrder byteOrder) throws IOException {
     int pos = 0;
     if (items < 0) {
-      int[] buffer = new int[INITIAL_ARRAY_BUFFER_SIZE];
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      int[] buffer = new int[this.arrayCapacity(32)];
       // till end
-      while (hasAvailableData()) {
-        final int next = readInt(byteOrder);
-        if (buffer.length == pos) {
-          final int[] newbuffer = new int[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+      while (true) {
+        final int bulk = this.readBulkInts(buffer, pos, buffer.length - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else if (hasAvailableData()) {
+          if (buffer.length == pos) {
+            buffer = (int[]) chunks.next(buffer);
+            pos = 0;
+          }
+          buffer[pos++] = readInt(byteOrder);
+        } else {
+          break;
         }
-        buffer[pos++] = next;
-      }
-      if (buffer.length == pos) {
-        return buffer;
       }
-      final int[] result = new int[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (int[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final int[] buffer = new int[items];
-      for (int i = 0; i < items; i++) {
-        buffer[i] = readInt(byteOrder);
+      while (pos < items) {
+        final int bulk = this.readBulkInts(buffer, pos, items - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else {
+          buffer[pos++] = readInt(byteOrder);
+        }
       }
       return buffer;
     }
@@ -375,28 +572,34 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
   public float[] readFloatArray(final int items, final JBBPByteOrder byteOrder) throws IOException {
     int pos = 0;
     if (items < 0) {
-      float[] buffer = new float[INITIAL_ARRAY_BUFFER_SIZE];
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      float[] buffer = new float[this.arrayCapacity(32)];
       // till end
-      while (hasAvailableData()) {
-        final float next = readFloat(byteOrder);
-        if (buffer.length == pos) {
-          final float[] newbuffer = new float[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+      while (true) {
+        final int bulk = this.readBulkFloats(buffer, pos, buffer.length - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else if (hasAvailableData()) {
+          if (buffer.length == pos) {
+            buffer = (float[]) chunks.next(buffer);
+            pos = 0;
+          }
+          buffer[pos++] = readFloat(byteOrder);
+        } else {
+          break;
         }
-        buffer[pos++] = next;
-      }
-      if (buffer.length == pos) {
-        return buffer;
       }
-      final float[] result = new float[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (float[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final float[] buffer = new float[items];
-      for (int i = 0; i < items; i++) {
-        buffer[i] = readFloat(byteOrder);
+      while (pos < items) {
+        final int bulk = this.readBulkFloats(buffer, pos, items - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else {
+          buffer[pos++] = readFloat(byteOrder);
+        }
       }
       return buffer;
     }
@@ -417,28 +620,34 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
   public long[] readLongArray(final int items, final JBBPByteOrder byteOrder) throws IOException {
     int pos = 0;
     if (items < 0) {
-      long[] buffer = new long[INITIAL_ARRAY_BUFFER_SIZE];
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      long[] buffer = new long[this.arrayCapacity(64)];
       // till end
-      while (hasAvailableData()) {
-        final long next = readLong(byteOrder);
-        if (buffer.length == pos) {
-          final long[] newbuffer = new long[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+      while (true) {
+        final int bulk = this.readBulkLongs(buffer, pos, buffer.length - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else if (hasAvailableData()) {
+          if (buffer.length == pos) {
+            buffer = (long[]) chunks.next(buffer);
+            pos = 0;
+          }
+          buffer[pos++] = readLong(byteOrder);
+        } else {
+          break;
         }
-        buffer[pos++] = next;
-      }
-      if (buffer.length == pos) {
-        return buffer;
       }
-      final long[] result = new long[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (long[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final long[] buffer = new long[items];
-      for (int i = 0; i < items; i++) {
-        buffer[i] = readLong(byteOrder);
+      while (pos < items) {
+        final int bulk = this.readBulkLongs(buffer, pos, items - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else {
+          buffer[pos++] = readLong(byteOrder);
+        }
       }
       return buffer;
     }
@@ -461,28 +670,34 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
       throws IOException {
     int pos = 0;
     if (items < 0) {
-      double[] buffer = new double[INITIAL_ARRAY_BUFFER_SIZE];
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
+      double[] buffer = new double[this.arrayCapacity(64)];
       // till end
-      while (hasAvailableData()) {
-        final long next = readLong(byteOrder);
-        if (buffer.length == pos) {
-          final double[] newbuffer = new double[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+      while (true) {
+        final int bulk = this.readBulkDoubles(buffer, pos, buffer.length - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else if (hasAvailableData()) {
+          if (buffer.length == pos) {
+            buffer = (double[]) chunks.next(buffer);
+            pos = 0;
+          }
+          buffer[pos++] = readDouble(byteOrder);
+        } else {
+          break;
         }
-        buffer[pos++] = Double.longBitsToDouble(next);
-      }
-      if (buffer.length == pos) {
-        return buffer;
       }
-      final double[] result = new double[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (double[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final double[] buffer = new double[items];
-      for (int i = 0; i < items; i++) {
-        buffer[i] = readDouble(byteOrder);
+      while (pos < items) {
+        final int bulk = this.readBulkDoubles(buffer, pos, items - pos, byteOrder);
+        if (bulk > 0) {
+          pos += bulk;
+        } else {
+          buffer[pos++] = readDouble(byteOrder);
+        }
       }
       return buffer;
     }
@@ -500,6 +715,11 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    * @see JBBPByteOrder#LITTLE_ENDIAN
    */
   public int readUnsignedShort(final JBBPByteOrder byteOrder) throws IOException {
+    if (this.hasBufferedBytes(2)) {
+      final int value = this.readBufferedShort();
+      return byteOrder == JBBPByteOrder.BIG_ENDIAN ? value :
+          ((value >>> 8) | (value << 8)) & 0xFFFF;
+    }
     final int b0 = this.read();
     if (b0 < 0) {
       throw new EOFException();
@@ -523,6 +743,10 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    * @see JBBPByteOrder#LITTLE_ENDIAN
    */
   public int readInt(final JBBPByteOrder byteOrder) throws IOException {
+    if (this.hasBufferedBytes(4)) {
+      final int value = this.readBufferedInt();
+      return byteOrder == JBBPByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       return (readUnsignedShort(byteOrder) << 16) | readUnsignedShort(byteOrder);
     } else {
@@ -544,7 +768,10 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    */
   public float readFloat(final JBBPByteOrder byteOrder) throws IOException {
     final int value;
-    if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
+    if (this.hasBufferedBytes(4)) {
+      final int read = this.readBufferedInt();
+      value = byteOrder == JBBPByteOrder.BIG_ENDIAN ? read : Integer.reverseBytes(read);
+    } else if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       value = (readUnsignedShort(byteOrder) << 16) | readUnsignedShort(byteOrder);
     } else {
       value = readUnsignedShort(byteOrder) | (readUnsignedShort(byteOrder) << 16);
@@ -564,6 +791,10 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    * @see JBBPByteOrder#LITTLE_ENDIAN
    */
   public long readLong(final JBBPByteOrder byteOrder) throws IOException {
+    if (this.hasBufferedBytes(8)) {
+      final long value = this.readBufferedLong();
+      return byteOrder == JBBPByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       return (((long) readInt(byteOrder) & 0xFFFFFFFFL) << 32) |
           ((long) readInt(byteOrder) & 0xFFFFFFFFL);
@@ -587,7 +818,10 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    */
   public double readDouble(final JBBPByteOrder byteOrder) throws IOException {
     final long value;
-    if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
+    if (this.hasBufferedBytes(8)) {
+      final long read = this.readBufferedLong();
+      value = byteOrder == JBBPByteOrder.BIG_ENDIAN ? read : Long.reverseBytes(read);
+    } else if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       value = (((long) readInt(byteOrder) & 0xFFFFFFFFL) << 32) |
           ((long) readInt(byteOrder) & 0xFFFFFFFFL);
     } else {
@@ -728,6 +962,87 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
     }
   }
 
+  /**
+   * Read bit field which can be wider than a byte. Bits are accumulated in the same order
+   * as {@link #readBits(JBBPBitNumber)} does it, the first read bit is placed as the 0th bit
+   * and every next byte of the stream provides next higher bits of the result.
+   *
+   * @param width number of bits to be read, must be 1..64
+   * @return the read bits, for width 64 all bits of the long value are used
+   * @throws IOException              it will be thrown for transport errors or if the stream
+   *                                  doesn't contain enough bits
+   * @throws IllegalArgumentException if the width is not in 1..64
+   * @since 2.0.4
+   */
+  public long readBitsLong(final int width) throws IOException {
+    assertBitsLongWidth(width);
+    return this.readBitsLong(width, false);
+  }
+
+  /**
+   * Read bit field which can be wider than a byte.
+   *
+   * @param width        number of bits to be read, must be 1..64
+   * @param partialAtEnd if true then only read bits are returned if the stream ends inside the
+   *                     field, otherwise EOFException is thrown
+   * @return the read bits
+   * @throws IOException it will be thrown for transport errors or if the stream doesn't contain
+   *                     enough bits and partial result is not allowed
+   */
+  private long readBitsLong(final int width, final boolean partialAtEnd) throws IOException {
+    long result = 0L;
+    int filled = 0;
+
+    if (this.bitsInBuffer > 0) {
+      if (width < this.bitsInBuffer) {
+        result = this.bitBuffer & ((1 << width) - 1);
+        this.bitBuffer >>>= width;
+        this.bitsInBuffer -= width;
+        return result;
+      }
+      result = this.bitBuffer;
+      filled = this.bitsInBuffer;
+      this.bitBuffer = 0;
+      this.bitsInBuffer = 0;
+      this.byteCounter++;
+    }
+
+    while (width - filled >= 8) {
+      final int nextByte = this.readByteFromStream();
+      if (nextByte < 0) {
+        if (partialAtEnd && filled > 0) {
+          return result;
+        }
+        throw new EOFException("Can't read bits from stream [" + width + ']');
+      }
+      result |= (long) nextByte << filled;
+      filled += 8;
+      this.byteCounter++;
+    }
+
+    final int rest = width - filled;
+    if (rest > 0) {
+      final int nextByte = this.readByteFromStream();
+      if (nextByte < 0) {
+        if (partialAtEnd && filled > 0) {
+          return result;
+        }
+        throw new EOFException("Can't read bits from stream [" + width + ']');
+      }
+      result |= (long) (nextByte & ((1 << rest) - 1)) << filled;
+      this.bitBuffer = nextByte >>> rest;
+      this.bitsInBuffer = 8 - rest;
+    }
+
+    return result;
+  }
+
+  private static void assertBitsLongWidth(final int width) {
+    if (width < 1 || width > 64) {
+      throw new IllegalArgumentException("Unsupported bit number, allowed 1..64 [" + width + ']');
+    }
+  }
+
   /**
    * Read a boolean value saved as a byte.
    *
@@ -758,7 +1073,10 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
 
   @Override
   public synchronized void reset() throws IOException {
-    in.reset();
+    if (this.markedBufferPos < 0) {
+      throw new IOException("Resetting to invalid mark");
+    }
+    this.bufferPos = this.markedBufferPos;
     this.bitBuffer = this.markedBitBuffer;
     this.byteCounter = this.markedByteCounter;
     this.bitsInBuffer = this.markedBitsInBuffer;
@@ -766,12 +1084,31 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
 
   @Override
   public synchronized void mark(final int readlimit) {
-    in.mark(readlimit);
+    this.markedBufferPos = this.bufferPos;
+    this.markReadLimit = readlimit;
     this.markedBitBuffer = this.bitBuffer;
     this.markedByteCounter = this.byteCounter;
     this.markedBitsInBuffer = this.bitsInBuffer;
   }
 
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public int available() throws IOException {
+    final int buffered = this.bufferEnd - this.bufferPos;
+    return this.externalBuffer ? buffered : buffered + in.available();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!this.externalBuffer) {
+      in.close();
+    }
+  }
+
   /**
    * Read padding bytes from the stream and ignore them to align the stream
    * counter.
@@ -800,10 +1137,36 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
 
   @Override
   public long skip(final long numOfBytes) throws IOException {
+    long fromBitBuffer = 0L;
+    if (this.bitsInBuffer == 8 && numOfBytes > 0L) {
+      // whole byte loaded into the bit buffer (for instance by hasAvailableData) is just dropped
+      this.bitBuffer = 0;
+      this.bitsInBuffer = 0;
+      this.byteCounter++;
+      fromBitBuffer = 1L;
+    }
     if (this.bitsInBuffer == 0) {
-      final long r = in.skip(numOfBytes);
-      this.byteCounter += (int) r;
-      return r;
+      final long number = numOfBytes - fromBitBuffer;
+      long r = 0L;
+      while (r < number) {
+        int buffered = this.bufferEnd - this.bufferPos;
+        if (buffered == 0) {
+          if (!this.externalBuffer && this.markedBufferPos < 0) {
+            r += in.skip(number - r);
+            break;
+          }
+          buffered = this.fillBuffer(
+              this.readAhead ? 1 : (int) Math.min(number - r, DEFAULT_BUFFER_SIZE));
+          if (buffered == 0) {
+            break;
+          }
+        }
+        final int portion = (int) Math.min(number - r, buffered);
+        this.bufferPos += portion;
+        r += portion;
+      }
+      this.byteCounter += r;
+      return fromBitBuffer + r;
     } else {
       long i = numOfBytes;
       long count = 0L;
@@ -826,13 +1189,335 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
    * @throws IOException it will be thrown for transport errors
    */
   private int readByteFromStream() throws IOException {
-    int result = this.in.read();
+    int result;
+    if (this.bufferPos < this.bufferEnd || this.fillBuffer(1) > 0) {
+      result = this.buffer[this.bufferPos++] & 0xFF;
+    } else {
+      result = -1;
+    }
     if (result >= 0 && this.msb0) {
       result = JBBPUtils.reverseBitsInByte((byte) result) & 0xFF;
     }
     return result;
   }
 
+  /**
+   * Check that the bit buffer is empty and the inside buffer contains needed number of bytes,
+   * missing bytes will be read from the source if possible.
+   *
+   * @param number number of needed bytes, must not be greater than 8
+   * @return true if fields can be decoded directly from the inside buffer, false otherwise
+   * @throws IOException it will be thrown for transport errors
+   */
+  private boolean hasBufferedBytes(final int number) throws IOException {
+    return this.bitsInBuffer == 0 &&
+        (this.bufferEnd - this.bufferPos >= number || this.fillBuffer(number) >= number);
+  }
+
+  /**
+   * Fill the inside buffer from the source to contain needed number of bytes. If the stream reads
+   * ahead then the source is read as much as free space of the buffer allows, but reading is
+   * blocked only until needed number of bytes, otherwise only missing bytes are read. Bytes since
+   * valid mark are kept in the buffer, the mark becomes invalid if its read limit is exceeded.
+   *
+   * @param number needed number of bytes in the buffer, the buffer grows if it is too small
+   * @return number of bytes in the buffer, can be less than needed one if the end of the source has been reached
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int fillBuffer(final int number) throws IOException {
+    int available = this.bufferEnd - this.bufferPos;
+    if (this.externalBuffer) {
+      return available;
+    }
+
+    if (this.markedBufferPos >= 0 && this.bufferPos - this.markedBufferPos > this.markReadLimit) {
+      this.markedBufferPos = -1;
+    }
+    final int keepFrom = this.markedBufferPos < 0 ? this.bufferPos : this.markedBufferPos;
+    final int keep = this.bufferEnd - keepFrom;
+    if (keepFrom > 0 || keep + number > this.buffer.length) {
+      final byte[] target = keep + number > this.buffer.length ?
+          new byte[Math.max(this.buffer.length << 1, keep + number)] : this.buffer;
+      System.arraycopy(this.buffer, keepFrom, target, 0, keep);
+      this.buffer = target;
+      this.bufferPos -= keepFrom;
+      this.bufferEnd = keep;
+      if (this.markedBufferPos >= 0) {
+        this.markedBufferPos = 0;
+      }
+    }
+
+    while (available < number) {
+      final int read = this.in.read(this.buffer, this.bufferEnd,
+          this.readAhead ? this.buffer.length - this.bufferEnd : number - available);
+      if (read < 0) {
+        break;
+      }
+      this.bufferEnd += read;
+      available += read;
+    }
+    return available;
+  }
+
+  /**
+   * Get number of whole items which can be decoded directly from the inside buffer, missing
+   * bytes are read from the source if possible. Items can't be decoded from the buffer if the
+   * bit buffer is not empty.
+   *
+   * @param itemSize size of an item in bytes
+   * @param max      max number of needed items
+   * @return number of items which can be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int bufferedItems(final int itemSize, final int max) throws IOException {
+    if (this.bitsInBuffer != 0 || max <= 0) {
+      return 0;
+    }
+    int available = this.bufferEnd - this.bufferPos;
+    if (available < itemSize) {
+      // without read ahead only bytes of needed items are read
+      available = this.fillBuffer(this.readAhead ? itemSize
+          : Math.min(max, DEFAULT_BUFFER_SIZE / itemSize) * itemSize);
+    }
+    return Math.min(max, available / itemSize);
+  }
+
+  /**
+   * Take bytes from the inside buffer as a byte buffer with defined byte order.
+   *
+   * @param number    number of bytes, must not be greater than number of buffered bytes
+   * @param byteOrder byte order of the result buffer, must not be null
+   * @return byte buffer wrapping the bytes of the inside buffer, must not be null
+   */
+  private ByteBuffer takeBufferedBytes(final int number, final JBBPByteOrder byteOrder) {
+    final ByteBuffer result = ByteBuffer.wrap(this.buffer, this.bufferPos, number)
+        .order(byteOrder == JBBPByteOrder.BIG_ENDIAN ? ByteOrder.BIG_ENDIAN :
+            ByteOrder.LITTLE_ENDIAN);
+    this.bufferPos += number;
+    this.byteCounter += number;
+    return result;
+  }
+
+  /**
+   * Decode short values directly from the inside buffer.
+   *
+   * @param target    array to be filled, must not be null
+   * @param offset    offset of the first value in the array
+   * @param max       max number of values to be decoded
+   * @param byteOrder byte order of values, must not be null
+   * @return number of decoded values, zero if values can't be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int readBulkShorts(final short[] target, final int offset, final int max,
+                             final JBBPByteOrder byteOrder) throws IOException {
+    final int count = this.bufferedItems(2, max);
+    if (count > 0) {
+      final ByteBuffer bytes = this.takeBufferedBytes(count << 1, byteOrder);
+      final ShortBuffer view = bytes.asShortBuffer();
+      if (this.msb0) {
+        for (int i = 0; i < count; i++) {
+          target[offset + i] = (short) Integer.reverseBytes(Integer.reverse(view.get(i) & 0xFFFF));
+        }
+      } else {
+        view.get(target, offset, count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Decode char values directly from the inside buffer.
+   *
+   * @param target    array to be filled, must not be null
+   * @param offset    offset of the first value in the array
+   * @param max       max number of values to be decoded
+   * @param byteOrder byte order of values, must not be null
+   * @return number of decoded values, zero if values can't be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int readBulkChars(final char[] target, final int offset, final int max,
+                            final JBBPByteOrder byteOrder) throws IOException {
+    final int count = this.bufferedItems(2, max);
+    if (count > 0) {
+      final ByteBuffer bytes = this.takeBufferedBytes(count << 1, byteOrder);
+      final CharBuffer view = bytes.asCharBuffer();
+      if (this.msb0) {
+        for (int i = 0; i < count; i++) {
+          target[offset + i] = (char) Integer.reverseBytes(Integer.reverse(view.get(i)));
+        }
+      } else {
+        view.get(target, offset, count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Decode int values directly from the inside buffer.
+   *
+   * @param target    array to be filled, must not be null
+   * @param offset    offset of the first value in the array
+   * @param max       max number of values to be decoded
+   * @param byteOrder byte order of values, must not be null
+   * @return number of decoded values, zero if values can't be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int readBulkInts(final int[] target, final int offset, final int max,
+                           final JBBPByteOrder byteOrder) throws IOException {
+    final int count = this.bufferedItems(4, max);
+    if (count > 0) {
+      final ByteBuffer bytes = this.takeBufferedBytes(count << 2, byteOrder);
+      final IntBuffer view = bytes.asIntBuffer();
+      if (this.msb0) {
+        for (int i = 0; i < count; i++) {
+          target[offset + i] = Integer.reverseBytes(Integer.reverse(view.get(i)));
+        }
+      } else {
+        view.get(target, offset, count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Decode float values directly from the inside buffer.
+   *
+   * @param target    array to be filled, must not be null
+   * @param offset    offset of the first value in the array
+   * @param max       max number of values to be decoded
+   * @param byteOrder byte order of values, must not be null
+   * @return number of decoded values, zero if values can't be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int readBulkFloats(final float[] target, final int offset, final int max,
+                             final JBBPByteOrder byteOrder) throws IOException {
+    final int count = this.bufferedItems(4, max);
+    if (count > 0) {
+      final ByteBuffer bytes = this.takeBufferedBytes(count << 2, byteOrder);
+      if (this.msb0) {
+        final IntBuffer view = bytes.asIntBuffer();
+        for (int i = 0; i < count; i++) {
+          target[offset + i] =
+              Float.intBitsToFloat(Integer.reverseBytes(Integer.reverse(view.get(i))));
+        }
+      } else {
+        bytes.asFloatBuffer().get(target, offset, count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Decode long values directly from the inside buffer.
+   *
+   * @param target    array to be filled, must not be null
+   * @param offset    offset of the first value in the array
+   * @param max       max number of values to be decoded
+   * @param byteOrder byte order of values, must not be null
+   * @return number of decoded values, zero if values can't be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int readBulkLongs(final long[] target, final int offset, final int max,
+                            final JBBPByteOrder byteOrder) throws IOException {
+    final int count = this.bufferedItems(8, max);
+    if (count > 0) {
+      final ByteBuffer bytes = this.takeBufferedBytes(count << 3, byteOrder);
+      final LongBuffer view = bytes.asLongBuffer();
+      if (this.msb0) {
+        for (int i = 0; i < count; i++) {
+          target[offset + i] = Long.reverseBytes(Long.reverse(view.get(i)));
+        }
+      } else {
+        view.get(target, offset, count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Decode double values directly from the inside buffer.
+   *
+   * @param target    array to be filled, must not be null
+   * @param offset    offset of the first value in the array
+   * @param max       max number of values to be decoded
+   * @param byteOrder byte order of values, must not be null
+   * @return number of decoded values, zero if values can't be decoded from the inside buffer
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int readBulkDoubles(final double[] target, final int offset, final int max,
+                              final JBBPByteOrder byteOrder) throws IOException {
+    final int count = this.bufferedItems(8, max);
+    if (count > 0) {
+      final ByteBuffer bytes = this.takeBufferedBytes(count << 3, byteOrder);
+      if (this.msb0) {
+        final LongBuffer view = bytes.asLongBuffer();
+        for (int i = 0; i < count; i++) {
+          target[offset + i] =
+              Double.longBitsToDouble(Long.reverseBytes(Long.reverse(view.get(i))));
+        }
+      } else {
+        bytes.asDoubleBuffer().get(target, offset, count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Read two bytes from the inside buffer as big endian short value.
+   *
+   * @return the unsigned short value
+   */
+  private int readBufferedShort() {
+    final byte[] data = this.buffer;
+    final int pos = this.bufferPos;
+    int result = ((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF);
+    this.bufferPos = pos + 2;
+    this.byteCounter += 2;
+    if (this.msb0) {
+      result = Integer.reverseBytes(Integer.reverse(result));
+    }
+    return result;
+  }
+
+  /**
+   * Read four bytes from the inside buffer as big endian integer value.
+   *
+   * @return the integer value
+   */
+  private int readBufferedInt() {
+    final byte[] data = this.buffer;
+    final int pos = this.bufferPos;
+    int result = (data[pos] << 24) | ((data[pos + 1] & 0xFF) << 16) | ((data[pos + 2] & 0xFF) << 8)
+        | (data[pos + 3] & 0xFF);
+    this.bufferPos = pos + 4;
+    this.byteCounter += 4;
+    if (this.msb0) {
+      result = Integer.reverseBytes(Integer.reverse(result));
+    }
+    return result;
+  }
+
+  /**
+   * Read eight bytes from the inside buffer as big endian long value.
+   *
+   * @return the long value
+   */
+  private long readBufferedLong() {
+    final byte[] data = this.buffer;
+    final int pos = this.bufferPos;
+    final int high = (data[pos] << 24) | ((data[pos + 1] & 0xFF) << 16)
+        | ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+    final int low = (data[pos + 4] << 24) | ((data[pos + 5] & 0xFF) << 16)
+        | ((data[pos + 6] & 0xFF) << 8) | (data[pos + 7] & 0xFF);
+    long result = ((long) high << 32) | (low & 0xFFFFFFFFL);
+    this.bufferPos = pos + 8;
+    this.byteCounter += 8;
+    if (this.msb0) {
+      result = Long.reverseBytes(Long.reverse(result));
+    }
+    return result;
+  }
+
   /**
    * Read the next stream byte into bit buffer.
    *
@@ -881,11 +1566,24 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
       int readBytes = 0;
       int tmpoffset = offset;
       int tmplen = length;
+
       while (tmplen > 0) {
-        int read = this.in.read(array, tmpoffset, tmplen);
-        if (read < 0) {
-          readBytes = readBytes == 0 ? read : readBytes;
-          break;
+        int read = this.bufferEnd - this.bufferPos;
+        if (read == 0) {
+          if (!this.externalBuffer && this.markedBufferPos < 0
+              && (!this.readAhead || tmplen >= this.buffer.length)) {
+            read = this.in.read(array, tmpoffset, tmplen);
+          } else {
+            read = this.fillBuffer(this.readAhead ? 1 : tmplen) == 0 ? -1 : 0;
+          }
+          if (read < 0) {
+            readBytes = readBytes == 0 ? read : readBytes;
+            break;
+          }
+        } else {
+          read = Math.min(read, tmplen);
+          System.arraycopy(this.buffer, this.bufferPos, array, tmpoffset, read);
+          this.bufferPos += read;
         }
         tmplen -= read;
         tmpoffset += read;
@@ -1039,23 +1737,18 @@ public class JBBPBitInputStream extends FilterInputStream implements JBBPCountab
       throws IOException {
     int pos = 0;
     if (items < 0) {
+      final ArrayChunks chunks = new ArrayChunks(INITIAL_ARRAY_BUFFER_SIZE);
       String[] buffer = new String[INITIAL_ARRAY_BUFFER_SIZE];
       // till end
       while (hasAvailableData()) {
         final String next = readString(byteOrder);
         if (buffer.length == pos) {
-          final String[] newbuffer = new String[buffer.length << 1];
-          System.arraycopy(buffer, 0, newbuffer, 0, buffer.length);
-          buffer = newbuffer;
+          buffer = (String[]) chunks.next(buffer);
+          pos = 0;
         }
         buffer[pos++] = next;
       }
-      if (buffer.length == pos) {
-        return buffer;
-      }
-      final String[] result = new String[pos];
-      System.arraycopy(buffer, 0, result, 0, pos);
-      return result;
+      return (String[]) chunks.toArray(buffer, pos);
     } else {
       // number
       final String[] buffer = new String[items];
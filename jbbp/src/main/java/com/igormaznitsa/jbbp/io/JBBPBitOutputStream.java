@@ -20,13 +20,26 @@ import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 
 /**
- * The Filter allows to write bit by bit into an output stream and count the written byte number. The Class is not a thread-safe one.
+ * The Filter allows to write bit by bit into an output stream and count the written byte number.
+ * By default written data is passed to the wrapped stream during each write call, only bits of
+ * not completed byte are cached. A Buffered stream can be made through the constructor with
+ * buffer size, such stream passes data to the wrapped stream when its buffer is full and during
+ * flush or close. The Class is not a thread-safe one.
  *
  * @since 1.0
  */
 public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCountableBitStream {
+  /**
+   * Size of the inside buffer of not buffered streams, it is used to encode values and parts of
+   * arrays before they are passed to the wrapped stream.
+   */
+  private static final int PASS_THROUGH_BUFFER_SIZE = 256;
   /**
    * Flag shows that bit operations must be processed for MSB0 (most significant
    * bit 0) mode.
@@ -44,6 +57,36 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
    * The byte counter of written bytes.
    */
   private long byteCounter;
+  /**
+   * Flag shows that written bytes are kept in the inside buffer till it is full.
+   */
+  private final boolean buffered;
+  /**
+   * Size of the inside buffer.
+   */
+  private final int bufferSize;
+  /**
+   * The Inside write buffer, it keeps written bytes which are not passed to the wrapped stream,
+   * it is allocated during the first use.
+   */
+  private byte[] buffer;
+  /**
+   * Flag shows that the inside buffer is an array provided from outside and it is the target
+   * of written data, the buffer is never passed to the wrapped stream.
+   */
+  private boolean arrayTarget;
+  /**
+   * Position of the first byte of the inside buffer.
+   */
+  private int bufferStart;
+  /**
+   * Position of the next byte to be written into the inside buffer.
+   */
+  private int bufferPos;
+  /**
+   * Position after the last byte allowed for writing in the inside buffer.
+   */
+  private int bufferEnd;
 
   /**
    * A Constructor. The Default LSB0 bit mode will be used for bit writing operations.
@@ -65,6 +108,31 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
   public JBBPBitOutputStream(final OutputStream out, final JBBPBitOrder order) {
     super(out);
     this.msb0 = order == JBBPBitOrder.MSB0;
+    this.buffered = false;
+    this.bufferSize = PASS_THROUGH_BUFFER_SIZE;
+  }
+
+  /**
+   * A Constructor of buffered stream. Written data is passed to the wrapped stream when the
+   * inside buffer is full and during flush or close.
+   *
+   * @param out        an output stream to be filtered.
+   * @param order      a bit writing mode to used for writing operations.
+   * @param bufferSize size of the inside write buffer, must not be less than 8
+   * @throws IllegalArgumentException if the buffer size is less than 8
+   * @see JBBPBitOrder#LSB0
+   * @see JBBPBitOrder#MSB0
+   * @since 2.0.4
+   */
+  public JBBPBitOutputStream(final OutputStream out, final JBBPBitOrder order,
+                             final int bufferSize) {
+    super(out);
+    if (bufferSize < 8) {
+      throw new IllegalArgumentException("Buffer size must not be less than 8: " + bufferSize);
+    }
+    this.msb0 = order == JBBPBitOrder.MSB0;
+    this.buffered = true;
+    this.bufferSize = bufferSize;
   }
 
   /**
@@ -89,6 +157,9 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
    * @see JBBPByteOrder#LITTLE_ENDIAN
    */
   public void writeShort(final int value, final JBBPByteOrder byteOrder) throws IOException {
+    if (this.writeBuffered(value, 2, byteOrder)) {
+      return;
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       this.write(value >>> 8);
       this.write(value);
@@ -108,6 +179,9 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
    * @see JBBPByteOrder#LITTLE_ENDIAN
    */
   public void writeInt(final int value, final JBBPByteOrder byteOrder) throws IOException {
+    if (this.writeBuffered(value, 4, byteOrder)) {
+      return;
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       this.writeShort(value >>> 16, byteOrder);
       this.writeShort(value, byteOrder);
@@ -129,6 +203,9 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
    */
   public void writeFloat(final float value, final JBBPByteOrder byteOrder) throws IOException {
     final int intValue = Float.floatToIntBits(value);
+    if (this.writeBuffered(intValue, 4, byteOrder)) {
+      return;
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       this.writeShort(intValue >>> 16, byteOrder);
       this.writeShort(intValue, byteOrder);
@@ -148,6 +225,9 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
    * @see JBBPByteOrder#LITTLE_ENDIAN
    */
   public void writeLong(final long value, final JBBPByteOrder byteOrder) throws IOException {
+    if (this.writeBuffered(value, 8, byteOrder)) {
+      return;
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       this.writeInt((int) (value >>> 32), byteOrder);
       this.writeInt((int) value, byteOrder);
@@ -169,6 +249,9 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
    */
   public void writeDouble(final double value, final JBBPByteOrder byteOrder) throws IOException {
     final long longValue = Double.doubleToLongBits(value);
+    if (this.writeBuffered(longValue, 8, byteOrder)) {
+      return;
+    }
     if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
       this.writeInt((int) (longValue >>> 32), byteOrder);
       this.writeInt((int) longValue, byteOrder);
@@ -178,6 +261,246 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
     }
   }
 
+  /**
+   * Write number of items from short array into stream.
+   *
+   * @param array     array, must not be null
+   * @param length    number of items to be written, if -1 then whole array
+   * @param byteOrder the byte order of the value bytes to be used for writing.
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public void writeShortArray(final short[] array, final int length,
+                              final JBBPByteOrder byteOrder) throws IOException {
+    final int len = length < 0 ? array.length : length;
+    int pos = 0;
+    while (pos < len) {
+      final int items = this.bufferedItems(2, len - pos);
+      if (items > 0) {
+        this.wrapBuffer(items << 1, byteOrder).asShortBuffer().put(array, pos, items);
+        this.commitBuffer(items << 1);
+        pos += items;
+      } else {
+        this.writeShort(array[pos++], byteOrder);
+      }
+    }
+  }
+
+  /**
+   * Write number of items from integer array into stream.
+   *
+   * @param array     array, must not be null
+   * @param length    number of items to be written, if -1 then whole array
+   * @param byteOrder the byte order of the value bytes to be used for writing.
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public void writeIntArray(final int[] array, final int length, final JBBPByteOrder byteOrder)
+      throws IOException {
+    final int len = length < 0 ? array.length : length;
+    int pos = 0;
+    while (pos < len) {
+      final int items = this.bufferedItems(4, len - pos);
+      if (items > 0) {
+        this.wrapBuffer(items << 2, byteOrder).asIntBuffer().put(array, pos, items);
+        this.commitBuffer(items << 2);
+        pos += items;
+      } else {
+        this.writeInt(array[pos++], byteOrder);
+      }
+    }
+  }
+
+  /**
+   * Write number of items from float array into stream.
+   *
+   * @param array     array, must not be null
+   * @param length    number of items to be written, if -1 then whole array
+   * @param byteOrder the byte order of the value bytes to be used for writing.
+   * @throws IOException it will be thrown for transport errors
+   * @see Float#floatToIntBits(float)
+   * @since 2.0.4
+   */
+  public void writeFloatArray(final float[] array, final int length,
+                              final JBBPByteOrder byteOrder) throws IOException {
+    final int len = length < 0 ? array.length : length;
+    int pos = 0;
+    while (pos < len) {
+      final int items = this.bufferedItems(4, len - pos);
+      if (items > 0) {
+        final IntBuffer view = this.wrapBuffer(items << 2, byteOrder).asIntBuffer();
+        for (int i = 0; i < items; i++) {
+          view.put(i, Float.floatToIntBits(array[pos++]));
+        }
+        this.commitBuffer(items << 2);
+      } else {
+        this.writeFloat(array[pos++], byteOrder);
+      }
+    }
+  }
+
+  /**
+   * Write number of items from long array into stream.
+   *
+   * @param array     array, must not be null
+   * @param length    number of items to be written, if -1 then whole array
+   * @param byteOrder the byte order of the value bytes to be used for writing.
+   * @throws IOException it will be thrown for transport errors
+   * @since 2.0.4
+   */
+  public void writeLongArray(final long[] array, final int length, final JBBPByteOrder byteOrder)
+      throws IOException {
+    final int len = length < 0 ? array.length : length;
+    int pos = 0;
+    while (pos < len) {
+      final int items = this.bufferedItems(8, len - pos);
+      if (items > 0) {
+        this.wrapBuffer(items << 3, byteOrder).asLongBuffer().put(array, pos, items);
+        this.commitBuffer(items << 3);
+        pos += items;
+      } else {
+        this.writeLong(array[pos++], byteOrder);
+      }
+    }
+  }
+
+  /**
+   * Write number of items from double array into stream.
+   *
+   * @param array     array, must not be null
+   * @param length    number of items to be written, if -1 then whole array
+   * @param byteOrder the byte order of the value bytes to be used for writing.
+   * @throws IOException it will be thrown for transport errors
+   * @see Double#doubleToLongBits(double)
+   * @since 2.0.4
+   */
+  public void writeDoubleArray(final double[] array, final int length,
+                               final JBBPByteOrder byteOrder) throws IOException {
+    final int len = length < 0 ? array.length : length;
+    int pos = 0;
+    while (pos < len) {
+      final int items = this.bufferedItems(8, len - pos);
+      if (items > 0) {
+        final LongBuffer view = this.wrapBuffer(items << 3, byteOrder).asLongBuffer();
+        for (int i = 0; i < items; i++) {
+          view.put(i, Double.doubleToLongBits(array[pos++]));
+        }
+        this.commitBuffer(items << 3);
+      } else {
+        this.writeDouble(array[pos++], byteOrder);
+      }
+    }
+  }
+
+  /**
+   * Write lower bytes of a value directly into the inside buffer if there are no cached bits.
+   *
+   * @param value     the value to be written
+   * @param bytes     number of lower bytes of the value to be written, must be 1..8
+   * @param byteOrder the byte order to be used for writing
+   * @return true if the value has been written, false if there are cached bits
+   * @throws IOException it will be thrown for transport errors
+   */
+  private boolean writeBuffered(final long value, final int bytes,
+                                final JBBPByteOrder byteOrder) throws IOException {
+    if (this.bitBufferCount != 0) {
+      return false;
+    }
+    this.freeSpace(bytes);
+    final byte[] theBuffer = this.buffer;
+    int pos = this.bufferPos;
+    if (byteOrder == JBBPByteOrder.BIG_ENDIAN) {
+      for (int shift = (bytes - 1) << 3; shift >= 0; shift -= 8) {
+        theBuffer[pos++] = (byte) (value >>> shift);
+      }
+    } else {
+      for (int shift = 0; shift < bytes << 3; shift += 8) {
+        theBuffer[pos++] = (byte) (value >>> shift);
+      }
+    }
+    this.commitBuffer(bytes);
+    return true;
+  }
+
+  /**
+   * Get number of array items which can be written directly into the inside buffer, the buffer
+   * is flushed if it doesn't have space for an item.
+   *
+   * @param itemSize size of an item in bytes
+   * @param max      max number of items
+   * @return number of items which can be written into the buffer, 0 if there are cached bits
+   * @throws IOException it will be thrown for transport errors
+   */
+  private int bufferedItems(final int itemSize, final int max) throws IOException {
+    if (this.bitBufferCount != 0) {
+      return 0;
+    }
+    return Math.min(max, this.freeSpace(itemSize) / itemSize);
+  }
+
+  /**
+   * Make free space in the inside buffer, the buffer is allocated if it is not allocated yet
+   * and flushed if it doesn't have enough space.
+   *
+   * @param number number of bytes which should be placed into the buffer, must not be greater
+   *               than the buffer size
+   * @return number of free bytes in the buffer
+   * @throws IOException it will be thrown for transport errors or if there is not enough space
+   *                     in a target array
+   */
+  private int freeSpace(final int number) throws IOException {
+    if (this.buffer == null) {
+      this.buffer = new byte[this.bufferSize];
+      this.bufferEnd = this.bufferSize;
+    } else if (this.bufferEnd - this.bufferPos < number) {
+      if (this.arrayTarget) {
+        throw new IOException("Not enough space in array [" + number + " > " +
+            (this.bufferEnd - this.bufferPos) + ']');
+      }
+      this.flushBuffer();
+    }
+    return this.bufferEnd - this.bufferPos;
+  }
+
+  private ByteBuffer wrapBuffer(final int number, final JBBPByteOrder byteOrder) {
+    return ByteBuffer.wrap(this.buffer, this.bufferPos, number).slice()
+        .order(byteOrder == JBBPByteOrder.BIG_ENDIAN ? ByteOrder.BIG_ENDIAN :
+            ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Accept bytes placed into the inside buffer after its current position, they are passed to
+   * the wrapped stream at once if the stream is not buffered.
+   *
+   * @param number number of bytes
+   * @throws IOException it will be thrown for transport errors
+   */
+  private void commitBuffer(final int number) throws IOException {
+    if (this.msb0) {
+      for (int i = this.bufferPos; i < this.bufferPos + number; i++) {
+        this.buffer[i] = JBBPUtils.reverseBitsInByte(this.buffer[i]);
+      }
+    }
+    this.bufferPos += number;
+    this.byteCounter += number;
+    if (!this.buffered) {
+      this.flushBuffer();
+    }
+  }
+
+  /**
+   * Pass all bytes of the inside buffer to the wrapped stream.
+   *
+   * @throws IOException it will be thrown for transport errors
+   */
+  private void flushBuffer() throws IOException {
+    if (this.bufferPos > 0 && !this.arrayTarget) {
+      final int number = this.bufferPos;
+      this.bufferPos = 0;
+      this.out.write(this.buffer, 0, number);
+    }
+  }
+
   /**
    * Get number of bytes written into the output stream.
    *
@@ -223,22 +546,34 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
   @Override
   public void flush() throws IOException {
     flushBitBuffer();
+    flushBuffer();
     this.out.flush();
   }
 
   @SuppressWarnings("NullableProblems")
   @Override
   public void write(final byte[] b, final int off, final int len) throws IOException {
-    if (this.msb0 || this.bitBufferCount != 0) {
+    if (this.bitBufferCount != 0) {
       int i = off;
       int cnt = len;
       while (cnt > 0) {
         this.write(b[i++]);
         cnt--;
       }
-    } else {
+    } else if (!this.msb0 && !this.arrayTarget && (!this.buffered || len >= this.bufferSize)) {
+      this.flushBuffer();
       out.write(b, off, len);
       this.byteCounter += len;
+    } else {
+      int i = off;
+      int cnt = len;
+      while (cnt > 0) {
+        final int portion = Math.min(cnt, this.freeSpace(1));
+        System.arraycopy(b, i, this.buffer, this.bufferPos, portion);
+        this.commitBuffer(portion);
+        i += portion;
+        cnt -= portion;
+      }
     }
   }
 
@@ -300,8 +635,7 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
     if (alignByteNumber > 0) {
       long padding = (alignByteNumber - (this.byteCounter % alignByteNumber)) % alignByteNumber;
       while (padding > 0) {
-        this.out.write(0);
-        this.byteCounter++;
+        this.writeByte(0);
         padding--;
       }
     }
@@ -317,7 +651,12 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
     if (this.msb0) {
       value = JBBPUtils.reverseBitsInByte((byte) value) & 0xFF;
     }
-    this.out.write(value);
+    if (this.buffered || this.arrayTarget) {
+      this.freeSpace(1);
+      this.buffer[this.bufferPos++] = (byte) value;
+    } else {
+      this.out.write(value);
+    }
     this.byteCounter++;
   }
 
@@ -368,6 +707,65 @@ public class JBBPBitOutputStream extends FilterOutputStream implements JBBPCount
     this.byteCounter = 0L;
   }
 
+  /**
+   * Drop all not written data, both cached bits and the inside buffer content, and reset the
+   * byte counter.
+   *
+   * @since 2.0.4
+   */
+  void discard() {
+    this.bufferPos = this.bufferStart;
+    this.resetCounter();
+  }
+
+  /**
+   * Make the stream to write data directly into an array, the array is used as the inside
+   * buffer and its content is never passed to the wrapped stream. All not written data and the
+   * byte counter are dropped.
+   *
+   * @param array  the target array, must not be null
+   * @param offset offset of the first byte to be written in the array
+   * @param length max number of bytes to be written into the array
+   * @since 2.0.4
+   */
+  void resetTarget(final byte[] array, final int offset, final int length) {
+    this.arrayTarget = true;
+    this.buffer = array;
+    this.bufferStart = offset;
+    this.bufferEnd = offset + length;
+    this.discard();
+  }
+
+  /**
+   * Make the stream to pass data to an output stream, the inside buffer is allocated again
+   * during the first use if it was a target array. All not written data and the byte counter
+   * are dropped.
+   *
+   * @param out the output stream to be filtered, must not be null
+   * @since 2.0.4
+   */
+  void resetTarget(final OutputStream out) {
+    this.out = out;
+    if (this.arrayTarget) {
+      this.arrayTarget = false;
+      this.buffer = null;
+      this.bufferStart = 0;
+      this.bufferEnd = 0;
+    }
+    this.discard();
+  }
+
+  /**
+   * Get number of bytes placed into the target array.
+   *
+   * @return number of bytes placed since the array offset, -1 if the stream doesn't write
+   * into an array
+   * @since 2.0.4
+   */
+  int getTargetLength() {
+    return this.arrayTarget ? this.bufferPos - this.bufferStart : -1;
+  }
+
   /**
    * Write string in UTF8 format into stream.
    * <b>the byte order in saved char data will be BIG_ENDIAN</b>
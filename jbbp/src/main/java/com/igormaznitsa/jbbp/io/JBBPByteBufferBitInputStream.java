@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Bit input stream reading data from a byte buffer between its position and limit.
+ * Heap buffers are read directly from their backing array without any copying,
+ * direct and read-only buffers are copied by chunks into the inside buffer through bulk get
+ * operations.
+ * The Position and the limit of the provided buffer are not changed.
+ * The Class is not a thread-safe one.
+ *
+ * @since 2.0.4
+ */
+public class JBBPByteBufferBitInputStream extends JBBPBitInputStream {
+
+  /**
+   * A Constructor, the LSB0 bit order will be used by default.
+   *
+   * @param buffer the source buffer, must not be null
+   */
+  public JBBPByteBufferBitInputStream(final ByteBuffer buffer) {
+    this(buffer, JBBPBitOrder.LSB0);
+  }
+
+  /**
+   * A Constructor.
+   *
+   * @param buffer the source buffer, must not be null
+   * @param order  a bit order mode for the stream, must not be null
+   * @see JBBPBitOrder#LSB0
+   * @see JBBPBitOrder#MSB0
+   */
+  public JBBPByteBufferBitInputStream(final ByteBuffer buffer, final JBBPBitOrder order) {
+    super(buffer.hasArray() ? null : new ByteBufferInputStream(buffer), order,
+        buffer.hasArray() ? buffer.array() :
+            new byte[Math.max(8, Math.min(DEFAULT_BUFFER_SIZE, buffer.remaining()))],
+        buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0,
+        buffer.hasArray() ? buffer.remaining() : 0);
+  }
+
+  /**
+   * Inside adapter to read a byte buffer through bulk get operations.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer.duplicate();
+      ((Buffer) this.buffer).mark();
+    }
+
+    @Override
+    public int read() {
+      return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] array, final int offset, final int length) {
+      if (length == 0) {
+        return 0;
+      }
+      final int remaining = this.buffer.remaining();
+      if (remaining == 0) {
+        return -1;
+      }
+      final int toRead = Math.min(length, remaining);
+      this.buffer.get(array, offset, toRead);
+      return toRead;
+    }
+
+    @Override
+    public long skip(final long number) {
+      final int toSkip = (int) Math.max(0L, Math.min(number, this.buffer.remaining()));
+      ((Buffer) this.buffer).position(this.buffer.position() + toSkip);
+      return toSkip;
+    }
+
+    @Override
+    public int available() {
+      return this.buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+      ((Buffer) this.buffer).mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+      ((Buffer) this.buffer).reset();
+    }
+  }
+}
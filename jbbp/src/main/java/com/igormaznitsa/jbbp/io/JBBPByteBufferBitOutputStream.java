@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Bit output stream writing data into a byte buffer, both heap and direct buffers are supported.
+ * Data is placed into the buffer through bulk put operations during each write call, the position
+ * of the buffer is moved by the number of placed bytes. The Buffer is not closed or released
+ * during close. The Class is not a thread-safe one.
+ *
+ * @since 2.0.4
+ */
+public class JBBPByteBufferBitOutputStream extends JBBPBitOutputStream {
+
+  /**
+   * A Constructor, the LSB0 bit order will be used by default.
+   *
+   * @param buffer the target buffer, must not be null
+   */
+  public JBBPByteBufferBitOutputStream(final ByteBuffer buffer) {
+    this(buffer, JBBPBitOrder.LSB0);
+  }
+
+  /**
+   * A Constructor.
+   *
+   * @param buffer the target buffer, must not be null
+   * @param order  a bit order mode for the stream, must not be null
+   * @see JBBPBitOrder#LSB0
+   * @see JBBPBitOrder#MSB0
+   */
+  public JBBPByteBufferBitOutputStream(final ByteBuffer buffer, final JBBPBitOrder order) {
+    super(new ByteBufferOutputStream(buffer), order);
+  }
+
+  /**
+   * Inside adapter to write into a byte buffer through bulk put operations.
+   */
+  private static final class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferOutputStream(final ByteBuffer buffer) {
+      JBBPUtils.assertNotNull(buffer, "Buffer must not be null");
+      this.buffer = buffer;
+    }
+
+    private void assertSpace(final int length) throws IOException {
+      if (this.buffer.remaining() < length) {
+        throw new IOException(
+            "Not enough space in buffer [" + length + " > " + this.buffer.remaining() + ']');
+      }
+    }
+
+    @Override
+    public void write(final int value) throws IOException {
+      this.assertSpace(1);
+      this.buffer.put((byte) value);
+    }
+
+    @Override
+    public void write(final byte[] array, final int offset, final int length)
+        throws IOException {
+      this.assertSpace(length);
+      this.buffer.put(array, offset, length);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bit input stream reading data of a file channel through memory mapped windows.
+ * Data is read since the current position of the channel till the size of the channel
+ * detected during construction. Files larger than a window are read through sequential
+ * remapping, so that files bigger than 2 GB can be processed. The Position of the channel
+ * is not changed and the channel is not closed by the stream.
+ * The Class is not a thread-safe one.
+ *
+ * @since 2.0.4
+ */
+public class JBBPMappedFileBitInputStream extends JBBPBitInputStream {
+
+  /**
+   * Default size of a mapped window in bytes.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * A Constructor, the LSB0 bit order and the default window size will be used.
+   *
+   * @param channel the source file channel, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  public JBBPMappedFileBitInputStream(final FileChannel channel) throws IOException {
+    this(channel, JBBPBitOrder.LSB0);
+  }
+
+  /**
+   * A Constructor, the default window size will be used.
+   *
+   * @param channel the source file channel, must not be null
+   * @param order   a bit order mode for the stream, must not be null
+   * @throws IOException it will be thrown for transport errors
+   * @see JBBPBitOrder#LSB0
+   * @see JBBPBitOrder#MSB0
+   */
+  public JBBPMappedFileBitInputStream(final FileChannel channel, final JBBPBitOrder order)
+      throws IOException {
+    this(channel, order, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * A Constructor.
+   *
+   * @param channel    the source file channel, must not be null
+   * @param order      a bit order mode for the stream, must not be null
+   * @param windowSize max size of a mapped window in bytes, must be greater than zero
+   * @throws IOException              it will be thrown for transport errors
+   * @throws IllegalArgumentException if the window size is not positive one
+   */
+  public JBBPMappedFileBitInputStream(final FileChannel channel, final JBBPBitOrder order,
+                                      final int windowSize) throws IOException {
+    super(new MappedWindowInputStream(channel, windowSize), order, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Inside adapter to read a file channel through sequentially mapped windows.
+   */
+  private static final class MappedWindowInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final int windowSize;
+    private final long end;
+    /**
+     * Absolute offset of the current window, or the next position to be read if there is no window.
+     */
+    private long windowStart;
+    private MappedByteBuffer window;
+    private long markedPosition;
+
+    private MappedWindowInputStream(final FileChannel channel, final int windowSize)
+        throws IOException {
+      JBBPUtils.assertNotNull(channel, "Channel must not be null");
+      if (windowSize <= 0) {
+        throw new IllegalArgumentException("Window size must be greater than zero: " + windowSize);
+      }
+      this.channel = channel;
+      this.windowSize = windowSize;
+      this.windowStart = channel.position();
+      this.end = channel.size();
+      this.markedPosition = this.windowStart;
+    }
+
+    private long position() {
+      return this.window == null ? this.windowStart : this.windowStart + this.window.position();
+    }
+
+    private boolean ensureWindow() throws IOException {
+      if (this.window != null && this.window.hasRemaining()) {
+        return true;
+      }
+      final long position = this.position();
+      if (position >= this.end) {
+        return false;
+      }
+      this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position,
+          Math.min((long) this.windowSize, this.end - position));
+      this.windowStart = position;
+      return true;
+    }
+
+    private void seek(final long position) {
+      if (this.window != null && position >= this.windowStart
+          && position <= this.windowStart + this.window.limit()) {
+        ((Buffer) this.window).position((int) (position - this.windowStart));
+      } else {
+        this.window = null;
+        this.windowStart = position;
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      return this.ensureWindow() ? this.window.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] array, final int offset, final int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      int read = 0;
+      while (read < length && this.ensureWindow()) {
+        final int portion = Math.min(length - read, this.window.remaining());
+        this.window.get(array, offset + read, portion);
+        read += portion;
+      }
+      return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public long skip(final long number) {
+      final long position = this.position();
+      final long toSkip = Math.max(0L, Math.min(number, this.end - position));
+      this.seek(position + toSkip);
+      return toSkip;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, this.end - this.position());
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+      this.markedPosition = this.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+      this.seek(this.markedPosition);
+    }
+
+    @Override
+    public void close() {
+      this.window = null;
+    }
+  }
+}
@@ -26,10 +26,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 /**
- * The Class implements some kind of DSL to form binary blocks. The Class is not
- * a thread-safe one.
+ * The Class implements some kind of DSL to form binary blocks. A Session can be reset and
+ * reused for a caller provided byte array or byte buffer without new allocations, every thread
+ * also can get its own reusable session. The Class is not a thread-safe one.
  *
  * @since 1.0
  */
@@ -43,6 +46,15 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
    * The Default bit outOrder.
    */
   public static final JBBPBitOrder DEFAULT_BIT_ORDER = JBBPBitOrder.LSB0;
+  /**
+   * Reusable sessions of threads for LSB0 and MSB0 bit orders.
+   */
+  private static final ThreadLocal<JBBPOut[]> THREAD_SESSIONS = new ThreadLocal<JBBPOut[]>() {
+    @Override
+    protected JBBPOut[] initialValue() {
+      return new JBBPOut[JBBPBitOrder.values().length];
+    }
+  };
   /**
    * The Bit outOrder for operations.
    */
@@ -50,12 +62,20 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
   /**
    * The Bit stream for operations.
    */
-  private final JBBPBitOutputStream outStream;
+  private JBBPBitOutputStream outStream;
   /**
    * If the DSL session was started for an external byte array output stream
    * then it will be saved into the variable.
    */
-  private final ByteArrayOutputStream originalByteArrayOutStream;
+  private ByteArrayOutputStream originalByteArrayOutStream;
+  /**
+   * Reusable target if the session writes into a byte array or a byte buffer, null otherwise.
+   */
+  private ReusableTarget target;
+  /**
+   * The Byte order defined for the session start, it is restored during reset.
+   */
+  private final JBBPByteOrder initialByteOrder;
   /**
    * Flag shows that all commands must be skipped till the End.
    */
@@ -93,6 +113,8 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
               this.bitOrder + ']');
     }
     this.byteOrder = byteOrder;
+    this.initialByteOrder = byteOrder;
+    this.target = outStream instanceof ReusableTarget ? (ReusableTarget) outStream : null;
 
     if (outStream instanceof ByteArrayOutputStream) {
       this.originalByteArrayOutStream = (ByteArrayOutputStream) outStream;
@@ -183,6 +205,62 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     return new JBBPOut(new ByteArrayOutputStream(), DEFAULT_BYTE_ORDER, bitOrder);
   }
 
+  /**
+   * Start a reusable DSL session for default parameters which writes data into a byte array.
+   *
+   * @param array    the target array, must not be null
+   * @param offset   offset of the first byte to be written in the array
+   * @param capacity max number of bytes to be written into the array
+   * @return the new DSL session
+   * @throws IndexOutOfBoundsException if offset or capacity are wrong ones
+   * @see #reset(byte[], int, int)
+   * @see #getWrittenLength()
+   * @since 2.0.4
+   */
+  public static JBBPOut BeginBin(final byte[] array, final int offset, final int capacity) {
+    return new JBBPOut(new ReusableTarget(), DEFAULT_BYTE_ORDER, DEFAULT_BIT_ORDER)
+        .reset(array, offset, capacity);
+  }
+
+  /**
+   * Start a reusable DSL session for default parameters which writes data into a byte buffer,
+   * both heap and direct buffers are supported. Data is placed since the buffer position and
+   * the position is moved by number of placed bytes not later than {@link #Flush()} and
+   * {@link #End()}.
+   *
+   * @param buffer the target buffer, must not be null
+   * @return the new DSL session
+   * @see #reset(ByteBuffer)
+   * @see #getWrittenLength()
+   * @since 2.0.4
+   */
+  public static JBBPOut BeginBin(final ByteBuffer buffer) {
+    return new JBBPOut(new ReusableTarget(), DEFAULT_BYTE_ORDER, DEFAULT_BIT_ORDER)
+        .reset(buffer);
+  }
+
+  /**
+   * Get reusable DSL session of the current thread for the default byte order. The Session
+   * must be reset onto a target before use and it must not be used by nested calls of the
+   * same thread.
+   *
+   * @param bitOrder the bit order of the session, must not be null
+   * @return the session of the current thread for the bit order, must not be null
+   * @see #reset(byte[], int, int)
+   * @see #reset(ByteBuffer)
+   * @since 2.0.4
+   */
+  public static JBBPOut getThreadLocalInstance(final JBBPBitOrder bitOrder) {
+    final JBBPOut[] sessions = THREAD_SESSIONS.get();
+    JBBPOut result = sessions[bitOrder.ordinal()];
+    if (result == null) {
+      result = new JBBPOut(new ReusableTarget(), DEFAULT_BYTE_ORDER, bitOrder);
+      result.ended = true;
+      sessions[bitOrder.ordinal()] = result;
+    }
+    return result;
+  }
+
   /**
    * Inside wrapper of not null assertion with text for arrays.
    *
@@ -716,9 +794,7 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     assertNotEnded();
     assertArrayNotNull(value);
     if (this.processCommands) {
-      for (final short v : value) {
-        this._writeShort(v);
-      }
+      this.outStream.writeShortArray(value, -1, this.byteOrder);
     }
     return this;
   }
@@ -799,9 +875,7 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     assertNotEnded();
     assertArrayNotNull(value);
     if (this.processCommands) {
-      for (final int v : value) {
-        _writeInt(v);
-      }
+      this.outStream.writeIntArray(value, -1, this.byteOrder);
     }
     return this;
   }
@@ -819,9 +893,7 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     assertNotEnded();
     assertArrayNotNull(value);
     if (this.processCommands) {
-      for (final float f : value) {
-        _writeFloat(f);
-      }
+      this.outStream.writeFloatArray(value, -1, this.byteOrder);
     }
     return this;
   }
@@ -837,30 +909,6 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     this.outStream.writeLong(value, this.byteOrder);
   }
 
-  /**
-   * Inside auxiliary method to write a double value into the session stream
-   * without checking.
-   *
-   * @param value a double value to be written into
-   * @throws IOException it will be thrown for transport errors
-   * @since 1.4.0
-   */
-  private void _writeDouble(final double value) throws IOException {
-    this.outStream.writeDouble(value, this.byteOrder);
-  }
-
-  /**
-   * Inside auxiliary method to write a float value into the session stream
-   * without checking.
-   *
-   * @param value a float value to be written into
-   * @throws IOException it will be thrown for transport errors
-   * @since 1.4.0
-   */
-  private void _writeFloat(final float value) throws IOException {
-    this.outStream.writeFloat(value, this.byteOrder);
-  }
-
   /**
    * Write a long value into the session stream.
    *
@@ -889,9 +937,7 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     assertNotEnded();
     assertArrayNotNull(value);
     if (this.processCommands) {
-      for (final double d : value) {
-        _writeDouble(d);
-      }
+      this.outStream.writeDoubleArray(value, -1, this.byteOrder);
     }
     return this;
   }
@@ -961,6 +1007,9 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     assertNotEnded();
     if (this.processCommands) {
       this.outStream.flush();
+      if (this.target != null) {
+        this.target.sync(this.outStream);
+      }
     }
     return this;
   }
@@ -976,9 +1025,112 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     assertNotEnded();
     this.ended = true;
     this.outStream.flush();
+    if (this.target != null) {
+      this.target.sync(this.outStream);
+    }
     return this.originalByteArrayOutStream;
   }
 
+  /**
+   * Restart the session for its current target, all not flushed data is dropped.
+   * A Session for a byte array or a byte buffer is started again from the same
+   * offset, an inside byte array stream is cleared.
+   *
+   * @return the DSL session
+   * @since 2.0.4
+   */
+  public JBBPOut reset() {
+    if (this.target != null) {
+      this.target.rewind();
+    } else if (this.originalByteArrayOutStream != null) {
+      this.originalByteArrayOutStream.reset();
+    }
+    this.restart();
+    return this;
+  }
+
+  /**
+   * Restart the session to write data into a byte array, the bit order of the session
+   * is kept and the byte order is restored to the one defined for the session start.
+   *
+   * @param array    the target array, must not be null
+   * @param offset   offset of the first byte to be written in the array
+   * @param capacity max number of bytes to be written into the array
+   * @return the DSL session
+   * @throws IndexOutOfBoundsException if offset or capacity are wrong ones
+   * @since 2.0.4
+   */
+  public JBBPOut reset(final byte[] array, final int offset, final int capacity) {
+    JBBPUtils.assertNotNull(array, "Array must not be null");
+    if (offset < 0 || capacity < 0 || offset > array.length - capacity) {
+      throw new IndexOutOfBoundsException(
+          "Wrong offset or capacity [" + offset + ',' + capacity + ',' + array.length + ']');
+    }
+    this.reusableTarget().set(null);
+    this.outStream.resetTarget(array, offset, capacity);
+    this.restart();
+    return this;
+  }
+
+  /**
+   * Restart the session to write data into a byte buffer, both heap and direct buffers are
+   * supported. Data is placed since the buffer position and the position is moved by number
+   * of placed bytes not later than {@link #Flush()} and {@link #End()}. The Bit order of the
+   * session is kept and the byte order is restored to the one defined for the session start.
+   *
+   * @param buffer the target buffer, must not be null
+   * @return the DSL session
+   * @since 2.0.4
+   */
+  public JBBPOut reset(final ByteBuffer buffer) {
+    JBBPUtils.assertNotNull(buffer, "Buffer must not be null");
+    final ReusableTarget theTarget = this.reusableTarget();
+    theTarget.set(buffer);
+    if (buffer.hasArray()) {
+      this.outStream.resetTarget(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+    } else {
+      this.outStream.resetTarget(theTarget);
+    }
+    this.restart();
+    return this;
+  }
+
+  /**
+   * Get number of bytes placed into the session target since the start or the last reset.
+   * Cached bits of not completed byte are placed into the target only during {@link #Flush()}
+   * and {@link #End()}.
+   *
+   * @return number of placed bytes for byte array, byte buffer and inside byte array stream
+   * targets, -1 for other output streams
+   * @since 2.0.4
+   */
+  public int getWrittenLength() {
+    if (this.target != null) {
+      return this.target.length(this.outStream);
+    }
+    return this.originalByteArrayOutStream == null ? -1 : this.originalByteArrayOutStream.size();
+  }
+
+  private ReusableTarget reusableTarget() {
+    if (this.target == null) {
+      this.target = new ReusableTarget();
+      if (this.originalByteArrayOutStream == null) {
+        this.outStream = new JBBPBitOutputStream(this.target, this.bitOrder);
+      } else {
+        this.originalByteArrayOutStream = null;
+      }
+    }
+    return this.target;
+  }
+
+  private void restart() {
+    this.outStream.discard();
+    this.byteOrder = this.initialByteOrder;
+    this.processCommands = true;
+    this.ended = false;
+  }
+
   /**
    * get the current byte counter value for the underlying stream. it has
    * appropriate value only if it was not reset.
@@ -1041,6 +1193,8 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
 
   /**
    * Save fields of object but bin annotation wrapper can be provided to replace some annnotation field values in <b>all</b> field annotations.
+   * If there is no wrapper then a cached write plan of the object class is used, it writes
+   * primitive fields and arrays directly into the stream without boxing.
    *
    * @param object               an object to be saved into stream, must not be null
    * @param binAnnotationWrapper wrapper for all bin annotations, can be null
@@ -1052,7 +1206,16 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
   public JBBPOut Bin(final Object object, final BinAnnotationWrapper binAnnotationWrapper,
                      final JBBPCustomFieldWriter customFieldWriter) {
     if (this.processCommands) {
-      this.processObject(object, null, binAnnotationWrapper, customFieldWriter);
+      if (binAnnotationWrapper == null) {
+        assertNotEnded();
+        try {
+          MappedClassWritePlan.find(object).write(this, this.outStream, object, customFieldWriter);
+        } catch (IOException ex) {
+          throw new JBBPIOException("Can't write mapped object", ex);
+        }
+      } else {
+        this.processObject(object, null, binAnnotationWrapper, customFieldWriter);
+      }
     }
     return this;
   }
@@ -1214,5 +1377,56 @@ public final class JBBPOut extends AbstractMappedClassFieldObserver {
     }
   }
 
+  /**
+   * Inside target of a session writing into a byte array or a byte buffer. Arrays and buffers
+   * with accessible array are written directly by the session stream, other buffers get data
+   * through bulk put operations. The Target can be moved to another buffer without new
+   * allocations.
+   */
+  private static final class ReusableTarget extends OutputStream {
+    private ByteBuffer buffer;
+    private int start;
+
+    void set(final ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.start = buffer == null ? 0 : buffer.position();
+    }
+
+    void rewind() {
+      if (this.buffer != null) {
+        ((Buffer) this.buffer).position(this.start);
+      }
+    }
+
+    void sync(final JBBPBitOutputStream stream) {
+      final int length = stream.getTargetLength();
+      if (this.buffer != null && length >= 0) {
+        ((Buffer) this.buffer).position(this.start + length);
+      }
+    }
 
+    int length(final JBBPBitOutputStream stream) {
+      final int length = stream.getTargetLength();
+      return length < 0 ? this.buffer.position() - this.start : length;
+    }
+
+    private void assertSpace(final int length) throws IOException {
+      if (this.buffer.remaining() < length) {
+        throw new IOException(
+            "Not enough space in buffer [" + length + " > " + this.buffer.remaining() + ']');
+      }
+    }
+
+    @Override
+    public void write(final int value) throws IOException {
+      this.assertSpace(1);
+      this.buffer.put((byte) value);
+    }
+
+    @Override
+    public void write(final byte[] data, final int offset, final int length) throws IOException {
+      this.assertSpace(length);
+      this.buffer.put(data, offset, length);
+    }
+  }
 }
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import com.igormaznitsa.jbbp.exceptions.JBBPException;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
+import com.igormaznitsa.jbbp.mapper.Bin;
+import com.igormaznitsa.jbbp.mapper.BinType;
+import com.igormaznitsa.jbbp.mapper.JBBPMapper;
+import com.igormaznitsa.jbbp.mapper.MappedFieldRecord;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldShort;
+import com.igormaznitsa.jbbp.utils.JBBPClassCache;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Write plan of a mapped class. Binary types, byte orders and bit orders of fields are resolved
+ * once for the class, primitive fields and arrays are read through typed accessors and written
+ * directly into the stream without boxing, bulk writes are used for arrays. Fields which can't
+ * be processed by the plan (custom fields, fields with getters, fields which need value
+ * conversion) are processed by the observer as before.
+ * Plans are cached per class and rebuilt if the field cache of {@link JBBPMapper} is cleared.
+ *
+ * @since 2.0.4
+ */
+final class MappedClassWritePlan {
+
+  private static final int KIND_OBSERVER = 0;
+  private static final int KIND_BITS = 1;
+  private static final int KIND_BITS_BOOLEAN = 2;
+  private static final int KIND_BOOL = 3;
+  private static final int KIND_BOOL_NUMBER = 4;
+  private static final int KIND_BYTE = 5;
+  private static final int KIND_SHORT = 6;
+  private static final int KIND_SHORT_CHAR = 7;
+  private static final int KIND_INT = 8;
+  private static final int KIND_LONG = 9;
+  private static final int KIND_FLOAT = 10;
+  private static final int KIND_DOUBLE = 11;
+  private static final int KIND_STRUCT = 12;
+  private static final int KIND_BIT_ARRAY = 13;
+  private static final int KIND_BOOL_ARRAY = 14;
+  private static final int KIND_BYTE_ARRAY = 15;
+  private static final int KIND_SHORT_ARRAY = 16;
+  private static final int KIND_CHAR_ARRAY = 17;
+  private static final int KIND_INT_ARRAY = 18;
+  private static final int KIND_LONG_ARRAY = 19;
+  private static final int KIND_FLOAT_ARRAY = 20;
+  private static final int KIND_DOUBLE_ARRAY = 21;
+  private static final int KIND_STRUCT_ARRAY = 22;
+
+  /**
+   * Cached plans, keys are weak and values are soft references to not prevent class unloading.
+   */
+  private static final JBBPClassCache<MappedClassWritePlan> CACHED_PLANS =
+      new JBBPClassCache<>();
+
+  /**
+   * Records of the mapper field cache which were used to make the plan.
+   */
+  private final List<MappedFieldRecord> records;
+  private final Step[] steps;
+
+  private MappedClassWritePlan(final List<MappedFieldRecord> records) {
+    this.records = records;
+    this.steps = new Step[records.size()];
+    for (int i = 0; i < this.steps.length; i++) {
+      this.steps[i] = new Step(records.get(i));
+    }
+  }
+
+  /**
+   * Find or make the write plan for class of an object.
+   *
+   * @param obj the object, must not be null
+   * @return the plan for the object class, must not be null
+   */
+  static MappedClassWritePlan find(final Object obj) {
+    JBBPUtils.assertNotNull(obj, "Object must not be null");
+    final List<MappedFieldRecord> records = JBBPMapper.findAffectedFields(obj);
+    MappedClassWritePlan result = CACHED_PLANS.get(obj.getClass());
+    if (result == null || result.records != records) {
+      result = new MappedClassWritePlan(records);
+      CACHED_PLANS.put(obj.getClass(), result);
+    }
+    return result;
+  }
+
+  private static int findKind(final MappedFieldRecord record) {
+    final Bin annotation = record.binAnnotation;
+    final Class<?> fieldType = record.mappingField.getType();
+    if (annotation.custom() || record.getter != null) {
+      return KIND_OBSERVER;
+    }
+    final BinType type = annotation.type() == BinType.UNDEFINED
+        ? BinType.findCompatible(fieldType) : annotation.type();
+    if (type == null) {
+      return KIND_OBSERVER;
+    }
+    final boolean integral = fieldType == byte.class || fieldType == short.class
+        || fieldType == int.class || fieldType == long.class;
+    final Class<?> componentType = fieldType.getComponentType();
+    final int result;
+    switch (type) {
+      case BIT:
+        result = fieldType == boolean.class ? KIND_BITS_BOOLEAN : integral ? KIND_BITS : -1;
+        break;
+      case BOOL:
+        result = fieldType == boolean.class ? KIND_BOOL : integral ? KIND_BOOL_NUMBER : -1;
+        break;
+      case BYTE:
+      case UBYTE:
+        result = integral ? KIND_BYTE : -1;
+        break;
+      case SHORT:
+      case USHORT:
+        result = fieldType == char.class ? KIND_SHORT_CHAR : integral ? KIND_SHORT : -1;
+        break;
+      case INT:
+        result = integral ? KIND_INT : -1;
+        break;
+      case LONG:
+        result = integral ? KIND_LONG : -1;
+        break;
+      case FLOAT:
+        result = fieldType == float.class ? KIND_FLOAT : -1;
+        break;
+      case DOUBLE:
+        result = fieldType == float.class || fieldType == double.class ? KIND_DOUBLE : -1;
+        break;
+      case STRUCT:
+        result = fieldType.isPrimitive() ? -1 : KIND_STRUCT;
+        break;
+      case BIT_ARRAY:
+        result = componentType == byte.class ? KIND_BIT_ARRAY : -1;
+        break;
+      case BOOL_ARRAY:
+        result = componentType == boolean.class ? KIND_BOOL_ARRAY : -1;
+        break;
+      case BYTE_ARRAY:
+      case UBYTE_ARRAY:
+        result = componentType == byte.class ? KIND_BYTE_ARRAY : -1;
+        break;
+      case SHORT_ARRAY:
+      case USHORT_ARRAY:
+        result = componentType == short.class ? KIND_SHORT_ARRAY
+            : componentType == char.class ? KIND_CHAR_ARRAY : -1;
+        break;
+      case INT_ARRAY:
+        result = componentType == int.class ? KIND_INT_ARRAY : -1;
+        break;
+      case LONG_ARRAY:
+        result = componentType == long.class ? KIND_LONG_ARRAY : -1;
+        break;
+      case FLOAT_ARRAY:
+        result = componentType == float.class ? KIND_FLOAT_ARRAY : -1;
+        break;
+      case DOUBLE_ARRAY:
+        result = componentType == double.class ? KIND_DOUBLE_ARRAY : -1;
+        break;
+      case STRUCT_ARRAY:
+        result = componentType == null || componentType.isPrimitive() ? -1 : KIND_STRUCT_ARRAY;
+        break;
+      default:
+        result = -1;
+        break;
+    }
+    return result < 0 ? KIND_OBSERVER : result;
+  }
+
+  /**
+   * Write fields of an object.
+   *
+   * @param out               the session which processes fields not supported by the plan,
+   *                          must not be null
+   * @param stream            the stream to write data, must not be null
+   * @param obj               the object which class is the plan class, must not be null
+   * @param customFieldWriter writer of custom fields, can be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  void write(final JBBPOut out, final JBBPBitOutputStream stream, final Object obj,
+             final JBBPCustomFieldWriter customFieldWriter) throws IOException {
+    for (final Step step : this.steps) {
+      try {
+        step.write(out, stream, obj, customFieldWriter);
+      } catch (IllegalAccessException ex) {
+        throw new JBBPException("Can't get value from field [" + step.record + ']', ex);
+      }
+    }
+  }
+
+  /**
+   * Resolved data of a mapped field.
+   */
+  private static final class Step {
+    private final MappedFieldRecord record;
+    private final Field field;
+    private final int kind;
+    private final JBBPByteOrder byteOrder;
+    private final JBBPBitNumber bitNumber;
+    private final boolean reverseBits;
+    private final int boolTrue;
+
+    private Step(final MappedFieldRecord record) {
+      this.record = record;
+      this.field = record.mappingField;
+      this.kind = findKind(record);
+      this.byteOrder = record.binAnnotation.byteOrder();
+      this.bitNumber = record.binAnnotation.bitNumber();
+      this.reverseBits = record.binAnnotation.bitOrder() == JBBPBitOrder.MSB0;
+      this.boolTrue = this.reverseBits ? 0x80 : 1;
+    }
+
+    private static short reverseShort(final short value) {
+      return (short) JBBPFieldShort.reverseBits(value);
+    }
+
+    private static float reverseFloat(final float value) {
+      return Float.intBitsToFloat((int) JBBPFieldInt.reverseBits(Float.floatToIntBits(value)));
+    }
+
+    private static double reverseDouble(final double value) {
+      return Double
+          .longBitsToDouble(JBBPFieldLong.reverseBits(Double.doubleToLongBits(value)));
+    }
+
+    private void write(final JBBPOut out, final JBBPBitOutputStream stream, final Object obj,
+                       final JBBPCustomFieldWriter customFieldWriter)
+        throws IOException, IllegalAccessException {
+      switch (this.kind) {
+        case KIND_BITS: {
+          byte value = (byte) this.field.getLong(obj);
+          if (this.reverseBits) {
+            value = JBBPUtils.reverseBitsInByte(this.bitNumber, value);
+          }
+          stream.writeBits(value, this.bitNumber);
+        }
+        break;
+        case KIND_BITS_BOOLEAN: {
+          stream.writeBits(this.field.getBoolean(obj) ? 0xFF : 0x00, this.bitNumber);
+        }
+        break;
+        case KIND_BOOL: {
+          stream.write(this.field.getBoolean(obj) ? this.boolTrue : 0);
+        }
+        break;
+        case KIND_BOOL_NUMBER: {
+          stream.write(this.field.getLong(obj) != 0L ? this.boolTrue : 0);
+        }
+        break;
+        case KIND_BYTE: {
+          final byte value = (byte) this.field.getLong(obj);
+          stream.write(this.reverseBits ? JBBPUtils.reverseBitsInByte(value) : value);
+        }
+        break;
+        case KIND_SHORT:
+        case KIND_SHORT_CHAR: {
+          final short value = this.kind == KIND_SHORT ? (short) this.field.getLong(obj)
+              : (short) this.field.getChar(obj);
+          stream.writeShort(this.reverseBits ? reverseShort(value) : value, this.byteOrder);
+        }
+        break;
+        case KIND_INT: {
+          final int value = (int) this.field.getLong(obj);
+          stream.writeInt(this.reverseBits ? (int) JBBPFieldInt.reverseBits(value) : value,
+              this.byteOrder);
+        }
+        break;
+        case KIND_LONG: {
+          final long value = this.field.getLong(obj);
+          stream.writeLong(this.reverseBits ? JBBPFieldLong.reverseBits(value) : value,
+              this.byteOrder);
+        }
+        break;
+        case KIND_FLOAT: {
+          final float value = this.field.getFloat(obj);
+          stream.writeFloat(this.reverseBits ? reverseFloat(value) : value, this.byteOrder);
+        }
+        break;
+        case KIND_DOUBLE: {
+          final double value = this.field.getDouble(obj);
+          stream.writeDouble(this.reverseBits ? reverseDouble(value) : value, this.byteOrder);
+        }
+        break;
+        case KIND_STRUCT: {
+          final Object value = this.field.get(obj);
+          find(value).write(out, stream, value, customFieldWriter);
+        }
+        break;
+        case KIND_BIT_ARRAY: {
+          for (final byte item : (byte[]) this.field.get(obj)) {
+            stream.writeBits(
+                this.reverseBits ? JBBPUtils.reverseBitsInByte(this.bitNumber, item) : item,
+                this.bitNumber);
+          }
+        }
+        break;
+        case KIND_BOOL_ARRAY: {
+          for (final boolean item : (boolean[]) this.field.get(obj)) {
+            stream.write(item ? this.boolTrue : 0);
+          }
+        }
+        break;
+        case KIND_BYTE_ARRAY: {
+          final byte[] array = (byte[]) this.field.get(obj);
+          if (this.reverseBits) {
+            for (final byte item : array) {
+              stream.write(JBBPUtils.reverseBitsInByte(item));
+            }
+          } else {
+            stream.write(array, 0, array.length);
+          }
+        }
+        break;
+        case KIND_SHORT_ARRAY: {
+          final short[] array = (short[]) this.field.get(obj);
+          if (this.reverseBits) {
+            for (final short item : array) {
+              stream.writeShort(reverseShort(item), this.byteOrder);
+            }
+          } else {
+            stream.writeShortArray(array, -1, this.byteOrder);
+          }
+        }
+        break;
+        case KIND_CHAR_ARRAY: {
+          for (final char item : (char[]) this.field.get(obj)) {
+            stream.writeShort(this.reverseBits ? reverseShort((short) item) : item,
+                this.byteOrder);
+          }
+        }
+        break;
+        case KIND_INT_ARRAY: {
+          final int[] array = (int[]) this.field.get(obj);
+          if (this.reverseBits) {
+            for (final int item : array) {
+              stream.writeInt((int) JBBPFieldInt.reverseBits(item), this.byteOrder);
+            }
+          } else {
+            stream.writeIntArray(array, -1, this.byteOrder);
+          }
+        }
+        break;
+        case KIND_LONG_ARRAY: {
+          final long[] array = (long[]) this.field.get(obj);
+          if (this.reverseBits) {
+            for (final long item : array) {
+              stream.writeLong(JBBPFieldLong.reverseBits(item), this.byteOrder);
+            }
+          } else {
+            stream.writeLongArray(array, -1, this.byteOrder);
+          }
+        }
+        break;
+        case KIND_FLOAT_ARRAY: {
+          final float[] array = (float[]) this.field.get(obj);
+          if (this.reverseBits) {
+            for (final float item : array) {
+              stream.writeFloat(reverseFloat(item), this.byteOrder);
+            }
+          } else {
+            stream.writeFloatArray(array, -1, this.byteOrder);
+          }
+        }
+        break;
+        case KIND_DOUBLE_ARRAY: {
+          final double[] array = (double[]) this.field.get(obj);
+          if (this.reverseBits) {
+            for (final double item : array) {
+              stream.writeDouble(reverseDouble(item), this.byteOrder);
+            }
+          } else {
+            stream.writeDoubleArray(array, -1, this.byteOrder);
+          }
+        }
+        break;
+        case KIND_STRUCT_ARRAY: {
+          for (final Object item : (Object[]) this.field.get(obj)) {
+            find(item).write(out, stream, item, customFieldWriter);
+          }
+        }
+        break;
+        default: {
+          if (this.record.binAnnotation.custom() && customFieldWriter == null) {
+            throw new JBBPIllegalArgumentException(
+                "Class '" + obj.getClass().getName() + "' contains field '"
+                    + this.field.getName()
+                    + "' which is custom one, you must provide JBBPCustomFieldWriter instance"
+                    + " to save it.");
+          }
+          out.processObjectField(obj, this.record, this.record.binAnnotation, customFieldWriter);
+        }
+        break;
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.igormaznitsa.jbbp.model.BitEntity;
 import com.igormaznitsa.jbbp.model.JBBPAbstractField;
 import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
 import com.igormaznitsa.jbbp.utils.Function;
+import com.igormaznitsa.jbbp.utils.JBBPClassCache;
 import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import com.igormaznitsa.jbbp.utils.NullableTriple;
 import com.igormaznitsa.jbbp.utils.ReflectUtils;
@@ -32,8 +33,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Class processes mapping of a parsed binary data to class fields.
@@ -49,8 +48,12 @@ public final class JBBPMapper {
    * @since 1.1
    */
   public static final int FLAG_IGNORE_MISSING_VALUES = 1;
-  private static final Map<Class<?>, List<MappedFieldRecord>> CACHED_FIELDS =
-      new ConcurrentHashMap<>();
+  /**
+   * Cache of mapped fields for classes. Keys are weak and values are soft references because
+   * records keep references to their classes, so cached classes still can be unloaded.
+   */
+  private static final JBBPClassCache<List<MappedFieldRecord>> CACHED_FIELDS =
+      new JBBPClassCache<>();
 
   /**
    * Create a class instance, map binary data of a structure for its path to its
@@ -232,23 +235,14 @@ public final class JBBPMapper {
       final int flags,
       final Function<Class<?>, Object>... instantiators
   ) {
-    if (record.binAnnotation.custom()) {
+    if (record.customField) {
       JBBPUtils.assertNotNull(customFieldProcessor,
           "There is a custom mapping field, in the case you must provide a custom mapping field processor");
       final Object value = customFieldProcessor
           .prepareObjectForMapping(rootStructure, record.binAnnotation, record.mappingField);
       MappedFieldRecord.setFieldValue(instance, record.setter, record.mappingField, null, value);
     } else {
-      final JBBPAbstractField binField;
-
-      if (record.fieldPath.length() == 0) {
-        binField = record.fieldName.length() == 0 ?
-            rootStructure.findFieldForType(record.fieldType.getFieldClass()) : rootStructure
-            .findFieldForNameAndType(record.fieldName, record.fieldType.getFieldClass());
-      } else {
-        binField = rootStructure
-            .findFieldForPathAndType(record.fieldPath, record.fieldType.getFieldClass());
-      }
+      final JBBPAbstractField binField = record.findBinField(rootStructure);
 
       if (binField == null) {
         if ((flags & FLAG_IGNORE_MISSING_VALUES) != 0) {
@@ -332,7 +326,17 @@ public final class JBBPMapper {
   }
 
   public static List<MappedFieldRecord> findAffectedFields(final Object instance) {
-    final Class<?> mappingClass = instance.getClass();
+    return findAffectedFieldsForClass(instance.getClass());
+  }
+
+  /**
+   * Find mapped fields of a class.
+   *
+   * @param mappingClass the mapping class, must not be null
+   * @return ordered list of mapped field records, must not be null
+   * @since 2.0.4
+   */
+  static List<MappedFieldRecord> findAffectedFieldsForClass(final Class<?> mappingClass) {
 
     List<MappedFieldRecord> result = CACHED_FIELDS.get(mappingClass);
     if (result == null) {
@@ -342,7 +346,7 @@ public final class JBBPMapper {
 
       // make chain of ancestors till java.lang.Object
       final List<Class<?>> listOfClassHierarchy = new ArrayList<>();
-      Class<?> current = instance.getClass();
+      Class<?> current = mappingClass;
       while (current != null) {
         final String packageName = current.getPackage().getName();
         if (packageName.startsWith("java.")
@@ -0,0 +1,757 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.mapper;
+
+import com.igormaznitsa.jbbp.JBBPParseListener;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.exceptions.JBBPMapperException;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayString;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayStruct;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldBit;
+import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
+import com.igormaznitsa.jbbp.model.JBBPFieldByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldShort;
+import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
+import com.igormaznitsa.jbbp.utils.Function;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Parse listener which maps parsed values directly into fields of an object marked by Bin
+ * annotations, so that the tree of parsed fields is not built and fields are not looked for
+ * through paths. Values are bound to mapping fields for their names and types in the same way
+ * as {@link JBBPMapper} does, primitive values and arrays are placed into fields without
+ * intermediate field objects if they don't need conversion. Values which are not mapped are
+ * just ignored. Classes with custom fields or fields mapped for paths are not supported.
+ * The Listener is not a thread-safe one and it can be used only for one parsing.
+ *
+ * @see #isSupported(Class)
+ * @see com.igormaznitsa.jbbp.JBBPParser#parseInto(java.io.InputStream, Object)
+ * @since 2.0.4
+ */
+public final class JBBPMappingParseListener implements JBBPParseListener {
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static final Function<Class<?>, Object>[] NO_INSTANTIATORS = new Function[0];
+
+  private static final Map<Class<?>, SoftReference<ClassBinding>> CACHED_BINDINGS =
+      new WeakHashMap<>();
+
+  /**
+   * Max number of struct array elements to reserve before parsing, the length is read from the
+   * stream so it is not trusted for big reservations.
+   */
+  private static final int MAX_PRESIZED_ARRAY_LENGTH = 1024;
+
+  private final List<Frame> frames = new ArrayList<>();
+  private Frame top;
+
+  /**
+   * Constructor.
+   *
+   * @param instance      object to be filled by values, must not be null
+   * @param flags         mapping flags
+   * @param instantiators functions to produce class instance by request, must not be null
+   * @see JBBPMapper#FLAG_IGNORE_MISSING_VALUES
+   */
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  public JBBPMappingParseListener(final Object instance, final int flags,
+                                  final Function<Class<?>, Object>... instantiators) {
+    JBBPUtils.assertNotNull(instance, "The Mapping class instance must not be null");
+    JBBPUtils.assertNotNull(instantiators, "Instantiators must not be null");
+    this.push(Frame.forObject(instance, null, flags, instantiators, null, null));
+  }
+
+  /**
+   * Check that objects of a class can be mapped by the listener.
+   *
+   * @param mappingClass the mapping class, must not be null
+   * @return true if the class and classes of its structure fields can be mapped, false otherwise
+   */
+  public static boolean isSupported(final Class<?> mappingClass) {
+    JBBPUtils.assertNotNull(mappingClass, "Class must not be null");
+    try {
+      return isSupported(mappingClass, new HashSet<Class<?>>());
+    } catch (RuntimeException ex) {
+      return false;
+    }
+  }
+
+  private static boolean isSupported(final Class<?> mappingClass, final Set<Class<?>> processed) {
+    if (mappingClass.isPrimitive() || mappingClass.isArray() || !processed.add(mappingClass)) {
+      return true;
+    }
+    for (final MappedFieldRecord record : JBBPMapper.findAffectedFieldsForClass(mappingClass)) {
+      if (record.customField || record.fieldPath.length() != 0
+          || record.fieldName.length() == 0) {
+        return false;
+      }
+      final Class<?> type = record.mappingField.getType();
+      if (record.fieldType == BinType.STRUCT && !isSupported(type, processed)) {
+        return false;
+      }
+      if (record.fieldType == BinType.STRUCT_ARRAY && type.isArray()
+          && !isSupported(type.getComponentType(), processed)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static ClassBinding findBinding(final Class<?> mappingClass) {
+    final List<MappedFieldRecord> records = JBBPMapper.findAffectedFieldsForClass(mappingClass);
+    ClassBinding result;
+    synchronized (CACHED_BINDINGS) {
+      final SoftReference<ClassBinding> cached = CACHED_BINDINGS.get(mappingClass);
+      result = cached == null ? null : cached.get();
+    }
+    if (result == null || result.records != records) {
+      result = makeBinding(mappingClass, records, new HashMap<Class<?>, ClassBinding>());
+    }
+    return result;
+  }
+
+  /**
+   * Make binding of a class together with bindings of its structure and structure array
+   * fields, so that they are not looked for during mapping.
+   *
+   * @param mappingClass the mapping class, must not be null
+   * @param records      mapping fields of the class, must not be null
+   * @param made         bindings made for the same root class, must not be null
+   * @return the made binding, must not be null
+   */
+  private static ClassBinding makeBinding(final Class<?> mappingClass,
+                                          final List<MappedFieldRecord> records,
+                                          final Map<Class<?>, ClassBinding> made) {
+    final ClassBinding result =
+        new ClassBinding(mappingClass, records, isSupported(mappingClass));
+    made.put(mappingClass, result);
+    if (result.supported) {
+      for (int i = 0; i < records.size(); i++) {
+        final MappedFieldRecord record = records.get(i);
+        Class<?> type = record.mappingField.getType();
+        if (record.fieldType == BinType.STRUCT_ARRAY && type.isArray()) {
+          type = type.getComponentType();
+        } else if (record.fieldType != BinType.STRUCT) {
+          continue;
+        }
+        if (!type.isPrimitive() && !type.isArray()) {
+          final ClassBinding child = made.get(type);
+          result.children[i] = child == null
+              ? makeBinding(type, JBBPMapper.findAffectedFieldsForClass(type), made) : child;
+        }
+      }
+    }
+    synchronized (CACHED_BINDINGS) {
+      CACHED_BINDINGS.put(mappingClass, new SoftReference<>(result));
+    }
+    return result;
+  }
+
+  /**
+   * Check that all mapping fields of the root object have got values, it must be called after
+   * parsing.
+   *
+   * @throws JBBPMapperException if there is a mapping field without value and missing values
+   *                             are not ignored
+   * @throws IllegalStateException if parsing has not been completed
+   */
+  public void finish() {
+    if (this.frames.size() != 1) {
+      throw new IllegalStateException("Parsing has not been completed");
+    }
+    this.top.assertAllMapped();
+  }
+
+  private void push(final Frame frame) {
+    this.frames.add(frame);
+    this.top = frame;
+  }
+
+  private Frame pop() {
+    final Frame result = this.frames.remove(this.frames.size() - 1);
+    this.top = this.frames.get(this.frames.size() - 1);
+    return result;
+  }
+
+  private int findRecordIndex(final JBBPNamedFieldInfo name,
+                              final Class<? extends JBBPAbstractField> fieldClass) {
+    final Frame frame = this.top;
+    if (name == null || frame.mapped == null) {
+      return -1;
+    }
+    return frame.binding.find(name.getFieldName(), fieldClass, frame.mapped);
+  }
+
+  private MappedFieldRecord findRecord(final JBBPNamedFieldInfo name,
+                                       final Class<? extends JBBPAbstractField> fieldClass) {
+    final int index = this.findRecordIndex(name, fieldClass);
+    return index < 0 ? null : this.top.binding.records.get(index);
+  }
+
+  private void map(final MappedFieldRecord record, final JBBPAbstractField field) {
+    final Frame frame = this.top;
+    record.proc.apply(record, null, frame.instance, null, field, frame.flags,
+        frame.instantiators);
+  }
+
+  private boolean setIntegral(final MappedFieldRecord record, final long value) {
+    if (record.setter != null || record.invertBitOrder) {
+      return false;
+    }
+    final Field field = record.mappingField;
+    final Class<?> type = field.getType();
+    final Object instance = this.top.instance;
+    try {
+      if (type == int.class) {
+        field.setInt(instance, (int) value);
+      } else if (type == long.class) {
+        field.setLong(instance, value);
+      } else if (type == short.class) {
+        field.setShort(instance, (short) value);
+      } else if (type == byte.class) {
+        field.setByte(instance, (byte) value);
+      } else if (type == char.class) {
+        field.setChar(instance, (char) value);
+      } else if (type == boolean.class) {
+        field.setBoolean(instance, value != 0L);
+      } else {
+        return false;
+      }
+    } catch (IllegalAccessException ex) {
+      throw new JBBPMapperException("Can't get access to a mapping field", null,
+          record.mappingClass, field, ex);
+    }
+    return true;
+  }
+
+  private boolean setArray(final MappedFieldRecord record, final Object array) {
+    if (record.setter != null || record.invertBitOrder
+        || record.mappingField.getType() != array.getClass()) {
+      return false;
+    }
+    try {
+      record.mappingField.set(this.top.instance, array);
+    } catch (IllegalAccessException ex) {
+      throw new JBBPMapperException("Can't get access to a mapping field", null,
+          record.mappingClass, record.mappingField, ex);
+    }
+    return true;
+  }
+
+  private static void assertBitNumber(final MappedFieldRecord record,
+                                      final JBBPBitNumber bitNumber) {
+    if (record.bitWideField && record.mappedBitNumber != JBBPBitNumber.BITS_8
+        && bitNumber != record.mappedBitNumber) {
+      throw new JBBPMapperException(
+          "Can't map mapping field because wrong field bitness [" + record.mappedBitNumber
+              + "!=" + bitNumber.getBitNumber() + ']', null, record.mappingClass,
+          record.mappingField, null);
+    }
+  }
+
+  @Override
+  public void onStructStart(final JBBPNamedFieldInfo name) {
+    final Frame frame = this.top;
+    if (frame.array) {
+      if (frame.instance == null) {
+        this.push(Frame.IGNORED);
+      } else {
+        final int index = frame.items.size();
+        final Object existing = frame.existing == null || index >= Array.getLength(frame.existing)
+            ? null : Array.get(frame.existing, index);
+        if (existing == null) {
+          final Object element = MappedFieldRecord.tryMakeInstance(
+              frame.record.mappingField.getType().getComponentType(), null, frame.instance,
+              frame.record.mappingField, frame.instantiators);
+          this.push(
+              Frame.forObject(element, frame.binding, 0, frame.instantiators, null, null));
+        } else {
+          this.push(Frame.forObject(existing, frame.binding, 0, NO_INSTANTIATORS, null, null));
+        }
+      }
+    } else {
+      final int index = this.findRecordIndex(name, JBBPFieldStruct.class);
+      if (index < 0) {
+        this.push(Frame.IGNORED);
+      } else {
+        final MappedFieldRecord record = frame.binding.records.get(index);
+        final ClassBinding binding = frame.binding.children[index];
+        final Field field = record.mappingField;
+        if (field.getType().isPrimitive()) {
+          throw new JBBPMapperException("Can't map structure to a primitive mapping field", null,
+              record.mappingClass, field, null);
+        }
+        final Object current =
+            MappedFieldRecord.getFieldValue(frame.instance, record.getter, field);
+        if (current != null) {
+          this.push(
+              Frame.forObject(current, binding, 0, NO_INSTANTIATORS, frame.instance, record));
+        } else if (record.instanceMaker == null) {
+          this.push(Frame.forObject(MappedFieldRecord
+                  .tryMakeInstance(field.getType(), null, frame.instance, field,
+                      frame.instantiators), binding, 0, NO_INSTANTIATORS, frame.instance,
+              record));
+        } else {
+          final Object made;
+          try {
+            made = record.instanceMaker.invoke(frame.instance);
+          } catch (Exception ex) {
+            throw new JBBPMapperException("Can't map field which member generatet by instance",
+                null, record.mappingClass, field, ex);
+          }
+          this.push(Frame.forObject(made, binding, 0, NO_INSTANTIATORS, null, null));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onStructEnd(final JBBPNamedFieldInfo name) {
+    final Frame frame = this.pop();
+    if (frame.instance != null) {
+      frame.assertAllMapped();
+      if (frame.record != null) {
+        MappedFieldRecord.setFieldValue(frame.parent, frame.record.setter,
+            frame.record.mappingField, null, frame.instance);
+      }
+      if (this.top.array) {
+        this.top.items.add(frame.instance);
+      }
+    }
+  }
+
+  @Override
+  public void onStructArrayStart(final JBBPNamedFieldInfo name, final int length) {
+    final int index = this.findRecordIndex(name, JBBPFieldArrayStruct.class);
+    if (index < 0) {
+      this.push(Frame.IGNORED_ARRAY);
+    } else {
+      final Frame frame = this.top;
+      final MappedFieldRecord record = frame.binding.records.get(index);
+      if (!record.mappingField.getType().isArray()) {
+        throw new JBBPMapperException("Can't map a field for its value incompatibility", null,
+            record.mappingClass, record.mappingField, null);
+      }
+      final Object existing =
+          MappedFieldRecord.getFieldValue(frame.instance, record.getter, record.mappingField);
+      if (existing != null && length >= 0) {
+        assertArrayLength(record, existing, length);
+      }
+      this.push(Frame.forArray(frame.instance, existing, frame.instantiators, record,
+          frame.binding.children[index],
+          Math.max(0, Math.min(length, MAX_PRESIZED_ARRAY_LENGTH))));
+    }
+  }
+
+  private static void assertArrayLength(final MappedFieldRecord record, final Object array,
+                                        final int length) {
+    if (Array.getLength(array) != length) {
+      throw new JBBPMapperException(
+          "Can't map an array field for different expected size [" + Array.getLength(array)
+              + "!=" + length + ']', null, record.mappingClass, record.mappingField, null);
+    }
+  }
+
+  @Override
+  public void onStructArrayEnd(final JBBPNamedFieldInfo name) {
+    final Frame frame = this.pop();
+    if (frame.instance != null) {
+      final List<Object> items = frame.items;
+      final Object array;
+      if (frame.existing == null) {
+        array = Array.newInstance(frame.record.mappingField.getType().getComponentType(),
+            items.size());
+      } else {
+        assertArrayLength(frame.record, frame.existing, items.size());
+        array = frame.existing;
+      }
+      for (int i = 0; i < items.size(); i++) {
+        Array.set(array, i, items.get(i));
+      }
+      MappedFieldRecord.setFieldValue(frame.instance, frame.record.setter,
+          frame.record.mappingField, null, array);
+    }
+  }
+
+  @Override
+  public void onBit(final JBBPNamedFieldInfo name, final int value,
+                    final JBBPBitNumber bitNumber) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldBit.class);
+    if (record != null) {
+      assertBitNumber(record, bitNumber);
+      if (!this.setIntegral(record, value)) {
+        this.map(record, new JBBPFieldBit(name, value, bitNumber));
+      }
+    }
+  }
+
+  @Override
+  public void onBitArray(final JBBPNamedFieldInfo name, final byte[] values,
+                         final JBBPBitNumber bitNumber) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayBit.class);
+    if (record != null) {
+      assertBitNumber(record, bitNumber);
+      if (!this.setArray(record, values)) {
+        this.map(record, new JBBPFieldArrayBit(name, values, bitNumber));
+      }
+    }
+  }
+
+  @Override
+  public void onBool(final JBBPNamedFieldInfo name, final boolean value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldBoolean.class);
+    if (record != null && !this.setIntegral(record, value ? 1L : 0L)) {
+      this.map(record, new JBBPFieldBoolean(name, value));
+    }
+  }
+
+  @Override
+  public void onBoolArray(final JBBPNamedFieldInfo name, final boolean[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayBoolean.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayBoolean(name, values));
+    }
+  }
+
+  @Override
+  public void onByte(final JBBPNamedFieldInfo name, final byte value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldByte.class);
+    if (record != null && !this.setIntegral(record, value)) {
+      this.map(record, new JBBPFieldByte(name, value));
+    }
+  }
+
+  @Override
+  public void onByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayByte.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayByte(name, values));
+    }
+  }
+
+  @Override
+  public void onUByte(final JBBPNamedFieldInfo name, final int value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldUByte.class);
+    if (record != null && !this.setIntegral(record, value)) {
+      this.map(record, new JBBPFieldUByte(name, (byte) value));
+    }
+  }
+
+  @Override
+  public void onUByteArray(final JBBPNamedFieldInfo name, final byte[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayUByte.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayUByte(name, values));
+    }
+  }
+
+  @Override
+  public void onShort(final JBBPNamedFieldInfo name, final short value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldShort.class);
+    if (record != null && !this.setIntegral(record, value)) {
+      this.map(record, new JBBPFieldShort(name, value));
+    }
+  }
+
+  @Override
+  public void onShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayShort.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayShort(name, values));
+    }
+  }
+
+  @Override
+  public void onUShort(final JBBPNamedFieldInfo name, final int value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldUShort.class);
+    if (record != null && !this.setIntegral(record, value)) {
+      this.map(record, new JBBPFieldUShort(name, (short) value));
+    }
+  }
+
+  @Override
+  public void onUShortArray(final JBBPNamedFieldInfo name, final short[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayUShort.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayUShort(name, values));
+    }
+  }
+
+  @Override
+  public void onInt(final JBBPNamedFieldInfo name, final int value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldInt.class);
+    if (record != null && !this.setIntegral(record, value)) {
+      this.map(record, new JBBPFieldInt(name, value));
+    }
+  }
+
+  @Override
+  public void onIntArray(final JBBPNamedFieldInfo name, final int[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayInt.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayInt(name, values));
+    }
+  }
+
+  @Override
+  public void onFloat(final JBBPNamedFieldInfo name, final float value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldFloat.class);
+    if (record != null) {
+      this.map(record, new JBBPFieldFloat(name, value));
+    }
+  }
+
+  @Override
+  public void onFloatArray(final JBBPNamedFieldInfo name, final float[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayFloat.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayFloat(name, values));
+    }
+  }
+
+  @Override
+  public void onLong(final JBBPNamedFieldInfo name, final long value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldLong.class);
+    if (record != null && !this.setIntegral(record, value)) {
+      this.map(record, new JBBPFieldLong(name, value));
+    }
+  }
+
+  @Override
+  public void onLongArray(final JBBPNamedFieldInfo name, final long[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayLong.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayLong(name, values));
+    }
+  }
+
+  @Override
+  public void onDouble(final JBBPNamedFieldInfo name, final double value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldDouble.class);
+    if (record != null) {
+      this.map(record, new JBBPFieldDouble(name, value));
+    }
+  }
+
+  @Override
+  public void onDoubleArray(final JBBPNamedFieldInfo name, final double[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayDouble.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayDouble(name, values));
+    }
+  }
+
+  @Override
+  public void onString(final JBBPNamedFieldInfo name, final String value) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldString.class);
+    if (record != null) {
+      this.map(record, new JBBPFieldString(name, value));
+    }
+  }
+
+  @Override
+  public void onStringArray(final JBBPNamedFieldInfo name, final String[] values) {
+    final MappedFieldRecord record = this.findRecord(name, JBBPFieldArrayString.class);
+    if (record != null && !this.setArray(record, values)) {
+      this.map(record, new JBBPFieldArrayString(name, values));
+    }
+  }
+
+  @Override
+  public void onVarField(final JBBPAbstractField field) {
+    final MappedFieldRecord record = this.findRecord(field.getNameInfo(), field.getClass());
+    if (record != null) {
+      this.map(record, field);
+    }
+  }
+
+  @Override
+  public void onCustomField(final JBBPAbstractField field) {
+    this.onVarField(field);
+  }
+
+  /**
+   * Mapping fields of a class grouped by their normalized names.
+   */
+  private static final class ClassBinding {
+    private final Class<?> mappingClass;
+    private final List<MappedFieldRecord> records;
+    private final Map<String, int[]> recordIndexes = new HashMap<>();
+    /**
+     * Flag shows that the class can be mapped by the listener.
+     */
+    private final boolean supported;
+    /**
+     * Bindings of structure field classes and structure array element classes for record
+     * indexes, null for other records.
+     */
+    private final ClassBinding[] children;
+
+    private ClassBinding(final Class<?> mappingClass, final List<MappedFieldRecord> records,
+                         final boolean supported) {
+      this.mappingClass = mappingClass;
+      this.records = records;
+      this.supported = supported;
+      this.children = new ClassBinding[records.size()];
+      for (int i = 0; i < records.size(); i++) {
+        final String name = records.get(i).normalizedFieldName;
+        final int[] found = this.recordIndexes.get(name);
+        final int[] indexes;
+        if (found == null) {
+          indexes = new int[] {i};
+        } else {
+          indexes = new int[found.length + 1];
+          System.arraycopy(found, 0, indexes, 0, found.length);
+          indexes[found.length] = i;
+        }
+        this.recordIndexes.put(name, indexes);
+      }
+    }
+
+    private int find(final String name, final Class<? extends JBBPAbstractField> fieldClass,
+                     final boolean[] mapped) {
+      final int[] indexes = this.recordIndexes.get(name);
+      if (indexes != null) {
+        for (final int index : indexes) {
+          final MappedFieldRecord record = this.records.get(index);
+          if (!mapped[index] && record.fieldType.getFieldClass().isAssignableFrom(fieldClass)) {
+            mapped[index] = true;
+            return index;
+          }
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Mapping state of an object or a structure array.
+   */
+  private static final class Frame {
+    private static final Frame IGNORED =
+        new Frame(null, false, null, 0, NO_INSTANTIATORS, null, null, null, null);
+    private static final Frame IGNORED_ARRAY =
+        new Frame(null, true, null, 0, NO_INSTANTIATORS, null, null, null, null);
+
+    /**
+     * Mapped object or owner of the mapped structure array, null if values are ignored.
+     */
+    private final Object instance;
+    private final boolean array;
+    /**
+     * Binding of the mapped object class or of the element class of the mapped structure array,
+     * can be null.
+     */
+    private final ClassBinding binding;
+    private final boolean[] mapped;
+    private final int flags;
+    private final Function<Class<?>, Object>[] instantiators;
+    /**
+     * Object which field must be set by the mapped object, can be null.
+     */
+    private final Object parent;
+    /**
+     * Record of the field to be set by the mapped object or the mapped structure array.
+     */
+    private final MappedFieldRecord record;
+    private final Object existing;
+    private final List<Object> items;
+
+    private Frame(final Object instance, final boolean array, final ClassBinding binding,
+                  final int flags, final Function<Class<?>, Object>[] instantiators,
+                  final Object parent, final MappedFieldRecord record, final Object existing,
+                  final List<Object> items) {
+      this.instance = instance;
+      this.array = array;
+      this.binding = binding;
+      this.mapped = binding == null || array ? null : new boolean[binding.records.size()];
+      this.flags = flags;
+      this.instantiators = instantiators;
+      this.parent = parent;
+      this.record = record;
+      this.existing = existing;
+      this.items = items;
+    }
+
+    private static Frame forObject(final Object instance, final ClassBinding expected,
+                                   final int flags,
+                                   final Function<Class<?>, Object>[] instantiators,
+                                   final Object parent, final MappedFieldRecord record) {
+      final Class<?> mappingClass = instance.getClass();
+      final ClassBinding binding = expected != null && expected.mappingClass == mappingClass
+          ? expected : findBinding(mappingClass);
+      if (!binding.supported) {
+        throw new JBBPMapperException(
+            "Class can't be mapped during parsing, use mapping of parsed structure", null,
+            mappingClass, record == null ? null : record.mappingField, null);
+      }
+      return new Frame(instance, false, binding, flags, instantiators, parent, record, null,
+          null);
+    }
+
+    private static Frame forArray(final Object instance, final Object existing,
+                                  final Function<Class<?>, Object>[] instantiators,
+                                  final MappedFieldRecord record,
+                                  final ClassBinding elementBinding, final int expectedLength) {
+      return new Frame(instance, true, elementBinding, 0, instantiators, null, record, existing,
+          new ArrayList<>(expectedLength));
+    }
+
+    private void assertAllMapped() {
+      if ((this.flags & JBBPMapper.FLAG_IGNORE_MISSING_VALUES) == 0) {
+        for (int i = 0; i < this.mapped.length; i++) {
+          if (!this.mapped[i]) {
+            final MappedFieldRecord notMapped = this.binding.records.get(i);
+            throw new JBBPMapperException(
+                "Can't find value for mapping field [" + notMapped.mappingField + ']', null,
+                notMapped.mappingClass, notMapped.mappingField, null);
+          }
+        }
+      }
+    }
+  }
+}
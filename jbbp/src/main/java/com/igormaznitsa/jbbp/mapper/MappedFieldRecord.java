@@ -22,6 +22,7 @@ import com.igormaznitsa.jbbp.model.JBBPFieldString;
 import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
 import com.igormaznitsa.jbbp.model.JBBPNumericField;
 import com.igormaznitsa.jbbp.utils.Function;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -29,7 +30,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
-  private static final Function<Class<?>, Object> STATIC_MAKE_CLASS_INSTANCE_INSTANTIATOR =
+  static final Function<Class<?>, Object> STATIC_MAKE_CLASS_INSTANCE_INSTANTIATOR =
       (Class<?> klazz) -> {
         Class<?> currentClass = klazz;
         Object result = null;
@@ -65,7 +66,7 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
         } while (find);
         return result;
       };
-  private static final Function<Class<?>, Object> DEFAULT_CONSTRUCTOR_INSTANTIATOR =
+  static final Function<Class<?>, Object> DEFAULT_CONSTRUCTOR_INSTANTIATOR =
       (Class<?> aClass) -> {
         try {
           if (!aClass.isLocalClass() || Modifier.isStatic(aClass.getModifiers())) {
@@ -122,7 +123,7 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
             // primitive
             mapArrayField(instance, record.setter, record.mappingField,
                 (JBBPAbstractArrayField<?>) binField,
-                record.binAnnotation.bitOrder() == JBBPBitOrder.MSB0);
+                record.invertBitOrder);
           }
         } else {
           throw new JBBPMapperException("Can't map a non-array value to an array mapping field",
@@ -133,7 +134,7 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
       (record, rootStructure, instance, customFieldProcessor, binField, flags, instantiators) -> {
         if (binField instanceof JBBPNumericField) {
           mapNumericField(instance, record.setter, record.mappingField, (JBBPNumericField) binField,
-              record.binAnnotation.bitOrder() == JBBPBitOrder.MSB0);
+              record.invertBitOrder);
         } else if (binField instanceof JBBPFieldString) {
           if (record.mappingField.getType().isPrimitive()) {
             throw new JBBPMapperException("Can't map string to a primitive mapping field", binField,
@@ -198,6 +199,27 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
   public final JBBPBitNumber mappedBitNumber;
   public final BinType fieldType;
   public final FieldProcessor proc;
+  /**
+   * Flag shows that the field is a custom one.
+   *
+   * @since 2.0.4
+   */
+  final boolean customField;
+  /**
+   * Flag shows that the field has MSB0 bit order and values must be bit reversed.
+   *
+   * @since 2.0.4
+   */
+  final boolean invertBitOrder;
+  /**
+   * Normalized name of the field to be found in a structure.
+   */
+  final String normalizedFieldName;
+  /**
+   * Index of the field found in the last processed structure, used as the first candidate for
+   * structures with the same layout.
+   */
+  private int lastFoundFieldIndex;
 
   MappedFieldRecord(final Field mappingField,
                     final Method instanceMaker,
@@ -232,6 +254,9 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
     this.fieldName =
         binAnnotation.name().length() == 0 ? mappingField.getName() : binAnnotation.name();
     this.fieldPath = binAnnotation.path();
+    this.normalizedFieldName = JBBPUtils.normalizeFieldNameOrPath(this.fieldName);
+    this.customField = binAnnotation.custom();
+    this.invertBitOrder = binAnnotation.bitOrder() == JBBPBitOrder.MSB0;
 
     if (this.mappingField.getType().isArray()) {
       this.proc = PROC_ARRAYS;
@@ -240,6 +265,48 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
     }
   }
 
+  /**
+   * Find the parsed field for the mapping field in a structure. Named fields are looked for
+   * starting with the index found in the previous structure, so repeated mapping of structures
+   * with the same layout doesn't scan fields.
+   *
+   * @param rootStructure the structure, must not be null
+   * @return the found field or null if not found
+   * @since 2.0.4
+   */
+  JBBPAbstractField findBinField(final JBBPFieldStruct rootStructure) {
+    final Class<? extends JBBPAbstractField> fieldClass = this.fieldType.getFieldClass();
+    final JBBPAbstractField result;
+    if (this.fieldPath.length() != 0) {
+      result = rootStructure.findFieldForPathAndType(this.fieldPath, fieldClass);
+    } else if (this.fieldName.length() == 0) {
+      result = rootStructure.findFieldForType(fieldClass);
+    } else {
+      final int fieldCount = rootStructure.getFieldCount();
+      final int hint = this.lastFoundFieldIndex;
+      if (hint < fieldCount && this.isSearchedField(rootStructure.getFieldAt(hint), fieldClass)) {
+        return rootStructure.getFieldAt(hint);
+      }
+      JBBPAbstractField found = null;
+      for (int i = 0; i < fieldCount; i++) {
+        final JBBPAbstractField field = rootStructure.getFieldAt(i);
+        if (this.isSearchedField(field, fieldClass)) {
+          this.lastFoundFieldIndex = i;
+          found = field;
+          break;
+        }
+      }
+      result = found;
+    }
+    return result;
+  }
+
+  private boolean isSearchedField(final JBBPAbstractField field,
+                                  final Class<? extends JBBPAbstractField> fieldClass) {
+    return fieldClass.isAssignableFrom(field.getClass())
+        && this.normalizedFieldName.equals(field.getFieldName());
+  }
+
   /**
    * Map a parsed array to an array field in mapping class.
    *
@@ -465,8 +532,8 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
    *                      null
    * @return the field value for the class instance
    */
-  private static Object getFieldValue(final Object classInstance, final Method getter,
-                                      final Field classField) {
+  static Object getFieldValue(final Object classInstance, final Method getter,
+                              final Field classField) {
     try {
       if (getter == null) {
         return classField.get(classInstance);
@@ -517,7 +584,7 @@ public final class MappedFieldRecord implements Comparable<MappedFieldRecord> {
   }
 
   @SuppressWarnings("TryWithIdenticalCatches")
-  private static <T> T tryMakeInstance(
+  static <T> T tryMakeInstance(
       final Class<T> type,
       final JBBPAbstractField binField,
       final Object mappingObject,
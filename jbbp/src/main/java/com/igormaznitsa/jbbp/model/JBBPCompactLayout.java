@@ -0,0 +1,340 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.model;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+import java.io.Serializable;
+
+/**
+ * Layout of compact structures. Values of scalar numeric fields of a compact structure are
+ * packed into one long array and field objects are created only on request, other fields
+ * (arrays, strings, structures, custom and var fields) are kept as objects. Layout is shared by
+ * all compact structures which have the same field sequence, objects of fields which values
+ * contain not more than 8 bits are also shared.
+ * <p>
+ * Payload must not be set for fields got from compact structures because they can be shared
+ * or created again on every request.
+ *
+ * @see com.igormaznitsa.jbbp.JBBPParser#FLAG_COMPACT_STRUCTS
+ * @since 2.0.4
+ */
+public final class JBBPCompactLayout implements Serializable {
+  private static final long serialVersionUID = -4196640263216402707L;
+
+  private static final byte KIND_OBJECT = 0;
+  private static final byte KIND_BIT = 1;
+  private static final byte KIND_BOOL = 2;
+  private static final byte KIND_BYTE = 3;
+  private static final byte KIND_UBYTE = 4;
+  private static final byte KIND_SHORT = 5;
+  private static final byte KIND_USHORT = 6;
+  private static final byte KIND_INT = 7;
+  private static final byte KIND_FLOAT = 8;
+  private static final byte KIND_LONG = 9;
+  private static final byte KIND_DOUBLE = 10;
+
+  /**
+   * Field classes for kinds.
+   */
+  private static final Class<?>[] KIND_CLASSES = new Class<?>[] {null, JBBPFieldBit.class,
+      JBBPFieldBoolean.class, JBBPFieldByte.class, JBBPFieldUByte.class, JBBPFieldShort.class,
+      JBBPFieldUShort.class, JBBPFieldInt.class, JBBPFieldFloat.class, JBBPFieldLong.class,
+      JBBPFieldDouble.class};
+  /**
+   * Number of bits occupied by packed value for kinds.
+   */
+  private static final int[] KIND_BITS = new int[] {0, 8, 8, 8, 8, 16, 16, 32, 32, 64, 64};
+
+  /**
+   * Name info of fields, elements are null for object fields.
+   */
+  private final JBBPNamedFieldInfo[] names;
+  /**
+   * Kinds of fields.
+   */
+  private final byte[] kinds;
+  /**
+   * Bit numbers of bit fields, other elements are null.
+   */
+  private final JBBPBitNumber[] bitNumbers;
+  /**
+   * Bit offset of packed value for scalar fields, index in object array for object fields.
+   */
+  private final int[] offsets;
+  /**
+   * Number of long values needed to pack all scalar fields.
+   */
+  private final int packedLength;
+  /**
+   * Number of object fields.
+   */
+  private final int objectCount;
+  /**
+   * Shared field objects of scalar fields with 8 bit values, made on request.
+   */
+  private transient JBBPAbstractField[][] sharedFields;
+
+  private JBBPCompactLayout(final JBBPAbstractField[] fields) {
+    final int length = fields.length;
+    this.names = new JBBPNamedFieldInfo[length];
+    this.kinds = new byte[length];
+    this.bitNumbers = new JBBPBitNumber[length];
+    this.offsets = new int[length];
+
+    int objects = 0;
+    for (int i = 0; i < length; i++) {
+      final JBBPAbstractField field = fields[i];
+      final byte kind = findKind(field);
+      this.kinds[i] = kind;
+      if (kind == KIND_OBJECT) {
+        this.offsets[i] = objects++;
+      } else {
+        this.names[i] = field.getNameInfo();
+        if (kind == KIND_BIT) {
+          this.bitNumbers[i] = ((JBBPFieldBit) field).getBitWidth();
+        }
+      }
+    }
+    this.objectCount = objects;
+
+    // place wide values first to avoid gaps between packed values
+    int bitOffset = 0;
+    for (int bits = 64; bits >= 8; bits >>= 1) {
+      for (int i = 0; i < length; i++) {
+        if (KIND_BITS[this.kinds[i]] == bits) {
+          this.offsets[i] = bitOffset;
+          bitOffset += bits;
+        }
+      }
+    }
+    this.packedLength = (bitOffset + 63) >>> 6;
+  }
+
+  /**
+   * Make layout for a field sequence.
+   *
+   * @param fields sample fields of a structure, must not be null
+   * @return the layout for the field sequence, must not be null
+   */
+  public static JBBPCompactLayout of(final JBBPAbstractField[] fields) {
+    JBBPUtils.assertNotNull(fields, "Fields must not be null");
+    return new JBBPCompactLayout(fields);
+  }
+
+  private static byte findKind(final JBBPAbstractField field) {
+    final Class<?> fieldClass = field.getClass();
+    for (byte kind = KIND_BIT; kind < KIND_CLASSES.length; kind++) {
+      if (KIND_CLASSES[kind] == fieldClass) {
+        return kind;
+      }
+    }
+    return KIND_OBJECT;
+  }
+
+  /**
+   * Get number of fields in the layout.
+   *
+   * @return number of fields
+   */
+  public int size() {
+    return this.kinds.length;
+  }
+
+  /**
+   * Check that fields can be kept in a compact structure with the layout. Fields must have the
+   * same types and names as the layout fields, the layout can contain more fields than
+   * provided. Scalar fields must not have payload.
+   *
+   * @param fields fields to be checked, must not be null
+   * @return true if fields can be kept by the layout, false otherwise
+   */
+  public boolean isCompatible(final JBBPAbstractField[] fields) {
+    if (fields.length > this.kinds.length) {
+      return false;
+    }
+    for (int i = 0; i < fields.length; i++) {
+      final byte kind = this.kinds[i];
+      final JBBPAbstractField field = fields[i];
+      if (kind == KIND_OBJECT) {
+        if (findKind(field) != KIND_OBJECT) {
+          return false;
+        }
+      } else if (field.getClass() != KIND_CLASSES[kind]
+          || field.getNameInfo() != this.names[i]
+          || field.getPayload() != null
+          || (kind == KIND_BIT && ((JBBPFieldBit) field).getBitWidth() != this.bitNumbers[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Make structure for fields. If fields are compatible with the layout then the structure is
+   * compact one, otherwise it is usual structure keeping field objects.
+   *
+   * @param name   a field name info of the structure, it can be null
+   * @param fields fields of the structure, must not be null
+   * @return the structure, must not be null
+   * @see #isCompatible(JBBPAbstractField[])
+   */
+  public JBBPFieldStruct makeStruct(final JBBPNamedFieldInfo name,
+                                    final JBBPAbstractField[] fields) {
+    if (!this.isCompatible(fields)) {
+      return new JBBPFieldStruct(name, fields);
+    }
+    final long[] packed = this.packedLength == 0 ? null : new long[this.packedLength];
+    JBBPAbstractField[] objects = null;
+    for (int i = 0; i < fields.length; i++) {
+      final byte kind = this.kinds[i];
+      final int offset = this.offsets[i];
+      if (kind == KIND_OBJECT) {
+        if (objects == null) {
+          objects = new JBBPAbstractField[this.objectCount];
+        }
+        objects[offset] = fields[i];
+      } else {
+        final long value = toPacked(kind, fields[i]);
+        packed[offset >>> 6] |= (value & (-1L >>> (64 - KIND_BITS[kind]))) << (offset & 63);
+      }
+    }
+    return new JBBPFieldStruct(name, this, fields.length, packed, objects);
+  }
+
+  private static long toPacked(final byte kind, final JBBPAbstractField field) {
+    final long result;
+    switch (kind) {
+      case KIND_FLOAT:
+        result = Float.floatToRawIntBits(((JBBPFieldFloat) field).getAsFloat());
+        break;
+      case KIND_DOUBLE:
+        result = Double.doubleToRawLongBits(((JBBPFieldDouble) field).getAsDouble());
+        break;
+      case KIND_LONG:
+        result = ((JBBPFieldLong) field).getAsLong();
+        break;
+      default:
+        result = ((JBBPNumericField) field).getAsInt();
+        break;
+    }
+    return result;
+  }
+
+  /**
+   * Get name info of a field without making field object.
+   *
+   * @param index   index of the field
+   * @param objects object fields of the structure, can be null
+   * @return name info of the field, can be null for anonymous fields
+   */
+  JBBPNamedFieldInfo getNameInfo(final int index, final JBBPAbstractField[] objects) {
+    return this.kinds[index] == KIND_OBJECT
+        ? objects[this.offsets[index]].getNameInfo() : this.names[index];
+  }
+
+  /**
+   * Get class of a field without making field object.
+   *
+   * @param index   index of the field
+   * @param objects object fields of the structure, can be null
+   * @return class of the field, must not be null
+   */
+  Class<?> getFieldClass(final int index, final JBBPAbstractField[] objects) {
+    final byte kind = this.kinds[index];
+    return kind == KIND_OBJECT ? objects[this.offsets[index]].getClass() : KIND_CLASSES[kind];
+  }
+
+  /**
+   * Get field object.
+   *
+   * @param index   index of the field
+   * @param packed  packed values of the structure, can be null
+   * @param objects object fields of the structure, can be null
+   * @return the field object, must not be null
+   */
+  JBBPAbstractField getField(final int index, final long[] packed,
+                             final JBBPAbstractField[] objects) {
+    final byte kind = this.kinds[index];
+    final int offset = this.offsets[index];
+    if (kind == KIND_OBJECT) {
+      return objects[offset];
+    }
+    final int bits = KIND_BITS[kind];
+    final long value = (packed[offset >>> 6] >>> (offset & 63)) & (-1L >>> (64 - bits));
+    if (bits == 8) {
+      JBBPAbstractField[][] shared = this.sharedFields;
+      if (shared == null) {
+        shared = new JBBPAbstractField[this.kinds.length][];
+        this.sharedFields = shared;
+      }
+      JBBPAbstractField[] values = shared[index];
+      if (values == null) {
+        values = new JBBPAbstractField[256];
+        shared[index] = values;
+      }
+      JBBPAbstractField result = values[(int) value];
+      if (result == null) {
+        result = makeField(index, kind, value);
+        values[(int) value] = result;
+      }
+      return result;
+    }
+    return makeField(index, kind, value);
+  }
+
+  private JBBPAbstractField makeField(final int index, final byte kind, final long value) {
+    final JBBPNamedFieldInfo name = this.names[index];
+    final JBBPAbstractField result;
+    switch (kind) {
+      case KIND_BIT:
+        result = new JBBPFieldBit(name, (int) value, this.bitNumbers[index]);
+        break;
+      case KIND_BOOL:
+        result = new JBBPFieldBoolean(name, value != 0L);
+        break;
+      case KIND_BYTE:
+        result = new JBBPFieldByte(name, (byte) value);
+        break;
+      case KIND_UBYTE:
+        result = new JBBPFieldUByte(name, (byte) value);
+        break;
+      case KIND_SHORT:
+        result = new JBBPFieldShort(name, (short) value);
+        break;
+      case KIND_USHORT:
+        result = new JBBPFieldUShort(name, (short) value);
+        break;
+      case KIND_INT:
+        result = new JBBPFieldInt(name, (int) value);
+        break;
+      case KIND_FLOAT:
+        result = new JBBPFieldFloat(name, Float.intBitsToFloat((int) value));
+        break;
+      case KIND_LONG:
+        result = new JBBPFieldLong(name, value);
+        break;
+      case KIND_DOUBLE:
+        result = new JBBPFieldDouble(name, Double.longBitsToDouble(value));
+        break;
+      default:
+        throw new Error("Unexpected field kind, contact developer [" + kind + ']');
+    }
+    return result;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.model;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
+
+/**
+ * Describes a structure array stored by columns, every field of the structure is stored as a
+ * primitive array contains values of the field for all elements. Elements of the array are
+ * created as structures only on request.
+ *
+ * @see com.igormaznitsa.jbbp.JBBPParser#FLAG_COLUMNAR_STRUCT_ARRAYS
+ * @since 2.0.4
+ */
+public final class JBBPFieldColumnarStruct extends JBBPAbstractArrayField<JBBPFieldStruct> {
+  private static final long serialVersionUID = -2209373637616372914L;
+
+  /**
+   * Number of elements in the array.
+   */
+  private final int length;
+  /**
+   * Columns in the order of structure fields.
+   */
+  private final JBBPAbstractArrayField<?>[] columns;
+
+  /**
+   * The Constructor.
+   *
+   * @param name    a field name info, it can be null
+   * @param length  number of elements in the array, must not be negative
+   * @param columns columns in the order of structure fields, every column must contain
+   *                values for all elements, it must not be null
+   * @throws IllegalArgumentException if length of a column is not equal to the array length
+   */
+  public JBBPFieldColumnarStruct(final JBBPNamedFieldInfo name, final int length,
+                                 final JBBPAbstractArrayField<?>[] columns) {
+    super(name);
+    JBBPUtils.assertNotNull(columns, "Columns must not be null");
+    for (final JBBPAbstractArrayField<?> column : columns) {
+      if (column.size() != length) {
+        throw new IllegalArgumentException(
+            "Column must contain " + length + " element(s): " + column.size());
+      }
+    }
+    this.length = length;
+    this.columns = columns;
+  }
+
+  /**
+   * Get columns of the array.
+   *
+   * @return columns in the order of structure fields
+   */
+  public JBBPAbstractArrayField<?>[] getColumns() {
+    return this.columns.clone();
+  }
+
+  /**
+   * Find column for name of a structure field.
+   *
+   * @param name name of the structure field, must not be null
+   * @return found column or null if not found
+   */
+  public JBBPAbstractArrayField<?> findColumnForName(final String name) {
+    final String normalizedName = JBBPUtils.normalizeFieldNameOrPath(name);
+    for (final JBBPAbstractArrayField<?> column : this.columns) {
+      if (normalizedName.equals(column.getFieldName())) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find column for name of a structure field and type of column.
+   *
+   * @param <T>        type of column
+   * @param name       name of the structure field, must not be null
+   * @param columnType type of column, must not be null
+   * @return found column or null if not found or it has another type
+   */
+  public <T extends JBBPAbstractArrayField<?>> T findColumnForNameAndType(
+      final String name, final Class<T> columnType) {
+    final JBBPAbstractArrayField<?> column = this.findColumnForName(name);
+    return columnType.isInstance(column) ? columnType.cast(column) : null;
+  }
+
+  @Override
+  public int size() {
+    return this.length;
+  }
+
+  @Override
+  public JBBPFieldStruct getElementAt(final int index) {
+    if (index < 0 || index >= this.length) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    final JBBPAbstractField[] fields = new JBBPAbstractField[this.columns.length];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = this.columns[i].getElementAt(index);
+    }
+    return new JBBPFieldStruct(this.getNameInfo(), fields);
+  }
+
+  @Override
+  public Object getValueArrayAsObject(final boolean reverseBits) {
+    final JBBPFieldStruct[] result = new JBBPFieldStruct[this.length];
+    for (int i = 0; i < this.length; i++) {
+      result[i] = this.getElementAt(i);
+    }
+    return result;
+  }
+
+  @Override
+  public String getTypeAsString() {
+    return "{} [" + this.length + ']';
+  }
+}
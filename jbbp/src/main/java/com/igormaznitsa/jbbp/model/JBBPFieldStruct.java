@@ -19,6 +19,7 @@ package com.igormaznitsa.jbbp.model;
 import static com.igormaznitsa.jbbp.utils.JBBPUtils.ARRAY_FIELD_EMPTY;
 
 
+import com.igormaznitsa.jbbp.JBBPFieldPath;
 import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
 import com.igormaznitsa.jbbp.exceptions.JBBPFinderException;
 import com.igormaznitsa.jbbp.exceptions.JBBPTooManyFieldsFoundException;
@@ -39,9 +40,33 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
   private static final long serialVersionUID = -5862961302818335702L;
 
   /**
-   * Structure fields.
+   * Structure fields, null for compact structure.
    */
   private final JBBPAbstractField[] fields;
+  /**
+   * Layout of compact structure, null for usual structure.
+   *
+   * @since 2.0.4
+   */
+  private final JBBPCompactLayout layout;
+  /**
+   * Number of fields of compact structure.
+   *
+   * @since 2.0.4
+   */
+  private final int compactSize;
+  /**
+   * Packed scalar values of compact structure, can be null.
+   *
+   * @since 2.0.4
+   */
+  private final long[] packed;
+  /**
+   * Object fields of compact structure, can be null.
+   *
+   * @since 2.0.4
+   */
+  private final JBBPAbstractField[] objects;
 
   /**
    * A Constructor.
@@ -53,6 +78,30 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
     super(name);
     JBBPUtils.assertNotNull(fields, "Array of fields must not be null");
     this.fields = fields;
+    this.layout = null;
+    this.compactSize = 0;
+    this.packed = null;
+    this.objects = null;
+  }
+
+  /**
+   * Constructor of compact structure.
+   *
+   * @param name    a field name info, it can be null
+   * @param layout  the layout of the structure, must not be null
+   * @param size    number of fields
+   * @param packed  packed scalar values, can be null
+   * @param objects object fields, can be null
+   * @since 2.0.4
+   */
+  JBBPFieldStruct(final JBBPNamedFieldInfo name, final JBBPCompactLayout layout, final int size,
+                  final long[] packed, final JBBPAbstractField[] objects) {
+    super(name);
+    this.fields = null;
+    this.layout = layout;
+    this.compactSize = size;
+    this.packed = packed;
+    this.objects = objects;
   }
 
   /**
@@ -71,7 +120,141 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
    * @return the field array of the structure.
    */
   public JBBPAbstractField[] getArray() {
-    return this.fields.clone();
+    if (this.fields != null) {
+      return this.fields.clone();
+    }
+    final JBBPAbstractField[] result = new JBBPAbstractField[this.compactSize];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = this.getFieldAt(i);
+    }
+    return result;
+  }
+
+  /**
+   * Check that the structure is compact one which keeps scalar values packed and makes field
+   * objects on request.
+   *
+   * @return true if the structure is compact one, false otherwise
+   * @see JBBPCompactLayout
+   * @since 2.0.4
+   */
+  public boolean isCompact() {
+    return this.fields == null;
+  }
+
+  /**
+   * Get number of fields in the structure.
+   *
+   * @return number of fields
+   * @since 2.0.4
+   */
+  public int getFieldCount() {
+    return this.fields == null ? this.compactSize : this.fields.length;
+  }
+
+  /**
+   * Get a field of the structure for its index, the method doesn't make any copy of the field
+   * array.
+   *
+   * @param index index of the field
+   * @return the field for the index, must not be null
+   * @throws ArrayIndexOutOfBoundsException for wrong index
+   * @since 2.0.4
+   */
+  public JBBPAbstractField getFieldAt(final int index) {
+    if (this.fields != null) {
+      return this.fields[index];
+    }
+    if (index < 0 || index >= this.compactSize) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return this.layout.getField(index, this.packed, this.objects);
+  }
+
+  private String getFieldNameAt(final int index) {
+    final JBBPNamedFieldInfo nameInfo = this.getNameInfoAt(index);
+    return nameInfo == null ? null : nameInfo.getFieldName();
+  }
+
+  private JBBPNamedFieldInfo getNameInfoAt(final int index) {
+    return this.fields == null ? this.layout.getNameInfo(index, this.objects)
+        : this.fields[index].getNameInfo();
+  }
+
+  private Class<?> getFieldClassAt(final int index) {
+    return this.fields == null ? this.layout.getFieldClass(index, this.objects)
+        : this.fields[index].getClass();
+  }
+
+  /**
+   * Get a field for a path resolved by the parser which made the structure. The structure must
+   * be the root structure of parsing. Field indexes of the path are checked by name info and if
+   * the structure has different layout (for instance it is made by projection) then the field is
+   * searched by the path.
+   *
+   * @param path a resolved field path, must not be null
+   * @return the found field or null if it is not found
+   * @see com.igormaznitsa.jbbp.JBBPParser#preparePath(String)
+   * @since 2.0.4
+   */
+  public JBBPAbstractField get(final JBBPFieldPath path) {
+    JBBPFieldStruct struct = this;
+    JBBPAbstractField found = null;
+    final int depth = path.getDepth();
+    for (int level = 0; level < depth; level++) {
+      if (level > 0) {
+        if (!(found instanceof JBBPFieldStruct)) {
+          return this.findFieldForPath(path.getPath());
+        }
+        struct = (JBBPFieldStruct) found;
+      }
+      final int index = path.getIndex(level);
+      final JBBPNamedFieldInfo expected = path.getNameInfo(level);
+      if (index >= struct.getFieldCount()) {
+        return this.findFieldForPath(path.getPath());
+      }
+      final JBBPNamedFieldInfo nameInfo = struct.getNameInfoAt(index);
+      if (nameInfo != expected && !expected.equals(nameInfo)) {
+        return this.findFieldForPath(path.getPath());
+      }
+      found = struct.getFieldAt(index);
+    }
+    return found;
+  }
+
+  /**
+   * Get value of a numeric field for a resolved path as integer.
+   *
+   * @param path a resolved field path, must not be null
+   * @return the field value as integer
+   * @throws JBBPFinderException if the field is not found or it is not a numeric one
+   * @see #get(JBBPFieldPath)
+   * @since 2.0.4
+   */
+  public int getInt(final JBBPFieldPath path) {
+    return this.getNumeric(path).getAsInt();
+  }
+
+  /**
+   * Get value of a numeric field for a resolved path as long.
+   *
+   * @param path a resolved field path, must not be null
+   * @return the field value as long
+   * @throws JBBPFinderException if the field is not found or it is not a numeric one
+   * @see #get(JBBPFieldPath)
+   * @since 2.0.4
+   */
+  public long getLong(final JBBPFieldPath path) {
+    return this.getNumeric(path).getAsLong();
+  }
+
+  private JBBPNumericField getNumeric(final JBBPFieldPath path) {
+    final JBBPAbstractField field = this.get(path);
+    if (field instanceof JBBPNumericField) {
+      return (JBBPNumericField) field;
+    }
+    throw new JBBPFinderException(field == null ? "Can't find field for path" :
+        "Field is not numeric one", path.getPath(), null);
   }
 
   @Override
@@ -94,6 +277,8 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
     for (int i = firstIndex; found != null && i < parsedName.length; i++) {
       if (found instanceof JBBPFieldStruct) {
         found = ((JBBPFieldStruct) found).findFieldForName(parsedName[i]);
+      } else if (found instanceof JBBPFieldColumnarStruct) {
+        found = ((JBBPFieldColumnarStruct) found).findColumnForName(parsedName[i]);
       } else {
         throw new JBBPFinderException(
             "Detected a field instead of a structure as one of nodes in the path '" + fieldPath +
@@ -110,9 +295,10 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
 
     JBBPAbstractField result = null;
 
-    for (final JBBPAbstractField f : this.fields) {
-      if (normalizedName.equals(f.getFieldName())) {
-        result = f;
+    final int count = this.getFieldCount();
+    for (int i = 0; i < count; i++) {
+      if (normalizedName.equals(this.getFieldNameAt(i))) {
+        result = this.getFieldAt(i);
         break;
       }
     }
@@ -125,10 +311,11 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
 
     int counter = 0;
 
-    for (final JBBPAbstractField f : this.fields) {
-      if (fieldType.isAssignableFrom(f.getClass())) {
+    final int count = this.getFieldCount();
+    for (int i = 0; i < count; i++) {
+      if (fieldType.isAssignableFrom(this.getFieldClassAt(i))) {
         if (result == null) {
-          result = fieldType.cast(f);
+          result = fieldType.cast(this.getFieldAt(i));
         }
         counter++;
       }
@@ -144,9 +331,10 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
   public <T extends JBBPAbstractField> T findFirstFieldForType(final Class<T> fieldType) {
     T result = null;
 
-    for (final JBBPAbstractField f : this.fields) {
-      if (fieldType.isAssignableFrom(f.getClass())) {
-        result = fieldType.cast(f);
+    final int count = this.getFieldCount();
+    for (int i = 0; i < count; i++) {
+      if (fieldType.isAssignableFrom(this.getFieldClassAt(i))) {
+        result = fieldType.cast(this.getFieldAt(i));
         break;
       }
     }
@@ -157,10 +345,9 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
   public <T extends JBBPAbstractField> T findLastFieldForType(final Class<T> fieldType) {
     T result = null;
 
-    for (int i = this.fields.length - 1; i >= 0; i--) {
-      final JBBPAbstractField f = this.fields[i];
-      if (fieldType.isAssignableFrom(f.getClass())) {
-        result = fieldType.cast(f);
+    for (int i = this.getFieldCount() - 1; i >= 0; i--) {
+      if (fieldType.isAssignableFrom(this.getFieldClassAt(i))) {
+        result = fieldType.cast(this.getFieldAt(i));
         break;
       }
     }
@@ -174,9 +361,11 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
 
     T result = null;
 
-    for (final JBBPAbstractField f : this.fields) {
-      if (fieldType.isAssignableFrom(f.getClass()) && normalizedName.equals(f.getFieldName())) {
-        result = fieldType.cast(f);
+    final int count = this.getFieldCount();
+    for (int i = 0; i < count; i++) {
+      if (fieldType.isAssignableFrom(this.getFieldClassAt(i))
+          && normalizedName.equals(this.getFieldNameAt(i))) {
+        result = fieldType.cast(this.getFieldAt(i));
         break;
       }
     }
@@ -189,8 +378,9 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
 
     boolean result = false;
 
-    for (final JBBPAbstractField f : this.fields) {
-      if (normalizedName.equals(f.getFieldName())) {
+    final int count = this.getFieldCount();
+    for (int i = 0; i < count; i++) {
+      if (normalizedName.equals(this.getFieldNameAt(i))) {
         result = true;
         break;
       }
@@ -204,8 +394,10 @@ public final class JBBPFieldStruct extends JBBPAbstractField implements JBBPFiel
 
     boolean result = false;
 
-    for (final JBBPAbstractField f : this.fields) {
-      if (normalizedPath.equals(f.getFieldPath())) {
+    final int count = this.getFieldCount();
+    for (int i = 0; i < count; i++) {
+      final JBBPNamedFieldInfo nameInfo = this.getNameInfoAt(i);
+      if (nameInfo != null && normalizedPath.equals(nameInfo.getFieldPath())) {
         result = true;
         break;
       }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe cache of values for classes which doesn't prevent class unloading, keys are weak
+ * and values are soft references. Reading doesn't take any lock, entries of collected classes
+ * are removed during put.
+ *
+ * @param <V> type of cached values
+ * @since 2.0.4
+ */
+public final class JBBPClassCache<V> {
+  private final Map<Object, SoftReference<V>> map = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Class<?>> collectedKeys = new ReferenceQueue<>();
+
+  /**
+   * Get cached value for a class.
+   *
+   * @param klazz the class, must not be null
+   * @return the cached value or null if not found or released
+   */
+  public V get(final Class<?> klazz) {
+    final SoftReference<V> result = this.map.get(new LookupKey(klazz));
+    return result == null ? null : result.get();
+  }
+
+  /**
+   * Cache value for a class, the previous value is replaced.
+   *
+   * @param klazz the class, must not be null
+   * @param value the value, must not be null
+   */
+  public void put(final Class<?> klazz, final V value) {
+    this.removeCollected();
+    this.map.put(new WeakKey(klazz, this.collectedKeys), new SoftReference<>(value));
+  }
+
+  /**
+   * Get number of cached classes.
+   *
+   * @return number of cached classes
+   */
+  public int size() {
+    this.removeCollected();
+    return this.map.size();
+  }
+
+  /**
+   * Remove all cached values.
+   */
+  public void clear() {
+    this.map.clear();
+    this.removeCollected();
+  }
+
+  private void removeCollected() {
+    Reference<? extends Class<?>> collected;
+    while ((collected = this.collectedKeys.poll()) != null) {
+      this.map.remove(collected);
+    }
+  }
+
+  /**
+   * Key of a class to be stored in the map, it keeps the class through a weak reference.
+   */
+  private static final class WeakKey extends WeakReference<Class<?>> {
+    private final int hash;
+
+    private WeakKey(final Class<?> klazz, final ReferenceQueue<Class<?>> queue) {
+      super(klazz, queue);
+      this.hash = System.identityHashCode(klazz);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object that) {
+      if (this == that) {
+        return true;
+      }
+      final Class<?> klazz = this.get();
+      if (klazz == null) {
+        return false;
+      }
+      if (that instanceof WeakKey) {
+        return klazz == ((WeakKey) that).get();
+      }
+      return that instanceof LookupKey && klazz == ((LookupKey) that).klazz;
+    }
+  }
+
+  /**
+   * Short-living key to find a class in the map without making a reference object.
+   */
+  private static final class LookupKey {
+    private final Class<?> klazz;
+
+    private LookupKey(final Class<?> klazz) {
+      this.klazz = klazz;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.klazz);
+    }
+
+    @Override
+    public boolean equals(final Object that) {
+      return that instanceof WeakKey && this.klazz == ((WeakKey) that).get();
+    }
+  }
+}
@@ -30,7 +30,24 @@ public enum JBBPSystemProperty {
   /**
    * The Property allows to define the initial size for array buffer to read whole stream.
    */
-  PROPERTY_INPUT_INITIAL_ARRAY_BUFFER_SIZE("jbbp.input.initial.array.buffer");
+  PROPERTY_INPUT_INITIAL_ARRAY_BUFFER_SIZE("jbbp.input.initial.array.buffer"),
+
+  /**
+   * The Property allows to define the default size of the inside read buffer of bit input streams
+   * which read their source ahead.
+   *
+   * @since 2.0.4
+   */
+  PROPERTY_INPUT_BUFFER_SIZE("jbbp.input.buffer.size"),
+
+  /**
+   * The Property allows to define number of interpreted parse calls after which a parser
+   * is compiled automatically, zero or negative value disables automatic compilation.
+   * The Value is read during parser preparation, automatic compilation is disabled by default.
+   *
+   * @since 2.0.4
+   */
+  PROPERTY_PARSER_COMPILE_THRESHOLD("jbbp.parser.compile.threshold");
 
   /**
    * The name of the property.
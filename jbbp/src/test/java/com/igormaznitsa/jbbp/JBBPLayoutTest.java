@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
+import com.igormaznitsa.jbbp.exceptions.JBBPParsingException;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class JBBPLayoutTest {
+
+  private static final String SCRIPT = "bit:3 a; byte b; <short c; ubyte d; bit:5 e; int f;"
+      + " skip:3; floatj g; align:4; long h; s { ushort i; bit:7 j; <doublej k; } bool l;"
+      + " ubyte [2] m; reset$$; byte n; align:2; <int o;";
+
+  private static void assertSameAsParsed(final JBBPBitOrder bitOrder) throws Exception {
+    final JBBPParser parser = JBBPParser.prepare(SCRIPT, bitOrder);
+    final JBBPLayout layout = parser.getLayout();
+    assertTrue(layout.isFixedSize());
+
+    final Random rnd = new Random(12345L);
+    final String[] paths =
+        new String[] {"a", "b", "c", "d", "e", "f", "g", "h", "s.i", "s.j", "s.k", "l", "n", "o"};
+    for (int i = 0; i < 100; i++) {
+      final byte[] data = new byte[(int) layout.getMinByteSize() + 3];
+      rnd.nextBytes(data);
+      final JBBPFieldStruct parsed = parser.parse(Arrays.copyOfRange(data, 3, data.length));
+      final ByteBuffer buffer = ByteBuffer.wrap(data);
+      ((Buffer) buffer).position(3);
+      for (final String path : paths) {
+        final JBBPNumericField field = (JBBPNumericField) parsed.findFieldForPath(path);
+        assertEquals(field.getAsInt(), layout.readInt(buffer, path), path);
+        assertEquals(field.getAsLong(), layout.readLong(buffer, path), path);
+        assertEquals(field.getAsDouble(), layout.readDouble(buffer, path), 0.0d, path);
+        assertEquals(field.getAsBool(), layout.readBoolean(buffer, path), path);
+      }
+      assertEquals(3, buffer.position());
+    }
+  }
+
+  @Test
+  public void testReadSameAsParsed_LSB0() throws Exception {
+    assertSameAsParsed(JBBPBitOrder.LSB0);
+  }
+
+  @Test
+  public void testReadSameAsParsed_MSB0() throws Exception {
+    assertSameAsParsed(JBBPBitOrder.MSB0);
+  }
+
+  @Test
+  public void testOffsetsAndSizes() {
+    final JBBPLayout layout = JBBPParser.prepare(SCRIPT).getLayout();
+    assertEquals(0L, layout.getBitOffset("a"));
+    assertEquals(3L, layout.getBitSize("a"));
+    assertEquals(3L, layout.getBitOffset("b"));
+    assertEquals(11L, layout.getBitOffset("c"));
+    assertEquals(35L, layout.getBitOffset("e"));
+    assertEquals(40L, layout.getBitOffset("f"));
+    assertEquals(96L, layout.getBitOffset("g"));
+    assertEquals(128L, layout.getBitOffset("h"));
+    assertEquals(192L, layout.getBitOffset("s"));
+    assertEquals(16L + 7L + 64L, layout.getBitSize("s"));
+    assertEquals(16L, layout.getBitSize("m"));
+    assertEquals(287L, layout.getBitOffset("m"));
+    assertEquals(304L, layout.getBitOffset("n"));
+    assertEquals(320L, layout.getBitOffset("o"));
+    assertEquals(352L, layout.getMinBitSize());
+    assertEquals(layout.getMinBitSize(), layout.getMaxBitSize());
+    assertEquals(layout.getMinByteSize(), layout.getMaxByteSize());
+  }
+
+  @Test
+  public void testVariableLayout() {
+    final JBBPLayout layout = JBBPParser.prepare(
+        "ubyte len; int a; byte [len] data; int b; s [2] { bit:4 c; ubyte d; } byte[_] tail;")
+        .getLayout();
+    assertFalse(layout.isFixedSize());
+    assertEquals(-1L, layout.getMaxBitSize());
+    assertEquals(-1L, layout.getMaxByteSize());
+    assertEquals(8L + 32L + 32L + 2L * 12L, layout.getMinBitSize());
+    assertEquals(12L, layout.getMinByteSize());
+    assertTrue(layout.hasEnoughData(12L));
+    assertFalse(layout.hasEnoughData(11L));
+
+    assertEquals(8L, layout.getBitOffset("a"));
+    assertEquals(40L, layout.getBitOffset("data"));
+    assertEquals(-1L, layout.getBitSize("data"));
+    assertEquals(-1L, layout.getBitOffset("b"));
+    assertEquals(32L, layout.getBitSize("b"));
+    assertEquals(-1L, layout.getBitOffset("s.c"));
+    assertEquals(4L, layout.getBitSize("s.c"));
+
+    assertEquals(0x01020304, layout.readInt(new byte[] {9, 1, 2, 3, 4}, "a"));
+    assertThrows(JBBPIllegalArgumentException.class,
+        () -> layout.readInt(new byte[32], "b"));
+    assertThrows(JBBPIllegalArgumentException.class,
+        () -> layout.readInt(new byte[32], "data"));
+    assertThrows(JBBPIllegalArgumentException.class,
+        () -> layout.readInt(new byte[32], "unknown"));
+    assertThrows(JBBPParsingException.class, () -> layout.readInt(new byte[4], "a"));
+  }
+
+  @Test
+  public void testAlignWithUnknownOffset() {
+    final JBBPLayout layout =
+        JBBPParser.prepare("ubyte len; byte [len] data; align:4; int a; reset$$; int b;")
+            .getLayout();
+    assertEquals(8L + 32L + 32L, layout.getMinBitSize());
+    assertEquals(-1L, layout.getMaxBitSize());
+    assertEquals(-1L, layout.getBitOffset("a"));
+
+    final JBBPLayout bounded = JBBPParser.prepare("bit:3 a; align:4; int b; bit:1 [3] c; align;")
+        .getLayout();
+    assertEquals(32L + 32L + 8L, bounded.getMinBitSize());
+    assertEquals(32L, bounded.getBitOffset("b"));
+    assertEquals(64L, bounded.getBitOffset("c"));
+    assertTrue(bounded.isFixedSize());
+  }
+
+  @Test
+  public void testWideBitField() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("bit:3 a; bit:40 b; bit:5 c;");
+    final JBBPLayout layout = parser.getLayout();
+    assertEquals(3L, layout.getBitOffset("b"));
+    assertEquals(40L, layout.getBitSize("b"));
+    assertEquals(48L, layout.getMinBitSize());
+    final byte[] data = new byte[] {(byte) 0xF1, 0x23, 0x45, 0x67, (byte) 0x89, (byte) 0xAB};
+    assertEquals(parser.parse(data).findFieldForNameAndType("b", JBBPFieldLong.class).getAsLong(),
+        layout.readLong(data, "b"));
+  }
+
+  @Test
+  public void testLayoutIsCached() {
+    final JBBPParser parser = JBBPParser.prepare("int a;");
+    assertSame(parser.getLayout(), parser.getLayout());
+  }
+}
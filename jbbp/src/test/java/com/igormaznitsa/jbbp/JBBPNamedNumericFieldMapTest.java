@@ -74,6 +74,52 @@ public class JBBPNamedNumericFieldMapTest {
     }
   }
 
+  @Test
+  public void testCompiledBlockSlots() {
+    final JBBPCompiledBlock block = JBBPParser.prepare("int a; byte b; long c;").getCompiledBlock();
+    final JBBPNamedFieldInfo[] names = block.getNamedFields();
+    for (int i = 0; i < names.length; i++) {
+      assertEquals(i, block.findNamedFieldSlot(names[i]));
+      assertEquals(i, block.findNamedFieldSlotForOffset(names[i].getFieldOffsetInCompiledBlock()));
+    }
+    assertEquals(-1, block.findNamedFieldSlot(new JBBPNamedFieldInfo("x", "x", 0)));
+
+    final JBBPNamedNumericFieldMap map = new JBBPNamedNumericFieldMap(null, block);
+    final JBBPNumericField c = new JBBPFieldLong(names[2], 3L);
+    final JBBPNumericField a = new JBBPFieldInt(names[0], 1);
+    final JBBPNumericField b = new JBBPFieldByte(names[1], (byte) 2);
+    final JBBPNumericField other = new JBBPFieldInt(new JBBPNamedFieldInfo("x", "x", 0), 4);
+    map.putField(c);
+    map.putField(other);
+    map.putField(a);
+    map.putField(b);
+    assertEquals(4, map.size());
+    assertSame(a, map.get(names[0]));
+    assertSame(a, map.get(new JBBPNamedFieldInfo(names[0].getFieldPath(),
+        names[0].getFieldName(), names[0].getFieldOffsetInCompiledBlock())));
+    assertSame(c, map.findForFieldOffset(names[2].getFieldOffsetInCompiledBlock()));
+    assertSame(other, map.get(new JBBPNamedFieldInfo("x", "x", 0)));
+    assertSame(c, map.findFirstFieldForType(JBBPFieldLong.class));
+
+    final JBBPNumericField a2 = new JBBPFieldInt(names[0], 11);
+    map.putField(a2);
+    assertEquals(4, map.size());
+    assertSame(a2, map.findFieldForName("a"));
+
+    assertSame(c, map.remove(names[2]));
+    assertNull(map.get(names[2]));
+    assertSame(a2, map.get(names[0]));
+    assertSame(b, map.get(names[1]));
+    assertSame(other, map.findFirstFieldForType(JBBPFieldInt.class));
+    assertEquals(3, map.size());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(names[1]));
+    map.putField(b);
+    assertSame(b, map.findForFieldOffset(names[1].getFieldOffsetInCompiledBlock()));
+  }
+
   @Test
   public void testSize() {
     final JBBPNamedNumericFieldMap map = new JBBPNamedNumericFieldMap();
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.utils.JBBPCustomFieldTypeProcessorAggregator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class JBBPParserCacheTest {
+
+  @Test
+  public void testWrongSize() {
+    assertThrows(IllegalArgumentException.class, () -> new JBBPParserCache(0));
+  }
+
+  @Test
+  public void testHitAndMiss() throws Exception {
+    final JBBPParserCache cache = new JBBPParserCache(4);
+    final JBBPParser parser = cache.prepare("int a;");
+    assertSame(parser, cache.prepare("int a;"));
+    assertSame(parser, cache.prepare("int a;", JBBPBitOrder.LSB0));
+    assertEquals(0x01020304,
+        parser.parse(new byte[] {1, 2, 3, 4}).findFieldForType(JBBPFieldInt.class).getAsInt());
+    assertEquals(1L, cache.getMissCount());
+    assertEquals(2L, cache.getHitCount());
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0L, cache.getHitCount());
+    assertEquals(0L, cache.getMissCount());
+    assertNotSame(parser, cache.prepare("int a;"));
+  }
+
+  @Test
+  public void testKeyContainsAllOptions() {
+    final JBBPParserCache cache = new JBBPParserCache(16);
+    final JBBPCustomFieldTypeProcessor processor1 = new JBBPCustomFieldTypeProcessorAggregator();
+    final JBBPCustomFieldTypeProcessor processor2 = new JBBPCustomFieldTypeProcessorAggregator();
+
+    final JBBPParser parser = cache.prepare("int a;");
+    assertNotSame(parser, cache.prepare("int b;"));
+    assertNotSame(parser, cache.prepare("int a;", JBBPBitOrder.MSB0));
+    assertNotSame(parser, cache.prepare("int a;", JBBPParser.FLAG_SKIP_REMAINING_FIELDS_IF_EOF));
+    final JBBPParser withProcessor = cache.prepare("int a;", JBBPBitOrder.LSB0, processor1, 0);
+    assertNotSame(parser, withProcessor);
+    assertNotSame(withProcessor, cache.prepare("int a;", JBBPBitOrder.LSB0, processor2, 0));
+    assertSame(withProcessor, cache.prepare("int a;", JBBPBitOrder.LSB0, processor1, 0));
+
+    assertEquals(6, cache.size());
+    assertEquals(6L, cache.getMissCount());
+    assertEquals(1L, cache.getHitCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    final JBBPParserCache cache = new JBBPParserCache(2);
+    final JBBPParser a = cache.prepare("byte a;");
+    final JBBPParser b = cache.prepare("byte b;");
+    assertSame(a, cache.prepare("byte a;"));
+    cache.prepare("byte c;");
+
+    assertEquals(2, cache.size());
+    assertEquals(1L, cache.getEvictionCount());
+    assertSame(a, cache.prepare("byte a;"));
+    assertNotSame(b, cache.prepare("byte b;"));
+    assertEquals(2L, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testConcurrentPreparation() throws Exception {
+    final JBBPParserCache cache = new JBBPParserCache(8);
+    final AtomicInteger errors = new AtomicInteger();
+    final Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      final int index = i;
+      threads[i] = new Thread(() -> {
+        try {
+          for (int j = 0; j < 200; j++) {
+            final int value = cache.prepare("int v" + ((index + j) % 4) + ';')
+                .parse(new byte[] {0, 0, 1, (byte) j}).findFieldForType(JBBPFieldInt.class)
+                .getAsInt();
+            if (value != (0x100 | (j & 0xFF))) {
+              errors.incrementAndGet();
+            }
+          }
+        } catch (Exception ex) {
+          errors.incrementAndGet();
+        }
+      });
+      threads[i].start();
+    }
+    for (final Thread t : threads) {
+      t.join();
+    }
+    assertEquals(0, errors.get());
+    assertEquals(4, cache.size());
+    assertEquals(1600L, cache.getHitCount() + cache.getMissCount());
+  }
+}
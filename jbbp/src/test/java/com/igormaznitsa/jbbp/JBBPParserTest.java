@@ -21,16 +21,22 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 
 import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
 import com.igormaznitsa.jbbp.exceptions.JBBPCompilationException;
+import com.igormaznitsa.jbbp.exceptions.JBBPFinderException;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
 import com.igormaznitsa.jbbp.exceptions.JBBPParsingException;
 import com.igormaznitsa.jbbp.exceptions.JBBPTooManyFieldsFoundException;
 import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
 import com.igormaznitsa.jbbp.io.JBBPByteOrder;
 import com.igormaznitsa.jbbp.model.JBBPAbstractArrayField;
 import com.igormaznitsa.jbbp.model.JBBPAbstractField;
@@ -48,6 +54,7 @@ import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
 import com.igormaznitsa.jbbp.model.JBBPFieldBit;
 import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
 import com.igormaznitsa.jbbp.model.JBBPFieldByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldColumnarStruct;
 import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
 import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
 import com.igormaznitsa.jbbp.model.JBBPFieldInt;
@@ -57,16 +64,60 @@ import com.igormaznitsa.jbbp.model.JBBPFieldString;
 import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
 import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
 import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
 import com.igormaznitsa.jbbp.utils.JBBPIntCounter;
+import com.igormaznitsa.jbbp.utils.JBBPSystemProperty;
+import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import com.igormaznitsa.jbbp.utils.TargetSources;
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class JBBPParserTest {
 
+  @Test
+  public void testParseConsecutiveRecordsFromOneStream() throws Exception {
+    final JBBPParser parser =
+        JBBPParser.prepare("ubyte len; int [len] values; bit:4 low; bit:4 high; short end;");
+    final ByteArrayInputStream in = new ByteArrayInputStream(new byte[] {
+        2, 0, 0, 0, 1, 0, 0, 0, 2, 0x21, 0, 3,
+        1, 0, 0, 0, 4, 0x65, 0, 7,
+        (byte) 0xAA});
+
+    final JBBPFieldStruct first = parser.parse(in);
+    assertArrayEquals(new int[] {1, 2},
+        first.findFieldForNameAndType("values", JBBPFieldArrayInt.class).getArray());
+    assertEquals(3, first.findFieldForNameAndType("end", JBBPFieldShort.class).getAsInt());
+
+    final JBBPFieldStruct second = parser.parse(in);
+    assertArrayEquals(new int[] {4},
+        second.findFieldForNameAndType("values", JBBPFieldArrayInt.class).getArray());
+    assertEquals(5, second.findFieldForNameAndType("low", JBBPFieldBit.class).getAsInt());
+    assertEquals(6, second.findFieldForNameAndType("high", JBBPFieldBit.class).getAsInt());
+    assertEquals(7, second.findFieldForNameAndType("end", JBBPFieldShort.class).getAsInt());
+
+    assertEquals(0xAA, in.read());
+    assertEquals(-1, in.read());
+  }
+
   @Test
   public void testErrorDuringReadingOfNamedField() throws Exception {
     try {
@@ -1019,12 +1070,45 @@ public class JBBPParserTest {
   public void testParse_BitFields_ErrorForWrongValueOfBitFieldLength() throws Exception {
     assertThrows(IllegalArgumentException.class,
         () -> JBBPParser.prepare("ubyte a; ubyte b; bit:(a+b) c;")
-            .parse(new byte[] {11, 2, (byte) 0xB4}));
+            .parse(new byte[] {61, 4, (byte) 0xB4}));
     assertThrows(IllegalArgumentException.class,
         () -> JBBPParser.prepare("ubyte a; ubyte b; bit:(a-b) c;")
             .parse(new byte[] {2, 2, (byte) 0xB4}));
   }
 
+  @Test
+  public void testParse_WideBitFields() throws Exception {
+    final JBBPParser parser =
+        JBBPParser.prepare("bit:4 a; bit:12 b; bit:64 c; bit:(a+8) d; bit:20 [2] e; bit:6;");
+    final byte[] data = new byte[] {(byte) 0x3A, (byte) 0xBC, 1, 2, 3, 4, 5, 6, 7, (byte) 0x88,
+        0x21, 0x43, 0x65, (byte) 0x87, (byte) 0xA9, (byte) 0xCB, (byte) 0xED, 0x0F};
+    for (int i = 0; i < 20; i++) {
+      final JBBPFieldStruct parsed = parser.parse(data);
+      assertEquals(0xA, parsed.findFieldForNameAndType("a", JBBPFieldBit.class).getAsInt());
+      assertEquals(0xBC3L, parsed.findFieldForNameAndType("b", JBBPFieldLong.class).getAsLong());
+      assertEquals(0x8807060504030201L,
+          parsed.findFieldForNameAndType("c", JBBPFieldLong.class).getAsLong());
+      assertEquals(0x14321L, parsed.findFieldForNameAndType("d", JBBPFieldLong.class).getAsLong());
+      assertArrayEquals(new long[] {0xA61D9L, 0xFB72EL},
+          parsed.findFieldForNameAndType("e", JBBPFieldArrayLong.class).getArray());
+    }
+    assertThrows(JBBPCompilationException.class, () -> JBBPParser.prepare("bit:65 a;"));
+  }
+
+  @Test
+  public void testParse_BitFieldArrayWholeStream_PartialLastItem() throws Exception {
+    final JBBPParser wide = JBBPParser.prepare("bit:12 [_] wide;");
+    final byte[] data = new byte[] {0x21, 0x43, 0x65, (byte) 0x87, (byte) 0xA9};
+    for (final JBBPParser parser : new JBBPParser[] {wide, wide.compiled()}) {
+      assertArrayEquals(new long[] {0x321L, 0x654L, 0x987L, 0xAL},
+          parser.parse(data).findFieldForNameAndType("wide", JBBPFieldArrayLong.class)
+              .getArray());
+    }
+    assertArrayEquals(new byte[] {7, 7, 3},
+        JBBPParser.prepare("bit:3 [_] narrow;").parse(new byte[] {(byte) 0xFF})
+            .findFieldForNameAndType("narrow", JBBPFieldArrayBit.class).getArray());
+  }
+
   @Test
   public void testParse_BitFieldArray_EOF() throws Exception {
     assertThrows(EOFException.class, () -> JBBPParser.prepare("bit:4 [1];").parse(new byte[0]));
@@ -2450,6 +2534,199 @@ public class JBBPParserTest {
     assertEquals(0x01020304, ((JBBPFieldInt) result.findFieldForName("a")).getAsInt());
   }
 
+  @Test
+  public void testParse_ByteBuffer_HeapAndDirect() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("ubyte len; int [len] values; <short tail;");
+    final byte[] data = new byte[] {0, 0, 2, 0, 0, 0, 1, 0x7F, 0, 0, 0, 0x34, 0x12, 0};
+
+    final ByteBuffer heap = ByteBuffer.wrap(data);
+    ((Buffer) heap).position(2).limit(13);
+    final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    ((Buffer) direct.put(data)).position(2).limit(13);
+
+    for (final ByteBuffer buffer : new ByteBuffer[] {heap, direct}) {
+      final JBBPFieldStruct result = parser.parse(buffer);
+      assertArrayEquals(new int[] {1, 0x7F000000},
+          result.findFieldForType(JBBPFieldArrayInt.class).getArray());
+      assertEquals(0x1234, result.findFieldForType(JBBPFieldShort.class).getAsInt());
+      assertEquals(11L, parser.getFinalStreamByteCounter());
+      assertEquals(2, buffer.position());
+      assertEquals(13, buffer.limit());
+    }
+  }
+
+  @Test
+  public void testParse_File_WholeStreamStructArray(@TempDir final File folder) throws Exception {
+    final File file = new File(folder, "records.bin");
+    FileUtils.writeByteArrayToFile(file, new byte[] {1, 0, 2, 2, 0, 3, 3, 0, 4});
+    final JBBPParser parser = JBBPParser.prepare("records [_] { ubyte a; <ushort b; }");
+
+    final JBBPFieldStruct[] records = parser.parse(file).findFieldForType(JBBPFieldArrayStruct.class).getArray();
+    assertEquals(3, records.length);
+    assertEquals(3, records[2].findFieldForType(JBBPFieldUByte.class).getAsInt());
+    assertEquals(0x0400, records[2].findFieldForType(JBBPFieldUShort.class).getAsInt());
+    assertEquals(9L, parser.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testIterate_RecordByRecord() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("ubyte len; byte [len] data;");
+    final Iterator<JBBPFieldStruct> iterator =
+        parser.iterate(new ByteArrayInputStream(new byte[] {2, 1, 2, 0, 3, 7, 8, 9}));
+
+    assertTrue(iterator.hasNext());
+    assertArrayEquals(new byte[] {1, 2}, iterator.next().findFieldForType(JBBPFieldArrayByte.class).getArray());
+    assertEquals(3L, parser.getFinalStreamByteCounter());
+    assertArrayEquals(new byte[0], iterator.next().findFieldForType(JBBPFieldArrayByte.class).getArray());
+    assertTrue(iterator.hasNext());
+    assertArrayEquals(new byte[] {7, 8, 9}, iterator.next().findFieldForType(JBBPFieldArrayByte.class).getArray());
+    assertEquals(8L, parser.getFinalStreamByteCounter());
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::next);
+    assertThrows(UnsupportedOperationException.class, iterator::remove);
+  }
+
+  @Test
+  public void testIterate_ErrorForIncompleteRecord() {
+    final Iterator<JBBPFieldStruct> iterator =
+        JBBPParser.prepare("int a;").iterate(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+    assertEquals(0x01020304, iterator.next().findFieldForType(JBBPFieldInt.class).getAsInt());
+    assertTrue(iterator.hasNext());
+    assertThrows(JBBPParsingException.class, iterator::next);
+  }
+
+  @Test
+  public void testParse_Listener() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare(
+        "ubyte len; bit:4 b; bit:4 c; bool f; <int [len] ints; items [len-1] { short s; } val:(len*2) v; rec [_] { byte a; }");
+    final StringBuilder trace = new StringBuilder();
+    parser.parse(new byte[] {2, 0x15, 1, 1, 0, 0, 0, 2, 0, 0, 0, 0x12, 0x34, 7, 8},
+        new JBBPParseListenerAdapter() {
+          @Override
+          public void onStructStart(final JBBPNamedFieldInfo name) {
+            trace.append('{').append(name.getFieldName());
+          }
+
+          @Override
+          public void onStructEnd(final JBBPNamedFieldInfo name) {
+            trace.append('}');
+          }
+
+          @Override
+          public void onStructArrayStart(final JBBPNamedFieldInfo name, final int length) {
+            trace.append('[').append(name.getFieldName()).append(':').append(length);
+          }
+
+          @Override
+          public void onStructArrayEnd(final JBBPNamedFieldInfo name) {
+            trace.append(']');
+          }
+
+          @Override
+          public void onUByte(final JBBPNamedFieldInfo name, final int value) {
+            trace.append(name.getFieldName()).append('=').append(value).append(';');
+          }
+
+          @Override
+          public void onBit(final JBBPNamedFieldInfo name, final int value, final JBBPBitNumber bitNumber) {
+            trace.append(name.getFieldName()).append('=').append(value).append(';');
+          }
+
+          @Override
+          public void onBool(final JBBPNamedFieldInfo name, final boolean value) {
+            trace.append(name.getFieldName()).append('=').append(value).append(';');
+          }
+
+          @Override
+          public void onIntArray(final JBBPNamedFieldInfo name, final int[] values) {
+            trace.append(name.getFieldName()).append('=').append(Arrays.toString(values)).append(';');
+          }
+
+          @Override
+          public void onShort(final JBBPNamedFieldInfo name, final short value) {
+            trace.append(name.getFieldName()).append('=').append(Integer.toHexString(value)).append(';');
+          }
+
+          @Override
+          public void onInt(final JBBPNamedFieldInfo name, final int value) {
+            trace.append(name.getFieldName()).append('=').append(value).append(';');
+          }
+
+          @Override
+          public void onByte(final JBBPNamedFieldInfo name, final byte value) {
+            trace.append(name.getFieldName()).append('=').append(value).append(';');
+          }
+        });
+    assertEquals("len=2;b=5;c=1;f=true;ints=[1, 2];[items:1{itemss=1234;}]v=4;[rec:-1{reca=7;}{reca=8;}]",
+        trace.toString());
+    assertEquals(15L, parser.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testParse_Listener_ZeroLengthStructArrayIsSkipped() throws Exception {
+    final AtomicInteger structs = new AtomicInteger();
+    final JBBPParser parser = JBBPParser.prepare("ubyte len; items [len] { int a; } byte end;");
+    parser.parse(new ByteArrayInputStream(new byte[] {0, 5}), new JBBPParseListenerAdapter() {
+      @Override
+      public void onStructStart(final JBBPNamedFieldInfo name) {
+        structs.incrementAndGet();
+      }
+
+      @Override
+      public void onInt(final JBBPNamedFieldInfo name, final int value) {
+        fail("Must not be called");
+      }
+
+      @Override
+      public void onByte(final JBBPNamedFieldInfo name, final byte value) {
+        assertEquals(5, value);
+      }
+    });
+    assertEquals(0, structs.get());
+    assertEquals(2L, parser.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testParse_DeeplyNestedStructures() throws Exception {
+    final String script =
+        "a { b { c { d { e { f { g { h { i { j [2] { byte v; } } } } } } } } } } byte end;";
+    for (final int flags : new int[] {0, JBBPParser.FLAG_COMPACT_STRUCTS}) {
+      final JBBPFieldStruct parsed = JBBPParser.prepare(script, flags).parse(new byte[] {1, 2, 3});
+      final JBBPFieldArrayStruct j =
+          parsed.findFieldForPathAndType("a.b.c.d.e.f.g.h.i.j", JBBPFieldArrayStruct.class);
+      assertEquals(2, j.size());
+      assertEquals(2, j.getElementAt(1).findFieldForNameAndType("v", JBBPFieldByte.class)
+          .getAsInt());
+      assertEquals(3, parsed.findFieldForNameAndType("end", JBBPFieldByte.class).getAsInt());
+    }
+  }
+
+  @Test
+  public void testParse_NestedStructuresWithSkippedArrays_ParserReused() throws Exception {
+    final JBBPParser parser =
+        JBBPParser.prepare("ubyte n; a [n] { b [n-1] { byte [n] x; } byte y; } c { } ubyte tail;");
+
+    final JBBPFieldStruct empty = parser.parse(new byte[] {0, 9});
+    assertEquals(0, empty.findFieldForNameAndType("a", JBBPFieldArrayStruct.class).size());
+    assertEquals(9, empty.findFieldForNameAndType("tail", JBBPFieldUByte.class).getAsInt());
+
+    final JBBPFieldStruct full = parser.parse(new byte[] {2, 1, 2, 3, 3, 4, 5, 6, 7});
+    final JBBPFieldArrayStruct a = full.findFieldForNameAndType("a", JBBPFieldArrayStruct.class);
+    assertEquals(2, a.size());
+    assertArrayEquals(new byte[] {1, 2},
+        a.getElementAt(0).findFieldForNameAndType("b", JBBPFieldArrayStruct.class).getElementAt(0)
+            .findFieldForNameAndType("x", JBBPFieldArrayByte.class).getArray());
+    assertEquals(3, a.getElementAt(0).findFieldForNameAndType("y", JBBPFieldByte.class).getAsInt());
+    assertArrayEquals(new byte[] {3, 4},
+        a.getElementAt(1).findFieldForNameAndType("b", JBBPFieldArrayStruct.class).getElementAt(0)
+            .findFieldForNameAndType("x", JBBPFieldArrayByte.class).getArray());
+    assertEquals(5, a.getElementAt(1).findFieldForNameAndType("y", JBBPFieldByte.class).getAsInt());
+    assertEquals(0,
+        full.findFieldForNameAndType("c", JBBPFieldStruct.class).getArray().length);
+    assertEquals(6, full.findFieldForNameAndType("tail", JBBPFieldUByte.class).getAsInt());
+    assertEquals(8L, parser.getFinalStreamByteCounter());
+  }
+
   @Test
   public void testConvertToSrc_Java_NamedPackage() {
     final JBBPParser parser = JBBPParser.prepare("byte a;");
@@ -2473,4 +2750,386 @@ public class JBBPParserTest {
     assertTrue(src.get(0).getResult().get("SomeClass.java").length() > 128);
   }
 
+  private static String describeParsing(final JBBPParser parser, final byte[] data) {
+    final StringBuilder result = new StringBuilder();
+    try {
+      describeField(result, parser.parse(data));
+    } catch (Exception ex) {
+      result.append(ex.getClass().getName()).append(':').append(ex.getMessage());
+    }
+    return result.append('#').append(parser.getFinalStreamByteCounter()).toString();
+  }
+
+  private static void describeField(final StringBuilder buffer, final JBBPAbstractField field) {
+    buffer.append(field.getClass().getSimpleName()).append(' ').append(field.getFieldPath())
+        .append('=');
+    if (field instanceof JBBPFieldStruct) {
+      buffer.append('{');
+      for (final JBBPAbstractField f : ((JBBPFieldStruct) field).getArray()) {
+        describeField(buffer, f);
+      }
+      buffer.append('}');
+    } else if (field instanceof JBBPFieldArrayStruct) {
+      buffer.append('[');
+      for (final JBBPFieldStruct s : (JBBPFieldArrayStruct) field) {
+        describeField(buffer, s);
+      }
+      buffer.append(']');
+    } else if (field instanceof JBBPAbstractArrayField) {
+      buffer.append(Arrays.deepToString(
+          new Object[] {((JBBPAbstractArrayField<?>) field).getValueArrayAsObject(false)}));
+    } else if (field instanceof JBBPFieldString) {
+      buffer.append(((JBBPFieldString) field).getAsString());
+    } else {
+      final JBBPNumericField numeric = (JBBPNumericField) field;
+      buffer.append(numeric.getAsLong()).append('/').append(numeric.getAsDouble());
+    }
+    buffer.append(';');
+  }
+
+  @Test
+  public void testCompiled_SameResultsAsInterpreted() {
+    final String[] scripts = new String[] {
+        "ubyte len; bit:4 b; bit:4 c; bool f; <int [len] ints; items [len&3] { short s; ushort u; }"
+            + " val:(len*2) v; long l; floatj fl; <doublej d; stringj str; rec [_] { byte a; }",
+        "ubyte n; reset$$; align:2; skip:1; bit:((n&7)+1) [n&3] bits; ubyte [n&7] ub; ushort [_] us;",
+        "byte k; a [k&3] { b [2] { bool [k&1] flags; stringj [1] s; } long [1] l; } floatj [2] fs;"
+            + " doublej [_] ds;",
+        "byte k; int [k-4] ints; x [k-100] { byte z; } skip:(k&3); bit:3 [_] rest;"
+    };
+
+    final Random rnd = new Random(12345L);
+    for (final String script : scripts) {
+      for (int flags = 0; flags < 4; flags++) {
+        final JBBPParser interpreted = JBBPParser.prepare(script, flags);
+        final JBBPParser compiled = JBBPParser.prepare(script, flags).compiled();
+        assertTrue(compiled.isCompiled());
+        for (int i = 0; i < 100; i++) {
+          final byte[] data = new byte[rnd.nextInt(96)];
+          rnd.nextBytes(data);
+          assertEquals(describeParsing(interpreted, data), describeParsing(compiled, data),
+              script + " flags=" + flags);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCompiled_CustomAndVarFields() throws Exception {
+    final JBBPCustomFieldTypeProcessor customProcessor = new JBBPCustomFieldTypeProcessor() {
+      @Override
+      public String[] getCustomFieldTypes() {
+        return new String[] {"some"};
+      }
+
+      @Override
+      public boolean isAllowed(final JBBPFieldTypeParameterContainer fieldType,
+                               final String fieldName, final int extraData,
+                               final boolean isArray) {
+        return true;
+      }
+
+      @Override
+      public JBBPAbstractField readCustomFieldType(final JBBPBitInputStream in,
+                                                   final JBBPBitOrder bitOrder,
+                                                   final int parserFlags,
+                                                   final JBBPFieldTypeParameterContainer customTypeFieldInfo,
+                                                   final JBBPNamedFieldInfo fieldName,
+                                                   final int extraData,
+                                                   final boolean readWholeStream,
+                                                   final int arrayLength) throws IOException {
+        if (arrayLength < 0) {
+          return new JBBPFieldInt(fieldName, (byte) in.readByte() + extraData);
+        }
+        return new JBBPFieldArrayByte(fieldName,
+            in.readByteArray(readWholeStream ? -1 : arrayLength));
+      }
+    };
+    final JBBPVarFieldProcessor varProcessor = new JBBPVarFieldProcessor() {
+      @Override
+      public JBBPAbstractArrayField<? extends JBBPAbstractField> readVarArray(
+          final JBBPBitInputStream inStream, final int arraySize,
+          final JBBPNamedFieldInfo fieldName, final int extraValue,
+          final JBBPByteOrder byteOrder, final JBBPNamedNumericFieldMap numericFieldMap)
+          throws IOException {
+        return new JBBPFieldArrayByte(fieldName, inStream.readByteArray(arraySize));
+      }
+
+      @Override
+      public JBBPAbstractField readVarField(final JBBPBitInputStream inStream,
+                                            final JBBPNamedFieldInfo fieldName,
+                                            final int extraValue, final JBBPByteOrder byteOrder,
+                                            final JBBPNamedNumericFieldMap numericFieldMap)
+          throws IOException {
+        return new JBBPFieldInt(fieldName, (byte) inStream.readByte() * extraValue);
+      }
+    };
+
+    final String script = "some:3 a; var:(a) v; some [v] b; var [a] c; s [_] { some:(v) d; }";
+    final byte[] data = new byte[] {-1, 3, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    final JBBPParser interpreted = JBBPParser.prepare(script, customProcessor);
+    final JBBPParser compiled = JBBPParser.prepare(script, customProcessor).compiled();
+
+    final StringBuilder expected = new StringBuilder();
+    describeField(expected, interpreted.parse(new ByteArrayInputStream(data), varProcessor, null));
+    final StringBuilder result = new StringBuilder();
+    describeField(result, compiled.parse(new ByteArrayInputStream(data), varProcessor, null));
+
+    assertEquals(expected.toString(), result.toString());
+    assertEquals(interpreted.getFinalStreamByteCounter(), compiled.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testCompiled_NoTierUpByDefault() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("ubyte len; items [len] { short a; }");
+    parseSeries(parser, 64);
+    assertFalse(parser.isCompiled());
+  }
+
+  @Test
+  public void testCompiled_TierUpAfterSeriesOfParsing() throws Exception {
+    final JBBPParser parser;
+    JBBPSystemProperty.PROPERTY_PARSER_COMPILE_THRESHOLD.set("16");
+    try {
+      parser = JBBPParser.prepare("ubyte len; items [len] { short a; }");
+    } finally {
+      JBBPSystemProperty.PROPERTY_PARSER_COMPILE_THRESHOLD.remove();
+    }
+    parseSeries(parser, 16);
+    assertFalse(parser.isCompiled());
+    parseSeries(parser, 48);
+    assertTrue(parser.isCompiled());
+    assertSame(parser, parser.compiled());
+  }
+
+  private static void parseSeries(final JBBPParser parser, final int calls) throws Exception {
+    final byte[] data = new byte[] {2, 1, 2, 3, 4};
+    for (int i = 0; i < calls; i++) {
+      final JBBPFieldArrayStruct items =
+          parser.parse(data).findFieldForNameAndType("items", JBBPFieldArrayStruct.class);
+      assertEquals(2, items.size());
+      assertEquals(0x0304,
+          items.getElementAt(1).findFieldForNameAndType("a", JBBPFieldShort.class).getAsInt());
+    }
+  }
+
+  @Test
+  public void testPreparePath_GetFieldsOfParsedStructure() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("reset$$; byte a; align:2; skip:1; val:3 v;"
+        + "header { ubyte len; bit:4 flags; align; inner { int value; } } long [_] tail;");
+    final JBBPFieldPath pathA = parser.preparePath("A");
+    final JBBPFieldPath pathV = parser.preparePath("v");
+    final JBBPFieldPath pathValue = parser.preparePath("header.inner.value");
+    final JBBPFieldPath pathFlags = parser.preparePath("header.flags");
+    final JBBPFieldPath pathTail = parser.preparePath("tail");
+    assertEquals(3, pathValue.getDepth());
+    assertEquals("header.inner.value", pathValue.getPath());
+    assertEquals(1, pathV.getIndex(0));
+    assertEquals(2, pathValue.getIndex(0));
+    assertEquals(2, pathValue.getIndex(1));
+    assertEquals(0, pathValue.getIndex(2));
+    assertEquals(3, pathTail.getIndex(0));
+
+    final byte[] data = new byte[] {1, 0, 0, 5, 0x0F, 0x12, 0x34, 0x56, 0x78, 0, 0, 0, 0, 0, 0,
+        0, 9};
+    for (final JBBPFieldStruct parsed : new JBBPFieldStruct[] {parser.parse(data),
+        parser.compiled().parse(data)}) {
+      for (final JBBPFieldPath path : new JBBPFieldPath[] {pathA, pathV, pathValue, pathFlags,
+          pathTail}) {
+        assertSame(parsed.findFieldForPath(path.getPath()), parsed.get(path));
+      }
+      assertEquals(1, parsed.getInt(pathA));
+      assertEquals(3, parsed.getInt(pathV));
+      assertEquals(0x12345678L, parsed.getLong(pathValue));
+      assertEquals(0x0F, parsed.getInt(pathFlags));
+      assertThrows(JBBPFinderException.class, () -> parsed.getInt(pathTail));
+    }
+
+    final JBBPFieldStruct projected = parser.parse(data, JBBPProjection.of("header.inner"));
+    assertNull(projected.get(pathA));
+    assertEquals(0x12345678, projected.getInt(pathValue));
+    assertThrows(JBBPFinderException.class, () -> projected.getInt(pathFlags));
+
+    assertThrows(JBBPIllegalArgumentException.class, () -> parser.preparePath("header.unknown"));
+    assertThrows(JBBPIllegalArgumentException.class, () -> parser.preparePath("a.b"));
+    assertThrows(JBBPIllegalArgumentException.class,
+        () -> JBBPParser.prepare("s [2] { int a; }").preparePath("s.a"));
+  }
+
+  @Test
+  public void testParse_Projection_OnlySelectedFields() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare(
+        "header { ubyte len; bit:4 flags; bit:4 type; long stamp; }"
+            + " payload { stringj name; int [4] values; ushort crc; } byte [_] tail;");
+    final byte[] data = new byte[] {
+        7, 0x21, 1, 2, 3, 4, 5, 6, 7, 8,
+        2, 'a', 'b', 0, 0, 0, 1, 0, 0, 0, 2, 0, 0, 0, 3, 0, 0, 0, 4, 0x12, 0x34,
+        9, 9, 9};
+
+    final JBBPFieldStruct parsed =
+        parser.parse(data, JBBPProjection.of("header.len", "Payload.CRC"));
+    assertEquals(2, parsed.getArray().length);
+    final JBBPFieldStruct header = parsed.findFieldForNameAndType("header", JBBPFieldStruct.class);
+    assertEquals(1, header.getArray().length);
+    assertEquals(7, header.findFieldForNameAndType("len", JBBPFieldUByte.class).getAsInt());
+    final JBBPFieldStruct payload =
+        parsed.findFieldForNameAndType("payload", JBBPFieldStruct.class);
+    assertEquals(1, payload.getArray().length);
+    assertEquals(0x1234, payload.findFieldForNameAndType("crc", JBBPFieldUShort.class).getAsInt());
+    assertEquals(data.length, parser.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testParse_Projection_DependenciesAreReadButNotPresented() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare(
+        "ubyte n; skipped [n] { ubyte len; byte [len] data; int x; } whole { short s; } int crc;");
+    final byte[] data = new byte[] {2, 1, 5, 0, 0, 0, 0, 3, 1, 2, 3, 0, 0, 0, 0, 1, 1, 0, 0, 1, 0};
+
+    final JBBPFieldStruct parsed = parser.parse(data, JBBPProjection.of("crc", "whole"));
+    assertEquals(2, parsed.getArray().length);
+    assertEquals(0x101,
+        parsed.findFieldForPathAndType("whole.s", JBBPFieldShort.class).getAsInt());
+    assertEquals(0x100, parsed.findFieldForNameAndType("crc", JBBPFieldInt.class).getAsInt());
+    assertNull(parsed.findFieldForNameAndType("n", JBBPFieldUByte.class));
+    assertEquals(data.length, parser.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testParse_Projection_FieldsOfStructArray() throws Exception {
+    final JBBPParser parser =
+        JBBPParser.prepare("items [_] { byte a; bool [2] f; int b; stringj [1] s; }");
+    final byte[] data = new byte[] {1, 1, 0, 0, 0, 0, 2, 1, 'x', 3, 0, 1, 0, 0, 0, 4, 1, 'y'};
+
+    final JBBPFieldArrayStruct items = parser.parse(data, JBBPProjection.of("items.b"))
+        .findFieldForNameAndType("items", JBBPFieldArrayStruct.class);
+    assertEquals(2, items.size());
+    assertEquals(1, items.getElementAt(0).getArray().length);
+    assertEquals(2, items.getElementAt(0).findFieldForType(JBBPFieldInt.class).getAsInt());
+    assertEquals(4, items.getElementAt(1).findFieldForType(JBBPFieldInt.class).getAsInt());
+    assertEquals(data.length, parser.getFinalStreamByteCounter());
+  }
+
+  @Test
+  public void testParse_Projection_SkipWholeStreamArray() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("ubyte a; int [_] rest;");
+    final byte[] data = new byte[1 + 4 * 1000];
+    final AtomicLong skipped = new AtomicLong();
+    final InputStream in = new ByteArrayInputStream(data) {
+      @Override
+      public synchronized long skip(final long n) {
+        final long result = super.skip(n);
+        skipped.addAndGet(result);
+        return result;
+      }
+    };
+
+    final JBBPFieldStruct parsed = parser.parse(in, JBBPProjection.of("a"));
+    assertEquals(1, parsed.getArray().length);
+    assertEquals(4000L, skipped.get());
+    assertEquals(data.length, parser.getFinalStreamByteCounter());
+
+    assertThrows(JBBPParsingException.class, () -> parser.parse(new byte[7]));
+    assertThrows(JBBPParsingException.class,
+        () -> parser.parse(new byte[7], JBBPProjection.of("a")));
+  }
+
+  @Test
+  public void testParse_Projection_UnknownPathAndEof() {
+    final JBBPParser parser = JBBPParser.prepare("int [2] skipped; byte a;");
+    assertThrows(JBBPIllegalArgumentException.class,
+        () -> parser.parse(new byte[9], JBBPProjection.of("b")));
+    assertThrows(JBBPParsingException.class,
+        () -> parser.parse(new byte[7], JBBPProjection.of("a")));
+    assertThrows(IllegalArgumentException.class, JBBPProjection::of);
+  }
+
+  private static String describeParallelParsing(final JBBPParser parser, final byte[] data,
+                                                final ExecutorService executor) {
+    final StringBuilder result = new StringBuilder();
+    try {
+      describeField(result, parser.parse(data, executor));
+    } catch (Exception ex) {
+      result.append(ex.getClass().getName()).append(':').append(ex.getMessage());
+    }
+    return result.append('#').append(parser.getFinalStreamByteCounter()).toString();
+  }
+
+  @Test
+  public void testParse_Parallel_SameAsSequential() throws Exception {
+    final String[] scripts = new String[] {
+        "bit:3 p; data [5000] { bit:3 a; bit:3 b; bit:2 c; byte d; <int e; floatj f;"
+            + " s [2] { ushort g; } } int after;",
+        "ubyte value; data [(value>>1)*(value+3)] { bit:3 a; bit:3 b; bit:2 c; skip:1; }"
+            + " ubyte [(value)] tail;",
+        "ubyte len; data [3000] { byte a; val:(a+1) b; } ubyte [len] tail;",
+        "byte [_] all;"
+    };
+    final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+    try {
+      final Random rnd = new Random(7654321L);
+      for (final String script : scripts) {
+        for (final JBBPBitOrder bitOrder : JBBPBitOrder.values()) {
+          final JBBPParser parser = JBBPParser.prepare(script, bitOrder);
+          for (final int length : new int[] {100000, 30000, 10}) {
+            final byte[] data = new byte[length];
+            rnd.nextBytes(data);
+            data[0] = 100;
+            assertEquals(describeParsing(parser, data),
+                describeParallelParsing(parser, data, executor), script);
+          }
+        }
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+    assertTrue(executor.getCompletedTaskCount() > 0L);
+    assertThrows(NullPointerException.class,
+        () -> JBBPParser.prepare("int a;").parse(new byte[4], (ExecutorService) null));
+  }
+
+  @Test
+  public void testParse_ColumnarStructArrays() throws Exception {
+    final String script = "ubyte n; data [n] { bit:3 a; bit:5 b; <int c; floatj d; bool e;"
+        + " skip:1; ushort f; align:2; } inner [2] { byte [2] x; } other [_] { byte g; long h; }";
+    final byte[] data = new byte[1 + 41 + 2 * 2 + 2 * 9];
+    new Random(112233L).nextBytes(data);
+
+    for (final JBBPBitOrder bitOrder : JBBPBitOrder.values()) {
+      data[0] = bitOrder == JBBPBitOrder.LSB0 ? (byte) 3 : JBBPUtils.reverseBitsInByte((byte) 3);
+      final JBBPFieldStruct expected = JBBPParser.prepare(script, bitOrder).parse(data);
+      final JBBPParser parser =
+          JBBPParser.prepare(script, bitOrder, JBBPParser.FLAG_COLUMNAR_STRUCT_ARRAYS);
+      for (final JBBPFieldStruct parsed : new JBBPFieldStruct[] {parser.parse(data),
+          parser.compiled().parse(data)}) {
+        assertTrue(parsed.findFieldForPath("inner") instanceof JBBPFieldArrayStruct);
+        for (final String path : new String[] {"data", "other"}) {
+          final JBBPFieldArrayStruct structs =
+              expected.findFieldForPathAndType(path, JBBPFieldArrayStruct.class);
+          final JBBPFieldColumnarStruct columns =
+              parsed.findFieldForPathAndType(path, JBBPFieldColumnarStruct.class);
+          assertEquals(structs.size(), columns.size());
+          for (int i = 0; i < structs.size(); i++) {
+            final StringBuilder expectedText = new StringBuilder();
+            describeField(expectedText, structs.getElementAt(i));
+            final StringBuilder resultText = new StringBuilder();
+            describeField(resultText, columns.getElementAt(i));
+            assertEquals(expectedText.toString(), resultText.toString());
+          }
+        }
+        final JBBPFieldArrayInt columnC =
+            parsed.findFieldForPathAndType("data.c", JBBPFieldArrayInt.class);
+        assertEquals(3, columnC.size());
+        assertEquals(2, parsed.findFieldForPathAndType("other.h", JBBPFieldArrayLong.class).size());
+      }
+    }
+
+    assertThrows(JBBPParsingException.class,
+        () -> JBBPParser.prepare("data [2] { int a; }", JBBPParser.FLAG_COLUMNAR_STRUCT_ARRAYS)
+            .parse(new byte[6]));
+    assertTrue(JBBPParser.prepare("data [2] { int a; }",
+        JBBPParser.FLAG_COLUMNAR_STRUCT_ARRAYS | JBBPParser.FLAG_SKIP_REMAINING_FIELDS_IF_EOF)
+        .parse(new byte[4]).findFieldForPath("data") instanceof JBBPFieldArrayStruct);
+  }
 }
@@ -26,6 +26,7 @@ import com.igormaznitsa.jbbp.JBBPCustomFieldTypeProcessor;
 import com.igormaznitsa.jbbp.JBBPParser;
 import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
 import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
+import com.igormaznitsa.jbbp.exceptions.JBBPIllegalArgumentException;
 import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
 import com.igormaznitsa.jbbp.io.JBBPBitOrder;
 import com.igormaznitsa.jbbp.mapper.JBBPMapper;
@@ -390,6 +391,15 @@ class JBBPToJBBPToJavaConverterCompilationTest extends AbstractJBBPToJavaConvert
     assertCompilation(makeSources(parser, null, true, false, false));
   }
 
+  @Test
+  void testWideBitField_ErrorWithFieldName() {
+    final JBBPParser parser = JBBPParser.prepare("byte a; s { bit:12 wide; }");
+    final JBBPIllegalArgumentException error = assertThrows(JBBPIllegalArgumentException.class,
+        () -> makeSources(parser, null, false, false, false));
+    assertTrue(error.getMessage().contains("'s.wide'"), error.getMessage());
+    assertTrue(error.getMessage().contains("1..8"), error.getMessage());
+  }
+
   @Test
   void testStringFieldAsLength_CompilationErrorForStringFieldInArithmeticException()
       throws Exception {
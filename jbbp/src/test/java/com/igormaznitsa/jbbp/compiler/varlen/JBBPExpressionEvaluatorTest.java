@@ -33,6 +33,9 @@ import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
 import com.igormaznitsa.jbbp.model.JBBPFieldInt;
 import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -536,6 +539,43 @@ public class JBBPExpressionEvaluatorTest {
     assertEquals(60 | 7 - ~17 % 1, expr.eval(null, 0, null, null));
   }
 
+  @Test
+  public void testExpression_RepeatedEvalTracksFieldValue() {
+    final JBBPNamedFieldInfo info = new JBBPNamedFieldInfo("value", "value", 0);
+    final byte[] compiled = new byte[] {JBBPCompiler.CODE_INT | JBBPCompiler.FLAG_NAMED};
+    final List<JBBPNamedFieldInfo> list = Collections.singletonList(info);
+    final JBBPCompiledBlock block =
+        JBBPCompiledBlock.prepare().setCompiledData(compiled).setNamedFieldData(list)
+            .setSource("no source").build();
+
+    final JBBPExpressionEvaluator expr =
+        new JBBPExpressionEvaluator("(value>>1)*(value+3)-(2*3+~1)", list, compiled);
+    final JBBPNamedNumericFieldMap map = new JBBPNamedNumericFieldMap();
+    for (int value = -10; value < 10; value++) {
+      map.putField(new JBBPFieldInt(info, value));
+      assertEquals((value >> 1) * (value + 3) - (2 * 3 + ~1), expr.eval(null, 0, block, map));
+    }
+  }
+
+  @Test
+  public void testExpression_ConstantDivisionByZeroThrowsOnEval() {
+    final JBBPExpressionEvaluator expr = new JBBPExpressionEvaluator("(3+4)/(2-2)", null, null);
+    assertThrows(ArithmeticException.class, () -> expr.eval(null, 0, null, null));
+  }
+
+  @Test
+  public void testExpression_Serialization() throws Exception {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+      out.writeObject(new JBBPExpressionEvaluator("-(17*3)%5+~4<<2", null, null));
+    }
+    try (ObjectInputStream in =
+             new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+      final JBBPExpressionEvaluator expr = (JBBPExpressionEvaluator) in.readObject();
+      assertEquals(-(17 * 3) % 5 + ~4 << 2, expr.eval(null, 0, null, null));
+    }
+  }
+
   @Test
   public void testExpression_CheckExternalFieldAndStreamOffset() throws Exception {
     final int value = 1234;
@@ -28,7 +28,11 @@ import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 public class JBBPBitInputStreamTest {
@@ -614,6 +618,69 @@ public class JBBPBitInputStreamTest {
     assertEquals(-1, in.read());
   }
 
+  @Test
+  public void testInsideBuffer_ReadsSourceByBlocks() throws Exception {
+    final byte[] data = new byte[4096];
+    new Random(777L).nextBytes(data);
+    final AtomicInteger readCalls = new AtomicInteger();
+    final InputStream source = new ByteArrayInputStream(data) {
+      @Override
+      public synchronized int read() {
+        readCalls.incrementAndGet();
+        return super.read();
+      }
+
+      @Override
+      public synchronized int read(final byte[] b, final int off, final int len) {
+        readCalls.incrementAndGet();
+        return super.read(b, off, len);
+      }
+    };
+
+    final JBBPBitInputStream etalon = new JBBPBitInputStream(new ByteArrayInputStream(data), JBBPBitOrder.MSB0, 8);
+    final JBBPBitInputStream in = new JBBPBitInputStream(source, JBBPBitOrder.MSB0, 1024);
+    while (etalon.hasAvailableData()) {
+      assertTrue(in.hasAvailableData());
+      assertEquals(etalon.readInt(JBBPByteOrder.LITTLE_ENDIAN), in.readInt(JBBPByteOrder.LITTLE_ENDIAN));
+      assertEquals(etalon.readBits(JBBPBitNumber.BITS_3), in.readBits(JBBPBitNumber.BITS_3));
+      etalon.alignByte();
+      in.alignByte();
+      assertEquals(etalon.skip(3), in.skip(3));
+      assertEquals(etalon.getCounter(), in.getCounter());
+    }
+    assertEquals(-1, in.read());
+    assertTrue(readCalls.get() <= 6, "Read calls: " + readCalls.get());
+  }
+
+  @Test
+  public void testInsideBuffer_MarkResetThroughRefill() throws Exception {
+    final byte[] data = new byte[64];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    final JBBPBitInputStream in = new JBBPBitInputStream(new ByteArrayInputStream(data), JBBPBitOrder.LSB0, 8);
+    assertEquals(0x00010203, in.readInt(JBBPByteOrder.BIG_ENDIAN));
+    in.mark(32);
+    assertArrayEquals(Arrays.copyOfRange(data, 4, 29), in.readByteArray(25));
+    in.reset();
+    assertEquals(4L, in.getCounter());
+    assertEquals(0x04050607, in.readInt(JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(20L, in.skip(20L));
+    assertEquals(28, in.read());
+    assertEquals(29L, in.getCounter());
+
+    in.mark(2);
+    assertEquals(20L, in.skip(20L));
+    assertEquals(49, in.read());
+    assertThrows(IOException.class, in::reset);
+  }
+
+  @Test
+  public void testInsideBuffer_WrongSize() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new JBBPBitInputStream(new ByteArrayInputStream(new byte[0]), JBBPBitOrder.LSB0, 7));
+  }
+
   @Test
   public void testReadBits_ExceptionForWrongArgument() throws Exception {
     final JBBPBitInputStream inLe = new JBBPBitInputStream(
@@ -1395,4 +1462,277 @@ public class JBBPBitInputStreamTest {
     assertEquals(2, in.getCounter());
   }
 
+  @Test
+  public void testSkipAfterHasAvailableDataDoesntReadBits() throws Exception {
+    final AtomicInteger sourceReadBytes = new AtomicInteger();
+    final JBBPBitInputStream in = new JBBPBitInputStream(new ByteArrayInputStream(new byte[100]) {
+      @Override
+      public synchronized int read() {
+        sourceReadBytes.incrementAndGet();
+        return super.read();
+      }
+
+      @Override
+      public synchronized int read(final byte[] b, final int off, final int len) {
+        sourceReadBytes.addAndGet(len);
+        return super.read(b, off, len);
+      }
+    });
+    assertTrue(in.hasAvailableData());
+    assertEquals(8, in.getBufferedBitsNumber());
+    assertEquals(99L, in.skip(99L));
+    assertEquals(0, in.getBufferedBitsNumber());
+    assertEquals(99L, in.getCounter());
+    assertEquals(1, sourceReadBytes.get());
+    assertEquals(1L, in.skip(10L));
+    assertEquals(100L, in.getCounter());
+    assertEquals(-1, in.read());
+  }
+
+  @Test
+  public void testReadAheadOnlyForDefinedBufferSize() throws Exception {
+    final byte[] data = new byte[64];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+
+    final ByteArrayInputStream source = new ByteArrayInputStream(data);
+    final JBBPBitInputStream passThrough = new JBBPBitInputStream(source);
+    assertEquals(0x00010203, passThrough.readInt(JBBPByteOrder.BIG_ENDIAN));
+    assertArrayEquals(new short[] {0x0405, 0x0607},
+        passThrough.readShortArray(2, JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(8, passThrough.readBits(JBBPBitNumber.BITS_4));
+    assertEquals(data.length - 9, source.available());
+
+    final ByteArrayInputStream aheadSource = new ByteArrayInputStream(data);
+    final JBBPBitInputStream readAhead =
+        new JBBPBitInputStream(aheadSource, JBBPBitOrder.LSB0, 16);
+    assertEquals(0x00010203, readAhead.readInt(JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(data.length - 16, aheadSource.available());
+    assertEquals(data.length - 4, readAhead.available());
+  }
+
+  private interface ArrayRead {
+    Object read(JBBPBitInputStream in, int items, JBBPByteOrder byteOrder) throws IOException;
+  }
+
+  private interface ItemRead {
+    Object read(JBBPBitInputStream in, JBBPByteOrder byteOrder) throws IOException;
+  }
+
+  private static void assertBulkArrayRead(final int itemSize, final ArrayRead arrayRead,
+                                          final ItemRead itemRead) throws IOException {
+    final Random rnd = new Random(itemSize * 31L);
+    final byte[] data = new byte[1 + itemSize * 777];
+    rnd.nextBytes(data);
+    for (final JBBPBitOrder bitOrder : JBBPBitOrder.values()) {
+      for (final JBBPByteOrder byteOrder : JBBPByteOrder.values()) {
+        for (final int bufferSize : new int[] {8, 13, 8192}) {
+          for (final int prefixBits : new int[] {0, 3}) {
+            final int items = prefixBits == 0 ? 777 : 776;
+            final JBBPBitInputStream bulk =
+                new JBBPBitInputStream(new ByteArrayInputStream(data), bitOrder, bufferSize);
+            final JBBPBitInputStream single =
+                new JBBPBitInputStream(new ByteArrayInputStream(data), bitOrder, bufferSize);
+            assertEquals(bulk.readByte(), single.readByte());
+            if (prefixBits > 0) {
+              assertEquals(bulk.readBits(JBBPBitNumber.decode(prefixBits)),
+                  single.readBits(JBBPBitNumber.decode(prefixBits)));
+            }
+            final Object array = arrayRead.read(bulk, items, byteOrder);
+            assertEquals(items, Array.getLength(array));
+            for (int i = 0; i < items; i++) {
+              assertEquals(itemRead.read(single, byteOrder), Array.get(array, i));
+            }
+            assertEquals(single.getCounter(), bulk.getCounter());
+            assertEquals(single.getBufferedBitsNumber(), bulk.getBufferedBitsNumber());
+          }
+
+          final JBBPBitInputStream whole =
+              new JBBPBitInputStream(new ByteArrayInputStream(data, 1, data.length - 1), bitOrder,
+                  bufferSize);
+          final Object array = arrayRead.read(whole, -1, byteOrder);
+          assertEquals(777, Array.getLength(array));
+          final JBBPBitInputStream single =
+              new JBBPBitInputStream(new ByteArrayInputStream(data, 1, data.length - 1), bitOrder);
+          for (int i = 0; i < 777; i++) {
+            assertEquals(itemRead.read(single, byteOrder), Array.get(array, i));
+          }
+          assertEquals(777L * itemSize, whole.getCounter());
+        }
+      }
+    }
+
+    final JBBPBitInputStream shortStream =
+        new JBBPBitInputStream(new ByteArrayInputStream(data, 0, itemSize * 3 - 1));
+    assertThrows(EOFException.class,
+        () -> arrayRead.read(shortStream, 3, JBBPByteOrder.BIG_ENDIAN));
+  }
+
+  @Test
+  public void testBulkArrayRead_Short() throws Exception {
+    assertBulkArrayRead(2, JBBPBitInputStream::readShortArray,
+        (in, order) -> (short) in.readUnsignedShort(order));
+  }
+
+  @Test
+  public void testBulkArrayRead_UShort() throws Exception {
+    assertBulkArrayRead(2, JBBPBitInputStream::readUShortArray,
+        (in, order) -> (char) in.readUnsignedShort(order));
+  }
+
+  @Test
+  public void testBulkArrayRead_Int() throws Exception {
+    assertBulkArrayRead(4, JBBPBitInputStream::readIntArray, JBBPBitInputStream::readInt);
+  }
+
+  @Test
+  public void testBulkArrayRead_Float() throws Exception {
+    assertBulkArrayRead(4, JBBPBitInputStream::readFloatArray, JBBPBitInputStream::readFloat);
+  }
+
+  @Test
+  public void testBulkArrayRead_Long() throws Exception {
+    assertBulkArrayRead(8, JBBPBitInputStream::readLongArray, JBBPBitInputStream::readLong);
+  }
+
+  @Test
+  public void testBulkArrayRead_Double() throws Exception {
+    assertBulkArrayRead(8, JBBPBitInputStream::readDoubleArray, JBBPBitInputStream::readDouble);
+  }
+
+  private static long bitsOf(final byte[] data, final int bitOffset, final int width) {
+    long result = 0L;
+    for (int i = 0; i < width; i++) {
+      final int index = bitOffset + i;
+      result |= (long) ((data[index >> 3] >> (index & 7)) & 1) << i;
+    }
+    return result;
+  }
+
+  @Test
+  public void testReadBitsLong() throws Exception {
+    final Random rnd = new Random(777L);
+    final byte[] data = new byte[4096];
+    rnd.nextBytes(data);
+    for (final JBBPBitOrder order : JBBPBitOrder.values()) {
+      final byte[] lsb0 = data.clone();
+      if (order == JBBPBitOrder.MSB0) {
+        for (int i = 0; i < lsb0.length; i++) {
+          lsb0[i] = JBBPUtils.reverseBitsInByte(lsb0[i]);
+        }
+      }
+      final JBBPBitInputStream in =
+          new JBBPBitInputStream(new ByteArrayInputStream(data), order, 16);
+      int offset = 0;
+      while (offset + 64 <= data.length * 8) {
+        final int width = 1 + rnd.nextInt(64);
+        assertEquals(bitsOf(lsb0, offset, width), in.readBitsLong(width), "offset " + offset);
+        offset += width;
+        assertEquals(offset / 8, in.getCounter());
+      }
+    }
+  }
+
+  @Test
+  public void testReadBitsLong_SameAsReadBits() throws Exception {
+    final JBBPBitInputStream in =
+        new JBBPBitInputStream(new ByteArrayInputStream(new byte[] {(byte) 0xA5, 0x3C, 0x7E}));
+    final JBBPBitInputStream etalon =
+        new JBBPBitInputStream(new ByteArrayInputStream(new byte[] {(byte) 0xA5, 0x3C, 0x7E}));
+    for (final int width : new int[] {3, 5, 8, 1, 7}) {
+      assertEquals(etalon.readBits(JBBPBitNumber.decode(width)), in.readBitsLong(width));
+      assertEquals(etalon.getCounter(), in.getCounter());
+      assertEquals(etalon.getBufferedBitsNumber(), in.getBufferedBitsNumber());
+    }
+  }
+
+  @Test
+  public void testReadBitsLong_Errors() throws Exception {
+    final JBBPBitInputStream in = new JBBPBitInputStream(new ByteArrayInputStream(new byte[3]));
+    assertThrows(IllegalArgumentException.class, () -> in.readBitsLong(0));
+    assertThrows(IllegalArgumentException.class, () -> in.readBitsLong(65));
+    assertEquals(0L, in.readBitsLong(3));
+    assertThrows(EOFException.class, () -> in.readBitsLong(22));
+  }
+
+  @Test
+  public void testReadBitsLongArray() throws Exception {
+    final byte[] data = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+    assertArrayEquals(new long[] {0x201L, 0x403L, 0x605L, 0x807L, 0xA09L},
+        new JBBPBitInputStream(new ByteArrayInputStream(data)).readBitsLongArray(5, 16));
+    assertArrayEquals(new long[] {0x030201L, 0x060504L, 0x090807L},
+        new JBBPBitInputStream(new ByteArrayInputStream(data, 0, 9)).readBitsLongArray(-1, 24));
+  }
+
+  @Test
+  public void testReadBitsLongArray_WholeStreamWithPartialLastItem() throws Exception {
+    final byte[] data = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+    final long[] read =
+        new JBBPBitInputStream(new ByteArrayInputStream(data)).readBitsLongArray(-1, 20);
+    assertEquals(5, read.length);
+    for (int i = 0; i < read.length; i++) {
+      assertEquals(bitsOf(data, i * 20, Math.min(20, data.length * 8 - i * 20)), read[i]);
+    }
+
+    final byte[] narrow =
+        new JBBPBitInputStream(new ByteArrayInputStream(data)).readBitsArray(-1,
+            JBBPBitNumber.BITS_3);
+    final long[] wide =
+        new JBBPBitInputStream(new ByteArrayInputStream(data)).readBitsLongArray(-1, 3);
+    assertEquals(30, narrow.length);
+    assertEquals(narrow.length, wide.length);
+    for (int i = 0; i < narrow.length; i++) {
+      assertEquals(narrow[i] & 0xFF, wide[i]);
+    }
+  }
+
+  @Test
+  public void testWholeStreamArrays_SourceWithoutAvailableData() throws Exception {
+    final byte[] data = new byte[100003 * 8];
+    new Random(1234L).nextBytes(data);
+    final class NoAvailableStream extends ByteArrayInputStream {
+      NoAvailableStream(final byte[] array) {
+        super(array);
+      }
+
+      @Override
+      public synchronized int available() {
+        return 0;
+      }
+
+      @Override
+      public synchronized int read(final byte[] b, final int off, final int len) {
+        return super.read(b, off, Math.min(len, 1000));
+      }
+    }
+
+    assertArrayEquals(new JBBPBitInputStream(new ByteArrayInputStream(data)).readByteArray(-1),
+        new JBBPBitInputStream(new NoAvailableStream(data)).readByteArray(-1));
+    assertArrayEquals(new JBBPBitInputStream(new ByteArrayInputStream(data)).readBoolArray(-1),
+        new JBBPBitInputStream(new NoAvailableStream(data)).readBoolArray(-1));
+    assertArrayEquals(
+        new JBBPBitInputStream(new ByteArrayInputStream(data))
+            .readIntArray(-1, JBBPByteOrder.BIG_ENDIAN),
+        new JBBPBitInputStream(new NoAvailableStream(data))
+            .readIntArray(-1, JBBPByteOrder.BIG_ENDIAN));
+    assertArrayEquals(
+        new JBBPBitInputStream(new ByteArrayInputStream(data))
+            .readLongArray(-1, JBBPByteOrder.LITTLE_ENDIAN),
+        new JBBPBitInputStream(new NoAvailableStream(data), JBBPBitOrder.LSB0, 13)
+            .readLongArray(-1, JBBPByteOrder.LITTLE_ENDIAN));
+    assertArrayEquals(
+        new JBBPBitInputStream(new ByteArrayInputStream(data)).readBitsArray(-1,
+            JBBPBitNumber.BITS_4),
+        new JBBPBitInputStream(new NoAvailableStream(data)).readBitsArray(-1,
+            JBBPBitNumber.BITS_4));
+
+    final JBBPBitInputStream in = new JBBPBitInputStream(new NoAvailableStream(data));
+    in.readBits(JBBPBitNumber.BITS_3);
+    final byte[] unaligned = in.readByteArray(-1);
+    assertEquals(data.length, unaligned.length);
+    assertEquals((byte) ((data[0] & 0xFF) >>> 3 | (data[1] & 7) << 5), unaligned[0]);
+    assertEquals((byte) ((data[data.length - 1] & 0xFF) >>> 3), unaligned[data.length - 1]);
+  }
+
 }
@@ -26,6 +26,7 @@ import com.igormaznitsa.jbbp.utils.JBBPUtils;
 import com.igormaznitsa.jbbp.utils.SpecialTestUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 import org.junit.jupiter.api.Test;
 
@@ -575,4 +576,113 @@ public class JBBPBitOutputStreamTest {
     }
   }
 
+  @Test
+  public void testBulkArrayWrite_SameAsSingleWrites() throws Exception {
+    final Random rnd = new Random(4321L);
+    final short[] shorts = new short[333];
+    final int[] ints = new int[333];
+    final float[] floats = new float[333];
+    final long[] longs = new long[333];
+    final double[] doubles = new double[333];
+    for (int i = 0; i < 333; i++) {
+      shorts[i] = (short) rnd.nextInt();
+      ints[i] = rnd.nextInt();
+      floats[i] = rnd.nextFloat();
+      longs[i] = rnd.nextLong();
+      doubles[i] = rnd.nextDouble();
+    }
+    floats[7] = Float.NaN;
+    doubles[7] = Double.NaN;
+
+    for (final JBBPBitOrder bitOrder : JBBPBitOrder.values()) {
+      for (final JBBPByteOrder byteOrder : JBBPByteOrder.values()) {
+        for (final int bufferSize : new int[] {8, 13, 8192}) {
+          for (final boolean prefixBits : new boolean[] {false, true}) {
+            final ByteArrayOutputStream bulkBuffer = new ByteArrayOutputStream();
+            final ByteArrayOutputStream singleBuffer = new ByteArrayOutputStream();
+            final JBBPBitOutputStream bulk =
+                new JBBPBitOutputStream(bulkBuffer, bitOrder, bufferSize);
+            final JBBPBitOutputStream single =
+                new JBBPBitOutputStream(singleBuffer, bitOrder, bufferSize);
+            if (prefixBits) {
+              bulk.writeBits(5, JBBPBitNumber.BITS_3);
+              single.writeBits(5, JBBPBitNumber.BITS_3);
+            }
+            bulk.write(0x12);
+            single.write(0x12);
+
+            bulk.writeShortArray(shorts, -1, byteOrder);
+            bulk.writeIntArray(ints, 100, byteOrder);
+            bulk.writeFloatArray(floats, -1, byteOrder);
+            bulk.writeLongArray(longs, -1, byteOrder);
+            bulk.writeDoubleArray(doubles, 200, byteOrder);
+
+            for (final short v : shorts) {
+              single.writeShort(v, byteOrder);
+            }
+            for (int i = 0; i < 100; i++) {
+              single.writeInt(ints[i], byteOrder);
+            }
+            for (final float v : floats) {
+              single.writeFloat(v, byteOrder);
+            }
+            for (final long v : longs) {
+              single.writeLong(v, byteOrder);
+            }
+            for (int i = 0; i < 200; i++) {
+              single.writeDouble(doubles[i], byteOrder);
+            }
+
+            assertEquals(single.getCounter(), bulk.getCounter());
+            assertEquals(single.getBufferedBitsNumber(), bulk.getBufferedBitsNumber());
+            bulk.close();
+            single.close();
+            assertArrayEquals(singleBuffer.toByteArray(), bulkBuffer.toByteArray());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBufferedWrite_DataPassedOnlyAfterFlushOrFullBuffer() throws Exception {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final JBBPBitOutputStream out = new JBBPBitOutputStream(buffer, JBBPBitOrder.LSB0, 8);
+    out.writeInt(0x01020304, JBBPByteOrder.BIG_ENDIAN);
+    out.writeShort(0x0506, JBBPByteOrder.LITTLE_ENDIAN);
+    assertEquals(0, buffer.size());
+    out.writeLong(0x0708090A0B0C0D0EL, JBBPByteOrder.BIG_ENDIAN);
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 6, 5}, buffer.toByteArray());
+    out.write(new byte[] {(byte) 0xFF, (byte) 0xFE, (byte) 0xFD, (byte) 0xFC, (byte) 0xFB,
+        (byte) 0xFA, (byte) 0xF9, (byte) 0xF8, (byte) 0xF7}, 0, 9);
+    assertEquals(23L, out.getCounter());
+    out.flush();
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 6, 5, 7, 8, 9, 10, 11, 12, 13, 14, (byte) 0xFF,
+        (byte) 0xFE, (byte) 0xFD, (byte) 0xFC, (byte) 0xFB, (byte) 0xFA, (byte) 0xF9,
+        (byte) 0xF8, (byte) 0xF7}, buffer.toByteArray());
+    assertThrows(IllegalArgumentException.class,
+        () -> new JBBPBitOutputStream(buffer, JBBPBitOrder.LSB0, 7));
+  }
+
+  @Test
+  public void testNotBufferedWrite_DataPassedWithoutFlush() throws Exception {
+    final long[] longs = new long[100];
+    Arrays.fill(longs, 0x0102030405060708L);
+    for (final JBBPBitOrder bitOrder : JBBPBitOrder.values()) {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      final JBBPBitOutputStream out = new JBBPBitOutputStream(buffer, bitOrder);
+      out.writeInt(0x01020304, JBBPByteOrder.BIG_ENDIAN);
+      assertEquals(4, buffer.size());
+      out.writeLongArray(longs, -1, JBBPByteOrder.LITTLE_ENDIAN);
+      assertEquals(804, buffer.size());
+      out.write(new byte[] {1, 2, 3}, 0, 3);
+      assertEquals(807, buffer.size());
+      out.writeBits(3, JBBPBitNumber.BITS_4);
+      assertEquals(807, buffer.size());
+      out.writeShort(0x0506, JBBPByteOrder.BIG_ENDIAN);
+      assertEquals(809, buffer.size());
+      assertEquals(809L, out.getCounter());
+    }
+  }
+
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class JBBPByteBufferBitInputStreamTest {
+
+  private static ByteBuffer makeBuffer(final boolean direct, final byte[] data) {
+    final ByteBuffer result = direct ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+    result.put(data);
+    ((Buffer) result).flip();
+    return result;
+  }
+
+  private static void assertSameAsStream(final byte[] data, final ByteBuffer buffer, final JBBPBitOrder order) throws Exception {
+    final JBBPBitInputStream etalon = new JBBPBitInputStream(new ByteArrayInputStream(data), order);
+    final JBBPBitInputStream tested = new JBBPByteBufferBitInputStream(buffer, order);
+
+    assertEquals(etalon.readBits(JBBPBitNumber.BITS_3), tested.readBits(JBBPBitNumber.BITS_3));
+    assertEquals(etalon.readInt(JBBPByteOrder.BIG_ENDIAN), tested.readInt(JBBPByteOrder.BIG_ENDIAN));
+    etalon.alignByte();
+    tested.alignByte();
+    assertEquals(etalon.readUnsignedShort(JBBPByteOrder.LITTLE_ENDIAN), tested.readUnsignedShort(JBBPByteOrder.LITTLE_ENDIAN));
+    assertEquals(etalon.readInt(JBBPByteOrder.LITTLE_ENDIAN), tested.readInt(JBBPByteOrder.LITTLE_ENDIAN));
+    assertEquals(etalon.readLong(JBBPByteOrder.BIG_ENDIAN), tested.readLong(JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(etalon.readLong(JBBPByteOrder.LITTLE_ENDIAN), tested.readLong(JBBPByteOrder.LITTLE_ENDIAN));
+    assertEquals(etalon.readFloat(JBBPByteOrder.LITTLE_ENDIAN), tested.readFloat(JBBPByteOrder.LITTLE_ENDIAN));
+    assertEquals(etalon.readDouble(JBBPByteOrder.BIG_ENDIAN), tested.readDouble(JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(etalon.getCounter(), tested.getCounter());
+    assertEquals(etalon.skip(3), tested.skip(3));
+    assertArrayEquals(etalon.readIntArray(-1, JBBPByteOrder.BIG_ENDIAN), tested.readIntArray(-1, JBBPByteOrder.BIG_ENDIAN));
+    assertArrayEquals(etalon.readByteArray(-1), tested.readByteArray(-1));
+    assertEquals(etalon.getCounter(), tested.getCounter());
+    assertFalse(tested.hasAvailableData());
+  }
+
+  @Test
+  public void testReadValues_HeapAndDirect_LSB0AndMSB0() throws Exception {
+    final Random rnd = new Random(1234L);
+    final byte[] data = new byte[1030];
+    rnd.nextBytes(data);
+    for (final JBBPBitOrder order : JBBPBitOrder.values()) {
+      assertSameAsStream(data, makeBuffer(false, data), order);
+      assertSameAsStream(data, makeBuffer(true, data), order);
+      assertSameAsStream(data, makeBuffer(false, data).asReadOnlyBuffer(), order);
+    }
+  }
+
+  @Test
+  public void testPositionAndLimitAreHonoredAndNotChanged() throws Exception {
+    final ByteBuffer heap = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    ((Buffer) heap).position(2).limit(6);
+    final ByteBuffer direct = makeBuffer(true, heap.array());
+    ((Buffer) direct).position(2).limit(6);
+
+    for (final ByteBuffer buffer : new ByteBuffer[] {heap, direct, heap.slice()}) {
+      final int position = buffer.position();
+      final int limit = buffer.limit();
+      final JBBPBitInputStream in = new JBBPByteBufferBitInputStream(buffer);
+      assertEquals(0x03040506, in.readInt(JBBPByteOrder.BIG_ENDIAN));
+      assertEquals(-1, in.read());
+      assertThrows(EOFException.class, () -> in.readUnsignedShort(JBBPByteOrder.BIG_ENDIAN));
+      assertEquals(4, in.getCounter());
+      assertEquals(position, buffer.position());
+      assertEquals(limit, buffer.limit());
+    }
+  }
+
+  @Test
+  public void testMarkReset() throws Exception {
+    for (final boolean direct : new boolean[] {false, true}) {
+      final JBBPBitInputStream in = new JBBPByteBufferBitInputStream(makeBuffer(direct, new byte[] {1, 2, 3, 4, 5}));
+      assertTrue(in.markSupported());
+      assertEquals(1, in.read());
+      in.mark(16);
+      assertEquals(0x0203, in.readUnsignedShort(JBBPByteOrder.BIG_ENDIAN));
+      assertEquals(2, in.available());
+      in.reset();
+      assertEquals(1, in.getCounter());
+      assertArrayEquals(new byte[] {2, 3, 4, 5}, in.readByteArray(-1));
+      assertEquals(5, in.getCounter());
+    }
+  }
+
+  @Test
+  public void testEOFInMiddleOfValue() throws Exception {
+    final JBBPBitInputStream in = new JBBPByteBufferBitInputStream(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+    assertThrows(EOFException.class, () -> in.readInt(JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(3, in.getCounter());
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+public class JBBPByteBufferBitOutputStreamTest {
+
+  private static void writeValues(final JBBPBitOutputStream out) throws IOException {
+    out.writeBits(3, JBBPBitNumber.BITS_3);
+    out.writeInt(0x01020304, JBBPByteOrder.BIG_ENDIAN);
+    out.align(0);
+    out.writeShort(0x0506, JBBPByteOrder.LITTLE_ENDIAN);
+    out.writeLong(0x0708090A0B0C0D0EL, JBBPByteOrder.LITTLE_ENDIAN);
+    out.writeDoubleArray(new double[] {1.0d, -2.5d}, -1, JBBPByteOrder.BIG_ENDIAN);
+    out.writeIntArray(new int[1000], -1, JBBPByteOrder.BIG_ENDIAN);
+    out.write(new byte[] {1, 2, 3, 4, 5});
+    out.writeString("Hello", JBBPByteOrder.BIG_ENDIAN);
+  }
+
+  private static byte[] writeIntoStream(final JBBPBitOrder order) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final JBBPBitOutputStream out = new JBBPBitOutputStream(buffer, order);
+    writeValues(out);
+    out.close();
+    return buffer.toByteArray();
+  }
+
+  @Test
+  public void testWriteValues_HeapAndDirect_LSB0AndMSB0() throws Exception {
+    for (final JBBPBitOrder order : JBBPBitOrder.values()) {
+      final byte[] etalon = writeIntoStream(order);
+      for (final boolean direct : new boolean[] {false, true}) {
+        final ByteBuffer buffer =
+            direct ? ByteBuffer.allocateDirect(etalon.length + 10) :
+                ByteBuffer.allocate(etalon.length + 10);
+        ((Buffer) buffer).position(3);
+        final JBBPBitOutputStream out = new JBBPByteBufferBitOutputStream(buffer, order);
+        writeValues(out);
+        assertEquals(etalon.length, out.getCounter());
+        out.close();
+        assertEquals(3 + etalon.length, buffer.position());
+
+        final byte[] written = new byte[etalon.length];
+        ((Buffer) buffer).flip();
+        ((Buffer) buffer).position(3);
+        buffer.get(written);
+        assertArrayEquals(etalon, written);
+      }
+    }
+  }
+
+  @Test
+  public void testNotEnoughSpace() throws Exception {
+    final ByteBuffer buffer = ByteBuffer.allocate(10);
+    final JBBPBitOutputStream out = new JBBPByteBufferBitOutputStream(buffer);
+    out.writeLong(1L, JBBPByteOrder.BIG_ENDIAN);
+    assertEquals(8, buffer.position());
+    assertThrows(IOException.class, () -> out.writeInt(2, JBBPByteOrder.BIG_ENDIAN));
+    assertEquals(8, buffer.position());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JBBPMappedFileBitInputStreamTest {
+
+  @TempDir
+  File tempFolder;
+
+  private File makeFile(final byte[] data) throws Exception {
+    final File result = new File(this.tempFolder, "data.bin");
+    FileUtils.writeByteArrayToFile(result, data);
+    return result;
+  }
+
+  @Test
+  public void testReadValues_WindowsSmallerThanValues() throws Exception {
+    final Random rnd = new Random(4321L);
+    final byte[] data = new byte[1031];
+    rnd.nextBytes(data);
+    final File file = makeFile(data);
+
+    for (final JBBPBitOrder order : JBBPBitOrder.values()) {
+      for (final int window : new int[] {1, 3, 7, 64, JBBPMappedFileBitInputStream.DEFAULT_WINDOW_SIZE}) {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+          final JBBPBitInputStream etalon = new JBBPBitInputStream(new ByteArrayInputStream(data), order);
+          final JBBPBitInputStream tested = new JBBPMappedFileBitInputStream(raf.getChannel(), order, window);
+
+          assertEquals(etalon.readBits(JBBPBitNumber.BITS_5), tested.readBits(JBBPBitNumber.BITS_5));
+          assertEquals(etalon.readLong(JBBPByteOrder.LITTLE_ENDIAN), tested.readLong(JBBPByteOrder.LITTLE_ENDIAN));
+          etalon.alignByte();
+          tested.alignByte();
+          assertEquals(etalon.readInt(JBBPByteOrder.BIG_ENDIAN), tested.readInt(JBBPByteOrder.BIG_ENDIAN));
+          assertEquals(etalon.readDouble(JBBPByteOrder.LITTLE_ENDIAN), tested.readDouble(JBBPByteOrder.LITTLE_ENDIAN));
+          assertEquals(etalon.skip(11), tested.skip(11));
+          assertArrayEquals(etalon.readByteArray(17), tested.readByteArray(17));
+          assertArrayEquals(etalon.readShortArray(-1, JBBPByteOrder.BIG_ENDIAN), tested.readShortArray(-1, JBBPByteOrder.BIG_ENDIAN));
+          assertEquals(etalon.getCounter(), tested.getCounter());
+          assertFalse(tested.hasAvailableData());
+        } finally {
+          raf.close();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStartsFromChannelPositionAndDoesNotChangeIt() throws Exception {
+    final File file = makeFile(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      final FileChannel channel = raf.getChannel();
+      channel.position(3L);
+      final JBBPBitInputStream in = new JBBPMappedFileBitInputStream(channel, JBBPBitOrder.LSB0, 2);
+      assertEquals(0x04050607, in.readInt(JBBPByteOrder.BIG_ENDIAN));
+      assertEquals(8, in.read());
+      assertEquals(-1, in.read());
+      assertThrows(EOFException.class, () -> in.readUnsignedShort(JBBPByteOrder.BIG_ENDIAN));
+      assertEquals(5L, in.getCounter());
+      assertEquals(3L, channel.position());
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testMarkResetThroughWindows() throws Exception {
+    final File file = makeFile(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      final JBBPBitInputStream in = new JBBPMappedFileBitInputStream(raf.getChannel(), JBBPBitOrder.LSB0, 3);
+      assertEquals(1, in.read());
+      in.mark(16);
+      assertEquals(0x02030405, in.readInt(JBBPByteOrder.BIG_ENDIAN));
+      assertEquals(3, in.available());
+      in.reset();
+      assertEquals(1L, in.getCounter());
+      assertArrayEquals(new byte[] {2, 3, 4, 5, 6, 7, 8}, in.readByteArray(-1));
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void testWrongWindowSize() throws Exception {
+    final File file = makeFile(new byte[] {1});
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      assertThrows(IllegalArgumentException.class,
+          () -> new JBBPMappedFileBitInputStream(raf.getChannel(), JBBPBitOrder.LSB0, 0));
+    } finally {
+      raf.close();
+    }
+  }
+}
@@ -38,6 +38,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 
 public class JBBPOutTest {
@@ -1511,5 +1514,213 @@ public class JBBPOutTest {
     }
   }
 
+  @Test
+  public void testReset_ByteArray_ReusedForSeveralSessions() throws Exception {
+    final byte[] array = new byte[16];
+    final JBBPOut out = BeginBin(array, 2, 10);
+    for (int i = 0; i < 3; i++) {
+      out.reset(array, 2, 10).Byte(i).Bit(1, 0, 1).Align().ByteOrder(JBBPByteOrder.LITTLE_ENDIAN)
+          .Int(0x01020304 + i).End();
+      assertEquals(6, out.getWrittenLength());
+      assertArrayEquals(BeginBin().Byte(i).Bit(1, 0, 1).Align()
+              .ByteOrder(JBBPByteOrder.LITTLE_ENDIAN).Int(0x01020304 + i).End().toByteArray(),
+          Arrays.copyOfRange(array, 2, 8));
+    }
+    assertEquals(0, array[0]);
+    assertEquals(0, array[8]);
+  }
+
+  @Test
+  public void testReset_RestoresByteOrderAndDropsNotFlushedData() throws Exception {
+    final byte[] array = new byte[8];
+    final JBBPOut out = BeginBin(array, 0, 8);
+    out.ByteOrder(JBBPByteOrder.LITTLE_ENDIAN).Bits(JBBPBitNumber.BITS_3, 7).Short(1);
+    out.reset().Short(0x0102).End();
+    assertEquals(2, out.getWrittenLength());
+    assertEquals(1, array[0]);
+    assertEquals(2, array[1]);
+  }
+
+  @Test
+  public void testReset_ByteArray_ErrorForOverflow() throws Exception {
+    final byte[] array = new byte[4];
+    assertThrows(IOException.class, () -> BeginBin(array, 1, 3).Int(1).End());
+    assertThrows(IndexOutOfBoundsException.class, () -> BeginBin(array, 2, 3));
+    assertThrows(NullPointerException.class, () -> BeginBin(null, 0, 0));
+  }
+
+  @Test
+  public void testReset_ByteBuffer() throws Exception {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+    ((Buffer) buffer).position(3);
+    final JBBPOut out = BeginBin(buffer).Short(0x0102).Byte(3);
+    assertEquals(3, out.getWrittenLength());
+    out.End();
+    assertEquals(3, out.getWrittenLength());
+    assertEquals(6, buffer.position());
+    out.reset().Byte(9).End();
+    assertEquals(1, out.getWrittenLength());
+    assertEquals(4, buffer.position());
+    assertEquals(9, buffer.get(3));
+    assertEquals(2, buffer.get(4));
+  }
+
+  @Test
+  public void testReset_HeapByteBufferWrittenDirectly() throws Exception {
+    final byte[] array = new byte[16];
+    final ByteBuffer buffer = ByteBuffer.wrap(array, 2, 14).slice();
+    ((Buffer) buffer).position(1);
+    final JBBPOut out = BeginBin(buffer).Short(0x0102).Int(0x03040506);
+    assertEquals(6, out.getWrittenLength());
+    assertEquals(2, array[4]);
+    assertEquals(6, array[8]);
+    out.End();
+    assertEquals(7, buffer.position());
+
+    out.reset(buffer).Int(0x0708090A).Short(0x0B0C);
+    assertThrows(IOException.class, () -> out.Short(1));
+    out.End();
+    assertEquals(6, out.getWrittenLength());
+    assertEquals(13, buffer.position());
+    assertEquals(0x0C, array[14]);
+    assertEquals(0, array[15]);
+
+    final ByteBuffer direct = ByteBuffer.allocateDirect(2);
+    out.reset(direct).Short(0x0102).End();
+    assertEquals(2, direct.position());
+    out.reset(array, 0, 1).Byte(9).End();
+    assertEquals(1, out.getWrittenLength());
+    assertEquals(9, array[0]);
+    assertEquals(2, direct.position());
+  }
 
+  @Test
+  public void testReset_SwitchFromByteArrayOutputStream() throws Exception {
+    final JBBPOut out = BeginBin(JBBPBitOrder.MSB0);
+    assertEquals(2, out.Byte(1, 2).End().toByteArray().length);
+    assertEquals(2, out.getWrittenLength());
+    out.reset();
+    assertEquals(0, out.getWrittenLength());
+
+    final byte[] array = new byte[2];
+    assertNull(out.reset(array, 0, 2).Byte(1).End());
+    assertEquals((byte) 0x80, array[0]);
+    assertEquals(1, out.getWrittenLength());
+    assertEquals(-1, BeginBin(new DataOutputStream(new ByteArrayOutputStream()))
+        .getWrittenLength());
+  }
+
+  @Test
+  public void testGetThreadLocalInstance() throws Exception {
+    final JBBPOut lsb = JBBPOut.getThreadLocalInstance(JBBPBitOrder.LSB0);
+    final JBBPOut msb = JBBPOut.getThreadLocalInstance(JBBPBitOrder.MSB0);
+    assertSame(lsb, JBBPOut.getThreadLocalInstance(JBBPBitOrder.LSB0));
+    assertSame(msb, JBBPOut.getThreadLocalInstance(JBBPBitOrder.MSB0));
+    assertThrows(IllegalStateException.class, () -> lsb.Byte(1));
+
+    final byte[] array = new byte[2];
+    lsb.reset(array, 0, 2).Byte(1).End();
+    msb.reset(array, 1, 1).Byte(1).End();
+    assertArrayEquals(new byte[] {1, (byte) 0x80}, array);
+
+    final JBBPOut[] other = new JBBPOut[1];
+    final Thread thread =
+        new Thread(() -> other[0] = JBBPOut.getThreadLocalInstance(JBBPBitOrder.LSB0));
+    thread.start();
+    thread.join();
+    assertNotNull(other[0]);
+    assertTrue(other[0] != lsb);
+  }
+
+  @Test
+  public void testBin_WritePlanGivesSameDataAsObserver() throws Exception {
+    class Inner {
+      @Bin(order = 1)
+      int a = 0x01020304;
+      @Bin(order = 2, bitOrder = JBBPBitOrder.MSB0, byteOrder = JBBPByteOrder.LITTLE_ENDIAN)
+      short b = 0x0506;
+    }
+
+    class Test {
+      @Bin(order = 1, type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_3)
+      byte bits = 5;
+      @Bin(order = 2, type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_5,
+          bitOrder = JBBPBitOrder.MSB0)
+      int msbBits = 3;
+      @Bin(order = 3, type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_1)
+      boolean flagBit = true;
+      @Bin(order = 4)
+      boolean flag = true;
+      @Bin(order = 5, type = BinType.BOOL, bitOrder = JBBPBitOrder.MSB0)
+      int flagNumber = 7;
+      @Bin(order = 6, type = BinType.UBYTE, bitOrder = JBBPBitOrder.MSB0)
+      int ubyte = 0x81;
+      @Bin(order = 7, byteOrder = JBBPByteOrder.LITTLE_ENDIAN)
+      char ch = 0xA1B2;
+      @Bin(order = 8, type = BinType.USHORT)
+      long ushort = 0x1234;
+      @Bin(order = 9, bitOrder = JBBPBitOrder.MSB0)
+      long lng = 0x0102030405060708L;
+      @Bin(order = 10)
+      float flt = 1.5f;
+      @Bin(order = 11, type = BinType.DOUBLE, byteOrder = JBBPByteOrder.LITTLE_ENDIAN)
+      float fltAsDouble = -2.25f;
+      @Bin(order = 12)
+      Inner inner = new Inner();
+      @Bin(order = 13, type = BinType.BIT_ARRAY, bitNumber = JBBPBitNumber.BITS_4)
+      byte[] bitArray = new byte[] {1, 2, 3};
+      @Bin(order = 14, bitOrder = JBBPBitOrder.MSB0)
+      boolean[] boolArray = new boolean[] {true, false, true};
+      @Bin(order = 15)
+      byte[] byteArray = new byte[] {1, 2, 3};
+      @Bin(order = 16, bitOrder = JBBPBitOrder.MSB0)
+      byte[] msbByteArray = new byte[] {1, 2, 3};
+      @Bin(order = 17, byteOrder = JBBPByteOrder.LITTLE_ENDIAN)
+      short[] shortArray = new short[] {1, -2};
+      @Bin(order = 18)
+      char[] charArray = new char[] {'a', 0xFFEE};
+      @Bin(order = 19, bitOrder = JBBPBitOrder.MSB0)
+      int[] intArray = new int[] {1, -2};
+      @Bin(order = 20)
+      long[] longArray = new long[] {1L, -2L};
+      @Bin(order = 21, byteOrder = JBBPByteOrder.LITTLE_ENDIAN)
+      float[] floatArray = new float[] {1.5f, -2.5f};
+      @Bin(order = 22, bitOrder = JBBPBitOrder.MSB0)
+      double[] doubleArray = new double[] {1.5d, -2.5d};
+      @Bin(order = 23)
+      Inner[] innerArray = new Inner[] {new Inner(), new Inner()};
+      @Bin(order = 24)
+      String str = "Hello";
+      @Bin(order = 25, type = BinType.INT)
+      double intFromDouble = 12.7d;
+    }
+
+    final Test test = new Test();
+    test.innerArray[1].a = 0x7F;
+    for (final JBBPBitOrder bitOrder : JBBPBitOrder.values()) {
+      final byte[] etalon = BeginBin(bitOrder).Bin(test, new BinAnnotationWrapper(), null).End()
+          .toByteArray();
+      assertArrayEquals(etalon, BeginBin(bitOrder).Bin(test).End().toByteArray());
+      assertArrayEquals(etalon, BeginBin(bitOrder).Bin(test).End().toByteArray());
+    }
+  }
+
+  @Test
+  public void testBin_WritePlanErrors() throws Exception {
+    class Custom {
+      @Bin(custom = true)
+      int a;
+    }
+    class NullStruct {
+      @Bin(type = BinType.STRUCT)
+      Object struct;
+    }
+    assertThrows(JBBPIllegalArgumentException.class, () -> BeginBin().Bin(new Custom()));
+    assertThrows(NullPointerException.class, () -> BeginBin().Bin(new NullStruct()));
+    assertThrows(IllegalStateException.class, () -> {
+      final JBBPOut out = BeginBin();
+      out.End();
+      out.Bin(new Custom());
+    });
+  }
 }
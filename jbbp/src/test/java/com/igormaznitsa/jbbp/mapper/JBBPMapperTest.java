@@ -1151,6 +1151,47 @@ public class JBBPMapperTest {
     assertEquals(0, parsed.b);
   }
 
+  @Test
+  void testMap_StructuresWithDifferentFieldOrder() throws Exception {
+    class Parsed {
+      @Bin
+      int a;
+      @Bin
+      byte b;
+    }
+
+    final byte[] data = new byte[] {1, 2, 3, 4, 5};
+    final Parsed first = JBBPParser.prepare("int a; byte b;").parse(data).mapTo(new Parsed());
+    assertEquals(0x01020304, first.a);
+    assertEquals(5, first.b);
+
+    final Parsed second = JBBPParser.prepare("byte b; int a;").parse(data).mapTo(new Parsed());
+    assertEquals(0x02030405, second.a);
+    assertEquals(1, second.b);
+
+    final Parsed third = JBBPParser.prepare("byte b;").parse(data).mapTo(new Parsed(),
+        JBBPMapper.FLAG_IGNORE_MISSING_VALUES);
+    assertEquals(0, third.a);
+    assertEquals(1, third.b);
+  }
+
+  @Test
+  void testFieldCache() throws Exception {
+    class Parsed {
+      @Bin
+      int a;
+    }
+
+    JBBPMapper.clearFieldCache();
+    assertEquals(0, JBBPMapper.getFieldCacheSize());
+    JBBPParser.prepare("int a;").parse(new byte[] {1, 2, 3, 4}).mapTo(new Parsed());
+    assertEquals(1, JBBPMapper.getFieldCacheSize());
+    assertSame(JBBPMapper.findAffectedFields(new Parsed()),
+        JBBPMapper.findAffectedFields(new Parsed()));
+    JBBPMapper.clearFieldCache();
+    assertEquals(0, JBBPMapper.getFieldCacheSize());
+  }
+
   public static class StaticTop {
     @Bin
     public StaticLevelOne levelOne;
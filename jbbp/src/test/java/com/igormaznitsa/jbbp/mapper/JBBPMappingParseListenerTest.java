@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.igormaznitsa.jbbp.JBBPParser;
+import com.igormaznitsa.jbbp.exceptions.JBBPMapperException;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import java.io.ByteArrayInputStream;
+import org.junit.jupiter.api.Test;
+
+public class JBBPMappingParseListenerTest {
+
+  private static final String SCRIPT = "bit:3 bits; align; bool flag; ubyte ub; byte b;"
+      + "short s; ushort us; int i; long l; floatj f; doublej d; stringj str; byte [2] bytes;"
+      + "int [2] ints; ushort [2] chars; long [2] doubles; skip:1; int ignored; inner {int a;}"
+      + "items [2] {byte v;} rest [_] {byte v;}";
+
+  private static final byte[] DATA = new byte[] {
+      5, 1, (byte) 0xF0, (byte) 0x81, 1, 2, (byte) 0xFF, (byte) 0xFE, 1, 2, 3, 4,
+      1, 2, 3, 4, 5, 6, 7, 8, 0x3F, (byte) 0xC0, 0, 0, 0x40, 0, 0, 0, 0, 0, 0, 0,
+      3, 'a', 'b', 'c', 9, 8, 0, 0, 0, 1, 0, 0, 0, 2, 0, 'x', 0, 'y',
+      0x3F, (byte) 0xF0, 0, 0, 0, 0, 0, 0, 0x40, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+      0, 0, 0, 0x11, 1, 2, 3, 4, 5
+  };
+
+  private static <T> void assertSameMapping(final JBBPParser parser, final byte[] data,
+                                            final T viaListener, final T viaStructure,
+                                            final int flags) throws Exception {
+    assertSame(viaListener,
+        parser.parseInto(new ByteArrayInputStream(data), viaListener, flags));
+    parser.parse(data).mapTo(viaStructure, flags);
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue(JBBPMappingParseListener.isSupported(Mapped.class));
+    assertFalse(JBBPMappingParseListener.isSupported(MappedWithPath.class));
+    assertFalse(JBBPMappingParseListener.isSupported(MappedWithCustom.class));
+    assertFalse(JBBPMappingParseListener.isSupported(WithUnsupportedInner.class));
+  }
+
+  @Test
+  public void testParseInto_SameAsMappingOfParsedStructure() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare(SCRIPT);
+    final Mapped viaListener = new Mapped();
+    final Mapped viaStructure = new Mapped();
+    assertSameMapping(parser, DATA, viaListener, viaStructure, 0);
+
+    assertEquals(5, viaListener.bits);
+    assertTrue(viaListener.flag);
+    assertEquals(0xF0, viaListener.ub);
+    assertEquals(0x0102, viaListener.s);
+    assertEquals((char) 0xFFFE, viaListener.us);
+    assertEquals(0x01020304L, viaListener.i);
+    assertEquals(1.5f, viaListener.f);
+    assertEquals(2.0d, viaListener.d);
+    assertEquals("abc", viaListener.str);
+    assertEquals(0x11, viaListener.inner.a);
+    assertEquals(3, viaListener.rest.length);
+    assertEquals(0, viaListener.notParsed);
+
+    assertEquals(viaStructure.bits, viaListener.bits);
+    assertEquals(viaStructure.flag, viaListener.flag);
+    assertEquals(viaStructure.ub, viaListener.ub);
+    assertEquals(viaStructure.b, viaListener.b);
+    assertEquals(viaStructure.s, viaListener.s);
+    assertEquals(viaStructure.us, viaListener.us);
+    assertEquals(viaStructure.i, viaListener.i);
+    assertEquals(viaStructure.l, viaListener.l);
+    assertEquals(viaStructure.f, viaListener.f);
+    assertEquals(viaStructure.d, viaListener.d);
+    assertEquals(viaStructure.str, viaListener.str);
+    assertArrayEquals(viaStructure.bytes, viaListener.bytes);
+    assertArrayEquals(viaStructure.ints, viaListener.ints);
+    assertArrayEquals(viaStructure.chars, viaListener.chars);
+    assertArrayEquals(viaStructure.doubles, viaListener.doubles);
+    assertEquals(viaStructure.inner.a, viaListener.inner.a);
+    for (int i = 0; i < 2; i++) {
+      assertEquals(viaStructure.items[i].v, viaListener.items[i].v);
+    }
+    for (int i = 0; i < 3; i++) {
+      assertEquals(viaStructure.rest[i].v, viaListener.rest[i].v);
+    }
+  }
+
+  @Test
+  public void testParseInto_MsbBitOrderAndExistingObjects() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("bit:4 a; bit:4 [2] b; int c; x {byte v;}"
+        + "y [2] {byte v;}");
+    final byte[] data = new byte[] {0x21, 0x43, 1, 2, 3, 4, 5, 6, 7};
+    final MsbMapped viaListener = new MsbMapped();
+    final MsbMapped viaStructure = new MsbMapped();
+    final MsbMapped.Item existingItem = viaListener.y[1];
+    final MsbMapped.Item existingX = viaListener.x;
+    assertSameMapping(parser, data, viaListener, viaStructure, 0);
+
+    assertSame(existingX, viaListener.x);
+    assertSame(existingItem, viaListener.y[1]);
+    assertEquals(viaStructure.a, viaListener.a);
+    assertArrayEquals(viaStructure.b, viaListener.b);
+    assertEquals(viaStructure.c, viaListener.c);
+    assertEquals(viaStructure.x.v, viaListener.x.v);
+    assertEquals(viaStructure.y[0].v, viaListener.y[0].v);
+    assertEquals(viaStructure.y[1].v, viaListener.y[1].v);
+  }
+
+  @Test
+  public void testParseInto_Errors() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare("int i;");
+    assertThrows(JBBPMapperException.class,
+        () -> parser.parseInto(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}), new Mapped()));
+    final Mapped ignored = parser.parseInto(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}),
+        new Mapped(), JBBPMapper.FLAG_IGNORE_MISSING_VALUES);
+    assertEquals(0x01020304L, ignored.i);
+    assertNull(ignored.str);
+
+    assertThrows(JBBPMapperException.class,
+        () -> JBBPParser.prepare("bit:3 a;").parseInto(new ByteArrayInputStream(new byte[1]),
+            new WrongBitness()));
+    assertThrows(JBBPMapperException.class,
+        () -> JBBPParser.prepare("y [3] {byte v;}").parseInto(
+            new ByteArrayInputStream(new byte[3]), new ExistingArray()));
+    assertThrows(JBBPMapperException.class,
+        () -> JBBPParser.prepare("y [_] {byte v;}").parseInto(
+            new ByteArrayInputStream(new byte[3]), new ExistingArray()));
+  }
+
+  @Test
+  public void testParseInto_UnsupportedClassMappedThroughStructure() throws Exception {
+    final MappedWithPath result = JBBPParser.prepare("s {int a;}")
+        .parseInto(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}), new MappedWithPath());
+    assertEquals(0x01020304, result.a);
+  }
+
+  @Test
+  public void testParseTo() throws Exception {
+    final ExistingArray result = JBBPParser.prepare("y [2] {byte v;}")
+        .parseTo(new ByteArrayInputStream(new byte[] {7, 8}), ExistingArray.class);
+    assertEquals(7, result.y[0].v);
+    assertEquals(8, result.y[1].v);
+  }
+
+  @Test
+  public void testParseInto_RecursiveClassAndSubclassedItem() throws Exception {
+    final Node root = new Node();
+    final SubNode existing = new SubNode();
+    root.items = new Node[] {null, existing};
+    assertSame(root, JBBPParser.prepare("byte v; items [2] {byte v; byte n; items [n] {byte v;}}")
+        .parseInto(new ByteArrayInputStream(new byte[] {1, 2, 0, 3, 0}), root));
+    assertEquals(1, root.v);
+    assertEquals(Node.class, root.items[0].getClass());
+    assertEquals(2, root.items[0].v);
+    assertEquals(0, root.items[0].items.length);
+    assertSame(existing, root.items[1]);
+    assertEquals(3, existing.v);
+    assertEquals(0, existing.items.length);
+  }
+
+  public static class Mapped {
+    @Bin(type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_3)
+    public byte bits;
+    @Bin
+    public boolean flag;
+    @Bin(type = BinType.UBYTE)
+    public int ub;
+    @Bin
+    public byte b;
+    @Bin
+    public short s;
+    @Bin(type = BinType.USHORT)
+    public char us;
+    @Bin(type = BinType.INT)
+    public long i;
+    @Bin
+    public long l;
+    @Bin
+    public float f;
+    @Bin
+    public double d;
+    @Bin
+    public String str;
+    @Bin
+    public byte[] bytes;
+    @Bin
+    public int[] ints;
+    @Bin(type = BinType.USHORT_ARRAY)
+    public char[] chars;
+    @Bin(type = BinType.LONG_ARRAY)
+    public double[] doubles;
+    @Bin
+    public Inner inner;
+    @Bin
+    public Item[] items;
+    @Bin
+    public Item[] rest;
+    public int notParsed;
+
+    public static class Inner {
+      @Bin
+      public int a;
+    }
+
+    public static class Item {
+      @Bin
+      public byte v;
+    }
+  }
+
+  public static class MsbMapped {
+    @Bin(type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_4, bitOrder = JBBPBitOrder.MSB0)
+    public byte a;
+    @Bin(type = BinType.BIT_ARRAY, bitNumber = JBBPBitNumber.BITS_4,
+        bitOrder = JBBPBitOrder.MSB0)
+    public byte[] b;
+    @Bin(bitOrder = JBBPBitOrder.MSB0)
+    public int c;
+    @Bin
+    public Item x = new Item();
+    @Bin
+    public Item[] y = new Item[] {null, new Item()};
+
+    public static class Item {
+      @Bin
+      public byte v;
+    }
+  }
+
+  public static class MappedWithPath {
+    @Bin(path = "s.a")
+    public int a;
+  }
+
+  public static class MappedWithCustom {
+    @Bin(custom = true)
+    public int a;
+  }
+
+  public static class WithUnsupportedInner {
+    @Bin
+    public MappedWithPath inner;
+  }
+
+  public static class WrongBitness {
+    @Bin(type = BinType.BIT, bitNumber = JBBPBitNumber.BITS_4)
+    public byte a;
+  }
+
+  public static class Node {
+    @Bin
+    public byte v;
+    @Bin
+    public Node[] items;
+  }
+
+  public static class SubNode extends Node {
+  }
+
+  public static class ExistingArray {
+    @Bin
+    public Mapped.Item[] y = new Mapped.Item[2];
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.igormaznitsa.jbbp.JBBPParser;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitNumber;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.mapper.Bin;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class JBBPCompactLayoutTest {
+
+  private static final String SCRIPT = "bit:3 b3; bit:5 b5; bool flag; byte sb; ubyte ub;"
+      + " short s; ushort us; int i; floatj f; long l; doublej d; stringj str;"
+      + " ubyte len; int [len] ints; inner { ubyte a; short b; } pairs [2] { byte x; int y; }"
+      + " byte [_] rest;";
+
+  private static final byte[] DATA = new byte[] {
+      (byte) 0xAD, 1, (byte) 0xFE, (byte) 0xF0,
+      (byte) 0x81, 2, (byte) 0xFF, (byte) 0xFE,
+      0x12, 0x34, 0x56, 0x78,
+      0x3F, (byte) 0x80, 0, 0,
+      0, 0, 0, 0, 0, 0, 0, 7,
+      (byte) 0xC0, 0, 0, 0, 0, 0, 0, 0,
+      2, 'a', 'b',
+      2, 0, 0, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+      (byte) 0x99, 1, 2,
+      5, 0, 0, 0, 6, -7, 0, 0, 0, 8,
+      1, 2, 3};
+
+  private static final JBBPNamedFieldInfo NAME_A = new JBBPNamedFieldInfo("a", "a", 0);
+  private static final JBBPNamedFieldInfo NAME_B = new JBBPNamedFieldInfo("b", "b", 1);
+
+  private static void assertSameTree(final JBBPAbstractField expected,
+                                     final JBBPAbstractField actual) {
+    assertSame(expected.getClass(), actual.getClass());
+    assertEquals(expected.getNameInfo(), actual.getNameInfo());
+    if (expected instanceof JBBPFieldStruct) {
+      final JBBPFieldStruct expectedStruct = (JBBPFieldStruct) expected;
+      final JBBPFieldStruct actualStruct = (JBBPFieldStruct) actual;
+      assertEquals(expectedStruct.getFieldCount(), actualStruct.getFieldCount());
+      for (int i = 0; i < expectedStruct.getFieldCount(); i++) {
+        assertSameTree(expectedStruct.getFieldAt(i), actualStruct.getFieldAt(i));
+      }
+    } else if (expected instanceof JBBPFieldArrayStruct) {
+      final JBBPFieldArrayStruct expectedArray = (JBBPFieldArrayStruct) expected;
+      final JBBPFieldArrayStruct actualArray = (JBBPFieldArrayStruct) actual;
+      assertEquals(expectedArray.size(), actualArray.size());
+      for (int i = 0; i < expectedArray.size(); i++) {
+        assertSameTree(expectedArray.getElementAt(i), actualArray.getElementAt(i));
+      }
+    } else if (expected instanceof JBBPAbstractArrayField) {
+      assertEquals(((JBBPAbstractArrayField<?>) expected).size(),
+          ((JBBPAbstractArrayField<?>) actual).size());
+      for (int i = 0; i < ((JBBPAbstractArrayField<?>) expected).size(); i++) {
+        assertSameTree(((JBBPAbstractArrayField<?>) expected).getElementAt(i),
+            ((JBBPAbstractArrayField<?>) actual).getElementAt(i));
+      }
+    } else if (expected instanceof JBBPFieldString) {
+      assertEquals(((JBBPFieldString) expected).getAsString(),
+          ((JBBPFieldString) actual).getAsString());
+    } else if (expected instanceof JBBPNumericField) {
+      assertEquals(((JBBPNumericField) expected).getAsLong(),
+          ((JBBPNumericField) actual).getAsLong());
+      assertEquals(((JBBPNumericField) expected).getAsDouble(),
+          ((JBBPNumericField) actual).getAsDouble());
+    }
+  }
+
+  @Test
+  public void testParsedCompactStructHasSameValues() throws Exception {
+    final JBBPFieldStruct expected = JBBPParser.prepare(SCRIPT).parse(DATA);
+    final JBBPFieldStruct compact = JBBPParser.prepare(SCRIPT, JBBPParser.FLAG_COMPACT_STRUCTS)
+        .parse(DATA);
+    assertFalse(expected.isCompact());
+    assertTrue(compact.isCompact());
+    assertTrue(compact.findFieldForNameAndType("inner", JBBPFieldStruct.class).isCompact());
+    assertSameTree(expected, compact);
+    assertEquals(expected.getArray().length, compact.getArray().length);
+  }
+
+  @Test
+  public void testCompiledParserMakesCompactStructs() throws Exception {
+    final JBBPFieldStruct expected = JBBPParser.prepare(SCRIPT).parse(DATA);
+    final JBBPParser parser =
+        JBBPParser.prepare(SCRIPT, JBBPParser.FLAG_COMPACT_STRUCTS).compiled();
+    final JBBPFieldStruct compact = parser.parse(DATA);
+    assertTrue(compact.isCompact());
+    assertTrue(compact.findFieldForNameAndType("pairs", JBBPFieldArrayStruct.class)
+        .getElementAt(1).isCompact());
+    assertSameTree(expected, compact);
+    assertSameTree(expected, parser.parse(DATA));
+  }
+
+  @Test
+  public void testFindersInCompactStruct() throws Exception {
+    final JBBPParser parser = JBBPParser.prepare(SCRIPT, JBBPParser.FLAG_COMPACT_STRUCTS);
+    final JBBPFieldStruct compact = parser.parse(DATA);
+    assertEquals(5, compact.findFieldForNameAndType("b3", JBBPFieldBit.class).getAsInt());
+    assertEquals(JBBPBitNumber.BITS_3,
+        compact.findFieldForNameAndType("b3", JBBPFieldBit.class).getBitWidth());
+    assertTrue(compact.findFieldForNameAndType("flag", JBBPFieldBoolean.class).getAsBool());
+    assertEquals(-2, compact.findFieldForNameAndType("sb", JBBPFieldByte.class).getAsInt());
+    assertEquals(0xF0, compact.findFieldForNameAndType("ub", JBBPFieldUByte.class).getAsInt());
+    assertEquals(0xFFFE, compact.findFieldForNameAndType("us", JBBPFieldUShort.class).getAsInt());
+    assertEquals(0x12345678, compact.findFieldForType(JBBPFieldInt.class).getAsInt());
+    assertEquals(1.0f, compact.findFieldForNameAndType("f", JBBPFieldFloat.class).getAsFloat());
+    assertEquals(7L, compact.findFieldForNameAndType("l", JBBPFieldLong.class).getAsLong());
+    assertEquals(-2.0d,
+        compact.findFieldForNameAndType("d", JBBPFieldDouble.class).getAsDouble());
+    assertEquals("ab", compact.findFieldForNameAndType("str", JBBPFieldString.class)
+        .getAsString());
+    assertEquals(0x99, compact.findFieldForPathAndType("inner.a", JBBPFieldUByte.class)
+        .getAsInt());
+    assertEquals(0x0102, compact.findFieldForPathAndType("inner.b", JBBPFieldShort.class)
+        .getAsInt());
+    assertTrue(compact.pathExists("inner"));
+    assertTrue(compact.nameExists("us"));
+    assertEquals(0x0102, compact.getInt(parser.preparePath("inner.b")));
+    assertEquals(7L, compact.getLong(parser.preparePath("l")));
+    assertSame(compact.findFieldForName("ub"), compact.findFieldForName("ub"));
+    assertThrows(ArrayIndexOutOfBoundsException.class,
+        () -> compact.getFieldAt(compact.getFieldCount()));
+  }
+
+  @Test
+  public void testMapCompactStruct() throws Exception {
+    class Mapped {
+      @Bin(order = 1)
+      long l;
+      @Bin(order = 2)
+      short s;
+      @Bin(order = 3, name = "str")
+      String text;
+    }
+    final Mapped mapped = JBBPParser.prepare(SCRIPT, JBBPParser.FLAG_COMPACT_STRUCTS)
+        .parse(DATA).mapTo(new Mapped());
+    assertEquals(7L, mapped.l);
+    assertEquals((short) 0x8102, mapped.s);
+    assertEquals("ab", mapped.text);
+  }
+
+  @Test
+  public void testSerializeCompactStruct() throws Exception {
+    final JBBPFieldStruct compact = JBBPParser.prepare(SCRIPT, JBBPBitOrder.LSB0,
+        JBBPParser.FLAG_COMPACT_STRUCTS).parse(DATA);
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+      out.writeObject(compact);
+    }
+    final JBBPFieldStruct restored;
+    try (ObjectInputStream in =
+             new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+      restored = (JBBPFieldStruct) in.readObject();
+    }
+    assertTrue(restored.isCompact());
+    assertEquals(0xF0, restored.findFieldForNameAndType("ub", JBBPFieldUByte.class).getAsInt());
+    assertEquals(-2.0d,
+        restored.findFieldForNameAndType("d", JBBPFieldDouble.class).getAsDouble());
+  }
+
+  @Test
+  public void testMakeStruct() {
+    final JBBPAbstractField[] fields = new JBBPAbstractField[] {
+        new JBBPFieldUByte(NAME_A, (byte) 200), new JBBPFieldInt(NAME_B, -5),
+        new JBBPFieldString(null, "text")};
+    final JBBPCompactLayout layout = JBBPCompactLayout.of(fields);
+    assertEquals(3, layout.size());
+    assertTrue(layout.isCompatible(fields));
+
+    final JBBPFieldStruct first = layout.makeStruct(null, fields);
+    final JBBPFieldStruct second = layout.makeStruct(null, new JBBPAbstractField[] {
+        new JBBPFieldUByte(NAME_A, (byte) 200), new JBBPFieldInt(NAME_B, 1),
+        new JBBPFieldString(null, "other")});
+    assertTrue(first.isCompact());
+    assertEquals(3, first.getFieldCount());
+    assertEquals(200, ((JBBPFieldUByte) first.getFieldAt(0)).getAsInt());
+    assertEquals(-5, ((JBBPFieldInt) first.getFieldAt(1)).getAsInt());
+    assertSame(fields[2], first.getFieldAt(2));
+    assertSame(first.getFieldAt(0), second.getFieldAt(0));
+    assertNotSame(first.getFieldAt(1), second.getFieldAt(1));
+    assertEquals(1, ((JBBPFieldInt) second.getFieldAt(1)).getAsInt());
+
+    final JBBPFieldStruct shorter = layout.makeStruct(null, new JBBPAbstractField[] {
+        new JBBPFieldUByte(NAME_A, (byte) 1)});
+    assertTrue(shorter.isCompact());
+    assertEquals(1, shorter.getFieldCount());
+  }
+
+  @Test
+  public void testMakeStructForIncompatibleFields() {
+    final JBBPCompactLayout layout = JBBPCompactLayout.of(new JBBPAbstractField[] {
+        new JBBPFieldByte(NAME_A, (byte) 1), new JBBPFieldBit(NAME_B, 1, JBBPBitNumber.BITS_2)});
+
+    final JBBPAbstractField[] otherType = new JBBPAbstractField[] {
+        new JBBPFieldUByte(NAME_A, (byte) 1)};
+    final JBBPAbstractField[] otherName = new JBBPAbstractField[] {
+        new JBBPFieldByte(NAME_B, (byte) 1)};
+    final JBBPAbstractField[] otherBits = new JBBPAbstractField[] {
+        new JBBPFieldByte(NAME_A, (byte) 1), new JBBPFieldBit(NAME_B, 1, JBBPBitNumber.BITS_3)};
+    final JBBPFieldByte withPayload = new JBBPFieldByte(NAME_A, (byte) 1);
+    withPayload.setPayload(new FakePayload());
+
+    final JBBPAbstractField[] tooMany = new JBBPAbstractField[] {
+        new JBBPFieldByte(NAME_A, (byte) 1), new JBBPFieldBit(NAME_B, 1, JBBPBitNumber.BITS_2),
+        new JBBPFieldByte(null, (byte) 1)};
+
+    for (final JBBPAbstractField[] fields : new JBBPAbstractField[][] {otherType, otherName,
+        otherBits, {withPayload}, tooMany}) {
+      assertFalse(layout.isCompatible(fields));
+      final JBBPFieldStruct struct = layout.makeStruct(null, fields);
+      assertFalse(struct.isCompact());
+      assertSame(fields[0], struct.getFieldAt(0));
+    }
+  }
+}
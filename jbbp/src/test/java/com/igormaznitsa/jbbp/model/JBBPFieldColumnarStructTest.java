@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import org.junit.jupiter.api.Test;
+
+public class JBBPFieldColumnarStructTest {
+
+  private final JBBPFieldArrayInt columnA =
+      new JBBPFieldArrayInt(new JBBPNamedFieldInfo("test.a", "a", 1), new int[] {1, 2, 3});
+  private final JBBPFieldArrayByte columnB =
+      new JBBPFieldArrayByte(new JBBPNamedFieldInfo("test.b", "b", 2), new byte[] {4, 5, 6});
+  private final JBBPFieldColumnarStruct test =
+      new JBBPFieldColumnarStruct(new JBBPNamedFieldInfo("test", "test", 0), 3,
+          new JBBPAbstractArrayField<?>[] {columnA, columnB});
+
+  @Test
+  public void testWrongColumnLength() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new JBBPFieldColumnarStruct(null, 2, new JBBPAbstractArrayField<?>[] {columnA}));
+    assertThrows(NullPointerException.class, () -> new JBBPFieldColumnarStruct(null, 2, null));
+  }
+
+  @Test
+  public void testSizeAndColumns() {
+    assertEquals(3, test.size());
+    assertEquals(2, test.getColumns().length);
+    assertSame(columnA, test.findColumnForName("A"));
+    assertSame(columnB, test.findColumnForNameAndType("b", JBBPFieldArrayByte.class));
+    assertNull(test.findColumnForNameAndType("b", JBBPFieldArrayInt.class));
+    assertNull(test.findColumnForName("c"));
+    assertEquals("{} [3]", test.getTypeAsString());
+  }
+
+  @Test
+  public void testElements() {
+    int index = 0;
+    for (final JBBPFieldStruct element : test) {
+      assertEquals("test", element.getFieldPath());
+      assertEquals(index + 1, element.findFieldForNameAndType("a", JBBPFieldInt.class).getAsInt());
+      assertEquals(index + 4,
+          element.findFieldForNameAndType("b", JBBPFieldByte.class).getAsInt());
+      index++;
+    }
+    assertEquals(3, index);
+    assertEquals(3, ((JBBPFieldStruct[]) test.getValueArrayAsObject(false)).length);
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> test.getElementAt(3));
+  }
+
+  @Test
+  public void testFindColumnThroughStructPath() {
+    final JBBPFieldStruct root =
+        new JBBPFieldStruct(new JBBPNamedFieldInfo("", "", -1), new JBBPAbstractField[] {test});
+    assertSame(columnA, root.findFieldForPath("test.a"));
+  }
+}
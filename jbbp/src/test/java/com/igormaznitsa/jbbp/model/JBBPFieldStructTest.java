@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -45,6 +46,18 @@ public class JBBPFieldStructTest {
     assertEquals(2, struct.getArray().length);
   }
 
+  @Test
+  public void testGetFieldCountAndFieldAt() {
+    final JBBPFieldByte first = new JBBPFieldByte(null, (byte) 1);
+    final JBBPFieldByte second = new JBBPFieldByte(null, (byte) 2);
+    final JBBPFieldStruct struct =
+        new JBBPFieldStruct(null, new JBBPAbstractField[] {first, second});
+    assertEquals(2, struct.getFieldCount());
+    assertSame(first, struct.getFieldAt(0));
+    assertSame(second, struct.getFieldAt(1));
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> struct.getFieldAt(2));
+  }
+
   @Test
   public void testConstructor_Name_Fields() {
     final JBBPFieldStruct struct =
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.igormaznitsa.jbbp.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+public class JBBPClassCacheTest {
+
+  @Test
+  public void testPutGetClear() {
+    final JBBPClassCache<String> cache = new JBBPClassCache<>();
+    assertNull(cache.get(String.class));
+    assertEquals(0, cache.size());
+
+    final String value = "string";
+    cache.put(String.class, value);
+    cache.put(Integer.class, "integer");
+    assertSame(value, cache.get(String.class));
+    assertEquals("integer", cache.get(Integer.class));
+    assertNull(cache.get(Long.class));
+    assertEquals(2, cache.size());
+
+    cache.put(String.class, "replaced");
+    assertEquals("replaced", cache.get(String.class));
+    assertEquals(2, cache.size());
+
+    cache.clear();
+    assertNull(cache.get(String.class));
+    assertEquals(0, cache.size());
+  }
+}